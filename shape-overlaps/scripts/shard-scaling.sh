@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+# 한 머신에서 워커 프로세스 여러 개와 코디네이터를 띄우고, ShapesOverlapsSharded의 확장 효율을 워커 수별로 측정합니다.
+# 워커는 BASE_PORT+1부터, 코디네이터는 BASE_PORT에서 실행되며 스크립트가 끝나면 모두 종료됩니다.
+#
+# 사용 예:
+#   ./gradlew bootJar
+#   WORKERS=4 scripts/shard-scaling.sh "java -Xmx1g -jar build/libs/shape-overlaps-0.0.1-SNAPSHOT.jar"
+set -euo pipefail
+
+CMD=${1:?"실행 명령을 지정하세요. (예: java -jar build/libs/shape-overlaps-0.0.1-SNAPSHOT.jar)"}
+WORKERS=${WORKERS:-4}
+BASE_PORT=${BASE_PORT:-8080}
+QUERY=${QUERY:-"Action=ShapesOverlapsSharded&Width=40000&Height=40000&RadiusMax=20&HowMany=4000000&MaxEdges=8&Seed=1&Shards=16&TimeoutMs=120000"}
+
+pids=()
+cleanup() {
+    kill "${pids[@]}" 2>/dev/null || true
+    wait 2>/dev/null || true
+}
+trap cleanup EXIT
+
+worker_urls=()
+for i in $(seq 1 "$WORKERS"); do
+    port=$((BASE_PORT + i))
+    $CMD --server.port="$port" > "/tmp/shard-worker-$port.log" 2>&1 &
+    pids+=($!)
+    worker_urls+=("http://localhost:$port")
+done
+$CMD --server.port="$BASE_PORT" --shapes.shard.workers="$(IFS=,; echo "${worker_urls[*]}")" \
+    > /tmp/shard-coordinator.log 2>&1 &
+pids+=($!)
+
+for port in $(seq "$BASE_PORT" $((BASE_PORT + WORKERS))); do
+    until curl -s "http://localhost:$port/actuator/health/readiness" | grep -q UP; do
+        sleep 0.2
+    done
+done
+
+printf '%8s %12s %12s %10s %11s\n' "workers" "wall(ms)" "serial(ms)" "speedup" "efficiency"
+workers=1
+while [ "$workers" -le "$WORKERS" ]; do
+    response=$(curl -s "http://localhost:$BASE_PORT/api?$QUERY&Workers=$workers")
+    field() { echo "$response" | grep -o "\"$1\":[0-9.]*" | head -1 | cut -d: -f2; }
+    printf '%8d %12s %12s %10s %11s\n' "$workers" "$(field wallMillis)" "$(field serialMillis)" \
+        "$(field speedup)" "$(field efficiency)"
+    workers=$((workers * 2))
+done
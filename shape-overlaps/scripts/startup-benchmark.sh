@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# 서로 다른 실행 방식(plain JAR, AppCDS, 네이티브 이미지)의 기동 시간과 첫 요청 지연 시간을 비교합니다.
+# 각 명령을 실행한 뒤 /api가 응답할 때까지의 시간과, 첫 ShapesOverlaps 요청의 응답 시간을 출력합니다.
+#
+# 사용 예:
+#   ./gradlew bootJar cdsArchive nativeCompile
+#   scripts/startup-benchmark.sh \
+#       "jar=java -jar build/libs/shape-overlaps-0.0.1-SNAPSHOT.jar" \
+#       "cds=java @build/cds/run.args" \
+#       "native=build/native/nativeCompile/shape-overlaps"
+set -euo pipefail
+
+PORT=${PORT:-8080}
+RUNS=${RUNS:-3}
+QUERY="Action=ShapesOverlaps&Width=1200&Height=800&RadiusMax=50&HowMany=500&MaxEdges=15"
+
+now_ms() { date +%s%3N; }
+
+printf '%-10s %5s %15s %20s\n' "variant" "run" "startup(ms)" "first-request(ms)"
+for spec in "$@"; do
+    name=${spec%%=*}
+    cmd=${spec#*=}
+    for run in $(seq 1 "$RUNS"); do
+        start=$(now_ms)
+        $cmd --server.port="$PORT" > "/tmp/startup-benchmark-$name.log" 2>&1 &
+        pid=$!
+        until curl -s -o /dev/null "http://localhost:$PORT/api"; do
+            sleep 0.02
+        done
+        ready=$(now_ms)
+        curl -s -o /dev/null "http://localhost:$PORT/api?$QUERY"
+        first=$(now_ms)
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+        printf '%-10s %5d %15d %20d\n' "$name" "$run" $((ready - start)) $((first - ready))
+    done
+done
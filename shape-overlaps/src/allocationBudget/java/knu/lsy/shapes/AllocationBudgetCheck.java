@@ -0,0 +1,187 @@
+package knu.lsy.shapes;
+
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.LongSupplier;
+
+/**
+ * 할당 예산 검사: 시드를 고정한 ShapeGenerator 작업을 실행하여 도형 하나 또는 정밀 검사 하나당 할당 바이트를
+ * ThreadMXBean#getThreadAllocatedBytes로 측정하고, 예산 파일(allocation-budgets.properties)의 값을 넘는 항목이 있으면
+ * 종료 코드 1로 실패합니다. Gradle의 allocationBudget 태스크가 이 검사를 실행하며 check에 포함됩니다.
+ *
+ * 할당량은 실행 중인 스레드 하나만 측정하므로, 광역 단계가 스레드를 나누지 않도록 -XX:ActiveProcessorCount=1로 실행하고
+ * 광역 단계는 grid로 고정합니다. 각 작업은 JIT 컴파일(이스케이프 분석)이 반영되도록 먼저 반복 실행한 뒤 측정값 중 최솟값을 사용합니다.
+ *
+ * 사용법: AllocationBudgetCheck <예산 파일>
+ */
+public final class AllocationBudgetCheck {
+    private static final long SEED = 42;
+    private static final int WIDTH = 2000;
+    private static final int HEIGHT = 2000;
+    private static final int RADIUS_MAX = 50;
+    private static final int HOW_MANY = 5000;
+    private static final int MAX_EDGES = 12;
+    private static final int PAIR_SHAPES = 2000; // 정밀 검사 작업에 사용할 도형 수
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final int MEASURE_ITERATIONS = 5;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // JIT가 결과를 쓰지 않는 호출을 제거하지 못하도록 결과를 모아 두는 값
+    private static volatile long sink;
+
+    private AllocationBudgetCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("사용법: AllocationBudgetCheck <예산 파일>");
+            System.exit(2);
+        }
+        Properties budgets = new Properties();
+        try (Reader reader = Files.newBufferedReader(Path.of(args[0]))) {
+            budgets.load(reader);
+        }
+
+        Map<String, Double> measured = new LinkedHashMap<>();
+        measured.put("generate.bytesPerShape", bytesPerUnit(() -> {
+            ShapeGenerator generator = newGenerator();
+            for (int i = 0; i < HOW_MANY; i++) {
+                sink += generator.createRandomShapeIn(RADIUS_MAX, RADIUS_MAX, WIDTH - 2 * RADIUS_MAX,
+                        HEIGHT - 2 * RADIUS_MAX, RADIUS_MAX, MAX_EDGES).getId().length();
+            }
+            return HOW_MANY;
+        }));
+        measured.put("summarizeShapes.bytesPerShape", bytesPerUnit(() -> {
+            sink += newGenerator().summarizeShapes(WIDTH, HEIGHT, RADIUS_MAX, HOW_MANY, MAX_EDGES).length();
+            return HOW_MANY;
+        }));
+        measured.put("generateShapes.bytesPerShape", bytesPerUnit(() -> {
+            sink += newGenerator().generateShapes(WIDTH, HEIGHT, RADIUS_MAX, HOW_MANY, MAX_EDGES).length();
+            return HOW_MANY;
+        }));
+        measured.put("summarizeShapesFixed.bytesPerShape", bytesPerUnit(() -> {
+            sink += newGenerator().summarizeShapesFixed(WIDTH, HEIGHT, RADIUS_MAX, HOW_MANY, MAX_EDGES).length();
+            return HOW_MANY;
+        }));
+        measured.put("generateShapesFixed.bytesPerShape", bytesPerUnit(() -> {
+            sink += newGenerator().generateShapesFixed(WIDTH, HEIGHT, RADIUS_MAX, HOW_MANY, MAX_EDGES).length();
+            return HOW_MANY;
+        }));
+        try (CompactScene scene = newGenerator().generateCompactScene(WIDTH, HEIGHT, RADIUS_MAX, HOW_MANY, MAX_EDGES, null)) {
+            ShapeGenerator generator = newGenerator();
+            measured.put("groupCompactScene.bytesPerShape", bytesPerUnit(() -> {
+                try (UnionFind unionFind = generator.groupCompactScene(scene)) {
+                    sink += unionFind.find(0);
+                }
+                return HOW_MANY;
+            }));
+        }
+
+        // 정밀 검사: 경계원이 닿는 모든 쌍에 대해 Shape.overlaps와 CompactScene.overlaps를 호출
+        List<Shape> shapes = new ArrayList<>(PAIR_SHAPES);
+        ShapeGenerator generator = newGenerator();
+        CompactScene.Builder builder = new CompactScene.Builder(PAIR_SHAPES, PAIR_SHAPES * (3 + MAX_EDGES) / 2);
+        for (int i = 0; i < PAIR_SHAPES; i++) {
+            Shape shape = generator.createRandomShapeIn(RADIUS_MAX, RADIUS_MAX, WIDTH - 2 * RADIUS_MAX,
+                    HEIGHT - 2 * RADIUS_MAX, RADIUS_MAX, MAX_EDGES);
+            shapes.add(shape);
+            builder.add(shape, 0);
+        }
+        int[] pairs = touchingPairs(shapes);
+        measured.put("overlaps.double.bytesPerPairTest", bytesPerUnit(() -> {
+            long hits = 0;
+            for (int k = 0; k < pairs.length; k += 2) {
+                if (shapes.get(pairs[k]).overlaps(shapes.get(pairs[k + 1]))) {
+                    hits++;
+                }
+            }
+            sink += hits;
+            return pairs.length / 2;
+        }));
+        try (CompactScene scene = builder.build()) {
+            measured.put("overlaps.fixed.bytesPerPairTest", bytesPerUnit(() -> {
+                long hits = 0;
+                for (int k = 0; k < pairs.length; k += 2) {
+                    if (scene.overlaps(pairs[k], pairs[k + 1])) {
+                        hits++;
+                    }
+                }
+                sink += hits;
+                return pairs.length / 2;
+            }));
+        }
+
+        boolean failed = false;
+        System.out.printf("%-40s %14s %14s%n", "workload", "measured", "budget");
+        for (Map.Entry<String, Double> entry : measured.entrySet()) {
+            String budget = budgets.getProperty(entry.getKey());
+            String status;
+            if (budget == null) {
+                status = "NO BUDGET";
+                failed = true;
+            } else if (entry.getValue() > Double.parseDouble(budget)) {
+                status = "OVER BUDGET";
+                failed = true;
+            } else {
+                status = "ok";
+            }
+            System.out.printf("%-40s %14.1f %14s  %s%n", entry.getKey(), entry.getValue(),
+                    budget == null ? "-" : budget, status);
+        }
+        if (failed) {
+            System.err.println("할당 예산을 초과했거나 예산이 없는 작업이 있습니다. 할당이 늘어난 원인을 확인하거나, "
+                    + "의도한 변경이면 " + args[0] + "의 예산을 갱신하세요.");
+            System.exit(1);
+        }
+    }
+
+    // 시드를 고정하고 광역 단계를 grid로 고정한 생성기 (매번 같은 도형 배치와 같은 광역 단계)
+    private static ShapeGenerator newGenerator() {
+        ShapeGenerator generator = new ShapeGenerator(SEED);
+        generator.setBroadPhase(BroadPhase.GRID);
+        return generator;
+    }
+
+    // 작업을 반복 실행하여 단위(도형, 정밀 검사) 하나당 할당 바이트의 최솟값을 반환합니다. (workload는 단위 수를 반환)
+    private static double bytesPerUnit(LongSupplier workload) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            workload.getAsLong();
+        }
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            long before = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+            long units = workload.getAsLong();
+            long allocated = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - before;
+            best = Math.min(best, (double) allocated / units);
+        }
+        return best;
+    }
+
+    // 경계원이 닿는 쌍 {i0, j0, i1, j1, ...}
+    private static int[] touchingPairs(List<Shape> shapes) {
+        List<Integer> pairs = new ArrayList<>();
+        for (int i = 0; i < shapes.size(); i++) {
+            Shape a = shapes.get(i);
+            for (int j = i + 1; j < shapes.size(); j++) {
+                Shape b = shapes.get(j);
+                double dx = a.getCenter().getX() - b.getCenter().getX();
+                double dy = a.getCenter().getY() - b.getCenter().getY();
+                double reach = a.getRadius() + b.getRadius();
+                if (dx * dx + dy * dy <= reach * reach) {
+                    pairs.add(i);
+                    pairs.add(j);
+                }
+            }
+        }
+        return pairs.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
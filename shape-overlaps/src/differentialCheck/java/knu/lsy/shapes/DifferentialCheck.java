@@ -0,0 +1,642 @@
+package knu.lsy.shapes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 차등 정확성 검사: 시드로 만든 무작위 장면과 경계 사례 장면(맞닿은 도형, 포함된 도형, 중복 도형, 크기 편차가 큰 도형,
+ * 겹치지 않게 빽빽이 채운 도형, 오목 다각형)에서
+ * 최적화된 그룹화 경로의 결과를 모든 쌍을 정밀 검사하는 기준 결과와 분할 단위로 정확히 비교합니다.
+ * 하나라도 다르면 장면 종류, 장면 시드, 경로, 첫 번째로 다른 도형을 출력하고 종료 코드 1로 실패합니다.
+ * Gradle의 check 태스크가 differentialCheck 태스크로 이 검사를 실행합니다.
+ * 세 번째 인자로 throughput을 주면 기준 대비 처리량도 출력합니다. (기계에 따라 다르므로 performanceCheck 태스크에서만 사용)
+ *
+ * 기준 결과는 광역 단계 없이 모든 쌍에 Shape.overlaps(double 경로)와 CompactScene.overlaps(고정소수점 경로)를 호출하여 만들며,
+ * 각 경로는 같은 정밀도의 기준과 비교합니다. (두 정밀도는 사실상 맞닿은 쌍에서 달라질 수 있으므로 그 차이는 정보로만 출력)
+ * - 쌍 속성: overlaps(a, b) == overlaps(b, a), 스칼라 투영 커널 == 벡터 투영 커널 (모듈이 있을 때)
+ * - 분할 비교: 광역 단계 brute/grid/sweep/quadtree x (계획한 스레드 수, PARALLEL_THREADS개 고정) x (double, fixed),
+ *   벡터 커널의 grid, ShapeStreams 컬렉터(순차/병렬)
+ * - 근사(Accuracy=circle, kdop): 정확한 분할의 그룹이 모두 근사 분할의 한 그룹 안에 있어야 함 (과병합만 허용)
+ * - Layout=disjoint로 채운 장면(packed): 두 정밀도의 기준 분할 모두 겹침 그룹이 없어야 함
+ * - 오목 다각형 장면(concave): 오목 다각형이 포함된 쌍은 볼록 분해를 쓰지 않는 독립 판정(변 교차와 포함, 원은 외곽선 규칙)과
+ *   두 정밀도의 판정이 모두 같아야 함
+ *
+ * 사용법: DifferentialCheck [시드] [장면 수] [throughput]
+ */
+public final class DifferentialCheck {
+    private static final long DEFAULT_SEED = 1;
+    private static final int DEFAULT_SCENES = 48;
+    private static final int MIN_SHAPES = 50;
+    private static final int MAX_SHAPES = 600;
+    private static final int PARALLEL_THREADS = 4;
+    private static final int STREAM_SHAPES = 6000; // ShapeStreams가 병렬로 나누어지는 크기
+    private static final int THROUGHPUT_SHAPES = 20_000;
+    private static final int THROUGHPUT_ITERATIONS = 3;
+    private static final int MAX_REPORTED_FAILURES = 20;
+
+    private static final String[] STRATEGIES = {BroadPhase.BRUTE, BroadPhase.GRID, BroadPhase.SWEEP, BroadPhase.QUADTREE};
+    private static final String[] SCENE_KINDS = {"random", "dense", "touching", "nested", "duplicates", "mixedScale",
+            "packed", "concave"};
+    private static final int[] KDOP_KS = {4, 8, 16};
+
+    private static final List<String> failures = new ArrayList<>();
+    private static int checkedScenes;
+    private static long checkedPairs;
+    private static long precisionDifferences; // double과 fixed의 판정이 다른 쌍 (정보)
+
+    private DifferentialCheck() {
+    }
+
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_SEED;
+        int scenes = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SCENES;
+        boolean throughput = args.length > 2 && args[2].equals("throughput");
+        System.out.println("투영 커널: " + ProjectionKernels.getActiveName()
+                + (ProjectionKernels.isVectorAvailable() ? " (벡터 커널 비교 포함)" : " (벡터 커널 없음, 스칼라만 검사)"));
+
+        for (int s = 0; s < scenes; s++) {
+            String kind = SCENE_KINDS[s % SCENE_KINDS.length];
+            long sceneSeed = ShapeStreams.shapeSeed(seed, s);
+            checkScene(kind, sceneSeed, buildScene(kind, new Random(sceneSeed)));
+        }
+        checkStreams(seed);
+        System.out.printf("장면 %d개, 정밀 검사한 쌍 %d개, double/fixed 판정이 다른 쌍 %d개 (정보)%n",
+                checkedScenes, checkedPairs, precisionDifferences);
+
+        if (throughput) {
+            reportThroughput(seed);
+        }
+
+        if (!failures.isEmpty()) {
+            System.err.println("차등 검사 실패 " + failures.size() + "건 (재현: DifferentialCheck " + seed + " " + scenes + ")");
+            for (String failure : failures.subList(0, Math.min(MAX_REPORTED_FAILURES, failures.size()))) {
+                System.err.println("  " + failure);
+            }
+            System.exit(1);
+        }
+        System.out.println("차등 검사 통과");
+    }
+
+    // 장면 하나를 모든 경로로 그룹화하여 기준 분할과 비교
+    private static void checkScene(String kind, long sceneSeed, List<Shape> shapes) {
+        String scene = kind + " seed=" + sceneSeed + " n=" + shapes.size();
+        int n = shapes.size();
+        CompactScene.Builder builder = new CompactScene.Builder(n, n * 8);
+        for (Shape shape : shapes) {
+            builder.add(shape, 0);
+        }
+        try (CompactScene compact = builder.build()) {
+            int[][] references = referencePartitions(scene, shapes, compact);
+            int[] doubleReference = references[0];
+            int[] fixedReference = references[1];
+            if (kind.equals("packed")) {
+                checkDisjoint(scene, "double", doubleReference);
+                checkDisjoint(scene, "fixed", fixedReference);
+            }
+            if (kind.equals("concave")) {
+                checkConcave(scene, shapes, compact);
+            }
+
+            for (String strategy : STRATEGIES) {
+                for (int threads : new int[]{0, PARALLEL_THREADS}) {
+                    String suffix = strategy + (threads > 0 ? "/x" + threads : "");
+                    ShapeGenerator generator = newGenerator(strategy, threads);
+                    compare(scene, "double/" + suffix, doubleReference, labels(generator.groupShapes(shapes)));
+                    compare(scene, "fixed/" + suffix, fixedReference, labels(generator.groupCompactScene(compact)));
+                }
+            }
+            if (ProjectionKernels.isVectorAvailable()) {
+                ProjectionKernels.setMode(ProjectionKernels.MODE_VECTOR);
+                try {
+                    compare(scene, "double/grid/vector", doubleReference,
+                            labels(newGenerator(BroadPhase.GRID, 0).groupShapes(shapes)));
+                } finally {
+                    ProjectionKernels.setMode(ProjectionKernels.MODE_SCALAR);
+                }
+            }
+
+            checkCoarsening(scene, "double/circle", doubleReference, shapes, null,
+                    new Approximation(Approximation.CIRCLE, 0, 1));
+            checkCoarsening(scene, "fixed/circle", fixedReference, null, compact,
+                    new Approximation(Approximation.CIRCLE, 0, 1));
+            for (int k : KDOP_KS) {
+                Approximation kdop = new Approximation(Approximation.KDOP, k, 1);
+                checkCoarsening(scene, "double/kdop" + k, doubleReference, shapes, null, kdop);
+                checkCoarsening(scene, "fixed/kdop" + k, fixedReference, null, compact, kdop);
+            }
+        }
+        checkedScenes++;
+    }
+
+    /**
+     * 모든 쌍을 광역 단계 없이 정밀 검사한 기준 분할 {double, fixed}. 검사하면서 대칭성과 커널 일치도 확인합니다.
+     * 기준은 스칼라 커널로 계산합니다.
+     */
+    private static int[][] referencePartitions(String scene, List<Shape> shapes, CompactScene compact) {
+        int n = shapes.size();
+        boolean vector = ProjectionKernels.isVectorAvailable();
+        ProjectionKernels.setMode(ProjectionKernels.MODE_SCALAR);
+        try (UnionFind doubleSets = new UnionFind(n); UnionFind fixedSets = new UnionFind(n)) {
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    boolean overlaps = shapes.get(i).overlaps(shapes.get(j));
+                    if (overlaps != shapes.get(j).overlaps(shapes.get(i))) {
+                        fail(scene, "Shape.overlaps 대칭성", "(" + i + ", " + j + ") " + pair(shapes, i, j));
+                    }
+                    if (vector) {
+                        ProjectionKernels.setMode(ProjectionKernels.MODE_VECTOR);
+                        boolean vectorOverlaps = shapes.get(i).overlaps(shapes.get(j));
+                        ProjectionKernels.setMode(ProjectionKernels.MODE_SCALAR);
+                        if (vectorOverlaps != overlaps) {
+                            fail(scene, "벡터 커널", "(" + i + ", " + j + ") scalar=" + overlaps + " vector=" + vectorOverlaps);
+                        }
+                    }
+                    boolean fixedOverlaps = compact.overlaps(i, j);
+                    if (fixedOverlaps != compact.overlaps(j, i)) {
+                        fail(scene, "CompactScene.overlaps 대칭성", "(" + i + ", " + j + ") " + pair(shapes, i, j));
+                    }
+                    if (fixedOverlaps != overlaps) {
+                        precisionDifferences++;
+                    }
+                    if (overlaps) {
+                        doubleSets.union(i, j);
+                    }
+                    if (fixedOverlaps) {
+                        fixedSets.union(i, j);
+                    }
+                }
+            }
+            checkedPairs += (long) n * (n - 1) / 2;
+            return new int[][]{labels(doubleSets), labels(fixedSets)};
+        }
+    }
+
+    // 근사 분할이 기준 분할을 포함하는지 (기준 그룹의 모든 도형이 대표 도형과 같은 근사 그룹에 있는지) 확인
+    private static void checkCoarsening(String scene, String engine, int[] reference, List<Shape> shapes,
+                                        CompactScene compact, Approximation approximation) {
+        ShapeGenerator generator = newGenerator(BroadPhase.GRID, 0);
+        generator.setApproximation(approximation);
+        int[] approximate = labels(shapes != null ? generator.groupShapes(shapes) : generator.groupCompactScene(compact));
+        for (int i = 0; i < reference.length; i++) {
+            if (approximate[i] != approximate[reference[i]]) {
+                fail(scene, engine, "정확한 그룹을 나눔: 도형 " + i + "와 " + reference[i] + "가 다른 근사 그룹");
+                return;
+            }
+        }
+    }
+
+    // ShapeStreams의 순차/병렬 컬렉터를 고정소수점 brute 경로(위 장면들에서 기준과 비교한 경로)와 비교
+    private static void checkStreams(long seed) {
+        String scene = "stream seed=" + seed + " n=" + STREAM_SHAPES;
+        int width = 30 * (int) Math.sqrt(STREAM_SHAPES) * 2;
+        Supplier<Stream<Shape>> stream = () -> ShapeStreams.shapes(seed, width, width, 30, STREAM_SHAPES, 10);
+
+        List<Shape> shapes = stream.get().toList();
+        CompactScene.Builder builder = new CompactScene.Builder(shapes.size(), shapes.size() * 8);
+        shapes.forEach(shape -> builder.add(shape, 0));
+        int[] reference;
+        try (CompactScene compact = builder.build()) {
+            reference = labels(newGenerator(BroadPhase.BRUTE, 0).groupCompactScene(compact));
+        }
+        compare(scene, "stream/sequential", reference, labels(stream.get().collect(ShapeStreams.groupingOverlaps())));
+        compare(scene, "stream/parallel", reference,
+                labels(stream.get().parallel().collect(ShapeStreams.groupingOverlaps())));
+    }
+
+    private static void compare(String scene, String engine, int[] reference, int[] actual) {
+        for (int i = 0; i < reference.length; i++) {
+            if (reference[i] != actual[i]) {
+                fail(scene, engine, "도형 " + i + ": 기준 그룹 대표 " + reference[i] + ", 결과 " + actual[i]);
+                return;
+            }
+        }
+    }
+
+    private static void fail(String scene, String engine, String detail) {
+        failures.add("[" + scene + "] " + engine + " - " + detail);
+    }
+
+    private static String pair(List<Shape> shapes, int i, int j) {
+        return shapes.get(i).toJSON() + " / " + shapes.get(j).toJSON();
+    }
+
+    // 분할의 표준형: 도형마다 같은 집합에서 가장 작은 도형 인덱스 (Union-Find는 여기서 닫음)
+    private static int[] labels(UnionFind unionFind) {
+        try (unionFind) {
+            int n = unionFind.size();
+            int[] first = new int[n];
+            Arrays.fill(first, -1);
+            int[] labels = new int[n];
+            for (int i = 0; i < n; i++) {
+                int root = unionFind.find(i);
+                if (first[root] < 0) {
+                    first[root] = i;
+                }
+                labels[i] = first[root];
+            }
+            return labels;
+        }
+    }
+
+    private static int[] labels(OverlapGroups groups) {
+        int[] labels = new int[groups.size()];
+        for (int i = 0; i < labels.length; i++) {
+            int group = groups.getGroup(i);
+            labels[i] = group < 0 ? i : groups.getMembers(group)[0];
+        }
+        return labels;
+    }
+
+    private static ShapeGenerator newGenerator(String strategy, int threads) {
+        ShapeGenerator generator = new ShapeGenerator();
+        generator.setBroadPhase(strategy);
+        generator.setForcedThreads(threads);
+        return generator;
+    }
+
+    // 장면 종류별 도형 목록
+    private static List<Shape> buildScene(String kind, Random random) {
+        int n = MIN_SHAPES + random.nextInt(MAX_SHAPES - MIN_SHAPES + 1);
+        int radiusMax = 11 + random.nextInt(50);
+        int maxEdges = 3 + random.nextInt(14);
+        List<Shape> shapes = new ArrayList<>(n);
+        switch (kind) {
+            case "dense":
+                addRandom(shapes, random, n, radiusMax, maxEdges, 0.8);
+                break;
+            case "touching":
+                addRandom(shapes, random, n / 2, radiusMax, maxEdges, 2.5);
+                addTouching(shapes, random, n - shapes.size());
+                break;
+            case "nested":
+                addRandom(shapes, random, n / 2, radiusMax, maxEdges, 2.5);
+                addNested(shapes, random, n - shapes.size(), maxEdges);
+                break;
+            case "duplicates":
+                addDuplicates(shapes, random, n, radiusMax, maxEdges);
+                break;
+            case "mixedScale":
+                addMixedScale(shapes, random, n, maxEdges);
+                break;
+            case "packed":
+                addPacked(shapes, random, n, radiusMax, maxEdges);
+                break;
+            case "concave":
+                addConcave(shapes, random, n, radiusMax, maxEdges);
+                break;
+            default:
+                addRandom(shapes, random, n, radiusMax, maxEdges, 2.5);
+                break;
+        }
+        return shapes;
+    }
+
+    /**
+     * LayoutSampler의 disjoint 배치로 캔버스가 가득 찰 때까지 채운 도형 (최대 count개).
+     * 도형끼리 틈이 SEPARATION_MARGIN 수준으로 좁은 쌍이 많아 정밀도 경계를 검사하기 좋습니다.
+     */
+    private static void addPacked(List<Shape> shapes, Random random, int count, int radiusMax, int maxEdges) {
+        int side = (int) Math.max(4 * radiusMax, Math.sqrt(count) * radiusMax * 1.2);
+        LayoutSampler sampler = new LayoutSampler(Layout.DISJOINT_LAYOUT, random, side, side, radiusMax, count, maxEdges);
+        for (Shape shape = sampler.next(); shape != null; shape = sampler.next()) {
+            shapes.add(shape);
+        }
+    }
+
+    // disjoint 배치 장면의 기준 분할에 2개 이상인 그룹이 없는지 확인
+    private static void checkDisjoint(String scene, String precision, int[] reference) {
+        for (int i = 0; i < reference.length; i++) {
+            if (reference[i] != i) {
+                fail(scene, precision + "/disjoint", "겹치지 않게 놓은 도형이 겹침: " + i + " - " + reference[i]);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 오목 다각형 장면: 일반다각형을 오목 다각형으로 만든 생성기 분포의 촘촘한 도형 절반과,
+     * 서로 맞물린 빗 모양 다각형 쌍(홈에 2픽셀 틈을 두거나 2픽셀 겹치게) 및 홈과 이빨 안팎의 작은 도형 나머지 절반.
+     * 빗 모양은 정수 좌표이고 틈과 겹침이 2픽셀 이상이므로 두 정밀도의 판정이 같아야 합니다.
+     */
+    private static void addConcave(List<Shape> shapes, Random random, int count, int radiusMax, int maxEdges) {
+        int edges = Math.max(maxEdges, 8);
+        double side = Math.max(4 * radiusMax, Math.sqrt(count / 2.0) * radiusMax * 1.5);
+        for (int i = 0; i < count / 2; i++) {
+            shapes.add(ShapeGenerator.createRandomShapeIn(random, radiusMax, radiusMax, side - 2 * radiusMax,
+                    side - 2 * radiusMax, radiusMax, edges, true));
+        }
+        double originY = 30_000;
+        while (shapes.size() < count) {
+            int x = 100 + random.nextInt(5000);
+            int y = (int) originY + random.nextInt(5000);
+            int teeth = 2 + random.nextInt(4);
+            int tooth = 6 + random.nextInt(20);
+            int gap = 10 + random.nextInt(20);
+            int base = 6 + random.nextInt(20);
+            int depth = 20 + random.nextInt(60);
+            shapes.add(comb(x, y, 1, teeth, tooth, gap, base, depth));
+            // 홈마다 2픽셀 틈을 두고 끼운 아래 방향 빗 (절반은 4픽셀 내려 위쪽 빗의 몸통과 2픽셀 겹침)
+            int shift = random.nextBoolean() ? 0 : 4;
+            shapes.add(comb(x + tooth + 2, y + 2 * base + depth + 2 - shift, -1, teeth - 1, gap - 4, tooth + 4, base, depth));
+
+            // 위쪽 빗의 첫 이빨 안의 다각형(겹침), 몸통 안의 원(외곽선에 닿지 않으므로 겹치지 않음), 이빨 끝에 걸친 정사각형(겹침)
+            double toothX = x + tooth / 2.0;
+            shapes.add(new IrregularPolygon(new Point(toothX, y + base + depth / 2.0), Math.max(1, tooth / 2.0 - 2), 3 + random.nextInt(6), random));
+            shapes.add(new Circle(new Point(x + tooth / 2.0, y + base / 2.0), Math.max(1, Math.min(tooth, base) / 2.0 - 2)));
+            shapes.add(new RegularPolygon(new Point(toothX, y + base + depth), 3 * Math.sqrt(2), 4, Math.PI / 4));
+        }
+    }
+
+    /**
+     * 빗 모양 다각형: 높이 base의 몸통 위로 너비 tooth, 높이 depth인 이빨 teeth개가 간격 gap으로 늘어선 모양.
+     * 몸통 왼쪽 아래가 (x, y)이고, direction이 -1이면 y축으로 뒤집어 이빨이 아래(y 감소 방향)를 향합니다. (정점은 시계 방향이 됨)
+     */
+    private static ConcavePolygon comb(int x, int y, int direction, int teeth, int tooth, int gap, int base, int depth) {
+        int length = teeth * tooth + (teeth - 1) * gap;
+        List<Point> vertices = new ArrayList<>();
+        vertices.add(new Point(x, y));
+        vertices.add(new Point(x + length, y));
+        for (int t = teeth - 1; t >= 0; t--) {
+            int left = x + t * (tooth + gap);
+            vertices.add(new Point(left + tooth, y + direction * (base + depth)));
+            vertices.add(new Point(left, y + direction * (base + depth)));
+            if (t > 0) {
+                vertices.add(new Point(left, y + direction * base));
+                vertices.add(new Point(left - gap, y + direction * base));
+            }
+        }
+        return new ConcavePolygon(vertices);
+    }
+
+    // 오목 다각형이 포함된 쌍마다 독립 판정과 double/fixed 판정을 비교
+    private static void checkConcave(String scene, List<Shape> shapes, CompactScene compact) {
+        int n = shapes.size();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                Shape a = shapes.get(i);
+                Shape b = shapes.get(j);
+                if (!(a instanceof ConcavePolygon) && !(b instanceof ConcavePolygon)) {
+                    continue;
+                }
+                boolean expected = independentOverlaps(a, b);
+                if (a.overlaps(b) != expected) {
+                    fail(scene, "double/concave", "(" + i + ", " + j + ") expected=" + expected + " " + pair(shapes, i, j));
+                }
+                if (compact.overlaps(i, j) != expected) {
+                    fail(scene, "fixed/concave", "(" + i + ", " + j + ") expected=" + expected + " " + pair(shapes, i, j));
+                }
+            }
+        }
+    }
+
+    /**
+     * 볼록 분해 없이 외곽선만으로 계산한 겹침. (원끼리는 쓰지 않음)
+     * 원-다각형: 정점이 원 안에 있거나 변이 원과 만나면 겹침 (Circle.overlaps와 같은 규칙)
+     * 다각형-다각형: 변끼리 만나거나(맞닿음 포함), 만나지 않으면 한쪽이 다른 쪽 안에 있을 때 겹침
+     */
+    private static boolean independentOverlaps(Shape a, Shape b) {
+        if (b instanceof Circle) {
+            Shape t = a;
+            a = b;
+            b = t;
+        }
+        List<Point> polygon = b.getVertices();
+        if (a instanceof Circle) {
+            Point c = a.getCenter();
+            double r = a.getRadius();
+            for (int k = 0; k < polygon.size(); k++) {
+                if (segmentDistance(c, polygon.get(k), polygon.get((k + 1) % polygon.size())) <= r) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        List<Point> other = a.getVertices();
+        for (int k = 0; k < other.size(); k++) {
+            for (int m = 0; m < polygon.size(); m++) {
+                if (segmentsIntersect(other.get(k), other.get((k + 1) % other.size()),
+                        polygon.get(m), polygon.get((m + 1) % polygon.size()))) {
+                    return true;
+                }
+            }
+        }
+        return contains(polygon, other.get(0)) || contains(other, polygon.get(0));
+    }
+
+    private static double segmentDistance(Point c, Point p, Point q) {
+        double dx = q.getX() - p.getX();
+        double dy = q.getY() - p.getY();
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq == 0 ? 0
+                : Math.max(0, Math.min(1, ((c.getX() - p.getX()) * dx + (c.getY() - p.getY()) * dy) / lengthSq));
+        return Math.hypot(p.getX() + t * dx - c.getX(), p.getY() + t * dy - c.getY());
+    }
+
+    private static boolean segmentsIntersect(Point p1, Point p2, Point q1, Point q2) {
+        double d1 = cross(q1, q2, p1);
+        double d2 = cross(q1, q2, p2);
+        double d3 = cross(p1, p2, q1);
+        double d4 = cross(p1, p2, q2);
+        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+            return true;
+        }
+        return (d1 == 0 && onSegment(q1, q2, p1)) || (d2 == 0 && onSegment(q1, q2, p2))
+                || (d3 == 0 && onSegment(p1, p2, q1)) || (d4 == 0 && onSegment(p1, p2, q2));
+    }
+
+    private static double cross(Point a, Point b, Point c) {
+        return (b.getX() - a.getX()) * (c.getY() - a.getY()) - (b.getY() - a.getY()) * (c.getX() - a.getX());
+    }
+
+    // 일직선 위의 점 p가 선분 a-b의 범위 안에 있는지
+    private static boolean onSegment(Point a, Point b, Point p) {
+        return Math.min(a.getX(), b.getX()) <= p.getX() && p.getX() <= Math.max(a.getX(), b.getX())
+                && Math.min(a.getY(), b.getY()) <= p.getY() && p.getY() <= Math.max(a.getY(), b.getY());
+    }
+
+    // 반직선 교차 횟수로 점이 다각형 안에 있는지 (경계 위의 점은 변 교차 검사가 먼저 처리)
+    private static boolean contains(List<Point> polygon, Point p) {
+        boolean inside = false;
+        for (int k = 0, m = polygon.size() - 1; k < polygon.size(); m = k++) {
+            Point a = polygon.get(k);
+            Point b = polygon.get(m);
+            if ((a.getY() > p.getY()) != (b.getY() > p.getY())
+                    && p.getX() < (b.getX() - a.getX()) * (p.getY() - a.getY()) / (b.getY() - a.getY()) + a.getX()) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    // 생성기와 같은 분포의 도형 count개 (spacing이 작을수록 촘촘: 캔버스 한 변 = sqrt(count) * radiusMax * spacing)
+    private static void addRandom(List<Shape> shapes, Random random, int count, int radiusMax, int maxEdges, double spacing) {
+        double side = Math.max(4 * radiusMax, Math.sqrt(count) * radiusMax * spacing);
+        for (int i = 0; i < count; i++) {
+            shapes.add(ShapeGenerator.createRandomShapeIn(random, radiusMax, radiusMax, side - 2 * radiusMax,
+                    side - 2 * radiusMax, radiusMax, maxEdges));
+        }
+    }
+
+    /**
+     * 정확히 맞닿은 도형들: 정수 좌표에서 거리가 반지름 합과 같은 원 사슬(가로, 3-4-5 대각선),
+     * 변을 공유하는 정사각형 줄, 다각형 정점에 원주가 닿는 원.
+     */
+    private static void addTouching(List<Shape> shapes, Random random, int count) {
+        double originY = 10_000;
+        while (count > 0) {
+            double x = 100 + random.nextInt(5000);
+            double y = originY + random.nextInt(5000);
+            switch (random.nextInt(4)) {
+                case 0: { // 가로 원 사슬: 정수 반지름, 중심 거리 = r1 + r2
+                    double r = 5 + random.nextInt(20);
+                    for (int k = 0; k < 4 && count > 0; k++, count--) {
+                        shapes.add(new Circle(new Point(x, y), r));
+                        double next = 5 + random.nextInt(20);
+                        x += r + next;
+                        r = next;
+                    }
+                    break;
+                }
+                case 1: { // 대각선 원 쌍: 중심 차이 (3m, 4m), 반지름 합 5m
+                    int m = 1 + random.nextInt(10);
+                    int r1 = 1 + random.nextInt(5 * m - 1);
+                    shapes.add(new Circle(new Point(x, y), r1));
+                    shapes.add(new Circle(new Point(x + 3 * m, y + 4 * m), 5 * m - r1));
+                    count -= 2;
+                    break;
+                }
+                case 2: { // 변을 공유하는 축 정렬 정사각형 줄 (회전 45도, 외접원 반지름 = 반변 * sqrt(2))
+                    double half = 5 + random.nextInt(20);
+                    for (int k = 0; k < 3 && count > 0; k++, count--) {
+                        shapes.add(new RegularPolygon(new Point(x + 2 * half * k, y), half * Math.sqrt(2), 4, Math.PI / 4));
+                    }
+                    break;
+                }
+                default: { // 정다각형의 정점에서 바깥쪽으로 반지름만큼 떨어진 원
+                    double radius = 10 + random.nextInt(30);
+                    int sides = 3 + random.nextInt(8);
+                    double rotation = random.nextDouble() * 2 * Math.PI;
+                    RegularPolygon polygon = new RegularPolygon(new Point(x, y), radius, sides, rotation);
+                    Point vertex = polygon.getVertices().get(0);
+                    double r = 3 + random.nextInt(10);
+                    double dx = (vertex.getX() - x) / radius;
+                    double dy = (vertex.getY() - y) / radius;
+                    shapes.add(polygon);
+                    shapes.add(new Circle(new Point(vertex.getX() + dx * r, vertex.getY() + dy * r), r));
+                    count -= 2;
+                    break;
+                }
+            }
+        }
+    }
+
+    // 포함 관계: 큰 원 안의 작은 다각형, 큰 다각형 안의 작은 원(경계가 닿지 않으므로 현재 정의로는 겹치지 않음), 같은 중심의 도형
+    private static void addNested(List<Shape> shapes, Random random, int count, int maxEdges) {
+        double originY = 20_000;
+        while (count > 0) {
+            Point center = new Point(100 + random.nextInt(5000), originY + random.nextInt(5000));
+            double outer = 40 + random.nextInt(60);
+            int sides = 3 + random.nextInt(Math.max(1, maxEdges - 2));
+            switch (random.nextInt(3)) {
+                case 0:
+                    shapes.add(new Circle(center, outer));
+                    shapes.add(new IrregularPolygon(center, outer / 4, sides, random));
+                    break;
+                case 1:
+                    shapes.add(new RegularPolygon(center, outer, sides, random.nextDouble() * 2 * Math.PI));
+                    shapes.add(new Circle(center, outer / 10));
+                    break;
+                default:
+                    shapes.add(new RegularPolygon(center, outer, sides, 0));
+                    shapes.add(new RegularPolygon(center, outer / 2, sides, Math.PI / sides));
+                    break;
+            }
+            count -= 2;
+        }
+    }
+
+    // 같은 도형을 두세 번씩 (도형마다 정한 시드로 다시 생성하므로 정점까지 같은 별개 객체), 순서는 섞음
+    private static void addDuplicates(List<Shape> shapes, Random random, int count, int radiusMax, int maxEdges) {
+        double side = Math.max(4 * radiusMax, Math.sqrt(count) * radiusMax * 2.5);
+        while (shapes.size() < count) {
+            long seed = random.nextLong();
+            int copies = Math.min(2 + random.nextInt(2), count - shapes.size());
+            for (int c = 0; c < copies; c++) {
+                shapes.add(ShapeGenerator.createRandomShapeIn(new Random(seed), radiusMax, radiusMax,
+                        side - 2 * radiusMax, side - 2 * radiusMax, radiusMax, maxEdges));
+            }
+        }
+        Collections.shuffle(shapes, random);
+    }
+
+    // 캔버스 4분의 1 크기의 큰 도형 몇 개와 최소 크기 도형 다수 (격자 셀 크기와 사분 트리 깊이의 극단)
+    private static void addMixedScale(List<Shape> shapes, Random random, int count, int maxEdges) {
+        double side = Math.sqrt(count) * 60;
+        for (int i = 0; i < 3; i++) {
+            shapes.add(ShapeGenerator.createRandomShapeIn(random, side / 4, side / 4, side / 2, side / 2,
+                    (int) (side / 4), maxEdges));
+        }
+        for (int i = 3; i < count; i++) {
+            shapes.add(ShapeGenerator.createRandomShapeIn(random, 11, 11, side - 22, side - 22, 11, maxEdges));
+        }
+    }
+
+    // 같은 무작위 장면에서 경로별 그룹화 시간(최솟값)과 double brute 대비 처리량
+    private static void reportThroughput(long seed) {
+        Random random = new Random(seed);
+        List<Shape> shapes = new ArrayList<>(THROUGHPUT_SHAPES);
+        addRandom(shapes, random, THROUGHPUT_SHAPES, 30, 10, 2.5);
+        CompactScene.Builder builder = new CompactScene.Builder(THROUGHPUT_SHAPES, THROUGHPUT_SHAPES * 8);
+        shapes.forEach(shape -> builder.add(shape, 0));
+        try (CompactScene compact = builder.build()) {
+            System.out.printf("%n처리량 (도형 %d개, %d회 중 최솟값, 기준: double/brute)%n", THROUGHPUT_SHAPES, THROUGHPUT_ITERATIONS);
+            System.out.printf("%-24s %10s %14s %10s%n", "engine", "ms", "shapes/s", "relative");
+            double baseline = millis(generator -> generator.groupShapes(shapes), newGenerator(BroadPhase.BRUTE, 1));
+            printThroughput("double/brute", baseline, baseline);
+            for (String strategy : STRATEGIES) {
+                if (!strategy.equals(BroadPhase.BRUTE)) {
+                    printThroughput("double/" + strategy, millis(generator -> generator.groupShapes(shapes),
+                            newGenerator(strategy, 0)), baseline);
+                }
+            }
+            printThroughput("double/grid/x" + PARALLEL_THREADS, millis(generator -> generator.groupShapes(shapes),
+                    newGenerator(BroadPhase.GRID, PARALLEL_THREADS)), baseline);
+            for (String strategy : STRATEGIES) {
+                printThroughput("fixed/" + strategy, millis(generator -> generator.groupCompactScene(compact),
+                        newGenerator(strategy, 0)), baseline);
+            }
+            for (int k : KDOP_KS) {
+                ShapeGenerator generator = newGenerator(BroadPhase.GRID, 0);
+                generator.setApproximation(new Approximation(Approximation.KDOP, k, 0));
+                printThroughput("double/grid/kdop" + k, millis(g -> g.groupShapes(shapes), generator), baseline);
+            }
+            ShapeGenerator circle = newGenerator(BroadPhase.GRID, 0);
+            circle.setApproximation(new Approximation(Approximation.CIRCLE, 0, 0));
+            printThroughput("double/grid/circle", millis(g -> g.groupShapes(shapes), circle), baseline);
+        }
+    }
+
+    private static void printThroughput(String engine, double millis, double baselineMillis) {
+        System.out.printf("%-24s %10.1f %14.0f %9.2fx%n", engine, millis, THROUGHPUT_SHAPES / (millis / 1000),
+                baselineMillis / millis);
+    }
+
+    // 한 번 실행하여 JIT를 데운 뒤 THROUGHPUT_ITERATIONS번 실행한 시간의 최솟값 (밀리초)
+    private static double millis(Function<ShapeGenerator, UnionFind> workload, ShapeGenerator generator) {
+        workload.apply(generator).close();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < THROUGHPUT_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            UnionFind unionFind = workload.apply(generator);
+            best = Math.min(best, System.nanoTime() - start);
+            unionFind.close();
+        }
+        return best / 1_000_000.0;
+    }
+}
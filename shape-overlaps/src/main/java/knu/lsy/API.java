@@ -2,6 +2,7 @@ package knu.lsy;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import knu.lsy.shapes.DeadlineExceededException;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -52,6 +53,21 @@ public class API {
             if (params_JSON.has("Action")) {
                 BACKEND_MANAGER.EXEC_TASK(JSON_RESPONSE);
             }
+        } catch (RequestRejectedException e) {
+            // 과부하 보호를 위한 거절 (429, 422 등): 스택 트레이스 없이 상태와 메시지만 반환
+            JSON_RES.put("STATUS", e.getStatus());
+            JSON_RES.put("STATUS_MSG", e.getStatusMessage());
+            JSON_RES.put("MESSAGE", e.getMessage());
+            if (e.getRetryAfterSeconds() > 0) {
+                response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            }
+            response.setStatus(e.getStatus());
+        } catch (DeadlineExceededException e) {
+            // 처리 시간 제한 초과로 중단된 요청
+            JSON_RES.put("STATUS", 503);
+            JSON_RES.put("STATUS_MSG", "Service Unavailable");
+            JSON_RES.put("MESSAGE", e.getMessage());
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
         } catch (Exception e) {
             JSON_RES.put("STATUS", 500);
             JSON_RES.put("STATUS_MSG", "Internal Server Error");
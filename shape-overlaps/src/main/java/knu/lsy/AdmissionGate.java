@@ -0,0 +1,77 @@
+package knu.lsy;
+
+import knu.lsy.shapes.ParallelWorkers;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * 무거운 작업의 동시 실행 개수를 제한하는 게이트.
+ * 허용 개수가 모두 사용 중이면 대기하지 않고 즉시 거절하여(429) 요청이 스레드를 붙잡고 쌓이지 않도록 합니다.
+ * 최근 처리 시간의 지수 이동 평균(EWMA)을 기록하여 클라이언트에게 돌려줄 Retry-After 값을 계산합니다.
+ * 작업이 나누어 실행할 때 쓰는 보조 스레드(ParallelWorkers)도 남은 허가를 빌려 쓰므로, 보조 스레드가 실행 중이면 그만큼 새 요청을 받지 않습니다.
+ */
+public class AdmissionGate implements ParallelWorkers.ThreadBudget {
+    private static final double EWMA_WEIGHT = 0.2;
+
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private volatile double averageMillis = 1000; // 처리 시간 평균 (초기값 1초)
+
+    public AdmissionGate(int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * 실행 허가를 얻습니다. 허가를 얻지 못하면 429 거절 예외를 던집니다.
+     * 허가를 얻은 경우 반드시 release(startNanos)를 호출해야 합니다.
+     *
+     * @return 작업 시작 시각 (release에 그대로 전달)
+     */
+    public long acquire() throws RequestRejectedException {
+        if (!permits.tryAcquire()) {
+            throw new RequestRejectedException(429, "Too Many Requests",
+                    "서버가 처리 가능한 동시 요청 수(" + maxConcurrent + ")를 초과했습니다. 잠시 후 다시 시도해주세요.",
+                    getRetryAfterSeconds());
+        }
+        return System.nanoTime();
+    }
+
+    // 실행 허가를 반납하고 처리 시간을 평균에 반영합니다.
+    public void release(long startNanos) {
+        double elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000.0;
+        averageMillis = averageMillis * (1 - EWMA_WEIGHT) + elapsedMillis * EWMA_WEIGHT;
+        permits.release();
+    }
+
+    // 남은 허가를 최대 max개까지 보조 스레드용으로 빌립니다. (기다리지 않음, 처리 시간 평균에는 반영하지 않음)
+    @Override
+    public int borrow(int max) {
+        int borrowed = 0;
+        while (borrowed < max && permits.tryAcquire()) {
+            borrowed++;
+        }
+        return borrowed;
+    }
+
+    @Override
+    public void giveBack(int count) {
+        permits.release(count);
+    }
+
+    // 현재 실행 중인 작업 하나가 끝날 때까지의 예상 대기 시간 (최소 1초)
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(averageMillis / 1000.0));
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getInFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+}
@@ -1,13 +1,107 @@
 package knu.lsy;
 
 import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import knu.lsy.shapes.Approximation;
+import knu.lsy.shapes.BroadPhase;
+import knu.lsy.shapes.CompactScene;
+import knu.lsy.shapes.DetailLevel;
+import knu.lsy.shapes.DirectBufferPool;
+import knu.lsy.shapes.ParallelWorkers;
+import knu.lsy.shapes.ProjectionKernels;
+import knu.lsy.shapes.SceneLod;
+import knu.lsy.shapes.SceneRenderer;
 import knu.lsy.shapes.ShapeGenerator;
+import knu.lsy.shapes.ShapesCostEstimator;
+import knu.lsy.shapes.TileGrid;
+import knu.lsy.shapes.TiledSceneEngine;
 
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 @Component
 public class BACKEND_MANAGER {
+    // ShapesOverlaps 요청 수락 기준 (예상 처리 시간, 예상 메모리 사용량)
+    private static final double MAX_ESTIMATED_MILLIS = 60_000;
+    private static final long MAX_ESTIMATED_BYTES = Runtime.getRuntime().maxMemory() / 4;
+
+    private static final ShapesCostEstimator COST_ESTIMATOR = new ShapesCostEstimator();
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    // ShapesOverlapsSharded에서 Shards를 지정하지 않았을 때 샤드당 도형 수
+    private static final int DEFAULT_SHARD_SHAPES = 1_000_000;
+    // 동시에 실행 가능한 ShapesOverlaps 계열 작업 수는 CPU 코어 수로 제한 (스트리밍 API와 공유)
+    static final AdmissionGate SHAPES_GATE =
+            new AdmissionGate(Runtime.getRuntime().availableProcessors());
+
+    static {
+        // 광역 단계·렌더링의 보조 스레드도 같은 게이트의 허가를 빌려 쓰도록 함 (요청과 보조 스레드를 합쳐 코어 수 이하)
+        ParallelWorkers.setThreadBudget(SHAPES_GATE);
+    }
+    // SaveScene/LoadScene 장면 파일 저장소 (shapes.scene.dir)
+    static SceneStore SCENE_STORE = new SceneStore(Path.of("scenes"));
+    // RenderScene에서 ImageWidth를 지정하지 않았을 때의 이미지 너비
+    private static final int DEFAULT_RENDER_WIDTH = 1024;
+
+    // 저장된 장면의 렌더러·단순화 형태와 PNG 타일 LRU 캐시 (shapes.render.tile-cache-bytes, RenderScene, GET /api/tiles, LoadScene이 공유)
+    static SceneRenderCache RENDER_CACHE = new SceneRenderCache(64L * 1024 * 1024);
+
+    @Value("${shapes.render.tile-cache-bytes:67108864}")
+    void setTileCacheBytes(long tileCacheBytes) {
+        RENDER_CACHE = new SceneRenderCache(tileCacheBytes);
+    }
+
+    // ShapesOverlapsTiled가 보이는 영역의 타일을 내려 둘 임시 디렉터리 (shapes.tiled.spill-dir)
+    private static Path TILE_SPILL_DIR = Path.of(System.getProperty("java.io.tmpdir"), "shape-overlaps-tiles");
+
+    @Value("${shapes.tiled.spill-dir:${java.io.tmpdir}/shape-overlaps-tiles}")
+    void setTileSpillDir(String spillDir) {
+        TILE_SPILL_DIR = Path.of(spillDir);
+    }
+
+    // ShapesOverlapsSharded가 샤드를 보낼 워커 주소 목록 (shapes.shard.workers, 비어 있으면 코디네이터 기능 사용 불가)
+    private static ShardCoordinator SHARD_COORDINATOR = null;
+
+    @Value("${shapes.shard.workers:}")
+    void setShardWorkers(String workers) {
+        List<URI> uris = ShardCoordinator.parseWorkers(workers);
+        SHARD_COORDINATOR = uris.isEmpty() ? null : new ShardCoordinator(uris);
+    }
+
+    // 관리용 Action(Profile)에 필요한 AdminToken 값 (shapes.admin.token, 비어 있으면 관리용 Action 사용 불가)
+    private static String ADMIN_TOKEN = "";
+
+    @Value("${shapes.admin.token:}")
+    void setAdminToken(String adminToken) {
+        ADMIN_TOKEN = adminToken;
+    }
+
+    // Profile이 JFR 기록 파일을 저장할 디렉터리 (shapes.profile.dir)
+    private static ShapesProfiler PROFILER =
+            new ShapesProfiler(Path.of(System.getProperty("java.io.tmpdir"), "shape-overlaps-profiles"), SHAPES_GATE);
+
+    @Value("${shapes.profile.dir:${java.io.tmpdir}/shape-overlaps-profiles}")
+    void setProfileDir(String profileDir) {
+        PROFILER = new ShapesProfiler(Path.of(profileDir), SHAPES_GATE);
+    }
+
+    // Profile의 Target으로 실행할 수 있는 Action
+    private static final List<String> PROFILE_TARGETS =
+            List.of("ShapesOverlaps", "ShapesOverlapsTiled", "SaveScene", "LoadScene");
+
+    @Value("${shapes.scene.dir:scenes}")
+    void setSceneDir(String sceneDir) {
+        SCENE_STORE = new SceneStore(Path.of(sceneDir));
+    }
 
     public static void EXEC_TASK(JSONObject jsonResponse) throws Exception {
         JSONObject reqJson = jsonResponse.getJSONObject("REQ");
@@ -46,42 +140,494 @@ public class BACKEND_MANAGER {
                 serverInfo.put("osName", System.getProperty("os.name"));
                 serverInfo.put("osVersion", System.getProperty("os.version"));
                 serverInfo.put("userDir", System.getProperty("user.dir"));
+                serverInfo.put("projectionKernel", ProjectionKernels.getActiveName());
+                serverInfo.put("offHeapInUseBytes", DirectBufferPool.getInUseBytes());
+                serverInfo.put("offHeapPooledBytes", DirectBufferPool.getPooledBytes());
 
                 resJson.put("RESULT", serverInfo);
                 break;
 
-            case "ShapesOverlaps":
-                if (!reqJson.has("Width") || !reqJson.has("Height") ||
-                        !reqJson.has("RadiusMax") || !reqJson.has("HowMany") ||
-                        !reqJson.has("MaxEdges")) {
-                    throw new Exception("필수 파라미터가 누락되었습니다.");
+            case "ShapesOverlaps": {
+                ShapesRequest params = ShapesRequest.parse(reqJson);
+                CHECK_ESTIMATE(params, resJson);
+
+                long startNanos = SHAPES_GATE.acquire();
+                try {
+                    ShapeGenerator generator = params.getSeed() != null
+                            ? new ShapeGenerator(params.getSeed()) : new ShapeGenerator();
+                    generator.setTimeout(params.getTimeoutMillis());
+                    generator.setOffHeapStorage(params.isOffHeap());
+                    generator.setBroadPhase(params.getBroadPhase());
+                    generator.setApproximation(params.getApproximation());
+                    generator.setLayout(params.getLayout());
+                    generator.setConcavePolygons(params.isConcavePolygons());
+                    JSONObject shapesData;
+                    if (params.isSummary() && params.isFixedPrecision()) {
+                        shapesData = generator.summarizeShapesFixed(params.getWidth(), params.getHeight(),
+                                params.getRadiusMax(), params.getHowMany(), params.getMaxEdges());
+                    } else if (params.isSummary()) {
+                        // 요약 모드: 도형별 JSON 없이 집계 통계만 반환
+                        shapesData = generator.summarizeShapes(params.getWidth(), params.getHeight(),
+                                params.getRadiusMax(), params.getHowMany(), params.getMaxEdges());
+                    } else if (params.isFixedPrecision()) {
+                        // 고정소수점 모드: 압축 장면과 정수 겹침 판정 사용
+                        shapesData = generator.generateShapesFixed(params.getWidth(), params.getHeight(),
+                                params.getRadiusMax(), params.getHowMany(), params.getMaxEdges(), params.getDetail());
+                    } else {
+                        shapesData = generator.generateShapes(params.getWidth(), params.getHeight(),
+                                params.getRadiusMax(), params.getHowMany(), params.getMaxEdges());
+                    }
+                    // 근사 판정을 사용했으면 추정 과병합률 보고서 추가
+                    JSONObject approximationReport = generator.getApproximationReport();
+                    if (approximationReport != null) {
+                        shapesData.put("approximation", approximationReport);
+                    }
+                    // random이 아닌 배치를 사용했으면 배치 결과 보고서 추가
+                    JSONObject layoutReport = generator.getLayoutReport();
+                    if (layoutReport != null) {
+                        shapesData.put("layout", layoutReport);
+                    }
+
+                    resJson.put("RESULT", shapesData);
+                } finally {
+                    SHAPES_GATE.release(startNanos);
+                }
+                break;
+            }
+
+            case "ShapesOverlapsTiled": {
+                // 캔버스를 타일로 나누어 생성/그룹화하고 타일 경계의 그룹만 전역으로 병합 (View* 영역을 주면 그 영역의 도형 포함)
+                ShapesRequest params = ShapesRequest.parseTiled(reqJson);
+                double[] viewport = PARSE_VIEWPORT(reqJson);
+                int tileSize = params.getTileSize() > 0 ? params.getTileSize()
+                        : TiledSceneEngine.defaultTileSize(params.getWidth(), params.getHeight(),
+                        params.getRadiusMax(), params.getHowMany());
+                CHECK_ESTIMATE(COST_ESTIMATOR.estimateTiled(params.getWidth(), params.getHeight(),
+                        params.getRadiusMax(), params.getHowMany(), params.getMaxEdges(), tileSize), resJson);
+
+                long startNanos = SHAPES_GATE.acquire();
+                try {
+                    ShapeGenerator generator = params.getSeed() != null
+                            ? new ShapeGenerator(params.getSeed()) : new ShapeGenerator();
+                    generator.setTimeout(params.getTimeoutMillis());
+                    generator.setOffHeapStorage(params.isOffHeap());
+                    generator.setBroadPhase(params.getBroadPhase());
+                    resJson.put("RESULT", new TiledSceneEngine(generator, TILE_SPILL_DIR).run(params.getWidth(),
+                            params.getHeight(), params.getRadiusMax(), params.getHowMany(), params.getMaxEdges(),
+                            tileSize, viewport));
+                } finally {
+                    SHAPES_GATE.release(startNanos);
+                }
+                break;
+            }
+
+            case "ShapesShard": {
+                // 샤드 워커: 샤드 격자(ShardColumns x ShardRows)의 샤드 하나를 처리하여 중간 통계와 경계 도형을 반환
+                ShapesRequest params = ShapesRequest.parseTiled(reqJson);
+                int shardColumns = PARSE_POSITIVE_INT(reqJson, "ShardColumns");
+                int shardRows = PARSE_POSITIVE_INT(reqJson, "ShardRows");
+                int shard = PARSE_NON_NEGATIVE_INT(reqJson, "Shard");
+                TileGrid grid = TileGrid.ofDivisions(params.getWidth(), params.getHeight(), params.getRadiusMax(),
+                        params.getHowMany(), shardColumns, shardRows);
+                if (shard < 0 || shard >= grid.getTileCount()) {
+                    throw new Exception("Shard는 0 ~ " + (grid.getTileCount() - 1) + " 범위여야 합니다.");
                 }
+                CHECK_ESTIMATE(COST_ESTIMATOR.estimateFixed(grid.getTileWidth(), grid.getTileHeight(),
+                        params.getRadiusMax(), grid.getShapeCount(shard), params.getMaxEdges(), true), resJson);
 
+                long startNanos = SHAPES_GATE.acquire();
+                long startCpuNanos = THREAD_MX_BEAN.getCurrentThreadCpuTime() + ParallelWorkers.getHelperCpuNanos();
                 try {
-                    int width = Integer.parseInt(reqJson.getString("Width"));
-                    int height = Integer.parseInt(reqJson.getString("Height"));
-                    int radiusMax = Integer.parseInt(reqJson.getString("RadiusMax"));
-                    int howMany = Integer.parseInt(reqJson.getString("HowMany"));
-                    int maxEdges = Integer.parseInt(reqJson.getString("MaxEdges"));
-
-                    if (width <= 0 || height <= 0 || radiusMax <= 0 ||
-                            howMany <= 0 || maxEdges < 3) {
-                        throw new Exception("파라미터 값이 올바르지 않습니다.");
+                    // 시드가 있으면 샤드마다 다른 시드를 사용 (샤드 배분과 워커 수가 달라도 같은 샤드는 같은 도형)
+                    ShapeGenerator generator = params.getSeed() != null
+                            ? new ShapeGenerator(params.getSeed() + shard) : new ShapeGenerator();
+                    generator.setTimeout(params.getTimeoutMillis());
+                    generator.setOffHeapStorage(params.isOffHeap());
+                    generator.setBroadPhase(params.getBroadPhase());
+                    JSONObject result = new TiledSceneEngine(generator, null).runShard(params.getWidth(),
+                            params.getHeight(), params.getRadiusMax(), params.getHowMany(), params.getMaxEdges(),
+                            shardColumns, shardRows, shard);
+                    result.put("elapsedMillis", (System.nanoTime() - startNanos) / 1_000_000);
+                    // 같은 CPU를 여러 워커가 나눠 쓰면 경과 시간이 늘어나므로, 확장 효율 계산에는 CPU 시간을 사용
+                    // (광역 단계 그룹화가 빌린 보조 스레드의 CPU 시간 포함)
+                    result.put("cpuMillis", (THREAD_MX_BEAN.getCurrentThreadCpuTime() + ParallelWorkers.getHelperCpuNanos()
+                            - startCpuNanos) / 1_000_000);
+                    resJson.put("RESULT", result);
+                } finally {
+                    SHAPES_GATE.release(startNanos);
+                }
+                break;
+            }
+
+            case "ShapesOverlapsSharded": {
+                // 코디네이터: 캔버스를 샤드로 나누어 워커(shapes.shard.workers)에 분배하고 경계 그룹을 병합
+                ShardCoordinator coordinator = SHARD_COORDINATOR;
+                if (coordinator == null) {
+                    throw new Exception("샤드 워커가 설정되지 않았습니다. (shapes.shard.workers)");
+                }
+                if (reqJson.has("Workers")) {
+                    // 확장 효율 측정용: 설정된 워커 중 앞에서부터 Workers개만 사용
+                    coordinator = coordinator.limit(PARSE_POSITIVE_INT(reqJson, "Workers"));
+                }
+                ShapesRequest params = ShapesRequest.parseTiled(reqJson);
+                int shards = reqJson.has("Shards") ? PARSE_POSITIVE_INT(reqJson, "Shards")
+                        : Math.max(coordinator.getWorkerCount(),
+                        (int) Math.min(Integer.MAX_VALUE, (params.getHowMany() + DEFAULT_SHARD_SHAPES - 1L) / DEFAULT_SHARD_SHAPES));
+                int shardColumns = (int) Math.ceil(Math.sqrt(shards));
+                TileGrid grid = TileGrid.ofDivisions(params.getWidth(), params.getHeight(), params.getRadiusMax(),
+                        params.getHowMany(), shardColumns, (shards + shardColumns - 1) / shardColumns);
+                if (grid.getTileWidth() < 2 * params.getRadiusMax() || grid.getTileHeight() < 2 * params.getRadiusMax()) {
+                    throw new Exception("샤드 크기가 2 * RadiusMax보다 작습니다. Shards를 줄여주세요.");
+                }
+                CHECK_ESTIMATE(COST_ESTIMATOR.estimateSharded(params.getWidth(), params.getHeight(),
+                        params.getRadiusMax(), params.getHowMany(), params.getMaxEdges(),
+                        grid.getTileWidth(), grid.getTileHeight(), coordinator.getWorkerCount()), resJson);
+
+                // 샤드 분배와 경계 병합 동안 작업 슬롯 하나를 차지함
+                // (코디네이터 자신이 워커이면 자기에게 보낸 샤드는 남은 슬롯을 사용하고, 슬롯이 없으면 429를 받아 다시 시도)
+                long startNanos = SHAPES_GATE.acquire();
+                try {
+                    long deadlineNanos = System.nanoTime() + params.getTimeoutMillis() * 1_000_000L;
+                    // 도형은 워커가 시드(Seed + 샤드 번호)로 생성하며, 코디네이터의 생성기는 병합에만 사용
+                    ShapeGenerator generator = params.getSeed() != null
+                            ? new ShapeGenerator(params.getSeed()) : new ShapeGenerator();
+                    generator.setTimeout(params.getTimeoutMillis());
+                    generator.setOffHeapStorage(params.isOffHeap());
+                    generator.setBroadPhase(params.getBroadPhase());
+                    resJson.put("RESULT", coordinator.run(params, grid, generator, deadlineNanos));
+                } finally {
+                    SHAPES_GATE.release(startNanos);
+                }
+                break;
+            }
+
+            case "SaveScene": {
+                // 고정소수점 장면을 생성/그룹화하여 장면 파일로 저장
+                String sceneName = SceneStore.parseSceneName(reqJson);
+                ShapesRequest params = ShapesRequest.parse(reqJson);
+                params.requireExact("SaveScene");
+                CHECK_ESTIMATE(COST_ESTIMATOR.estimateFixed(params.getWidth(), params.getHeight(),
+                        params.getRadiusMax(), params.getHowMany(), params.getMaxEdges(), true), resJson);
+
+                long startNanos = SHAPES_GATE.acquire();
+                try {
+                    ShapeGenerator generator = params.getSeed() != null
+                            ? new ShapeGenerator(params.getSeed()) : new ShapeGenerator();
+                    generator.setTimeout(params.getTimeoutMillis());
+                    generator.setOffHeapStorage(params.isOffHeap());
+                    generator.setBroadPhase(params.getBroadPhase());
+                    generator.setLayout(params.getLayout());
+                    generator.setConcavePolygons(params.isConcavePolygons());
+                    try (CompactScene scene = generator.generateGroupedScene(params.getWidth(), params.getHeight(),
+                            params.getRadiusMax(), params.getHowMany(), params.getMaxEdges())) {
+                        JSONObject result = new JSONObject();
+                        result.put("sceneName", sceneName);
+                        result.put("fileBytes", SCENE_STORE.save(sceneName, scene));
+                        result.put("summary", generator.summarizeCompactScene(scene));
+                        JSONObject layoutReport = generator.getLayoutReport();
+                        if (layoutReport != null) {
+                            result.put("layout", layoutReport);
+                        }
+                        resJson.put("RESULT", result);
                     }
+                } finally {
+                    SHAPES_GATE.release(startNanos);
+                }
+                break;
+            }
+
+            case "LoadScene": {
+                // 저장된 장면 파일을 매핑하여 재생성 없이 응답 (Mode=full|summary, 선택적으로 View* 영역만, Detail=coarse이면 단순화 형태)
+                String sceneName = SceneStore.parseSceneName(reqJson);
+                String mode = ShapesRequest.parseMode(reqJson);
+                double[] viewport = PARSE_VIEWPORT(reqJson);
+                DetailLevel detail = ShapesRequest.parseDetail(reqJson);
+                if (detail.isCoarse() && mode.equals(ShapesRequest.MODE_SUMMARY)) {
+                    throw new Exception("Detail=" + DetailLevel.COARSE + "는 Mode=" + ShapesRequest.MODE_FULL + "에서만 사용할 수 있습니다.");
+                }
+                long timeoutMillis = ShapesRequest.parseTimeout(reqJson);
 
+                long startNanos = SHAPES_GATE.acquire();
+                try {
                     ShapeGenerator generator = new ShapeGenerator();
-                    JSONObject shapesData = generator.generateShapes(width, height,
-                            radiusMax, howMany, maxEdges);
+                    generator.setTimeout(timeoutMillis);
+                    JSONObject result;
+                    // 매핑(과 전체 레코드 검증)과 단순화 형태는 장면 파일 버전별로 한 번만 만들어 캐시
+                    String version = SCENE_STORE.version(sceneName);
+                    if (version == null) {
+                        throw new Exception("저장된 장면이 없습니다: " + sceneName);
+                    }
+                    if (detail.isCoarse()) {
+                        SceneLod lod = RENDER_CACHE.lod(SCENE_STORE, sceneName, version);
+                        result = generator.convertCompactSceneToJSON(lod.getScene(), viewport, lod, detail);
+                    } else {
+                        // 캐시가 공유하는 장면이므로 close하지 않음
+                        CompactScene scene = RENDER_CACHE.scene(SCENE_STORE, sceneName, version);
+                        result = mode.equals(ShapesRequest.MODE_SUMMARY)
+                                ? generator.summarizeCompactScene(scene)
+                                : generator.convertCompactSceneToJSON(scene, viewport);
+                    }
+                    result.put("sceneName", sceneName);
+                    resJson.put("RESULT", result);
+                } finally {
+                    SHAPES_GATE.release(startNanos);
+                }
+                break;
+            }
 
-                    resJson.put("RESULT", shapesData);
+            case "RenderScene": {
+                // 장면을 그룹 색으로 채워 PNG로 렌더링 (SceneName이 있으면 저장된 장면, 없으면 ShapesOverlaps 파라미터로 생성한 고정소수점 장면), 선택적으로 View* 영역만
+                double[] viewport = PARSE_VIEWPORT(reqJson);
+                int imageWidth = reqJson.has("ImageWidth") ? PARSE_POSITIVE_INT(reqJson, "ImageWidth") : DEFAULT_RENDER_WIDTH;
+                if (imageWidth > SceneRenderer.MAX_IMAGE_SIZE) {
+                    throw new Exception("ImageWidth는 1 ~ " + SceneRenderer.MAX_IMAGE_SIZE + " 범위여야 합니다.");
+                }
+                JSONObject result = new JSONObject();
+                if (reqJson.has("SceneName")) {
+                    String sceneName = SceneStore.parseSceneName(reqJson);
+                    String version = SCENE_STORE.version(sceneName);
+                    if (version == null) {
+                        throw new Exception("저장된 장면이 없습니다: " + sceneName);
+                    }
+                    long timeoutMillis = ShapesRequest.parseTimeout(reqJson);
+                    // 저장된 장면은 이미 정밀 판정으로 그룹화되어 있으므로 근사 판정 요청은 거부
+                    if (!ShapesRequest.parseApproximation(reqJson).isExact()) {
+                        throw new Exception("RenderScene는 Accuracy=" + Approximation.EXACT + "만 지원합니다.");
+                    }
 
-                } catch (NumberFormatException e) {
-                    throw new Exception("숫자 파라미터 형식이 올바르지 않습니다.");
+                    long startNanos = SHAPES_GATE.acquire();
+                    try {
+                        ShapeGenerator generator = new ShapeGenerator();
+                        generator.setTimeout(timeoutMillis);
+                        SceneRenderer renderer = RENDER_CACHE.renderer(SCENE_STORE, sceneName, version);
+                        RENDER_SCENE(result, renderer, viewport != null ? viewport
+                                : new double[]{0, 0, renderer.getExtentX(), renderer.getExtentY()}, imageWidth, generator);
+                        result.put("sceneName", sceneName);
+                        result.put("renderCache", RENDER_CACHE.toJSON());
+                    } finally {
+                        SHAPES_GATE.release(startNanos);
+                    }
+                } else {
+                    JSONObject renderJson = new JSONObject(reqJson.toMap());
+                    renderJson.put("Precision", ShapesRequest.PRECISION_FIXED);
+                    ShapesRequest params = ShapesRequest.parse(renderJson);
+                    params.requireExact("RenderScene");
+                    CHECK_ESTIMATE(COST_ESTIMATOR.estimateFixed(params.getWidth(), params.getHeight(),
+                            params.getRadiusMax(), params.getHowMany(), params.getMaxEdges(), true), resJson);
+
+                    long startNanos = SHAPES_GATE.acquire();
+                    try {
+                        ShapeGenerator generator = params.getSeed() != null
+                                ? new ShapeGenerator(params.getSeed()) : new ShapeGenerator();
+                        generator.setTimeout(params.getTimeoutMillis());
+                        generator.setOffHeapStorage(params.isOffHeap());
+                        generator.setBroadPhase(params.getBroadPhase());
+                        generator.setLayout(params.getLayout());
+                        generator.setConcavePolygons(params.isConcavePolygons());
+                        try (CompactScene scene = generator.generateGroupedScene(params.getWidth(), params.getHeight(),
+                                params.getRadiusMax(), params.getHowMany(), params.getMaxEdges())) {
+                            RENDER_SCENE(result, new SceneRenderer(scene), viewport != null ? viewport
+                                    : new double[]{0, 0, params.getWidth(), params.getHeight()}, imageWidth, generator);
+                        }
+                        JSONObject layoutReport = generator.getLayoutReport();
+                        if (layoutReport != null) {
+                            result.put("layout", layoutReport);
+                        }
+                    } finally {
+                        SHAPES_GATE.release(startNanos);
+                    }
+                }
+                resJson.put("RESULT", result);
+                break;
+            }
+
+            case "Profile": {
+                // 관리용: JFR 세션을 기록하여 저장하고 요약 반환 (Target이 있으면 그 Action을 나머지 파라미터로 실행하는 동안, 없으면 DurationMs 동안)
+                CHECK_ADMIN_TOKEN(reqJson);
+                boolean includeRecording = Boolean.parseBoolean(reqJson.optString("IncludeRecording", "false"));
+                Callable<JSONObject> workload = null;
+                long durationMillis = ShapesProfiler.DEFAULT_DURATION_MILLIS;
+                if (reqJson.has("Target")) {
+                    String target = reqJson.getString("Target");
+                    if (!PROFILE_TARGETS.contains(target)) {
+                        throw new Exception("Target은 " + String.join(", ", PROFILE_TARGETS) + " 중 하나여야 합니다.");
+                    }
+                    JSONObject targetReq = new JSONObject(reqJson.toMap());
+                    targetReq.put("Action", target);
+                    targetReq.remove("Target");
+                    targetReq.remove("IncludeRecording");
+                    workload = () -> {
+                        JSONObject targetResponse = new JSONObject().put("REQ", targetReq).put("RES", new JSONObject());
+                        EXEC_TASK(targetResponse);
+                        JSONObject targetRes = targetResponse.getJSONObject("RES");
+                        // 도형별 JSON은 프로파일 응답에 포함하지 않음 (요약 모드 결과만 유지)
+                        if (!ShapesRequest.MODE_SUMMARY.equals(targetReq.optString("Mode"))) {
+                            targetRes.remove("RESULT");
+                        }
+                        return targetRes.put("ACTION", target);
+                    };
+                } else if (reqJson.has("DurationMs")) {
+                    durationMillis = PARSE_POSITIVE_INT(reqJson, "DurationMs");
+                    if (durationMillis > ShapesProfiler.MAX_DURATION_MILLIS) {
+                        throw new Exception("DurationMs는 1 ~ " + ShapesProfiler.MAX_DURATION_MILLIS + " 범위여야 합니다.");
+                    }
                 }
+                resJson.put("RESULT", PROFILER.profile(workload, durationMillis, includeRecording));
                 break;
+            }
 
             default:
                 throw new Exception("지원하지 않는 Action입니다: " + action);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 장면의 viewport 영역을 너비 imageWidth 이미지로 렌더링하여 PNG(Base64)와 렌더링 정보를 result에 기록합니다.
+     * 이미지 높이는 영역의 가로세로 비율로 정합니다.
+     */
+    static void RENDER_SCENE(JSONObject result, SceneRenderer renderer, double[] viewport, int imageWidth,
+                             ShapeGenerator generator) throws Exception {
+        long imageHeight = Math.max(1, Math.round(imageWidth * viewport[3] / viewport[2]));
+        if (imageHeight > SceneRenderer.MAX_IMAGE_SIZE) {
+            throw new Exception("이미지 높이가 " + SceneRenderer.MAX_IMAGE_SIZE + " 픽셀을 넘습니다. ImageWidth를 줄이거나 표시 영역의 비율을 바꿔주세요.");
+        }
+        if (imageWidth * imageHeight > SceneRenderer.MAX_IMAGE_PIXELS) {
+            throw new Exception("이미지 픽셀 수가 " + SceneRenderer.MAX_IMAGE_PIXELS + "를 넘습니다. ImageWidth를 줄이거나, 큰 영역은 "
+                    + "GET /api/tiles/{SceneName}/{z}/{x}/{y}.png 타일로 나누어 요청해주세요.");
+        }
+        long renderStart = System.nanoTime();
+        BufferedImage image = renderer.render(viewport[0], viewport[1], viewport[2], viewport[3],
+                imageWidth, (int) imageHeight, generator);
+        long encodeStart = System.nanoTime();
+        byte[] png = SceneRenderer.encodePng(image, generator);
+        long encodeEnd = System.nanoTime();
+
+        result.put("shapeCount", renderer.getScene().size());
+        result.put("view", new JSONObject().put("x", viewport[0]).put("y", viewport[1])
+                .put("width", viewport[2]).put("height", viewport[3]));
+        result.put("imageWidth", imageWidth);
+        result.put("imageHeight", imageHeight);
+        result.put("tiles", SceneRenderer.tileCount(imageWidth, (int) imageHeight));
+        result.put("renderMillis", (encodeStart - renderStart) / 1_000_000.0);
+        result.put("encodeMillis", (encodeEnd - encodeStart) / 1_000_000.0);
+        result.put("format", "png");
+        result.put("pngBytes", png.length);
+        result.put("image", Base64.getEncoder().encodeToString(png));
+    }
+
+    // 양의 정수 파라미터 (필수)
+    static int PARSE_POSITIVE_INT(JSONObject reqJson, String key) throws Exception {
+        if (!reqJson.has(key)) {
+            throw new Exception(key + " 파라미터가 필요합니다.");
+        }
+        try {
+            int value = Integer.parseInt(reqJson.getString(key));
+            if (value <= 0) {
+                throw new Exception(key + "는 1 이상이어야 합니다.");
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new Exception("숫자 파라미터 형식이 올바르지 않습니다.");
+        }
+    }
+
+    // 0 이상의 정수 파라미터 (필수)
+    static int PARSE_NON_NEGATIVE_INT(JSONObject reqJson, String key) throws Exception {
+        if (!reqJson.has(key)) {
+            throw new Exception(key + " 파라미터가 필요합니다.");
+        }
+        try {
+            int value = Integer.parseInt(reqJson.getString(key));
+            if (value < 0) {
+                throw new Exception(key + "는 0 이상이어야 합니다.");
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new Exception("숫자 파라미터 형식이 올바르지 않습니다.");
+        }
+    }
+
+    /**
+     * 관리용 Action의 AdminToken 파라미터를 설정값(shapes.admin.token)과 비교합니다. (비교 시간이 값에 따라 달라지지 않도록 비교)
+     * 응답의 REQ로 토큰이 되돌아가지 않도록 확인 후 요청 파라미터에서 제거합니다.
+     *
+     * @throws RequestRejectedException 관리용 Action이 꺼져 있거나 AdminToken이 없거나 다른 경우 (403)
+     */
+    static void CHECK_ADMIN_TOKEN(JSONObject reqJson) throws RequestRejectedException {
+        String adminToken = ADMIN_TOKEN;
+        if (adminToken == null || adminToken.isEmpty()) {
+            throw new RequestRejectedException(403, "Forbidden",
+                    "관리용 Action이 비활성화되어 있습니다. (shapes.admin.token)", 0);
+        }
+        byte[] expected = adminToken.getBytes(StandardCharsets.UTF_8);
+        byte[] actual = reqJson.optString("AdminToken", "").getBytes(StandardCharsets.UTF_8);
+        reqJson.remove("AdminToken");
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new RequestRejectedException(403, "Forbidden", "AdminToken이 올바르지 않습니다.", 0);
+        }
+    }
+
+    /**
+     * LoadScene, ShapesOverlapsTiled의 선택적 표시 영역(ViewX, ViewY, ViewWidth, ViewHeight)을 읽습니다.
+     *
+     * @return {x, y, width, height}, 네 값이 모두 없으면 null (전체 장면)
+     * @throws Exception 일부만 지정되었거나 값이 올바르지 않은 경우
+     */
+    static double[] PARSE_VIEWPORT(JSONObject reqJson) throws Exception {
+        String[] keys = {"ViewX", "ViewY", "ViewWidth", "ViewHeight"};
+        int present = 0;
+        for (String key : keys) {
+            if (reqJson.has(key)) {
+                present++;
+            }
+        }
+        if (present == 0) {
+            return null;
+        }
+        if (present != keys.length) {
+            throw new Exception("ViewX, ViewY, ViewWidth, ViewHeight는 함께 지정해야 합니다.");
+        }
+        try {
+            double[] viewport = new double[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                viewport[i] = Double.parseDouble(reqJson.getString(keys[i]));
+            }
+            if (viewport[2] <= 0 || viewport[3] <= 0) {
+                throw new Exception("ViewWidth와 ViewHeight는 0보다 커야 합니다.");
+            }
+            return viewport;
+        } catch (NumberFormatException e) {
+            throw new Exception("숫자 파라미터 형식이 올바르지 않습니다.");
+        }
+    }
+
+    /**
+     * 요청의 예상 비용을 계산하여 응답에 기록하고, 허용 범위를 넘으면 실행 전에 거절합니다.
+     *
+     * @param params 검증된 도형 생성 파라미터
+     * @param resJson 예상 비용(ESTIMATE)을 기록할 응답 JSON
+     * @throws RequestRejectedException 예상 처리 시간 또는 메모리가 허용 범위를 초과한 경우 (422, 다시 보내도 같은 결과이므로 Retry-After 없음)
+     */
+    static void CHECK_ESTIMATE(ShapesRequest params, JSONObject resJson) throws RequestRejectedException {
+        boolean bruteForce = BroadPhase.BRUTE.equals(params.getBroadPhase());
+        CHECK_ESTIMATE(params.isFixedPrecision()
+                ? COST_ESTIMATOR.estimateFixed(params.getWidth(), params.getHeight(),
+                        params.getRadiusMax(), params.getHowMany(), params.getMaxEdges(), params.isSummary(), bruteForce)
+                : params.isSummary()
+                ? COST_ESTIMATOR.estimateSummary(params.getWidth(), params.getHeight(),
+                        params.getRadiusMax(), params.getHowMany(), params.getMaxEdges())
+                : COST_ESTIMATOR.estimate(params.getWidth(), params.getHeight(),
+                        params.getRadiusMax(), params.getHowMany(), params.getMaxEdges(), bruteForce), resJson);
+    }
+
+    // 이미 계산된 예상 비용으로 수락 여부를 판단 (SaveScene 등 요청 파라미터와 비용 모델이 다른 Action용)
+    static void CHECK_ESTIMATE(ShapesCostEstimator.Estimate estimate, JSONObject resJson)
+            throws RequestRejectedException {
+        resJson.put("ESTIMATE", estimate.toJSON());
+        if (estimate.getEstimatedMillis() > MAX_ESTIMATED_MILLIS ||
+                estimate.getEstimatedBytes() > MAX_ESTIMATED_BYTES) {
+            throw new RequestRejectedException(422, "Unprocessable Entity",
+                    "요청한 작업의 예상 비용이 서버 허용 범위를 초과합니다. HowMany 또는 MaxEdges를 줄여주세요.", 0);
+        }
+    }
+}
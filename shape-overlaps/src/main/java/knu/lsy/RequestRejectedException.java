@@ -0,0 +1,32 @@
+package knu.lsy;
+
+/**
+ * 서버 보호를 위해 요청을 처리하지 않고 거절할 때 발생하는 예외.
+ * API에서 HTTP 상태 코드와 Retry-After 헤더로 변환됩니다.
+ */
+public class RequestRejectedException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+    private final String statusMessage;
+    private final long retryAfterSeconds; // 0 이하이면 Retry-After 헤더를 보내지 않음
+
+    public RequestRejectedException(int status, String statusMessage, String message, long retryAfterSeconds) {
+        super(message);
+        this.status = status;
+        this.statusMessage = statusMessage;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getStatusMessage() {
+        return statusMessage;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,302 @@
+package knu.lsy;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import knu.lsy.shapes.BroadPhase;
+import knu.lsy.shapes.CompactScene;
+import knu.lsy.shapes.DeadlineExceededException;
+import knu.lsy.shapes.SceneFile;
+import knu.lsy.shapes.SceneJsonReader;
+import knu.lsy.shapes.ShapeGenerator;
+import knu.lsy.shapes.ShapeIdTable;
+import knu.lsy.shapes.UnionFind;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+/**
+ * 클라이언트가 보낸 장면(도형 목록)의 겹침 그룹을 계산하는 API. (Action=GroupScene)
+ * POST 본문은 generateShapes 응답과 같은 형식의 JSON(SceneJsonReader) 또는 장면 파일 형식(SceneFile, Content-Type: application/octet-stream)이며,
+ * 본문은 먼저 임시 파일로 모두 받은 뒤 동시 실행 제한(SHAPES_GATE) 슬롯을 얻으므로, 느린 업로드가 슬롯을 차지하지 않습니다.
+ * JSON은 트리를 만들지 않고 스트리밍 방식으로 읽어 바로 고정소수점 압축 장면에 기록하고, 장면 파일은 임시 파일을 그대로 메모리 매핑합니다.
+ * 그룹 번호와 색상은 ShapesOverlaps(Precision=fixed)와 같은 규칙으로 매기며, 응답도 JSON 트리 없이 바로 출력합니다.
+ *
+ * 쿼리 파라미터: Mode(full: 그룹별 도형 ID와 색상, summary: 요약 통계), Storage(heap|offheap), BroadPhase, TimeoutMs
+ */
+@RestController
+public class SceneGroupingAPI {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String BINARY_CONTENT_TYPE = "application/octet-stream";
+
+    // 본문 크기 상한 (shapes.group.max-upload-bytes)
+    private final long maxUploadBytes;
+
+    public SceneGroupingAPI(@Value("${shapes.group.max-upload-bytes:1073741824}") long maxUploadBytes) {
+        this.maxUploadBytes = maxUploadBytes;
+    }
+
+    @PostMapping("/api/group")
+    @CrossOrigin(origins = "*", allowedHeaders = "*")
+    public void groupScene(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        JSONObject params_JSON = new JSONObject();
+        for (Map.Entry<String, String[]> entry : request.getParameterMap().entrySet()) {
+            if (entry.getValue() != null && entry.getValue().length > 0) {
+                params_JSON.put(entry.getKey(), entry.getValue()[0]);
+            }
+        }
+
+        String mode;
+        boolean offHeap;
+        String broadPhase;
+        long timeoutMillis;
+        try {
+            mode = ShapesRequest.parseMode(params_JSON);
+            String storage = params_JSON.optString("Storage", ShapesRequest.STORAGE_HEAP);
+            if (!storage.equals(ShapesRequest.STORAGE_HEAP) && !storage.equals(ShapesRequest.STORAGE_OFFHEAP)) {
+                throw new Exception("Storage는 " + ShapesRequest.STORAGE_HEAP + " 또는 " + ShapesRequest.STORAGE_OFFHEAP + "이어야 합니다.");
+            }
+            offHeap = storage.equals(ShapesRequest.STORAGE_OFFHEAP);
+            broadPhase = BroadPhase.parse(params_JSON.optString("BroadPhase", null));
+            timeoutMillis = ShapesRequest.DEFAULT_TIMEOUT_MILLIS;
+            if (params_JSON.has("TimeoutMs")) {
+                timeoutMillis = Long.parseLong(params_JSON.getString("TimeoutMs"));
+                if (timeoutMillis <= 0 || timeoutMillis > ShapesRequest.MAX_TIMEOUT_MILLIS) {
+                    throw new Exception("TimeoutMs는 1 ~ " + ShapesRequest.MAX_TIMEOUT_MILLIS + " 범위여야 합니다.");
+                }
+            }
+        } catch (NumberFormatException e) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "숫자 파라미터 형식이 올바르지 않습니다.", 0);
+            return;
+        } catch (Exception e) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), 0);
+            return;
+        }
+        if (request.getContentLengthLong() > maxUploadBytes) {
+            writeError(response, 413, "Payload Too Large", "본문이 " + maxUploadBytes + " 바이트를 초과합니다.", 0);
+            return;
+        }
+
+        // 업로드 속도는 클라이언트에 달려 있으므로 슬롯을 얻기 전에 본문을 모두 받음
+        BoundedInputStream body = new BoundedInputStream(request.getInputStream(), maxUploadBytes);
+        Path upload;
+        try {
+            upload = spool(body);
+        } catch (IOException e) {
+            if (body.exceeded) {
+                writeError(response, 413, "Payload Too Large", "본문이 " + maxUploadBytes + " 바이트를 초과합니다.", 0);
+            } else {
+                writeError(response, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), 0);
+            }
+            return;
+        }
+
+        try {
+            long startNanos;
+            try {
+                startNanos = BACKEND_MANAGER.SHAPES_GATE.acquire();
+            } catch (RequestRejectedException e) {
+                writeError(response, e.getStatus(), e.getStatusMessage(), e.getMessage(), e.getRetryAfterSeconds());
+                return;
+            }
+            try {
+                ShapeGenerator generator = new ShapeGenerator();
+                generator.setTimeout(timeoutMillis);
+                generator.setOffHeapStorage(offHeap);
+                generator.setBroadPhase(broadPhase);
+
+                ShapeIdTable ids = null;
+                CompactScene scene;
+                String contentType = request.getContentType();
+                if (contentType != null && contentType.startsWith(BINARY_CONTENT_TYPE)) {
+                    scene = SceneFile.map(upload); // 매핑은 파일을 지워도 유지됨
+                } else {
+                    SceneJsonReader reader = new SceneJsonReader(generator, offHeap);
+                    try (InputStream in = new BufferedInputStream(Files.newInputStream(upload))) {
+                        scene = reader.read(in);
+                    }
+                    ids = reader.getIds();
+                }
+                try (scene; UnionFind unionFind = generator.groupCompactScene(scene)) {
+                    if (mode.equals(ShapesRequest.MODE_SUMMARY)) {
+                        writeResult(response, generator.summarizeGroupedScene(scene, unionFind));
+                    } else {
+                        writeGroups(response, generator, scene, unionFind, ids);
+                    }
+                }
+            } catch (DeadlineExceededException e) {
+                writeError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Service Unavailable", e.getMessage(), 0);
+            } catch (IllegalArgumentException | IOException e) {
+                writeError(response, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), 0);
+            } finally {
+                BACKEND_MANAGER.SHAPES_GATE.release(startNanos);
+            }
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    // 본문을 임시 파일로 모두 받음 (실패하면 임시 파일을 지움)
+    private static Path spool(InputStream body) throws IOException {
+        Path file = Files.createTempFile("shape-overlaps-upload-", ".upload");
+        try {
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+            return file;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * {"RES": {"STATUS": 200, ..., "RESULT": {"totalCount": n, "overlapGroups": [{"shapeIds": [...], "color": ..., "size": k}, ...]}}}를
+     * 바로 출력합니다. 그룹 순서와 색상은 ShapesOverlaps와 같고(그룹 번호 순), 그룹 안의 도형은 본문 순서입니다.
+     */
+    private static void writeGroups(HttpServletResponse response, ShapeGenerator generator, CompactScene scene,
+                                    UnionFind unionFind, ShapeIdTable ids) throws IOException {
+        int n = scene.size();
+        int[] groups = generator.groupIndexes(unionFind);
+        // 그룹 번호별 도형 목록을 계수 정렬로 구성 (groupStart[g] ~ groupStart[g+1])
+        int groupCount = 0;
+        for (int group : groups) {
+            groupCount = Math.max(groupCount, group + 1);
+        }
+        int[] groupStart = new int[groupCount + 1];
+        for (int group : groups) {
+            if (group >= 0) {
+                groupStart[group + 1]++;
+            }
+        }
+        for (int g = 0; g < groupCount; g++) {
+            groupStart[g + 1] += groupStart[g];
+        }
+        int[] members = new int[groupStart[groupCount]];
+        int[] fill = new int[groupCount];
+        for (int i = 0; i < n; i++) {
+            if (groups[i] >= 0) {
+                members[groupStart[groups[i]] + fill[groups[i]]++] = i;
+            }
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/json;charset=UTF-8");
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            writeResultStart(json);
+            json.writeNumberField("totalCount", n);
+            json.writeArrayFieldStart("overlapGroups");
+            for (int g = 0; g < groupCount; g++) {
+                if (groupStart[g] == groupStart[g + 1]) {
+                    continue; // 크기 1인 집합의 번호
+                }
+                json.writeStartObject();
+                json.writeArrayFieldStart("shapeIds");
+                for (int k = groupStart[g]; k < groupStart[g + 1]; k++) {
+                    json.writeString(ids != null ? ids.get(members[k]) : scene.getId(members[k]));
+                }
+                json.writeEndArray();
+                json.writeStringField("color", ShapeGenerator.groupColor(g));
+                json.writeNumberField("size", groupStart[g + 1] - groupStart[g]);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            writeResultEnd(json);
+        }
+    }
+
+    // 요약 통계처럼 작은 결과는 /api와 같은 방식으로 JSON 객체를 만들어 출력
+    private static void writeResult(HttpServletResponse response, JSONObject result) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/json;charset=UTF-8");
+        JSONObject res = new JSONObject()
+                .put("STATUS", 200)
+                .put("STATUS_MSG", "OK")
+                .put("ACTION", "GroupScene")
+                .put("RESULT", result);
+        response.getWriter().write(new JSONObject().put("RES", res).toString());
+    }
+
+    // /api와 같은 응답 구조의 시작 부분 ({"RES": {..., "RESULT": {)
+    private static void writeResultStart(JsonGenerator json) throws IOException {
+        json.writeStartObject();
+        json.writeObjectFieldStart("RES");
+        json.writeNumberField("STATUS", 200);
+        json.writeStringField("STATUS_MSG", "OK");
+        json.writeStringField("ACTION", "GroupScene");
+        json.writeObjectFieldStart("RESULT");
+    }
+
+    private static void writeResultEnd(JsonGenerator json) throws IOException {
+        json.writeEndObject();
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    private static void writeError(HttpServletResponse response, int status, String statusMessage, String message,
+                                   long retryAfterSeconds) throws IOException {
+        if (response.isCommitted()) {
+            return; // 결과를 출력하는 도중 실패한 경우 (예: 클라이언트 연결 끊김)
+        }
+        if (retryAfterSeconds > 0) {
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        }
+        response.setStatus(status);
+        response.setContentType("application/json;charset=UTF-8");
+        JSONObject res = new JSONObject()
+                .put("STATUS", status)
+                .put("STATUS_MSG", statusMessage)
+                .put("ACTION", "GroupScene")
+                .put("MESSAGE", message == null ? JSONObject.NULL : message);
+        response.getWriter().write(new JSONObject().put("RES", res).toString());
+    }
+
+    // 읽은 바이트 수가 상한을 넘으면 더 읽지 않고 예외를 던지는 입력 스트림
+    private static final class BoundedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+        private boolean exceeded;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int bytes) throws IOException {
+            count += bytes;
+            if (count > limit) {
+                exceeded = true;
+                throw new IOException("본문 크기 상한을 초과했습니다.");
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package knu.lsy;
+
+import knu.lsy.shapes.CompactScene;
+import knu.lsy.shapes.SceneLod;
+import knu.lsy.shapes.SceneRenderer;
+import org.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 저장된 장면에서 만든 파생 데이터와 렌더링한 PNG 타일을 보관하는 LRU 캐시. (RenderScene, GET /api/tiles, LoadScene)
+ * - 장면: 장면 파일 매핑과, 처음 요청될 때 만드는 렌더러(공간 인덱스)와 단순화 형태(SceneLod)를 최근 사용한 MAX_SCENES개 장면만 유지
+ * - 타일: 인코딩한 PNG 바이트를 최근 사용 순서로 유지하며, 합계가 maxTileBytes를 넘으면 가장 오래 사용하지 않은 타일부터 버림
+ * 키에는 장면 파일 버전(SceneStore.version)이 들어가므로 같은 이름으로 다시 저장한 장면의 이전 타일은 사용되지 않고 밀려납니다.
+ */
+public class SceneRenderCache {
+    // 매핑과 파생 데이터를 유지할 장면 수
+    private static final int MAX_SCENES = 4;
+
+    private final long maxTileBytes;
+    private final LinkedHashMap<String, SceneEntry> scenes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SceneEntry> eldest) {
+            return size() > MAX_SCENES;
+        }
+    };
+    private final LinkedHashMap<String, byte[]> tiles = new LinkedHashMap<>(256, 0.75f, true);
+    private long tileBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public SceneRenderCache(long maxTileBytes) {
+        this.maxTileBytes = maxTileBytes;
+    }
+
+    /**
+     * 저장된 장면을 반환합니다. 캐시에 없으면 장면 파일을 매핑하고 검증하므로, 검증은 장면 파일 버전별로 한 번만 합니다.
+     * 반환된 장면은 캐시가 공유하므로 호출한 쪽에서 close하면 안 됩니다.
+     *
+     * @param version SceneStore.version 값
+     */
+    public CompactScene scene(SceneStore store, String sceneName, String version) throws Exception {
+        return entry(store, sceneName, version).scene;
+    }
+
+    /**
+     * 저장된 장면의 렌더러를 반환합니다. 캐시에 없으면 장면을 열어 렌더러를 만듭니다.
+     *
+     * @param version SceneStore.version 값
+     */
+    public SceneRenderer renderer(SceneStore store, String sceneName, String version) throws Exception {
+        SceneEntry entry = entry(store, sceneName, version);
+        synchronized (entry) {
+            if (entry.renderer == null) {
+                entry.renderer = new SceneRenderer(entry.scene);
+            }
+            return entry.renderer;
+        }
+    }
+
+    // 저장된 장면의 단순화 형태를 반환합니다. 캐시에 없으면 장면 파일 버전별로 한 번만 만듭니다.
+    public SceneLod lod(SceneStore store, String sceneName, String version) throws Exception {
+        SceneEntry entry = entry(store, sceneName, version);
+        synchronized (entry) {
+            if (entry.lod == null) {
+                entry.lod = new SceneLod(entry.scene);
+            }
+            return entry.lod;
+        }
+    }
+
+    // 장면을 매핑하여 캐시 (매핑은 잠금 밖에서 하므로 동시에 처음 요청되면 중복으로 열 수 있으며, 먼저 들어간 것을 사용)
+    private SceneEntry entry(SceneStore store, String sceneName, String version) throws Exception {
+        String key = sceneName + "@" + version;
+        synchronized (this) {
+            SceneEntry entry = scenes.get(key);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        // 매핑한 장면은 close할 필요가 없으므로 캐시에서 밀려나면 GC가 매핑을 정리
+        SceneEntry loaded = new SceneEntry(store.load(sceneName));
+        synchronized (this) {
+            return scenes.computeIfAbsent(key, k -> loaded);
+        }
+    }
+
+    // 캐시된 타일 PNG (없으면 null)
+    public synchronized byte[] getTile(String key) {
+        byte[] png = tiles.get(key);
+        if (png != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return png;
+    }
+
+    public synchronized void putTile(String key, byte[] png) {
+        if (png.length > maxTileBytes) {
+            return;
+        }
+        byte[] previous = tiles.put(key, png);
+        tileBytes += png.length - (previous != null ? previous.length : 0);
+        var iterator = tiles.values().iterator();
+        while (tileBytes > maxTileBytes && iterator.hasNext()) {
+            tileBytes -= iterator.next().length;
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized JSONObject toJSON() {
+        return new JSONObject()
+                .put("scenes", scenes.size())
+                .put("tiles", tiles.size())
+                .put("tileBytes", tileBytes)
+                .put("maxTileBytes", maxTileBytes)
+                .put("hits", hits)
+                .put("misses", misses)
+                .put("evictions", evictions);
+    }
+
+    private static final class SceneEntry {
+        private final CompactScene scene;
+        private SceneRenderer renderer; // 처음 요청될 때 생성 (entry 잠금 안에서)
+        private SceneLod lod;
+
+        SceneEntry(CompactScene scene) {
+            this.scene = scene;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package knu.lsy;
+
+import knu.lsy.shapes.CompactScene;
+import knu.lsy.shapes.SceneFile;
+import org.json.JSONObject;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Pattern;
+
+/**
+ * 이름으로 장면 파일(SceneFile 형식)을 저장하고 여는 저장소.
+ * 파일은 장면 디렉터리(shapes.scene.dir) 아래 "<SceneName>.scene"으로 저장되며,
+ * 여러 서버가 같은 디렉터리(공유 볼륨)를 사용하면 한 서버가 저장한 장면을 다른 서버가 바로 열 수 있습니다.
+ */
+public class SceneStore {
+    // 경로 조작을 막기 위해 장면 이름은 영문자, 숫자, '_', '-'만 허용
+    private static final Pattern SCENE_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String EXTENSION = ".scene";
+
+    private final Path directory;
+
+    public SceneStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 요청의 SceneName 파라미터를 검증하여 반환합니다.
+     *
+     * @throws Exception SceneName이 없거나 허용되지 않는 문자가 있는 경우
+     */
+    public static String parseSceneName(JSONObject reqJson) throws Exception {
+        if (!reqJson.has("SceneName")) {
+            throw new Exception("SceneName 파라미터가 필요합니다.");
+        }
+        String name = reqJson.getString("SceneName");
+        if (!SCENE_NAME.matcher(name).matches()) {
+            throw new Exception("SceneName은 영문자, 숫자, '_', '-'로 된 1 ~ 64자여야 합니다.");
+        }
+        return name;
+    }
+
+    // 장면을 저장하고 파일 크기(바이트)를 반환합니다. 같은 이름의 장면이 있으면 교체합니다.
+    public long save(String name, CompactScene scene) throws Exception {
+        Files.createDirectories(directory);
+        return SceneFile.write(scene, directory.resolve(name + EXTENSION));
+    }
+
+    // 저장된 장면을 메모리 매핑하여 읽기 전용으로 엽니다.
+    public CompactScene load(String name) throws Exception {
+        Path file = directory.resolve(name + EXTENSION);
+        if (!Files.isRegularFile(file)) {
+            throw new Exception("저장된 장면이 없습니다: " + name);
+        }
+        return SceneFile.map(file);
+    }
+
+    /**
+     * 저장된 장면 파일의 버전(수정 시각과 크기)을 반환합니다. 같은 이름으로 다시 저장하면 값이 바뀌므로 캐시 키에 사용합니다.
+     *
+     * @return 장면이 없으면 null
+     */
+    public String version(String name) throws Exception {
+        Path file = directory.resolve(name + EXTENSION);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return attributes.lastModifiedTime().toMillis() + "-" + attributes.size();
+    }
+}
@@ -0,0 +1,108 @@
+package knu.lsy;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import knu.lsy.shapes.DeadlineExceededException;
+import knu.lsy.shapes.SceneRenderer;
+import knu.lsy.shapes.ShapeGenerator;
+import org.json.JSONObject;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * 저장된 장면(SaveScene)을 지도 형식 z/x/y PNG 타일로 내려주는 API. (Action=RenderTile)
+ * 줌 0은 원점에서 시작하여 모든 도형을 덮는 정사각형 하나이며(SceneRenderer.renderMapTile), 클라이언트는 보이는 영역의 타일만 받습니다.
+ * 렌더링한 타일은 LRU 캐시(SceneRenderCache)에 보관하여 다시 요청되면 렌더링 없이 내려주고,
+ * ETag(장면 파일 버전 포함)가 같으면 304로 응답합니다. 캐시에 없을 때만 ShapesOverlaps 계열과 같은 동시 실행 제한을 받습니다.
+ */
+@RestController
+public class SceneTileAPI {
+    private static final String ACTION = "RenderTile";
+    private static final String PNG_CONTENT_TYPE = "image/png";
+
+    @GetMapping("/api/tiles/{sceneName}/{z}/{x}/{y}.png")
+    @CrossOrigin(origins = "*", allowedHeaders = "*", exposedHeaders = "X-Tile-Cache")
+    public void tile(@PathVariable("sceneName") String sceneName, @PathVariable("z") int z,
+                     @PathVariable("x") int x, @PathVariable("y") int y, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String version;
+        try {
+            SceneStore.parseSceneName(new JSONObject().put("SceneName", sceneName));
+            version = BACKEND_MANAGER.SCENE_STORE.version(sceneName);
+        } catch (Exception e) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), 0);
+            return;
+        }
+        if (version == null) {
+            writeError(response, HttpServletResponse.SC_NOT_FOUND, "Not Found", "저장된 장면이 없습니다: " + sceneName, 0);
+            return;
+        }
+
+        String key = sceneName + "@" + version + "/" + z + "/" + x + "/" + y;
+        String etag = "\"" + key + "\"";
+        if (etag.equals(request.getHeader("If-None-Match"))) {
+            response.setHeader("ETag", etag);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        SceneRenderCache cache = BACKEND_MANAGER.RENDER_CACHE;
+        byte[] png = cache.getTile(key);
+        boolean hit = png != null;
+        if (!hit) {
+            long startNanos;
+            try {
+                startNanos = BACKEND_MANAGER.SHAPES_GATE.acquire();
+            } catch (RequestRejectedException e) {
+                writeError(response, e.getStatus(), e.getStatusMessage(), e.getMessage(), e.getRetryAfterSeconds());
+                return;
+            }
+            try {
+                ShapeGenerator generator = new ShapeGenerator();
+                generator.setTimeout(ShapesRequest.DEFAULT_TIMEOUT_MILLIS);
+                SceneRenderer renderer = cache.renderer(BACKEND_MANAGER.SCENE_STORE, sceneName, version);
+                png = SceneRenderer.encodePng(renderer.renderMapTile(z, x, y, generator), generator);
+                cache.putTile(key, png);
+            } catch (IllegalArgumentException e) {
+                writeError(response, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), 0);
+                return;
+            } catch (DeadlineExceededException e) {
+                writeError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Service Unavailable", e.getMessage(), 0);
+                return;
+            } catch (Exception e) {
+                writeError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error",
+                        e.getMessage(), 0);
+                return;
+            } finally {
+                BACKEND_MANAGER.SHAPES_GATE.release(startNanos);
+            }
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(PNG_CONTENT_TYPE);
+        response.setContentLength(png.length);
+        response.setHeader("ETag", etag);
+        // 장면을 다시 저장하면 타일이 바뀌므로 브라우저는 매번 ETag로 확인
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Tile-Cache", hit ? "HIT" : "MISS");
+        response.getOutputStream().write(png);
+    }
+
+    private static void writeError(HttpServletResponse response, int status, String statusMessage, String message,
+                                   long retryAfterSeconds) throws IOException {
+        if (retryAfterSeconds > 0) {
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        }
+        response.setStatus(status);
+        response.setContentType("application/json;charset=UTF-8");
+        JSONObject res = new JSONObject()
+                .put("STATUS", status)
+                .put("STATUS_MSG", statusMessage)
+                .put("ACTION", ACTION)
+                .put("MESSAGE", message == null ? JSONObject.NULL : message);
+        response.getWriter().write(new JSONObject().put("RES", res).toString());
+    }
+}
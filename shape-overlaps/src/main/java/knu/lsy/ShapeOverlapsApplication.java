@@ -2,8 +2,10 @@ package knu.lsy;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(ShapesRuntimeHints.class)
 public class ShapeOverlapsApplication {
 
 	public static void main(String[] args) {
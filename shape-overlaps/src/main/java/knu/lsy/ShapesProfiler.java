@@ -0,0 +1,268 @@
+package knu.lsy;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * 운영 중인 서버에서 JFR(Java Flight Recorder) 세션을 제한된 시간 동안 기록하고,
+ * 기록 파일을 프로파일 디렉터리(shapes.profile.dir)에 저장한 뒤 요약(상위 실행 메서드, 할당 클래스, 처리 단계, 종류 쌍별 정밀 검사, GC)을 만드는 클래스.
+ * JFR "profile" 설정에 도형 처리 이벤트(knu.lsy.ShapesPhase, knu.lsy.NarrowPhase)를 켜서 기록하며,
+ * 동시에 하나의 세션만 허용하고 디렉터리에는 최근 기록 파일만 남깁니다.
+ * 기록 파일을 읽어 요약하는 동안에는 CPU를 계속 사용하므로 작업 게이트의 슬롯 하나를 차지합니다.
+ * (기록하는 동안에는 슬롯을 차지하지 않아 그동안 들어오는 요청이 평소처럼 처리되고 기록됨)
+ */
+public class ShapesProfiler {
+    // 작업 없이 기록할 때의 기본/최대 시간
+    static final long DEFAULT_DURATION_MILLIS = 10_000;
+    static final long MAX_DURATION_MILLIS = 60_000;
+    // 기록 파일 크기 상한 (넘으면 오래된 구간부터 버림)
+    private static final long MAX_RECORDING_BYTES = 64L * 1024 * 1024;
+    // 응답에 기록 파일을 포함할 수 있는 최대 크기 (IncludeRecording=true)
+    private static final long MAX_INLINE_BYTES = 8L * 1024 * 1024;
+    // 디렉터리에 남길 기록 파일 수
+    private static final int KEEP_RECORDINGS = 10;
+    // 요약에 포함할 항목 수
+    private static final int TOP_COUNT = 15;
+    private static final String EXTENSION = ".jfr";
+    private static final String APP_PACKAGE = "knu.lsy.";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final Path directory;
+    private final AdmissionGate gate;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * @param gate 기록 파일을 요약하는 동안 슬롯을 얻을 작업 게이트
+     */
+    public ShapesProfiler(Path directory, AdmissionGate gate) {
+        this.directory = directory;
+        this.gate = gate;
+    }
+
+    /**
+     * JFR 세션을 시작하고 workload를 실행하거나(null이 아니면) durationMillis 동안 기다린 뒤, 기록을 저장하고 요약합니다.
+     *
+     * @param workload 기록 중에 실행할 작업 (null이면 그동안 서버에서 처리되는 요청을 기록)
+     * @param durationMillis workload가 없을 때 기록할 시간
+     * @param includeRecording 기록 파일을 Base64로 응답에 포함할지 여부
+     * @return 기록 파일 정보, 작업 결과 요약(workload), 프로파일 요약
+     *         (요약할 때 게이트 슬롯이 없으면 요약 대신 summaryOmitted를 넣으며, 기록 파일은 저장됨)
+     * @throws RequestRejectedException 이미 다른 세션이 기록 중인 경우 (429)
+     */
+    public JSONObject profile(Callable<JSONObject> workload, long durationMillis, boolean includeRecording)
+            throws Exception {
+        if (!running.compareAndSet(false, true)) {
+            throw new RequestRejectedException(429, "Too Many Requests",
+                    "이미 다른 프로파일 세션이 기록 중입니다. 잠시 후 다시 시도해주세요.", 1);
+        }
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve("profile-" + LocalDateTime.now().format(FILE_TIME) + EXTENSION);
+            JSONObject result = new JSONObject();
+            long startNanos = System.nanoTime();
+            try (Recording recording = new Recording(Configuration.getConfiguration("profile"))) {
+                recording.setName("shape-overlaps-profile");
+                recording.setToDisk(true);
+                recording.setMaxSize(MAX_RECORDING_BYTES);
+                recording.enable("knu.lsy.ShapesPhase");
+                recording.enable("knu.lsy.NarrowPhase");
+                recording.start();
+                try {
+                    if (workload != null) {
+                        result.put("workload", workload.call());
+                    } else {
+                        Thread.sleep(durationMillis);
+                    }
+                } finally {
+                    recording.stop();
+                    recording.dump(file);
+                }
+            }
+            result.put("recordingMillis", (System.nanoTime() - startNanos) / 1_000_000);
+            result.put("recordingFile", file.getFileName().toString());
+            result.put("recordingBytes", Files.size(file));
+            putSummary(result, file);
+            if (includeRecording) {
+                if (Files.size(file) <= MAX_INLINE_BYTES) {
+                    result.put("recording", Base64.getEncoder().encodeToString(Files.readAllBytes(file)));
+                } else {
+                    result.put("recordingOmitted", "기록 파일이 " + MAX_INLINE_BYTES + " 바이트보다 커서 응답에 포함하지 않았습니다.");
+                }
+            }
+            deleteOldRecordings();
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // 게이트 슬롯을 얻어 기록 파일을 요약 (슬롯이 없으면 요약을 생략하고 그 이유를 기록)
+    private void putSummary(JSONObject result, Path file) throws Exception {
+        long startNanos;
+        try {
+            startNanos = gate.acquire();
+        } catch (RequestRejectedException e) {
+            result.put("summaryOmitted", e.getMessage());
+            return;
+        }
+        try {
+            result.put("summary", summarize(file));
+        } finally {
+            gate.release(startNanos);
+        }
+    }
+
+    /**
+     * 기록 파일을 읽어 요약합니다.
+     * - hotMethods: 실행 샘플(jdk.ExecutionSample)의 최상위 프레임 기준 상위 메서드 (자기 시간)
+     * - hotAppMethods: 스택에서 처음 나타나는 이 애플리케이션(knu.lsy) 메서드 기준 (라이브러리 호출 시간 포함)
+     * - allocations: 할당 샘플(jdk.ObjectAllocationSample)의 추정 바이트 기준 상위 클래스
+     * - phases, narrowPhase: 도형 처리 단계별 시간, 종류 쌍별 정밀 검사 횟수와 시간
+     * - gc: GC 횟수와 총 정지 시간
+     */
+    static JSONObject summarize(Path file) throws Exception {
+        Map<String, Long> topFrames = new HashMap<>();
+        Map<String, Long> appFrames = new HashMap<>();
+        Map<String, Long> allocations = new HashMap<>();
+        Map<String, long[]> phases = new HashMap<>();  // {횟수, 나노초}
+        Map<String, long[]> narrow = new HashMap<>();  // {검사 수, 겹침 수, 나노초}
+        long samples = 0;
+        long allocationBytes = 0;
+        long gcCount = 0;
+        long gcPauseNanos = 0;
+
+        try (RecordingFile recordingFile = new RecordingFile(file)) {
+            while (recordingFile.hasMoreEvents()) {
+                RecordedEvent event = recordingFile.readEvent();
+                switch (event.getEventType().getName()) {
+                    case "jdk.ExecutionSample": {
+                        RecordedStackTrace stackTrace = event.getStackTrace();
+                        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+                            break;
+                        }
+                        samples++;
+                        topFrames.merge(methodName(stackTrace.getFrames().get(0)), 1L, Long::sum);
+                        for (RecordedFrame frame : stackTrace.getFrames()) {
+                            if (frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith(APP_PACKAGE)) {
+                                appFrames.merge(methodName(frame), 1L, Long::sum);
+                                break;
+                            }
+                        }
+                        break;
+                    }
+                    case "jdk.ObjectAllocationSample": {
+                        long weight = event.getLong("weight");
+                        allocationBytes += weight;
+                        allocations.merge(event.getClass("objectClass").getName(), weight, Long::sum);
+                        break;
+                    }
+                    case "knu.lsy.ShapesPhase": {
+                        long[] total = phases.computeIfAbsent(event.getString("phase"), k -> new long[2]);
+                        total[0]++;
+                        total[1] += event.getDuration().toNanos();
+                        break;
+                    }
+                    case "knu.lsy.NarrowPhase": {
+                        long[] total = narrow.computeIfAbsent(event.getString("pairType"), k -> new long[3]);
+                        total[0] += event.getLong("tests");
+                        total[1] += event.getLong("overlaps");
+                        total[2] += event.getLong("testNanos");
+                        break;
+                    }
+                    case "jdk.GarbageCollection":
+                        gcCount++;
+                        gcPauseNanos += event.getDuration("sumOfPauses").toNanos();
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        JSONObject summary = new JSONObject();
+        summary.put("executionSamples", samples);
+        summary.put("hotMethods", topEntries(topFrames, samples, "samples"));
+        summary.put("hotAppMethods", topEntries(appFrames, samples, "samples"));
+        summary.put("allocationSampledBytes", allocationBytes);
+        summary.put("allocations", topEntries(allocations, allocationBytes, "bytes"));
+
+        JSONArray phasesArray = new JSONArray();
+        phases.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(Comparator.comparingLong((long[] total) -> total[1]).reversed()))
+                .forEach(entry -> phasesArray.put(new JSONObject()
+                        .put("phase", entry.getKey())
+                        .put("count", entry.getValue()[0])
+                        .put("millis", entry.getValue()[1] / 1_000_000.0)));
+        summary.put("phases", phasesArray);
+
+        JSONArray narrowArray = new JSONArray();
+        narrow.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(Comparator.comparingLong((long[] total) -> total[2]).reversed()))
+                .forEach(entry -> narrowArray.put(new JSONObject()
+                        .put("pairType", entry.getKey())
+                        .put("tests", entry.getValue()[0])
+                        .put("overlaps", entry.getValue()[1])
+                        .put("millis", entry.getValue()[2] / 1_000_000.0)
+                        .put("nanosPerTest", entry.getValue()[0] == 0 ? 0 : entry.getValue()[2] / entry.getValue()[0])));
+        summary.put("narrowPhase", narrowArray);
+
+        summary.put("gc", new JSONObject().put("count", gcCount).put("pauseMillis", gcPauseNanos / 1_000_000.0));
+        return summary;
+    }
+
+    // "클래스.메서드" 형식 이름 (람다의 숨은 클래스 이름은 실행마다 달라지므로 "$$Lambda"까지만 사용)
+    private static String methodName(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        int lambda = type.indexOf("$$Lambda");
+        if (lambda >= 0) {
+            type = type.substring(0, lambda + "$$Lambda".length());
+        }
+        return type + "." + frame.getMethod().getName();
+    }
+
+    // 값이 큰 순서로 상위 TOP_COUNT개 항목과 전체 대비 비율
+    private static JSONArray topEntries(Map<String, Long> counts, long total, String valueKey) {
+        JSONArray array = new JSONArray();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(TOP_COUNT)
+                .forEach(entry -> array.put(new JSONObject()
+                        .put("name", entry.getKey())
+                        .put(valueKey, entry.getValue())
+                        .put("percent", total == 0 ? 0 : Math.round(entry.getValue() * 1000.0 / total) / 10.0)));
+        return array;
+    }
+
+    // 최근 KEEP_RECORDINGS개를 제외한 기록 파일 삭제
+    private void deleteOldRecordings() throws Exception {
+        List<Path> recordings = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().startsWith("profile-")
+                    && path.getFileName().toString().endsWith(EXTENSION)).forEach(recordings::add);
+        }
+        recordings.sort(Comparator.comparing((Path path) -> path.getFileName().toString()).reversed());
+        for (int i = KEEP_RECORDINGS; i < recordings.size(); i++) {
+            Files.deleteIfExists(recordings.get(i));
+        }
+    }
+}
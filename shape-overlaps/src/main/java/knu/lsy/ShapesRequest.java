@@ -0,0 +1,391 @@
+package knu.lsy;
+
+import knu.lsy.shapes.Approximation;
+import knu.lsy.shapes.BroadPhase;
+import knu.lsy.shapes.CompactScene;
+import knu.lsy.shapes.ConcavePolygon;
+import knu.lsy.shapes.DetailLevel;
+import knu.lsy.shapes.Layout;
+import org.json.JSONObject;
+
+/**
+ * ShapesOverlaps 계열 요청의 공통 파라미터(Width, Height, RadiusMax, HowMany, MaxEdges, TimeoutMs, Mode, Precision, Storage, TileSize, Seed, BroadPhase, Detail, Accuracy, Layout, Polygons)를
+ * 검증하고 보관하는 클래스. /api와 스트리밍 API가 같은 규칙으로 파라미터를 해석하도록 합니다.
+ */
+public class ShapesRequest {
+    // 요청별 처리 시간 제한 (기본값과 TimeoutMs 파라미터로 지정 가능한 최대값)
+    static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
+    static final long MAX_TIMEOUT_MILLIS = 120_000;
+
+    // 응답 형식: full(도형별 JSON 포함, 기본값), summary(집계 통계만)
+    public static final String MODE_FULL = "full";
+    public static final String MODE_SUMMARY = "summary";
+
+    // 좌표 정밀도: double(Point 객체, 기본값), fixed(int32 고정소수점 압축 장면)
+    public static final String PRECISION_DOUBLE = "double";
+    public static final String PRECISION_FIXED = "fixed";
+
+    // 고정소수점 장면 저장 위치: heap(기본값), offheap(direct 버퍼, Precision=fixed에서만)
+    public static final String STORAGE_HEAP = "heap";
+    public static final String STORAGE_OFFHEAP = "offheap";
+
+    // 일반 다각형 모양: convex(정점의 볼록 껍질, 기본값), concave(오목 다각형 ConcavePolygon)
+    public static final String POLYGONS_CONVEX = "convex";
+    public static final String POLYGONS_CONCAVE = "concave";
+
+    private final int width;
+    private final int height;
+    private final int radiusMax;
+    private final int howMany;
+    private final int maxEdges;
+    private final long timeoutMillis;
+    private final String mode;
+    private final String precision;
+    private final String storage;
+    private final int tileSize; // ShapesOverlapsTiled의 타일 크기 (0이면 자동)
+    private final Long seed;    // 재현 가능한 배치를 위한 난수 시드 (없으면 null)
+    private final String broadPhase; // 겹침 그룹화의 광역 단계 전략 (auto, brute, grid, sweep)
+    private final DetailLevel detail; // 전체 응답 모드의 도형 형태 (Detail, Scale, MergeGroups)
+    private final Approximation approximation; // 겹침 판정 근사 방식 (Accuracy, KdopK, SampleRate)
+    private final Layout layout; // 도형 배치 방식 (Layout, TargetOverlapRatio)
+    private final String polygons; // 일반 다각형 모양 (convex, concave)
+
+    private ShapesRequest(int width, int height, int radiusMax, int howMany, int maxEdges, long timeoutMillis,
+                          String mode, String precision, String storage, int tileSize, Long seed, String broadPhase,
+                          DetailLevel detail, Approximation approximation, Layout layout, String polygons) {
+        this.width = width;
+        this.height = height;
+        this.radiusMax = radiusMax;
+        this.howMany = howMany;
+        this.maxEdges = maxEdges;
+        this.timeoutMillis = timeoutMillis;
+        this.mode = mode;
+        this.precision = precision;
+        this.storage = storage;
+        this.tileSize = tileSize;
+        this.seed = seed;
+        this.broadPhase = broadPhase;
+        this.detail = detail;
+        this.approximation = approximation;
+        this.layout = layout;
+        this.polygons = polygons;
+    }
+
+    /**
+     * 요청 파라미터 JSON에서 도형 생성 파라미터를 읽고 검증합니다.
+     *
+     * @param reqJson 요청 파라미터 (값은 모두 문자열)
+     * @return 검증된 파라미터
+     * @throws Exception 필수 파라미터가 없거나 값이 올바르지 않은 경우
+     */
+    public static ShapesRequest parse(JSONObject reqJson) throws Exception {
+        if (!reqJson.has("Width") || !reqJson.has("Height") ||
+                !reqJson.has("RadiusMax") || !reqJson.has("HowMany") ||
+                !reqJson.has("MaxEdges")) {
+            throw new Exception("필수 파라미터가 누락되었습니다.");
+        }
+
+        try {
+            int width = Integer.parseInt(reqJson.getString("Width"));
+            int height = Integer.parseInt(reqJson.getString("Height"));
+            int radiusMax = Integer.parseInt(reqJson.getString("RadiusMax"));
+            int howMany = Integer.parseInt(reqJson.getString("HowMany"));
+            int maxEdges = Integer.parseInt(reqJson.getString("MaxEdges"));
+
+            if (width <= 0 || height <= 0 || radiusMax <= 0 ||
+                    howMany <= 0 || maxEdges < 3) {
+                throw new Exception("파라미터 값이 올바르지 않습니다.");
+            }
+
+            long timeoutMillis = parseTimeout(reqJson);
+
+            String mode = parseMode(reqJson);
+
+            String precision = reqJson.optString("Precision", PRECISION_DOUBLE);
+            if (!precision.equals(PRECISION_DOUBLE) && !precision.equals(PRECISION_FIXED)) {
+                throw new Exception("Precision은 " + PRECISION_DOUBLE + " 또는 " + PRECISION_FIXED + "이어야 합니다.");
+            }
+            if (precision.equals(PRECISION_FIXED) &&
+                    (width > CompactScene.MAX_CANVAS_SIZE || height > CompactScene.MAX_CANVAS_SIZE)) {
+                throw new Exception("Precision=fixed에서는 Width와 Height가 " + CompactScene.MAX_CANVAS_SIZE + " 이하여야 합니다.");
+            }
+
+            String storage = reqJson.optString("Storage", STORAGE_HEAP);
+            if (!storage.equals(STORAGE_HEAP) && !storage.equals(STORAGE_OFFHEAP)) {
+                throw new Exception("Storage는 " + STORAGE_HEAP + " 또는 " + STORAGE_OFFHEAP + "이어야 합니다.");
+            }
+            if (storage.equals(STORAGE_OFFHEAP) && !precision.equals(PRECISION_FIXED)) {
+                throw new Exception("Storage=" + STORAGE_OFFHEAP + "는 Precision=" + PRECISION_FIXED + "에서만 사용할 수 있습니다.");
+            }
+
+            int tileSize = 0;
+            if (reqJson.has("TileSize")) {
+                tileSize = Integer.parseInt(reqJson.getString("TileSize"));
+                if (tileSize < 2 * radiusMax) {
+                    throw new Exception("TileSize는 2 * RadiusMax 이상이어야 합니다.");
+                }
+            }
+
+            Long seed = reqJson.has("Seed") ? Long.parseLong(reqJson.getString("Seed")) : null;
+            String broadPhase = BroadPhase.parse(reqJson.optString("BroadPhase", null));
+
+            DetailLevel detail = parseDetail(reqJson);
+            if (detail.isCoarse() && !precision.equals(PRECISION_FIXED)) {
+                throw new Exception("Detail=" + DetailLevel.COARSE + "는 Precision=" + PRECISION_FIXED + "에서만 사용할 수 있습니다.");
+            }
+            if (detail.isCoarse() && mode.equals(MODE_SUMMARY)) {
+                // 요약 모드는 도형을 출력하지 않으므로 단순화할 형태가 없음
+                throw new Exception("Detail=" + DetailLevel.COARSE + "는 Mode=" + MODE_FULL + "에서만 사용할 수 있습니다.");
+            }
+
+            Layout layout = parseLayout(reqJson);
+            if (!layout.isRandom() && (width <= 2 * radiusMax || height <= 2 * radiusMax)) {
+                throw new Exception("Layout=" + layout.getMode() + "에서는 Width와 Height가 2 * RadiusMax보다 커야 합니다.");
+            }
+
+            String polygons = reqJson.optString("Polygons", POLYGONS_CONVEX);
+            if (!polygons.equals(POLYGONS_CONVEX) && !polygons.equals(POLYGONS_CONCAVE)) {
+                throw new Exception("Polygons는 " + POLYGONS_CONVEX + " 또는 " + POLYGONS_CONCAVE + "이어야 합니다.");
+            }
+            if (polygons.equals(POLYGONS_CONCAVE) && maxEdges > ConcavePolygon.MAX_VERTICES) {
+                throw new Exception("Polygons=" + POLYGONS_CONCAVE + "에서는 MaxEdges가 " + ConcavePolygon.MAX_VERTICES + " 이하여야 합니다.");
+            }
+
+            return new ShapesRequest(width, height, radiusMax, howMany, maxEdges, timeoutMillis, mode, precision,
+                    storage, tileSize, seed, broadPhase, detail, parseApproximation(reqJson), layout, polygons);
+        } catch (NumberFormatException e) {
+            throw new Exception("숫자 파라미터 형식이 올바르지 않습니다.");
+        }
+    }
+
+    /**
+     * ShapesOverlapsTiled 요청 파라미터를 검증합니다. 타일 엔진은 고정소수점 장면만 사용하므로
+     * Precision을 생략하면 fixed로 간주하고, 도형 중심이 놓일 영역이 있도록 Width와 Height가 2 * RadiusMax보다 커야 합니다.
+     * ShapesShard, ShapesOverlapsSharded도 이 검증을 사용하며, Accuracy 근사와 Detail=coarse는 지원하지 않습니다.
+     */
+    public static ShapesRequest parseTiled(JSONObject reqJson) throws Exception {
+        JSONObject tiledJson = new JSONObject(reqJson.toMap());
+        tiledJson.put("Precision", reqJson.optString("Precision", PRECISION_FIXED));
+        ShapesRequest params = parse(tiledJson);
+        if (!params.isFixedPrecision()) {
+            throw new Exception("ShapesOverlapsTiled는 Precision=" + PRECISION_FIXED + "만 지원합니다.");
+        }
+        if (!params.layout.isRandom()) {
+            throw new Exception("ShapesOverlapsTiled는 Layout=" + Layout.RANDOM + "만 지원합니다.");
+        }
+        if (params.isConcavePolygons()) {
+            throw new Exception("ShapesOverlapsTiled는 Polygons=" + POLYGONS_CONVEX + "만 지원합니다.");
+        }
+        // 타일/샤드 엔진은 정밀 판정과 전체 도형 응답만 사용하며, 샤드 워커에 전달하지 않는 옵션은 무시하지 않고 거부
+        params.requireExact("ShapesOverlapsTiled");
+        if (params.detail.isCoarse()) {
+            throw new Exception("ShapesOverlapsTiled는 Detail=" + DetailLevel.FULL + "만 지원합니다.");
+        }
+        if (params.width <= 2 * params.radiusMax || params.height <= 2 * params.radiusMax) {
+            throw new Exception("Width와 Height는 2 * RadiusMax보다 커야 합니다.");
+        }
+        return params;
+    }
+
+    // TimeoutMs 파라미터 (없으면 DEFAULT_TIMEOUT_MILLIS, 다른 도형 생성 파라미터 없이 쓰는 Action용으로 따로 검증)
+    static long parseTimeout(JSONObject reqJson) throws Exception {
+        if (!reqJson.has("TimeoutMs")) {
+            return DEFAULT_TIMEOUT_MILLIS;
+        }
+        long timeoutMillis;
+        try {
+            timeoutMillis = Long.parseLong(reqJson.getString("TimeoutMs"));
+        } catch (NumberFormatException e) {
+            throw new Exception("숫자 파라미터 형식이 올바르지 않습니다.");
+        }
+        if (timeoutMillis <= 0 || timeoutMillis > MAX_TIMEOUT_MILLIS) {
+            throw new Exception("TimeoutMs는 1 ~ " + MAX_TIMEOUT_MILLIS + " 범위여야 합니다.");
+        }
+        return timeoutMillis;
+    }
+
+    // Mode 파라미터 (없으면 full)
+    static String parseMode(JSONObject reqJson) throws Exception {
+        String mode = reqJson.optString("Mode", MODE_FULL);
+        if (!mode.equals(MODE_FULL) && !mode.equals(MODE_SUMMARY)) {
+            throw new Exception("Mode는 " + MODE_FULL + " 또는 " + MODE_SUMMARY + "이어야 합니다.");
+        }
+        return mode;
+    }
+
+    /**
+     * Detail(full|coarse, 기본 full), Scale(장면 좌표 1당 픽셀 수, 기본 1), MergeGroups(true|false, 기본 false) 파라미터.
+     * Scale과 MergeGroups는 Detail=coarse에서만 사용합니다.
+     */
+    static DetailLevel parseDetail(JSONObject reqJson) throws Exception {
+        String detail = reqJson.optString("Detail", DetailLevel.FULL);
+        if (!detail.equals(DetailLevel.FULL) && !detail.equals(DetailLevel.COARSE)) {
+            throw new Exception("Detail은 " + DetailLevel.FULL + " 또는 " + DetailLevel.COARSE + "이어야 합니다.");
+        }
+        if (detail.equals(DetailLevel.FULL)) {
+            return DetailLevel.FULL_DETAIL;
+        }
+        double scale = 1;
+        if (reqJson.has("Scale")) {
+            try {
+                scale = Double.parseDouble(reqJson.getString("Scale"));
+            } catch (NumberFormatException e) {
+                throw new Exception("숫자 파라미터 형식이 올바르지 않습니다.");
+            }
+            if (!(scale > 0) || Double.isInfinite(scale)) {
+                throw new Exception("Scale은 0보다 커야 합니다.");
+            }
+        }
+        return new DetailLevel(true, scale, Boolean.parseBoolean(reqJson.optString("MergeGroups", "false")));
+    }
+
+    /**
+     * Accuracy(exact|circle|kdop, 기본 exact), KdopK(k-DOP 방향 수, 4 ~ 32의 짝수, 기본 8),
+     * SampleRate(근사로 합친 쌍 중 정밀 검사로 확인할 비율, 0 ~ 1, 기본 0.01) 파라미터.
+     */
+    static Approximation parseApproximation(JSONObject reqJson) throws Exception {
+        String accuracy = reqJson.optString("Accuracy", Approximation.EXACT);
+        if (!accuracy.equals(Approximation.EXACT) && !accuracy.equals(Approximation.CIRCLE)
+                && !accuracy.equals(Approximation.KDOP)) {
+            throw new Exception("Accuracy는 " + Approximation.EXACT + ", " + Approximation.CIRCLE + ", "
+                    + Approximation.KDOP + " 중 하나여야 합니다.");
+        }
+        if (accuracy.equals(Approximation.EXACT)) {
+            return Approximation.EXACT_MODE;
+        }
+        int k = Approximation.DEFAULT_KDOP_K;
+        if (reqJson.has("KdopK")) {
+            k = Integer.parseInt(reqJson.getString("KdopK"));
+            if (k < Approximation.MIN_KDOP_K || k > Approximation.MAX_KDOP_K || k % 2 != 0) {
+                throw new Exception("KdopK는 " + Approximation.MIN_KDOP_K + " ~ " + Approximation.MAX_KDOP_K
+                        + " 범위의 짝수여야 합니다.");
+            }
+        }
+        double sampleRate = Approximation.DEFAULT_SAMPLE_RATE;
+        if (reqJson.has("SampleRate")) {
+            sampleRate = Double.parseDouble(reqJson.getString("SampleRate"));
+            if (!(sampleRate >= 0 && sampleRate <= 1)) {
+                throw new Exception("SampleRate는 0 ~ 1 범위여야 합니다.");
+            }
+        }
+        return new Approximation(accuracy, k, sampleRate);
+    }
+
+    /**
+     * Layout(random|disjoint, 기본 random), TargetOverlapRatio(다른 도형과 겹치는 도형의 목표 비율, 0 ~ 1) 파라미터.
+     * TargetOverlapRatio를 지정하면 target 배치이며, Layout=disjoint는 TargetOverlapRatio=0과 같습니다.
+     */
+    static Layout parseLayout(JSONObject reqJson) throws Exception {
+        String layout = reqJson.optString("Layout", null);
+        if (layout != null && !layout.equals(Layout.RANDOM) && !layout.equals(Layout.DISJOINT)) {
+            throw new Exception("Layout은 " + Layout.RANDOM + " 또는 " + Layout.DISJOINT + "이어야 합니다.");
+        }
+        if (!reqJson.has("TargetOverlapRatio")) {
+            return Layout.DISJOINT.equals(layout) ? Layout.DISJOINT_LAYOUT : Layout.RANDOM_LAYOUT;
+        }
+        if (layout != null) {
+            throw new Exception("TargetOverlapRatio는 Layout과 함께 지정할 수 없습니다.");
+        }
+        double ratio;
+        try {
+            ratio = Double.parseDouble(reqJson.getString("TargetOverlapRatio"));
+        } catch (NumberFormatException e) {
+            throw new Exception("숫자 파라미터 형식이 올바르지 않습니다.");
+        }
+        if (!(ratio >= 0 && ratio <= 1)) {
+            throw new Exception("TargetOverlapRatio는 0 ~ 1 범위여야 합니다.");
+        }
+        return new Layout(Layout.TARGET, ratio);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getRadiusMax() {
+        return radiusMax;
+    }
+
+    public int getHowMany() {
+        return howMany;
+    }
+
+    public int getMaxEdges() {
+        return maxEdges;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public boolean isSummary() {
+        return MODE_SUMMARY.equals(mode);
+    }
+
+    public String getPrecision() {
+        return precision;
+    }
+
+    public boolean isFixedPrecision() {
+        return PRECISION_FIXED.equals(precision);
+    }
+
+    public String getStorage() {
+        return storage;
+    }
+
+    public boolean isOffHeap() {
+        return STORAGE_OFFHEAP.equals(storage);
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public String getBroadPhase() {
+        return broadPhase;
+    }
+
+    public DetailLevel getDetail() {
+        return detail;
+    }
+
+    public Approximation getApproximation() {
+        return approximation;
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    public String getPolygons() {
+        return polygons;
+    }
+
+    public boolean isConcavePolygons() {
+        return POLYGONS_CONCAVE.equals(polygons);
+    }
+
+    /**
+     * 근사 판정(Accuracy, KdopK, SampleRate)을 적용하지 않는 Action에서 Accuracy=exact가 아니면 무시하지 않고 거부합니다.
+     *
+     * @param action 오류 메시지에 쓸 Action 이름
+     */
+    public void requireExact(String action) throws Exception {
+        if (!approximation.isExact()) {
+            throw new Exception(action + "는 Accuracy=" + Approximation.EXACT + "만 지원합니다.");
+        }
+    }
+}
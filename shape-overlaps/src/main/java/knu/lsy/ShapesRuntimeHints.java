@@ -0,0 +1,25 @@
+package knu.lsy;
+
+import knu.lsy.shapes.Point;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * GraalVM 네이티브 이미지 빌드(Spring AOT)에 필요한 리플렉션 힌트 등록.
+ * org.json은 Map/빈(bean) 객체를 감쌀 때 getter를 리플렉션으로 조회하므로,
+ * 응답 생성에 쓰이는 org.json 타입과 JSON으로 감싸질 수 있는 도형 값 타입을 미리 등록합니다.
+ */
+public class ShapesRuntimeHints implements RuntimeHintsRegistrar {
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> type : new Class<?>[] { JSONObject.class, JSONArray.class }) {
+            hints.reflection().registerType(type,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        hints.reflection().registerType(Point.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+    }
+}
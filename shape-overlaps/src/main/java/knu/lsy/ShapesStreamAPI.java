@@ -0,0 +1,148 @@
+package knu.lsy;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import knu.lsy.shapes.Layout;
+import knu.lsy.shapes.Shape;
+import knu.lsy.shapes.ShapeGenerator;
+import knu.lsy.shapes.ShapeStreamListener;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * ShapesOverlaps 결과를 Server-Sent Events로 단계별 전송하는 API.
+ * 이벤트 순서: shapes(도형 묶음, 여러 번) → groups(타일별 잠정 그룹, 여러 번) → final(최종 그룹과 색상).
+ * 오류가 발생하면 error 이벤트를 보내고 스트림을 종료합니다.
+ */
+@RestController
+public class ShapesStreamAPI {
+    private final TaskExecutor taskExecutor;
+
+    public ShapesStreamAPI(TaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    @GetMapping("/api/stream")
+    @CrossOrigin(origins = "*", allowedHeaders = "*")
+    public SseEmitter streamShapes(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        JSONObject params_JSON = new JSONObject();
+        for (Map.Entry<String, String[]> entry : request.getParameterMap().entrySet()) {
+            if (entry.getValue() != null && entry.getValue().length > 0) {
+                params_JSON.put(entry.getKey(), entry.getValue()[0]);
+            }
+        }
+
+        ShapesRequest params;
+        long startNanos;
+        try {
+            params = ShapesRequest.parse(params_JSON);
+            if (!params.getLayout().isRandom()) {
+                throw new Exception("스트리밍 API는 Layout=" + Layout.RANDOM + "만 지원합니다.");
+            }
+            if (params.isConcavePolygons()) {
+                throw new Exception("스트리밍 API는 Polygons=" + ShapesRequest.POLYGONS_CONVEX + "만 지원합니다.");
+            }
+            params.requireExact("스트리밍 API");
+            BACKEND_MANAGER.CHECK_ESTIMATE(params, new JSONObject());
+            startNanos = BACKEND_MANAGER.SHAPES_GATE.acquire();
+        } catch (RequestRejectedException e) {
+            if (e.getRetryAfterSeconds() > 0) {
+                response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            }
+            writeError(response, e.getStatus(), e.getMessage());
+            return null;
+        } catch (Exception e) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(params.getTimeoutMillis());
+        Runnable task = () -> {
+            try {
+                ShapeGenerator generator = new ShapeGenerator();
+                generator.setTimeout(params.getTimeoutMillis());
+                generator.streamShapes(params.getWidth(), params.getHeight(), params.getRadiusMax(),
+                        params.getHowMany(), params.getMaxEdges(), new EmitterListener(emitter));
+                emitter.complete();
+            } catch (Exception e) {
+                try {
+                    emitter.send(SseEmitter.event().name("error").data(errorJSON(e.getMessage()).toString()));
+                    emitter.complete();
+                } catch (Exception sendFailure) {
+                    // 클라이언트 연결이 이미 끊어진 경우
+                    emitter.completeWithError(e);
+                }
+            } finally {
+                BACKEND_MANAGER.SHAPES_GATE.release(startNanos);
+            }
+        };
+        try {
+            taskExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // 작업 실행기가 가득 차거나 종료 중이면 작업이 실행되지 않으므로, 여기서 슬롯을 반납하고 스트림 없이 거절
+            BACKEND_MANAGER.SHAPES_GATE.release(startNanos);
+            emitter.completeWithError(e);
+            writeError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "스트리밍 작업을 시작할 수 없습니다. 잠시 후 다시 시도해주세요.");
+            return null;
+        }
+        return emitter;
+    }
+
+    // 스트림을 시작하기 전에 거절된 요청은 일반 JSON 응답으로 반환
+    private static void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().write(errorJSON(message).toString());
+    }
+
+    private static JSONObject errorJSON(String message) {
+        return new JSONObject().put("MESSAGE", message == null ? JSONObject.NULL : message);
+    }
+
+    // ShapeGenerator의 진행 상황을 SSE 이벤트로 변환하는 리스너
+    private static class EmitterListener implements ShapeStreamListener {
+        private final SseEmitter emitter;
+
+        EmitterListener(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void onShapes(List<Shape> shapes) throws Exception {
+            JSONArray shapesArray = new JSONArray();
+            for (Shape shape : shapes) {
+                shapesArray.put(shape.toJSON());
+            }
+            send("shapes", new JSONObject().put("shapes", shapesArray));
+        }
+
+        @Override
+        public void onProvisionalGroups(int tile, int tileCount, JSONArray groups) throws Exception {
+            send("groups", new JSONObject()
+                    .put("tile", tile)
+                    .put("tileCount", tileCount)
+                    .put("groups", groups));
+        }
+
+        @Override
+        public void onFinalGroups(int totalCount, JSONArray overlapGroups) throws Exception {
+            send("final", new JSONObject()
+                    .put("totalCount", totalCount)
+                    .put("overlapGroups", overlapGroups));
+        }
+
+        private void send(String name, JSONObject data) throws Exception {
+            emitter.send(SseEmitter.event().name(name).data(data.toString()));
+        }
+    }
+}
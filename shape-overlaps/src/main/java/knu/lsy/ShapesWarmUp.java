@@ -0,0 +1,93 @@
+package knu.lsy;
+
+import knu.lsy.shapes.Circle;
+import knu.lsy.shapes.IrregularPolygon;
+import knu.lsy.shapes.Point;
+import knu.lsy.shapes.RegularPolygon;
+import knu.lsy.shapes.Shape;
+import knu.lsy.shapes.ShapeGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.Random;
+
+/**
+ * 기동 직후 JIT 워밍업을 수행하는 컴포넌트.
+ * 시드를 고정한 가상의 작업(도형 생성, 모든 도형 종류 쌍의 겹침 검사, JSON 변환)을 미리 실행하여
+ * overlaps, SAT 헬퍼, JSON 생성 코드가 컴파일된 상태에서 실제 요청을 받도록 합니다.
+ * ApplicationRunner는 readiness 상태가 ACCEPTING_TRAFFIC으로 바뀌기 전에 실행되므로,
+ * 워밍업이 끝나기 전까지 readiness probe는 UP을 보고하지 않습니다.
+ */
+@Component
+public class ShapesWarmUp implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(ShapesWarmUp.class);
+
+    @Value("${shapes.warmup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${shapes.warmup.iterations:20}")
+    private int iterations;
+
+    @Value("${shapes.warmup.how-many:300}")
+    private int howMany;
+
+    @Value("${shapes.warmup.max-edges:15}")
+    private int maxEdges;
+
+    @Value("${shapes.warmup.seed:42}")
+    private long seed;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled || iterations <= 0) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long checksum = 0; // 워밍업 결과가 최적화로 제거되지 않도록 누적
+
+        Random random = new Random(seed);
+        for (int i = 0; i < iterations; i++) {
+            // 1. 실제 요청 경로와 동일한 생성 + 그룹화 + JSON 변환
+            ShapeGenerator generator = new ShapeGenerator(seed + i);
+            checksum += generator.generateShapes(1000, 800, 50, howMany, maxEdges).toString().length();
+
+            // 2. 모든 도형 종류 쌍(원/정다각형/일반다각형)의 겹침 검사를 겹치는 배치와 떨어진 배치 모두로 실행
+            checksum += warmUpPairs(random);
+        }
+
+        log.info("JIT warm-up finished: {} iterations of {} shapes (maxEdges={}) in {} ms",
+                iterations, howMany, maxEdges, (System.nanoTime() - start) / 1_000_000);
+        log.debug("JIT warm-up checksum: {}", checksum);
+    }
+
+    private int warmUpPairs(Random random) {
+        int overlaps = 0;
+        for (int k = 0; k < 200; k++) {
+            double distance = random.nextDouble() * 120; // 0 ~ 120: 겹침/비겹침이 모두 나오도록
+            Shape[] left = createAllTypes(new Point(100, 100), random);
+            Shape[] right = createAllTypes(new Point(100 + distance, 100), random);
+            for (Shape a : left) {
+                for (Shape b : right) {
+                    if (a.overlaps(b)) {
+                        overlaps++;
+                    }
+                }
+            }
+        }
+        return overlaps;
+    }
+
+    private Shape[] createAllTypes(Point center, Random random) {
+        int sides = 3 + random.nextInt(Math.max(1, maxEdges - 2));
+        return new Shape[] {
+                new Circle(center, 30),
+                new RegularPolygon(center, 30, sides, random.nextDouble() * 2 * Math.PI),
+                new IrregularPolygon(center, 30, sides, random)
+        };
+    }
+}
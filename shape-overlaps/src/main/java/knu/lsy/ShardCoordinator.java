@@ -0,0 +1,293 @@
+package knu.lsy;
+
+import knu.lsy.shapes.DeadlineExceededException;
+import knu.lsy.shapes.ShapeGenerator;
+import knu.lsy.shapes.TileGrid;
+import knu.lsy.shapes.TiledSceneEngine;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 캔버스를 공간 샤드로 나누어 워커 프로세스(다른 JVM의 /api)에 ShapesShard 작업을 분배하고,
+ * 모든 샤드의 경계 도형을 병합하여 최종 그룹 통계를 계산하는 코디네이터. (ShapesOverlapsSharded)
+ *
+ * 워커마다 요청을 하나씩 보내고, 끝난 워커가 다음 샤드를 가져가는 방식으로 부하를 나눕니다.
+ * 워커가 429(동시 요청 초과)를 돌려주면 Retry-After만큼 기다렸다가 같은 샤드를 다시 보내고,
+ * 워커에 연결할 수 없으면 그 샤드를 대기열로 되돌린 뒤 해당 워커를 제외하여 나머지 워커가 처리하도록 합니다.
+ * 응답에는 병합 결과와 함께 확장 효율(scaling)을 기록합니다.
+ * - serialMillis: 워커들이 샤드를 처리한 CPU 시간(요청 스레드와 보조 스레드)의 합 + 병합 시간 (한 프로세스가 모두 처리했을 때의 근사치)
+ *   (경과 시간의 합은 워커들이 같은 CPU 코어를 나눠 쓰면 실제 작업량보다 커지므로 사용하지 않음)
+ * - speedup: serialMillis / 전체 경과 시간, efficiency: speedup / 워커 수
+ * 같은 요청을 Workers=1, 2, ...로 나누어 실행하면 실측 경과 시간으로도 비교할 수 있습니다.
+ *
+ * 워커별 전송 스레드는 요청마다 스레드 풀을 만들지 않고 코디네이터가 공유하는 실행기(executor)에서 가져옵니다.
+ * (동시에 실행되는 코디네이터 요청은 SHAPES_GATE로 제한되므로 스레드 수도 워커 수 x 작업 슬롯 수를 넘지 않음)
+ */
+public class ShardCoordinator {
+    private static final long MAX_RETRY_WAIT_MILLIS = 5_000;
+
+    private final List<URI> workers;
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+
+    /**
+     * @param workers 워커 서버의 기본 주소 목록 (예: http://localhost:8081)
+     */
+    public ShardCoordinator(List<URI> workers) {
+        this(workers, HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build(), newDispatchExecutor());
+    }
+
+    private ShardCoordinator(List<URI> workers, HttpClient httpClient, ExecutorService executor) {
+        this.workers = workers;
+        this.httpClient = httpClient;
+        this.executor = executor;
+    }
+
+    // 샤드 전송 스레드 풀 (쉬는 스레드는 정리되며, 데몬 스레드이므로 서버 종료를 막지 않음)
+    private static ExecutorService newDispatchExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "shard-dispatch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 설정 문자열(쉼표로 구분한 주소 목록)을 워커 주소 목록으로 변환
+    public static List<URI> parseWorkers(String workers) {
+        List<URI> uris = new ArrayList<>();
+        for (String worker : workers.split(",")) {
+            String trimmed = worker.trim();
+            if (!trimmed.isEmpty()) {
+                uris.add(URI.create(trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed));
+            }
+        }
+        return Collections.unmodifiableList(uris);
+    }
+
+    // 앞에서부터 count개 워커만 사용하는 코디네이터 (count가 워커 수 이상이면 그대로)
+    public ShardCoordinator limit(int count) {
+        return count >= workers.size() ? this : new ShardCoordinator(workers.subList(0, count), httpClient, executor);
+    }
+
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    /**
+     * 샤드를 워커에 분배하여 처리하고 경계 도형을 병합합니다.
+     *
+     * @param params 검증된 요청 파라미터 (Precision=fixed)
+     * @param grid 샤드 격자 (TileGrid.ofDivisions)
+     * @param generator 병합 단계의 정밀 판정과 처리 시간 제한에 사용할 생성기
+     * @param deadlineNanos 전체 처리 마감 시각 (System.nanoTime 기준)
+     * @return 최종 요약 통계, 병합 통계(merge), 확장 효율(scaling)
+     */
+    public JSONObject run(ShapesRequest params, TileGrid grid, ShapeGenerator generator, long deadlineNanos)
+            throws Exception {
+        long startNanos = System.nanoTime();
+        ConcurrentLinkedQueue<Integer> pending = new ConcurrentLinkedQueue<>();
+        for (int shard = 0; shard < grid.getTileCount(); shard++) {
+            pending.add(shard);
+        }
+
+        List<JSONObject> results = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> futures = new ArrayList<>();
+        List<WorkerReport> reports = new ArrayList<>();
+        for (URI worker : workers) {
+            reports.add(new WorkerReport(worker));
+        }
+        try {
+            // 연결에 실패한 워커가 되돌려 놓은 샤드는 다음 차례에 남은 워커들이 처리
+            while (!pending.isEmpty()) {
+                futures.clear();
+                for (WorkerReport report : reports) {
+                    if (report.failure == null) {
+                        futures.add(executor.submit(() -> {
+                            drain(report, pending, params, grid, deadlineNanos, results);
+                            return null;
+                        }));
+                    }
+                }
+                if (futures.isEmpty()) {
+                    throw new Exception("사용 가능한 워커가 없어 " + pending.size() + "개 샤드를 처리하지 못했습니다. ("
+                            + reports.get(0).failure + ")");
+                }
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        pending.clear(); // 다른 워커가 남은 샤드를 더 가져가지 않도록 함
+                        throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
+                }
+            }
+            long dispatchNanos = System.nanoTime() - startNanos;
+
+            long mergeStart = System.nanoTime();
+            JSONObject response = new TiledSceneEngine(generator, null).mergeShards(params.getHowMany(), results);
+            long mergeNanos = System.nanoTime() - mergeStart;
+            response.put("scaling", scalingReport(reports, grid, dispatchNanos, mergeNanos,
+                    System.nanoTime() - startNanos));
+            return response;
+        } finally {
+            // 실패나 마감 시간 초과로 끝나면 아직 샤드를 보내는 중인 워커 작업을 중단 (공유 실행기는 닫지 않음)
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    // 한 워커에 샤드를 하나씩 보내며 대기열이 빌 때까지 처리
+    private void drain(WorkerReport report, ConcurrentLinkedQueue<Integer> pending, ShapesRequest params,
+                       TileGrid grid, long deadlineNanos, List<JSONObject> results) throws Exception {
+        URI worker = report.worker;
+        Integer shard;
+        while ((shard = pending.poll()) != null) {
+            long remainingMillis = (deadlineNanos - System.nanoTime()) / 1_000_000;
+            if (remainingMillis <= 0) {
+                throw new DeadlineExceededException("처리 시간 제한을 초과하여 작업을 중단했습니다. (단계: dispatch)");
+            }
+
+            HttpResponse<String> response;
+            try {
+                response = httpClient.send(
+                        HttpRequest.newBuilder(shardUri(worker, params, grid, shard, remainingMillis))
+                                .timeout(Duration.ofMillis(remainingMillis))
+                                .GET()
+                                .build(),
+                        HttpResponse.BodyHandlers.ofString());
+            } catch (HttpTimeoutException e) {
+                throw new DeadlineExceededException("처리 시간 제한을 초과하여 작업을 중단했습니다. (단계: dispatch)");
+            } catch (IOException e) {
+                // 워커 프로세스가 없거나 연결이 끊어짐: 샤드를 되돌리고 이 워커는 더 사용하지 않음
+                pending.add(shard);
+                report.failure = e.toString();
+                return;
+            }
+            JSONObject res = new JSONObject(response.body()).getJSONObject("RES");
+            int status = res.getInt("STATUS");
+            if (status == 429) {
+                // 워커가 다른 요청을 처리 중: 샤드를 되돌려 놓고 Retry-After만큼 대기 후 재시도
+                pending.add(shard);
+                report.retries++;
+                long retryAfterMillis = response.headers().firstValueAsLong("Retry-After").orElse(1) * 1000;
+                Thread.sleep(Math.min(MAX_RETRY_WAIT_MILLIS, Math.max(0, Math.min(retryAfterMillis, remainingMillis))));
+                continue;
+            }
+            if (status != 200) {
+                String message = res.optString("MESSAGE", res.optString("ERROR_MESSAGE", res.optString("STATUS_MSG")));
+                throw new Exception("워커 " + worker + "에서 샤드 " + shard + " 처리에 실패했습니다. (" + status + "): " + message);
+            }
+
+            JSONObject result = res.getJSONObject("RESULT");
+            results.add(result);
+            report.shards++;
+            report.shapes += result.getInt("shapeCount");
+            report.busyMillis += result.getLong("elapsedMillis");
+            report.cpuMillis += result.getLong("cpuMillis");
+        }
+    }
+
+    private static URI shardUri(URI worker, ShapesRequest params, TileGrid grid, int shard, long timeoutMillis) {
+        Map<String, String> query = new LinkedHashMap<>();
+        query.put("Action", "ShapesShard");
+        query.put("Width", String.valueOf(params.getWidth()));
+        query.put("Height", String.valueOf(params.getHeight()));
+        query.put("RadiusMax", String.valueOf(params.getRadiusMax()));
+        query.put("HowMany", String.valueOf(params.getHowMany()));
+        query.put("MaxEdges", String.valueOf(params.getMaxEdges()));
+        query.put("ShardColumns", String.valueOf(grid.getColumns()));
+        query.put("ShardRows", String.valueOf(grid.getRows()));
+        query.put("Shard", String.valueOf(shard));
+        query.put("TimeoutMs", String.valueOf(Math.min(timeoutMillis, ShapesRequest.MAX_TIMEOUT_MILLIS)));
+        query.put("Storage", params.getStorage());
+        query.put("BroadPhase", params.getBroadPhase());
+        if (params.getSeed() != null) {
+            query.put("Seed", String.valueOf(params.getSeed()));
+        }
+
+        StringBuilder uri = new StringBuilder(worker.toString()).append("/api?");
+        for (Map.Entry<String, String> entry : query.entrySet()) {
+            if (uri.charAt(uri.length() - 1) != '?') {
+                uri.append('&');
+            }
+            uri.append(entry.getKey()).append('=').append(URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8));
+        }
+        return URI.create(uri.toString());
+    }
+
+    private JSONObject scalingReport(List<WorkerReport> reports, TileGrid grid, long dispatchNanos,
+                                     long mergeNanos, long wallNanos) {
+        long shardMillis = 0;
+        JSONArray workerArray = new JSONArray();
+        for (WorkerReport report : reports) {
+            shardMillis += report.cpuMillis;
+            workerArray.put(new JSONObject()
+                    .put("worker", report.worker.toString())
+                    .put("shards", report.shards)
+                    .put("shapes", report.shapes)
+                    .put("busyMillis", report.busyMillis)
+                    .put("cpuMillis", report.cpuMillis)
+                    .put("retries", report.retries)
+                    .put("failure", report.failure == null ? JSONObject.NULL : report.failure));
+        }
+        long mergeMillis = mergeNanos / 1_000_000;
+        long wallMillis = Math.max(1, wallNanos / 1_000_000);
+        long serialMillis = shardMillis + mergeMillis;
+        double speedup = (double) serialMillis / wallMillis;
+
+        JSONObject scaling = new JSONObject();
+        scaling.put("workers", workers.size());
+        scaling.put("shards", grid.getTileCount());
+        scaling.put("shardColumns", grid.getColumns());
+        scaling.put("shardRows", grid.getRows());
+        scaling.put("wallMillis", wallMillis);
+        scaling.put("dispatchMillis", dispatchNanos / 1_000_000);
+        scaling.put("mergeMillis", mergeMillis);
+        scaling.put("serialMillis", serialMillis);
+        scaling.put("speedup", Math.round(speedup * 100) / 100.0);
+        scaling.put("efficiency", Math.round(speedup / workers.size() * 100) / 100.0);
+        scaling.put("perWorker", workerArray);
+        return scaling;
+    }
+
+    // 워커별 처리 기록
+    private static final class WorkerReport {
+        final URI worker;
+        int shards;
+        long shapes;
+        long busyMillis;
+        long cpuMillis;
+        int retries;
+        String failure; // 연결 실패로 제외된 경우 그 원인
+
+        WorkerReport(URI worker) {
+            this.worker = worker;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package knu.lsy.shapes;
+
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 정밀 검사 대신 근사(Approximation)로 겹침을 판정하는 쌍 판정. 광역 단계가 경계원이 닿는 쌍에만 overlaps를 호출하므로
+ * circle 모드는 항상 겹친 것으로, kdop 모드는 두 도형의 k-DOP(k/2개 축의 투영 구간)가 모든 축에서 겹치면 겹친 것으로 판정합니다.
+ * 원끼리는 경계원 검사가 곧 정밀 검사이므로 두 모드 모두 정확합니다.
+ *
+ * overlaps가 true를 반환한 쌍은 Union-Find에서 합쳐지므로, 그중 (i, j) 해시로 고른 sampleRate 비율의 쌍을 정밀 검사로 다시 확인하여
+ * 합친 쌍 중 실제로는 겹치지 않는 쌍의 비율(과병합률)과 그 95% 윌슨 신뢰 상한을 추정합니다.
+ * 표본은 방문 순서가 아닌 쌍 번호로 고르므로 스레드 수와 관계없이 같은 쌍이 뽑히며, 집계는 여러 스레드에서 동시에 호출해도 됩니다.
+ */
+public class ApproximatePairTest implements BroadPhase.PairTest {
+    private static final double Z_95 = 1.96;
+
+    private final Approximation approximation;
+    private final BroadPhase.PairTest exact;
+    private final int axes;
+    private final double[] axisX;
+    private final double[] axisY;
+    // 도형 i의 축 a 투영 구간은 [mins[i * axes + a], maxs[i * axes + a]] (float로 줄일 때 바깥쪽으로 반올림)
+    private final float[] mins;
+    private final float[] maxs;
+    private final boolean[] circles;
+    private final LongAdder mergedPairs = new LongAdder();
+    private final LongAdder kdopRejectedPairs = new LongAdder();
+    private final LongAdder sampledPairs = new LongAdder();
+    private final LongAdder falseMergePairs = new LongAdder();
+
+    /**
+     * @param exact 표본 확인에 사용할 정밀 판정
+     * @param n 도형 수 (kdop 모드에서는 addCircle/addVertex로 모든 도형의 k-DOP를 채운 뒤 사용)
+     */
+    public ApproximatePairTest(Approximation approximation, BroadPhase.PairTest exact, int n) {
+        this.approximation = approximation;
+        this.exact = exact;
+        this.circles = new boolean[n];
+        boolean kdop = Approximation.KDOP.equals(approximation.getMode());
+        this.axes = kdop ? approximation.getK() / 2 : 0;
+        this.axisX = new double[axes];
+        this.axisY = new double[axes];
+        for (int a = 0; a < axes; a++) {
+            axisX[a] = Math.cos(Math.PI * a / axes);
+            axisY[a] = Math.sin(Math.PI * a / axes);
+        }
+        this.mins = new float[n * axes];
+        this.maxs = new float[n * axes];
+        Arrays.fill(mins, Float.POSITIVE_INFINITY);
+        Arrays.fill(maxs, Float.NEGATIVE_INFINITY);
+    }
+
+    // 원 도형을 기록 (k-DOP는 원에 외접하는 k각형)
+    public void addCircle(int shape, double centerX, double centerY, double radius) {
+        circles[shape] = true;
+        for (int a = 0; a < axes; a++) {
+            double projection = centerX * axisX[a] + centerY * axisY[a];
+            mins[shape * axes + a] = floor(projection - radius);
+            maxs[shape * axes + a] = ceil(projection + radius);
+        }
+    }
+
+    // 다각형 도형의 정점 하나를 k-DOP에 포함
+    public void addVertex(int shape, double x, double y) {
+        for (int a = 0; a < axes; a++) {
+            double projection = x * axisX[a] + y * axisY[a];
+            int index = shape * axes + a;
+            mins[index] = Math.min(mins[index], floor(projection));
+            maxs[index] = Math.max(maxs[index], ceil(projection));
+        }
+    }
+
+    private static float floor(double value) {
+        float rounded = (float) value;
+        return rounded > value ? Math.nextDown(rounded) : rounded;
+    }
+
+    private static float ceil(double value) {
+        float rounded = (float) value;
+        return rounded < value ? Math.nextUp(rounded) : rounded;
+    }
+
+    @Override
+    public boolean boundsTouch(int i, int j) {
+        return exact.boundsTouch(i, j);
+    }
+
+    @Override
+    public boolean overlaps(int i, int j) {
+        if (circles[i] && circles[j]) {
+            return exact.overlaps(i, j);
+        }
+        for (int a = 0; a < axes; a++) {
+            if (maxs[i * axes + a] < mins[j * axes + a] || maxs[j * axes + a] < mins[i * axes + a]) {
+                kdopRejectedPairs.increment();
+                return false;
+            }
+        }
+        mergedPairs.increment();
+        if (isSampled(i, j)) {
+            sampledPairs.increment();
+            if (!exact.overlaps(i, j)) {
+                falseMergePairs.increment();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String shapeType(int i) {
+        return exact.shapeType(i);
+    }
+
+    // 쌍 번호의 해시로 표본 여부를 결정 (SplitMix64 혼합)
+    private boolean isSampled(int i, int j) {
+        long z = ((long) Math.min(i, j) << 32 | Math.max(i, j)) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (z >>> 11) * 0x1.0p-53 < approximation.getSampleRate();
+    }
+
+    /**
+     * 근사 판정 결과 보고서.
+     * mergedPairs(근사로 합친 다각형 포함 쌍), sampledPairs, falseMergePairs(표본 중 정밀 검사로는 겹치지 않는 쌍),
+     * estimatedFalseMergeRate(falseMergePairs / sampledPairs, 표본이 없으면 null), falseMergeRateUpper95(95% 윌슨 상한)
+     */
+    public JSONObject toJSON() {
+        long sampled = sampledPairs.sum();
+        long falseMerges = falseMergePairs.sum();
+        JSONObject json = new JSONObject()
+                .put("mode", approximation.getMode())
+                .put("sampleRate", approximation.getSampleRate())
+                .put("mergedPairs", mergedPairs.sum())
+                .put("sampledPairs", sampled)
+                .put("falseMergePairs", falseMerges);
+        if (axes > 0) {
+            json.put("k", approximation.getK());
+            json.put("kdopRejectedPairs", kdopRejectedPairs.sum());
+        }
+        if (sampled == 0) {
+            json.put("estimatedFalseMergeRate", JSONObject.NULL);
+            json.put("falseMergeRateUpper95", JSONObject.NULL);
+        } else {
+            double rate = (double) falseMerges / sampled;
+            double z2n = Z_95 * Z_95 / sampled;
+            double upper = (rate + z2n / 2 + Z_95 * Math.sqrt(rate * (1 - rate) / sampled + z2n / (4.0 * sampled)))
+                    / (1 + z2n);
+            json.put("estimatedFalseMergeRate", rate);
+            json.put("falseMergeRateUpper95", Math.min(1, upper));
+        }
+        return json;
+    }
+}
@@ -0,0 +1,51 @@
+package knu.lsy.shapes;
+
+/**
+ * 겹침 판정을 정밀 검사 대신 근사로 할지 나타내는 값. (Accuracy, KdopK, SampleRate 파라미터)
+ * - exact: 경계원이 닿는 쌍마다 원/다각형 정밀 검사 (기본값)
+ * - circle: 경계원이 닿으면 겹친 것으로 판정 (가장 빠르고 가장 많이 과병합)
+ * - kdop: 경계원이 닿고, 도형을 k개 방향(k/2개 축)의 투영 구간으로 감싼 k-DOP끼리도 겹치면 겹친 것으로 판정
+ * 두 근사 모두 실제로 겹치는 쌍을 놓치지 않으므로 오차는 겹치지 않는 그룹을 합치는 쪽(과병합)으로만 생깁니다.
+ * 합친 쌍 중 sampleRate 비율을 정밀 검사로 다시 확인하여 과병합률을 추정합니다. (ApproximatePairTest)
+ */
+public final class Approximation {
+    public static final String EXACT = "exact";
+    public static final String CIRCLE = "circle";
+    public static final String KDOP = "kdop";
+
+    // k-DOP 방향 수 범위 (2차원에서는 짝수, 4는 축 정렬 경계 상자)
+    public static final int MIN_KDOP_K = 4;
+    public static final int MAX_KDOP_K = 32;
+    public static final int DEFAULT_KDOP_K = 8;
+    public static final double DEFAULT_SAMPLE_RATE = 0.01;
+
+    public static final Approximation EXACT_MODE = new Approximation(EXACT, 0, 0);
+
+    private final String mode;
+    private final int k;
+    private final double sampleRate;
+
+    public Approximation(String mode, int k, double sampleRate) {
+        this.mode = mode;
+        this.k = k;
+        this.sampleRate = sampleRate;
+    }
+
+    public boolean isExact() {
+        return EXACT.equals(mode);
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    // k-DOP 방향 수 (kdop 모드에서만 사용)
+    public int getK() {
+        return k;
+    }
+
+    // 합친 쌍 중 정밀 검사로 다시 확인할 비율 (0 ~ 1)
+    public double getSampleRate() {
+        return sampleRate;
+    }
+}
@@ -0,0 +1,436 @@
+package knu.lsy.shapes;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 겹침 그룹화의 광역 단계(broad phase) 전략을 선택하고 실행하는 클래스.
+ * - brute: 모든 쌍을 비교 (도형이 적을 때 준비 비용이 없어 가장 빠름)
+ * - grid: UniformGrid의 3x3 이웃 셀 (셀 크기가 가장 큰 경계원 지름이므로, 반지름 편차가 크면 후보가 늘어남)
+ * - sweep: 경계원의 x 구간 시작점으로 정렬한 뒤 x 구간이 겹치는 쌍만 비교 (실제 반지름을 쓰므로 편차의 영향이 적음)
+ * - quadtree: LooseQuadtree (도형을 경계원 크기에 맞는 깊이에 넣으므로, 반지름 편차가 커도 작은 도형끼리는 작은 노드에서 비교)
+ * auto는 실제 데이터(도형 수, 중심 분포 범위, 평균/최대 반지름과 변동 계수)로 각 전략의 비용을 추정하여 가장 싼 전략과
+ * 스레드 수를 고릅니다. 여러 스레드는 ParallelWorkers의 공유 스레드 풀에서 가져옵니다.
+ * 모든 선택은 DEBUG 로그(knu.lsy.shapes.BroadPhase)와 메트릭(shapes.broadphase.*)으로 남겨 모델을 조정할 수 있게 합니다.
+ */
+public final class BroadPhase {
+    private static final Logger log = LoggerFactory.getLogger(BroadPhase.class);
+
+    public static final String AUTO = "auto";
+    public static final String BRUTE = "brute";
+    public static final String GRID = "grid";
+    public static final String SWEEP = "sweep";
+    public static final String QUADTREE = "quadtree";
+
+    // 예상 비용 배열의 순서
+    private static final String[] STRATEGIES = {BRUTE, GRID, SWEEP, QUADTREE};
+
+    // 단위 비용 (나노초) - 이 저장소의 그룹화 루프에서 전략을 고정하여 측정한 값 (1코어, JDK 17)
+    private static final double BRUTE_VISIT_NS = 5;    // 후보 쌍 하나의 경계원 비교 (인덱스 순서 접근)
+    private static final double GRID_VISIT_NS = 6;     // 격자 이웃 셀의 후보 쌍 하나
+    private static final double SWEEP_VISIT_NS = 10;   // 정렬 순서로 접근하므로 캐시 적중률이 낮음
+    private static final double GRID_BUILD_NS = 60;    // 도형 하나를 격자에 넣는 비용
+    private static final double SORT_NS = 12;          // 정렬 비용 (n log2 n 항 하나당)
+    private static final double QUADTREE_VISIT_NS = 6; // 사분 트리 노드의 후보 쌍 하나
+    private static final double QUADTREE_LEVEL_NS = 25; // 도형 하나가 깊이 하나에서 노드 범위를 찾는 비용
+    private static final double QUADTREE_BUILD_NS = 90; // 도형 하나의 깊이 계산과 배치
+    private static final double NARROW_NS = 500;       // 경계원이 닿는 쌍의 평균 정밀 검사 비용 (같은 그룹 건너뛰기 전)
+    // 스레드 하나에 맡길 최소 작업량: 이보다 작으면 스레드를 나누는 비용(스레드별 Union-Find 병합)이 더 큼
+    private static final double MIN_NANOS_PER_THREAD = 20_000_000;
+
+    // 정밀 검사를 수행하는 쌍 판정
+    public interface PairTest {
+        // 두 도형의 경계원이 닿는지 (false이면 두 도형은 겹칠 수 없음)
+        boolean boundsTouch(int i, int j);
+
+        // 두 도형이 실제로 겹치는지 (경계원이 닿는 쌍에만 호출됨)
+        boolean overlaps(int i, int j);
+
+        // 도형 종류 이름 (프로파일링 시 정밀 검사를 종류 쌍별로 집계하는 데 사용)
+        String shapeType(int i);
+    }
+
+    /**
+     * 선택된 전략과 그 근거(데이터 통계와 전략별 예상 비용).
+     */
+    public static final class Plan {
+        private final String requested;
+        private final String strategy;
+        private final int threads;
+        private final int count;
+        private final double spanX;
+        private final double spanY;
+        private final double meanRadius;
+        private final double maxRadius;
+        private final double radiusCv;
+        private final double[] predictedMillis; // STRATEGIES 순서
+        private final double narrowMillis;
+
+        private Plan(String requested, String strategy, int threads, int count, double spanX, double spanY,
+                     double meanRadius, double maxRadius, double radiusCv, double[] predictedMillis, double narrowMillis) {
+            this.requested = requested;
+            this.strategy = strategy;
+            this.threads = threads;
+            this.count = count;
+            this.spanX = spanX;
+            this.spanY = spanY;
+            this.meanRadius = meanRadius;
+            this.maxRadius = maxRadius;
+            this.radiusCv = radiusCv;
+            this.predictedMillis = predictedMillis;
+            this.narrowMillis = narrowMillis;
+        }
+
+        public String getRequested() {
+            return requested;
+        }
+
+        public String getStrategy() {
+            return strategy;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        // 스레드 수만 바꾼 계획 (차등 검사에서 작은 장면도 스레드 분할 경로로 실행할 때 사용)
+        Plan withThreads(int threads) {
+            return new Plan(requested, strategy, threads, count, spanX, spanY, meanRadius, maxRadius, radiusCv,
+                    predictedMillis, narrowMillis);
+        }
+
+        // 선택된 전략의 예상 처리 시간 (광역 단계 + 정밀 검사, 단일 스레드 기준)
+        public double getPredictedMillis() {
+            return predictedMillis[indexOf(strategy)] + narrowMillis;
+        }
+
+        public JSONObject toJSON() {
+            JSONObject predicted = new JSONObject();
+            for (int s = 0; s < STRATEGIES.length; s++) {
+                predicted.put(STRATEGIES[s], Math.round(predictedMillis[s]));
+            }
+            JSONObject json = new JSONObject();
+            json.put("requested", requested);
+            json.put("strategy", strategy);
+            json.put("threads", threads);
+            json.put("count", count);
+            json.put("spanX", Math.round(spanX));
+            json.put("spanY", Math.round(spanY));
+            json.put("meanRadius", Math.round(meanRadius * 10) / 10.0);
+            json.put("maxRadius", Math.round(maxRadius * 10) / 10.0);
+            json.put("radiusCv", Math.round(radiusCv * 1000) / 1000.0);
+            json.put("predictedBroadPhaseMillis", predicted);
+            json.put("predictedNarrowMillis", Math.round(narrowMillis));
+            return json;
+        }
+    }
+
+    private BroadPhase() {
+    }
+
+    // BroadPhase 파라미터 값 검증 (null이면 auto)
+    public static String parse(String value) throws Exception {
+        if (value == null) {
+            return AUTO;
+        }
+        if (!value.equals(AUTO) && indexOf(value) < 0) {
+            throw new Exception("BroadPhase는 " + AUTO + ", " + String.join(", ", STRATEGIES) + " 중 하나여야 합니다.");
+        }
+        return value;
+    }
+
+    private static int indexOf(String strategy) {
+        for (int s = 0; s < STRATEGIES.length; s++) {
+            if (STRATEGIES[s].equals(strategy)) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 경계원 데이터로 전략별 비용을 추정하여 실행 계획을 만듭니다.
+     * requested가 auto가 아니면 그 전략을 그대로 쓰고, 스레드 수만 작업량에 맞춰 정합니다.
+     *
+     * @param requested auto, brute, grid, sweep 중 하나
+     * @param maxThreads 사용할 수 있는 최대 스레드 수
+     */
+    public static Plan plan(String requested, double[] xs, double[] ys, double[] radii, int n, int maxThreads) {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        double sum = 0, sumSq = 0, maxRadius = 0;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+            sum += radii[i];
+            sumSq += radii[i] * radii[i];
+            maxRadius = Math.max(maxRadius, radii[i]);
+        }
+        double spanX = n > 0 ? maxX - minX : 0;
+        double spanY = n > 0 ? maxY - minY : 0;
+        double meanRadius = n > 0 ? sum / n : 0;
+        double meanSq = n > 0 ? sumSq / n : 0;
+        double variance = Math.max(0, meanSq - meanRadius * meanRadius);
+        double radiusCv = meanRadius > 0 ? Math.sqrt(variance) / meanRadius : 0;
+
+        double pairs = (double) n * (n - 1) / 2;
+        // 중심이 분포 범위에 고르게 퍼져 있다고 보고, 경계원이 닿는 쌍의 비율 = π E[(ri + rj)^2] / 넓이
+        double area = Math.max(1.0, Math.max(spanX, 1.0) * Math.max(spanY, 1.0));
+        double touching = pairs * Math.min(1.0, Math.PI * (2 * meanSq + 2 * meanRadius * meanRadius) / area);
+
+        // grid: UniformGrid와 같은 규칙으로 셀 크기를 정하고, 셀당 평균 도형 수로 3x3 이웃의 후보 쌍을 계산
+        double cellSize = Math.max(2 * maxRadius, 1e-9);
+        double cellLimit = 4.0 * n + 16;
+        while ((Math.floor(spanX / cellSize) + 1) * (Math.floor(spanY / cellSize) + 1) > cellLimit) {
+            cellSize *= 2;
+        }
+        double columns = Math.floor(spanX / cellSize) + 1;
+        double rows = Math.floor(spanY / cellSize) + 1;
+        double neighborCells = Math.min(3, columns) * Math.min(3, rows);
+        double gridVisits = Math.min(pairs, n * neighborCells * (n / (columns * rows)) / 2);
+        // sweep: x 구간 [x - r, x + r]이 겹치는 쌍의 비율 ≈ 2 E[ri + rj] / spanX
+        double sweepVisits = pairs * Math.min(1.0, 4 * meanRadius / Math.max(spanX, 1.0));
+
+        double[] predictedMillis = {
+                pairs * BRUTE_VISIT_NS / 1_000_000.0,
+                (n * GRID_BUILD_NS + gridVisits * GRID_VISIT_NS) / 1_000_000.0,
+                (n * Math.log(Math.max(n, 2)) / Math.log(2) * SORT_NS + sweepVisits * SWEEP_VISIT_NS) / 1_000_000.0,
+                predictQuadtreeMillis(radii, n, spanX, spanY)
+        };
+        String strategy = requested;
+        if (AUTO.equals(requested)) {
+            strategy = BRUTE;
+            for (int s = 1; s < STRATEGIES.length; s++) {
+                if (predictedMillis[s] < predictedMillis[indexOf(strategy)]) {
+                    strategy = STRATEGIES[s];
+                }
+            }
+        }
+        double narrowMillis = touching * NARROW_NS / 1_000_000.0;
+
+        double workNanos = (predictedMillis[indexOf(strategy)] + narrowMillis) * 1_000_000.0;
+        int threads = (int) Math.max(1, Math.min(maxThreads, workNanos / MIN_NANOS_PER_THREAD));
+        return new Plan(requested, strategy, threads, n, spanX, spanY, meanRadius, maxRadius, radiusCv,
+                predictedMillis, narrowMillis);
+    }
+
+    /**
+     * LooseQuadtree의 예상 비용. 도형마다 트리와 같은 규칙으로 깊이를 정해 깊이별 도형 수와 반지름을 구한 뒤,
+     * 깊이 d의 도형이 그보다 얕은 깊이 d'(같은 깊이는 절반)에서 방문하는 노드 범위의 도형 수를 더합니다.
+     * (범위 한 변 = 2 * (깊이 d 평균 반지름 + 깊이 d' 최대 반지름) + 노드 변 길이, 도형은 분포 범위에 고르게 있다고 가정)
+     */
+    private static double predictQuadtreeMillis(double[] radii, int n, double spanX, double spanY) {
+        double rootSize = LooseQuadtree.rootSize(spanX, spanY);
+        int depthCount = LooseQuadtree.depthLimit(n) + 1;
+        double[] counts = new double[depthCount];
+        double[] radiusSums = new double[depthCount];
+        double[] maxRadii = new double[depthCount];
+        for (int i = 0; i < n; i++) {
+            int d = LooseQuadtree.depthFor(radii[i], rootSize, depthCount - 1);
+            counts[d]++;
+            radiusSums[d] += radii[i];
+            maxRadii[d] = Math.max(maxRadii[d], radii[i]);
+        }
+
+        double visits = 0;
+        double levelSteps = 0;
+        for (int d = 0; d < depthCount; d++) {
+            if (counts[d] == 0) {
+                continue;
+            }
+            double meanRadius = radiusSums[d] / counts[d];
+            levelSteps += counts[d] * (d + 1);
+            for (int e = 0; e <= d; e++) {
+                if (counts[e] == 0) {
+                    continue;
+                }
+                double side = rootSize / (1 << e);
+                double occupiedArea = Math.min(spanX + side, rootSize) * Math.min(spanY + side, rootSize);
+                double window = 2 * (meanRadius + maxRadii[e]) + side;
+                double covered = Math.min(window, spanX + side) * Math.min(window, spanY + side);
+                visits += counts[d] * counts[e] * Math.min(1.0, covered / occupiedArea) * (e == d ? 0.5 : 1.0);
+            }
+        }
+        return (n * QUADTREE_BUILD_NS + levelSteps * QUADTREE_LEVEL_NS + visits * QUADTREE_VISIT_NS) / 1_000_000.0;
+    }
+
+    /**
+     * 계획한 전략으로 겹침 그룹을 계산합니다. 이미 같은 그룹인 쌍은 정밀 검사를 건너뜁니다.
+     * 스레드가 2개 이상이면 후보 쌍을 스레드별로 나누어 각자의 Union-Find에 합친 뒤, 마지막에 하나로 병합합니다.
+     *
+     * @param order 광역 단계가 도형을 방문할 순서 (원을 앞에 둔 순서, sweep은 자체 정렬 순서를 사용)
+     * @param generator 마감 시간 확인용
+     * @param offHeap 결과 Union-Find를 오프힙에 만들지 여부 (호출자가 close)
+     * @return 도형 인덱스 기준 Union-Find
+     */
+    static UnionFind group(Plan plan, double[] xs, double[] ys, double[] radii, int n, int[] order, PairTest test,
+                           ShapeGenerator generator, boolean offHeap) {
+        long startNanos = System.nanoTime();
+        ShapesPhaseEvent phaseEvent = ShapesPhaseEvent.begin("group", n);
+        // JFR 세션이 정밀 검사 집계를 켠 경우에만 종류 쌍별 집계 래퍼를 사용
+        NarrowPhaseEvent.Recorder narrowRecorder = NarrowPhaseEvent.isRecording() ? new NarrowPhaseEvent.Recorder(test) : null;
+        PairTest pairTest = narrowRecorder != null ? narrowRecorder : test;
+        // 격자와 정렬 순서는 한 번만 만들고 스레드들이 읽기 전용으로 공유
+        UniformGrid grid = GRID.equals(plan.strategy) ? new UniformGrid(xs, ys, radii, n, order) : null;
+        SweepOrder sweepOrder = SWEEP.equals(plan.strategy) ? new SweepOrder(xs, radii, n) : null;
+        LooseQuadtree tree = QUADTREE.equals(plan.strategy) ? new LooseQuadtree(xs, ys, radii, n, order) : null;
+        UnionFind unionFind = new UnionFind(n, offHeap);
+        try {
+            if (plan.threads == 1) {
+                run(plan.strategy, grid, sweepOrder, tree, xs, radii, n, order, pairTest, generator, unionFind, 0, 1);
+            } else {
+                // 공유 스레드 풀에서 예산만큼의 보조 스레드와 함께 실행 (분할은 plan.threads로 고정되므로 결과는 같음)
+                UnionFind[] partials = new UnionFind[plan.threads];
+                ParallelWorkers.run(plan.threads, t -> {
+                    UnionFind partial = new UnionFind(n);
+                    run(plan.strategy, grid, sweepOrder, tree, xs, radii, n, order, pairTest, generator, partial,
+                            t, plan.threads);
+                    partials[t] = partial;
+                });
+                for (UnionFind partial : partials) {
+                    generator.checkDeadline("group");
+                    for (int i = 0; i < n; i++) {
+                        int root = partial.find(i);
+                        if (root != i) {
+                            unionFind.union(i, root);
+                        }
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            unionFind.close();
+            throw e;
+        }
+        if (narrowRecorder != null) {
+            narrowRecorder.commit();
+        }
+        phaseEvent.detail = plan.strategy + ", threads=" + plan.threads;
+        phaseEvent.commit();
+        record(plan, System.nanoTime() - startNanos);
+        return unionFind;
+    }
+
+    // 전략 하나를 실행합니다. 스레드 part는 partCount개로 나눈 외곽 반복 중 자기 몫만 처리합니다.
+    private static void run(String strategy, UniformGrid grid, SweepOrder sweepOrder, LooseQuadtree tree,
+                            double[] xs, double[] radii, int n, int[] order, PairTest test, ShapeGenerator generator, UnionFind unionFind,
+                            int part, int partCount) {
+        UniformGrid.PairVisitor visitor = (i, j) -> {
+            if (test.boundsTouch(i, j) && !unionFind.connected(i, j) && test.overlaps(i, j)) {
+                unionFind.union(i, j);
+            }
+        };
+        switch (strategy) {
+            case BRUTE:
+                for (int a = part; a < n; a += partCount) {
+                    if (a % 1024 < partCount) {
+                        generator.checkDeadline("group");
+                    }
+                    int i = order[a];
+                    for (int b = a + 1; b < n; b++) {
+                        visitor.visit(i, order[b]);
+                    }
+                }
+                break;
+            case GRID:
+                for (int cy = part; cy < grid.getRows(); cy += partCount) {
+                    generator.checkDeadline("group");
+                    for (int cx = 0; cx < grid.getColumns(); cx++) {
+                        grid.forEachCandidatePair(cx, cy, visitor);
+                    }
+                }
+                break;
+            case QUADTREE:
+                for (int a = part; a < n; a += partCount) {
+                    if (a % 1024 < partCount) {
+                        generator.checkDeadline("group");
+                    }
+                    tree.forEachCandidatePairAt(a, visitor);
+                }
+                break;
+            default:
+                for (int k = part; k < n; k += partCount) {
+                    if (k % 1024 < partCount) {
+                        generator.checkDeadline("group");
+                    }
+                    int i = sweepOrder.indices[k];
+                    double end = xs[i] + radii[i];
+                    for (int m = k + 1; m < n && sweepOrder.keys[m] <= end; m++) {
+                        int j = sweepOrder.indices[m];
+                        if (i < j) {
+                            visitor.visit(i, j);
+                        } else {
+                            visitor.visit(j, i);
+                        }
+                    }
+                }
+        }
+    }
+
+    /**
+     * sweep 순서: 경계원의 x 구간 시작점(x - r) 오름차순으로 정렬한 도형 번호와 정렬 키.
+     * 각 도형에서 키가 자기 x 구간 끝(x + r) 이하인 뒤쪽 도형까지만 비교하면 x 구간이 겹치는 모든 쌍을 한 번씩 방문합니다.
+     * 정렬 키는 float로 내림하여 도형 번호와 함께 long 하나에 담으므로 객체 없이 정렬되며,
+     * 키가 실제 시작점 이하이므로 x 구간이 겹치는 쌍을 빠뜨리지 않습니다.
+     */
+    private static final class SweepOrder {
+        final float[] keys;
+        final int[] indices;
+
+        SweepOrder(double[] xs, double[] radii, int n) {
+            long[] sorted = new long[n];
+            for (int i = 0; i < n; i++) {
+                double start = xs[i] - radii[i];
+                float key = (float) start;
+                if (key > start) {
+                    key = Math.nextDown(key);
+                }
+                int bits = Float.floatToIntBits(key);
+                bits ^= (bits >> 31) & 0x7fffffff; // 음수도 정수 비교 순서가 실수 순서와 같도록 변환
+                sorted[i] = ((long) bits << 32) | i;
+            }
+            Arrays.sort(sorted);
+            keys = new float[n];
+            indices = new int[n];
+            for (int k = 0; k < n; k++) {
+                int bits = (int) (sorted[k] >> 32);
+                bits ^= (bits >> 31) & 0x7fffffff;
+                keys[k] = Float.intBitsToFloat(bits);
+                indices[k] = (int) sorted[k];
+            }
+        }
+    }
+
+    // 선택 결과와 실제 처리 시간을 로그와 메트릭으로 기록합니다.
+    private static void record(Plan plan, long elapsedNanos) {
+        double actualMillis = elapsedNanos / 1_000_000.0;
+        log.debug("Broad phase {} (requested {}), threads={}, n={}, span={}x{}, meanRadius={}, maxRadius={}, " +
+                        "radiusCv={}, predicted {} ms (brute/grid/sweep/quadtree={}/{}/{}/{} + narrow {}), actual {} ms",
+                plan.strategy, plan.requested, plan.threads, plan.count, Math.round(plan.spanX), Math.round(plan.spanY),
+                Math.round(plan.meanRadius), Math.round(plan.maxRadius), Math.round(plan.radiusCv * 100) / 100.0,
+                Math.round(plan.getPredictedMillis()), Math.round(plan.predictedMillis[0]),
+                Math.round(plan.predictedMillis[1]), Math.round(plan.predictedMillis[2]),
+                Math.round(plan.predictedMillis[3]),
+                Math.round(plan.narrowMillis), Math.round(actualMillis));
+
+        Metrics.counter("shapes.broadphase.selections", "strategy", plan.strategy, "requested", plan.requested,
+                "threads", String.valueOf(plan.threads)).increment();
+        Timer.builder("shapes.broadphase.grouping")
+                .description("Overlap grouping time by selected broad phase")
+                .tag("strategy", plan.strategy)
+                .register(Metrics.globalRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        // 실제 / 예상 (단일 스레드 예상값 기준이므로 스레드가 여러 개이면 1보다 작아야 정상)
+        if (plan.getPredictedMillis() > 0) {
+            Metrics.summary("shapes.broadphase.prediction.ratio", "strategy", plan.strategy)
+                    .record(actualMillis / plan.getPredictedMillis());
+        }
+    }
+}
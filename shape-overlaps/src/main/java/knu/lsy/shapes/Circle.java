@@ -54,6 +54,10 @@ public class Circle extends Shape {
             // 여기서는 단순 비교로 구현합니다.
             return distanceBetweenCenters <= sumOfRadii;
 
+        } else if (other instanceof ConcavePolygon) {
+            // 오목 다각형은 원 근처의 볼록 조각만 골라 같은 규칙으로 검사하므로 오목 다각형에 위임합니다.
+            return other.overlaps(this);
+
         } else {
             // 2. 다른 도형이 다각형인 경우 (원-다각형 겹침 검사)
             // 다각형의 모든 정점이 원 안에 있는지 확인
@@ -109,7 +113,7 @@ public class Circle extends Shape {
      * @param p2 선분의 끝점
      * @return 원과 선분이 교차하면 true, 그렇지 않으면 false
      */
-    private boolean isLineSegmentIntersectingCircle(Point circleCenter, double circleRadius, Point p1, Point p2) {
+    boolean isLineSegmentIntersectingCircle(Point circleCenter, double circleRadius, Point p1, Point p2) {
         // 선분의 벡터 (p2 - p1)
         double dx = p2.getX() - p1.getX();
         double dy = p2.getY() - p1.getY();
@@ -150,10 +154,10 @@ public class Circle extends Shape {
     public JSONObject toJSON() {
         JSONObject json = new JSONObject();
         json.put("type", "circle");
-        json.put("id", id); // Shape 클래스에서 상속받은 id 사용
+        json.put("id", getId()); // Shape 클래스에서 상속받은 id 사용
         json.put("center", this.center.toJSON()); // Circle 클래스의 center 사용
         json.put("radius", this.radius);       // Circle 클래스의 radius 사용
-        json.put("color", color); // Shape 클래스에서 상속받은 color 사용
+        json.put("color", getColor()); // Shape 클래스에서 상속받은 color 사용
         return json;
     }
 
@@ -0,0 +1,677 @@
+package knu.lsy.shapes;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 도형 좌표를 캔버스 기준 int32 고정소수점(1/FIXED_SCALE 픽셀 단위)으로 저장하는 압축 장면(scene).
+ * 도형마다 Shape/Point 객체를 두는 대신 두 개의 int 버퍼에 모든 도형을 연속으로 저장합니다.
+ * - records: 도형당 RECORD_INTS개의 int (종류, 정점 시작 위치, 정점 수, 경계원 중심/반지름, 회전각, 색상, 그룹)
+ * - vertices: 정점당 (x, y) int 2개
+ * double 경로에서 도형 하나가 약 120바이트 + 정점당 32바이트를 쓰는 데 비해, 도형당 36바이트 + 정점당 8바이트를 사용합니다.
+ *
+ * 겹침 판정은 모두 정수 연산으로 정확하게(exact) 수행하며, double 경로(Circle/RegularPolygon/IrregularPolygon의 overlaps)와
+ * 같은 규칙을 따릅니다. (원-다각형: 정점이 원 안에 있거나 변이 원과 만나면 겹침, 다각형-다각형: 정규화하지 않은 변 법선 축의 SAT)
+ * 오목 다각형(ConcavePolygon)은 처음 겹침을 판정할 때 고정소수점 정점으로 한 번 볼록 조각으로 나누고, 조각 경계 상자 계층에서
+ * 상대 도형 근처의 조각만 검사합니다. 조각의 분리 축은 따로 저장하지 않고 정수 변에서 바로 계산합니다.
+ *
+ * 오차 범위: 좌표를 가장 가까운 고정소수점 값으로 반올림하므로 각 좌표의 오차는 축마다 최대 1/(2 * FIXED_SCALE) 픽셀
+ * (FIXED_SCALE = 256일 때 약 0.002픽셀, 유클리드 거리로 약 0.0028픽셀)입니다. 판정 자체는 정확하므로 double 경로와 결과가
+ * 달라질 수 있는 경우는 두 도형의 간격 또는 겹친 깊이가 약 0.0056픽셀 미만인, 사실상 맞닿은 쌍뿐입니다.
+ *
+ * 저장소는 힙(IntBuffer.allocate) 또는 오프힙(DirectBufferPool의 direct 버퍼)을 선택할 수 있습니다.
+ * 오프힙 장면은 GC가 추적하거나 복사할 데이터가 없으며, 겹침 판정도 direct 버퍼를 그대로 읽습니다.
+ * 사용이 끝나면 close로 버퍼를 풀에 반납해야 합니다. (try-with-resources 사용)
+ * SceneFile로 저장한 장면 파일을 메모리 매핑하여 읽기 전용 장면으로 열 수도 있습니다.
+ */
+public class CompactScene implements AutoCloseable {
+    // 고정소수점 배율: 1픽셀 = 256 단위 (소수부 8비트)
+    public static final int FIXED_SCALE = 256;
+    // 정수 연산이 long 범위를 넘지 않도록 하는 캔버스 최대 크기 (픽셀). 좌표는 2^29 단위 미만으로 유지됩니다.
+    public static final int MAX_CANVAS_SIZE = (1 << 29) / FIXED_SCALE;
+
+    public static final int TYPE_CIRCLE = 0;
+    public static final int TYPE_REGULAR_POLYGON = 1;
+    public static final int TYPE_IRREGULAR_POLYGON = 2;
+    public static final int TYPE_CONCAVE_POLYGON = 3;
+    private static final String[] TYPE_NAMES = {"circle", "regularPolygon", "irregularPolygon", "concavePolygon"};
+
+    // 도형 레코드 구성 (int 단위 오프셋)
+    static final int TYPE = 0;
+    static final int VERTEX_START = 1;
+    static final int VERTEX_COUNT = 2;
+    static final int CENTER_X = 3;
+    static final int CENTER_Y = 4;
+    static final int RADIUS = 5;
+    static final int ROTATION = 6; // 정다각형 회전각 (float 비트)
+    static final int COLOR = 7;    // 0xRRGGBB
+    static final int GROUP = 8;    // 겹침 그룹 번호 (그룹에 속하지 않으면 -1)
+    static final int RECORD_INTS = 9;
+    // 빌더가 처음에 잡는 저장소별 최대 int 수 (예상 크기가 커도 한 번에 큰 버퍼를 잡지 않고, 모자라면 늘림)
+    private static final int MAX_INITIAL_INTS = 1 << 24;
+
+    private final IntStorage recordStorage;
+    private final IntStorage vertexStorage;
+    private final IntBuffer records;
+    private final IntBuffer vertices;
+    private final int shapeCount;
+    private final int vertexCount;
+    // 오목 다각형의 볼록 조각 (처음 겹침을 판정할 때 채움, 다른 도형은 null, 오목 다각형이 없으면 배열도 null)
+    private final AtomicReferenceArray<ConvexPieces> concavePieces;
+    private boolean closed; // 두 번 닫아도 버퍼를 한 번만 반납하도록
+
+    private CompactScene(IntStorage recordStorage, IntStorage vertexStorage, int shapeCount, int vertexCount) {
+        this.recordStorage = recordStorage;
+        this.vertexStorage = vertexStorage;
+        this.records = recordStorage.ints;
+        this.vertices = vertexStorage.ints;
+        this.shapeCount = shapeCount;
+        this.vertexCount = vertexCount;
+        this.concavePieces = hasConcavePolygon() ? new AtomicReferenceArray<>(shapeCount) : null;
+    }
+
+    private boolean hasConcavePolygon() {
+        for (int i = 0; i < shapeCount; i++) {
+            if (getType(i) == TYPE_CONCAVE_POLYGON) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 오목 다각형 shape의 볼록 조각 (처음이면 고정소수점 정점으로 분해, 방향 판정은 정확한 long 연산)
+    private ConvexPieces concavePieces(int shape, Runnable deadlineCheck) {
+        ConvexPieces pieces = concavePieces.get(shape);
+        if (pieces == null) {
+            pieces = ConvexPieces.decompose(new ConvexPieces.Vertices() {
+                @Override
+                public int size() {
+                    return getVertexCount(shape);
+                }
+
+                @Override
+                public double x(int k) {
+                    return getVertexX(shape, k);
+                }
+
+                @Override
+                public double y(int k) {
+                    return getVertexY(shape, k);
+                }
+
+                // 좌표 차이는 2^30 미만이므로 외적이 long 범위를 넘지 않음
+                @Override
+                public int orientation(int a, int b, int c) {
+                    long ax = getVertexX(shape, a);
+                    long ay = getVertexY(shape, a);
+                    long cross = (getVertexX(shape, b) - ax) * (getVertexY(shape, c) - ay)
+                            - (getVertexY(shape, b) - ay) * (getVertexX(shape, c) - ax);
+                    return Long.signum(cross);
+                }
+            }, deadlineCheck);
+            concavePieces.set(shape, pieces); // 여러 스레드가 동시에 분해해도 결과는 같음
+        }
+        return pieces;
+    }
+
+    // 이미 채워진 버퍼(예: 메모리 매핑한 장면 파일)로 장면을 만듭니다. 버퍼는 풀에 반납하지 않습니다.
+    static CompactScene wrap(IntBuffer records, IntBuffer vertices, int shapeCount, int vertexCount) {
+        return new CompactScene(new IntStorage(null, records), new IntStorage(null, vertices), shapeCount, vertexCount);
+    }
+
+    // 픽셀 좌표를 고정소수점으로 변환 (반올림)
+    public static int toFixed(double value) {
+        return (int) Math.round(value * FIXED_SCALE);
+    }
+
+    public static double toDouble(int fixed) {
+        return (double) fixed / FIXED_SCALE;
+    }
+
+    public int size() {
+        return shapeCount;
+    }
+
+    private int field(int shape, int offset) {
+        return records.get(shape * RECORD_INTS + offset);
+    }
+
+    public int getType(int shape) {
+        return field(shape, TYPE);
+    }
+
+    public String getShapeType(int shape) {
+        return TYPE_NAMES[getType(shape)];
+    }
+
+    public int getCenterX(int shape) {
+        return field(shape, CENTER_X);
+    }
+
+    public int getCenterY(int shape) {
+        return field(shape, CENTER_Y);
+    }
+
+    // 경계원 반지름 (원은 실제 반지름)
+    public int getRadius(int shape) {
+        return field(shape, RADIUS);
+    }
+
+    public int getVertexCount(int shape) {
+        return field(shape, VERTEX_COUNT);
+    }
+
+    public int getVertexX(int shape, int k) {
+        return vertices.get(2 * (field(shape, VERTEX_START) + k));
+    }
+
+    public int getVertexY(int shape, int k) {
+        return vertices.get(2 * (field(shape, VERTEX_START) + k) + 1);
+    }
+
+    // 정다각형 회전각 (다른 도형은 0)
+    public float getRotationAngle(int shape) {
+        return Float.intBitsToFloat(field(shape, ROTATION));
+    }
+
+    public int getColor(int shape) {
+        return field(shape, COLOR);
+    }
+
+    public void setColor(int shape, int rgb) {
+        records.put(shape * RECORD_INTS + COLOR, rgb);
+    }
+
+    public int getGroup(int shape) {
+        return field(shape, GROUP);
+    }
+
+    public void setGroup(int shape, int group) {
+        records.put(shape * RECORD_INTS + GROUP, group);
+    }
+
+    public String getId(int shape) {
+        return "shape_" + shape;
+    }
+
+    // ---- 정수 겹침 판정 ----
+
+    /**
+     * 두 도형의 겹침 여부를 정수 연산으로 판정합니다.
+     * 좌표 차이는 항상 첫 번째 도형의 경계원 중심을 원점으로 하여 계산하므로 곱셈 결과가 long 범위를 넘지 않습니다.
+     */
+    public boolean overlaps(int a, int b) {
+        return overlaps(a, b, ConvexPieces.NO_DEADLINE_CHECK);
+    }
+
+    /**
+     * overlaps와 같되, 오목 다각형을 처음 분해할 때 귀를 하나 자를 때마다 deadlineCheck를 실행합니다.
+     * (ShapeGenerator.groupCompactScene이 요청의 마감 시간 검사를 넘김)
+     */
+    boolean overlaps(int a, int b, Runnable deadlineCheck) {
+        int typeA = getType(a);
+        int typeB = getType(b);
+        if (typeA == TYPE_CIRCLE && typeB == TYPE_CIRCLE) {
+            long dx = (long) getCenterX(a) - getCenterX(b);
+            long dy = (long) getCenterY(a) - getCenterY(b);
+            long reach = (long) getRadius(a) + getRadius(b);
+            return dx * dx + dy * dy <= reach * reach;
+        }
+        if (typeA == TYPE_CONCAVE_POLYGON) {
+            return concaveOverlaps(a, b, deadlineCheck);
+        }
+        if (typeB == TYPE_CONCAVE_POLYGON) {
+            return concaveOverlaps(b, a, deadlineCheck);
+        }
+        if (typeA == TYPE_CIRCLE) {
+            return circleOverlapsPolygon(a, b);
+        }
+        if (typeB == TYPE_CIRCLE) {
+            return circleOverlapsPolygon(b, a);
+        }
+        return !hasSeparatingAxis(a, a, b) && !hasSeparatingAxis(b, a, b);
+    }
+
+    // 원-다각형: 다각형의 정점이 원 안에 있거나, 변이 원과 만나면 겹침 (Circle.overlaps와 같은 규칙)
+    private boolean circleOverlapsPolygon(int circle, int polygon) {
+        long cx = getCenterX(circle);
+        long cy = getCenterY(circle);
+        long r = getRadius(circle);
+        long rSq = r * r;
+        int n = getVertexCount(polygon);
+        if (n == 0) {
+            return false;
+        }
+
+        for (int k = 0; k < n; k++) {
+            long dx = getVertexX(polygon, k) - cx;
+            long dy = getVertexY(polygon, k) - cy;
+            if (dx * dx + dy * dy <= rSq) {
+                return true;
+            }
+        }
+
+        for (int k = 0; k < n; k++) {
+            long x1 = getVertexX(polygon, k) - cx;
+            long y1 = getVertexY(polygon, k) - cy;
+            long x2 = getVertexX(polygon, (k + 1) % n) - cx;
+            long y2 = getVertexY(polygon, (k + 1) % n) - cy;
+            if (segmentWithinRadius(x1, y1, x2, y2, rSq)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 원점(원의 중심)에서 선분 (x1,y1)-(x2,y2)까지의 최단 거리의 제곱이 rSq 이하인지 정확하게 판정
+    private static boolean segmentWithinRadius(long x1, long y1, long x2, long y2, long rSq) {
+        long dx = x2 - x1;
+        long dy = y2 - y1;
+        long lenSq = dx * dx + dy * dy;
+        if (lenSq == 0) {
+            return x1 * x1 + y1 * y1 <= rSq;
+        }
+        // t = dot(C - p1, d) / |d|^2 (C는 원점)
+        long dot = -x1 * dx - y1 * dy;
+        if (dot <= 0) {
+            return x1 * x1 + y1 * y1 <= rSq;
+        }
+        if (dot >= lenSq) {
+            return x2 * x2 + y2 * y2 <= rSq;
+        }
+        // 수선의 발이 선분 안: 거리^2 = cross^2 / |d|^2 <= r^2  <=>  cross^2 <= r^2 * |d|^2 (128비트 비교)
+        long cross = Math.abs(dx * y1 - dy * x1);
+        return productLessOrEqual(cross, cross, rSq, lenSq);
+    }
+
+    // 음이 아닌 long a, b, c, d에 대해 a * b <= c * d 를 오버플로 없이 비교
+    static boolean productLessOrEqual(long a, long b, long c, long d) {
+        long high1 = Math.multiplyHigh(a, b);
+        long high2 = Math.multiplyHigh(c, d);
+        if (high1 != high2) {
+            return high1 < high2;
+        }
+        return Long.compareUnsigned(a * b, c * d) <= 0;
+    }
+
+    // axesOf 다각형의 변 법선(정규화하지 않은 정수 벡터) 중 a와 b를 분리하는 축이 있는지 확인
+    private boolean hasSeparatingAxis(int axesOf, int a, int b) {
+        long originX = getCenterX(a);
+        long originY = getCenterY(a);
+        int n = getVertexCount(axesOf);
+        for (int k = 0; k < n; k++) {
+            long axisX = -((long) getVertexY(axesOf, (k + 1) % n) - getVertexY(axesOf, k));
+            long axisY = (long) getVertexX(axesOf, (k + 1) % n) - getVertexX(axesOf, k);
+            if (axisX == 0 && axisY == 0) {
+                continue; // 길이가 0인 변
+            }
+
+            long minA = Long.MAX_VALUE, maxA = Long.MIN_VALUE;
+            for (int v = 0; v < getVertexCount(a); v++) {
+                long p = (getVertexX(a, v) - originX) * axisX + (getVertexY(a, v) - originY) * axisY;
+                minA = Math.min(minA, p);
+                maxA = Math.max(maxA, p);
+            }
+            long minB = Long.MAX_VALUE, maxB = Long.MIN_VALUE;
+            for (int v = 0; v < getVertexCount(b); v++) {
+                long p = (getVertexX(b, v) - originX) * axisX + (getVertexY(b, v) - originY) * axisY;
+                minB = Math.min(minB, p);
+                maxB = Math.max(maxB, p);
+            }
+            if (maxA < minB || maxB < minA) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 오목 다각형 concave와 다른 도형의 겹침: 상대 도형의 경계원을 감싸는 상자와 겹치는 볼록 조각만 검사합니다.
+     * (원은 조각의 외곽선 변만, 다각형은 조각 단위 SAT이며 상대도 오목 다각형이면 그 조각 계층에서 다시 가까운 조각만 고름)
+     */
+    private boolean concaveOverlaps(int concave, int other, Runnable deadlineCheck) {
+        ConvexPieces pieces = concavePieces(concave, deadlineCheck);
+        long r = getRadius(other);
+        double minX = getCenterX(other) - r;
+        double minY = getCenterY(other) - r;
+        double maxX = getCenterX(other) + r;
+        double maxY = getCenterY(other) + r;
+        int otherType = getType(other);
+        if (otherType == TYPE_CIRCLE) {
+            return pieces.anyPiece(minX, minY, maxX, maxY, p -> circleOverlapsPiece(other, concave, pieces, p));
+        }
+        if (otherType == TYPE_CONCAVE_POLYGON) {
+            ConvexPieces otherPieces = concavePieces(other, deadlineCheck);
+            return pieces.anyPiece(minX, minY, maxX, maxY,
+                    p -> otherPieces.anyPiece(pieces.minX(p), pieces.minY(p), pieces.maxX(p), pieces.maxY(p),
+                            q -> piecesOverlap(concave, pieces.piece(p), other, otherPieces.piece(q))));
+        }
+        int[] whole = null; // 볼록 다각형은 정점 전체가 하나의 조각
+        return pieces.anyPiece(minX, minY, maxX, maxY, p -> piecesOverlap(concave, pieces.piece(p), other, whole));
+    }
+
+    // 원-오목 다각형 조각: 조각의 외곽선 변이 원과 만나면 겹침 (변의 양 끝 정점 검사 포함, 조각 사이의 대각선은 제외)
+    private boolean circleOverlapsPiece(int circle, int polygon, ConvexPieces pieces, int p) {
+        long cx = getCenterX(circle);
+        long cy = getCenterY(circle);
+        long r = getRadius(circle);
+        int[] piece = pieces.piece(p);
+        boolean[] outline = pieces.outlineEdges(p);
+        for (int k = 0; k < piece.length; k++) {
+            if (!outline[k]) {
+                continue;
+            }
+            int from = piece[k];
+            int to = piece[(k + 1) % piece.length];
+            if (segmentWithinRadius(getVertexX(polygon, from) - cx, getVertexY(polygon, from) - cy,
+                    getVertexX(polygon, to) - cx, getVertexY(polygon, to) - cy, r * r)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 볼록 조각 두 개의 SAT (조각은 정점 인덱스 목록, null이면 도형의 정점 전체)
+    private boolean piecesOverlap(int a, int[] pieceA, int b, int[] pieceB) {
+        return !hasSeparatingAxis(a, pieceA, a, pieceA, b, pieceB) && !hasSeparatingAxis(b, pieceB, a, pieceA, b, pieceB);
+    }
+
+    // hasSeparatingAxis의 조각 버전: axesOf 조각의 변 법선 중 두 조각을 분리하는 축이 있는지 확인
+    private boolean hasSeparatingAxis(int axesOf, int[] axesPiece, int a, int[] pieceA, int b, int[] pieceB) {
+        long originX = getCenterX(a);
+        long originY = getCenterY(a);
+        int n = pieceSize(axesOf, axesPiece);
+        for (int k = 0; k < n; k++) {
+            int from = pieceVertex(axesPiece, k);
+            int to = pieceVertex(axesPiece, (k + 1) % n);
+            long axisX = -((long) getVertexY(axesOf, to) - getVertexY(axesOf, from));
+            long axisY = (long) getVertexX(axesOf, to) - getVertexX(axesOf, from);
+            if (axisX == 0 && axisY == 0) {
+                continue; // 길이가 0인 변
+            }
+
+            long minA = Long.MAX_VALUE, maxA = Long.MIN_VALUE;
+            for (int v = 0; v < pieceSize(a, pieceA); v++) {
+                int vertex = pieceVertex(pieceA, v);
+                long p = (getVertexX(a, vertex) - originX) * axisX + (getVertexY(a, vertex) - originY) * axisY;
+                minA = Math.min(minA, p);
+                maxA = Math.max(maxA, p);
+            }
+            long minB = Long.MAX_VALUE, maxB = Long.MIN_VALUE;
+            for (int v = 0; v < pieceSize(b, pieceB); v++) {
+                int vertex = pieceVertex(pieceB, v);
+                long p = (getVertexX(b, vertex) - originX) * axisX + (getVertexY(b, vertex) - originY) * axisY;
+                minB = Math.min(minB, p);
+                maxB = Math.max(maxB, p);
+            }
+            if (maxA < minB || maxB < minA) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int pieceSize(int shape, int[] piece) {
+        return piece == null ? getVertexCount(shape) : piece.length;
+    }
+
+    private static int pieceVertex(int[] piece, int k) {
+        return piece == null ? k : piece[k];
+    }
+
+    // ---- JSON 변환 (double 경로의 toJSON과 같은 형식) ----
+
+    public JSONObject toJSON(int shape) {
+        JSONObject json = new JSONObject();
+        json.put("type", getShapeType(shape));
+        json.put("id", getId(shape));
+        json.put("center", new Point(toDouble(getCenterX(shape)), toDouble(getCenterY(shape))).toJSON());
+        json.put("radius", toDouble(getRadius(shape)));
+        if (getType(shape) == TYPE_REGULAR_POLYGON) {
+            json.put("sides", getVertexCount(shape));
+            json.put("rotationAngle", (double) getRotationAngle(shape));
+        }
+        json.put("color", String.format("#%06x", getColor(shape))); // Shape.getColor와 같은 소문자 형식
+        if (getType(shape) != TYPE_CIRCLE) {
+            JSONArray verticesArray = new JSONArray();
+            for (int k = 0; k < getVertexCount(shape); k++) {
+                verticesArray.put(new Point(toDouble(getVertexX(shape, k)), toDouble(getVertexY(shape, k))).toJSON());
+            }
+            json.put("vertices", verticesArray);
+        }
+        return json;
+    }
+
+    // 메모리 사용량 (두 버퍼의 용량, 바이트)
+    public long getStorageBytes() {
+        return 4L * (records.capacity() + vertices.capacity());
+    }
+
+    public boolean isOffHeap() {
+        return records.isDirect();
+    }
+
+    // 전체 정점 수
+    public int getTotalVertexCount() {
+        return vertexCount;
+    }
+
+    // 장면 파일 저장용 버퍼 (SceneFile)
+    IntBuffer getRecordBuffer() {
+        return records;
+    }
+
+    IntBuffer getVertexBuffer() {
+        return vertices;
+    }
+
+    // 오프힙 버퍼를 풀에 반납합니다. (힙 장면이거나 이미 닫았으면 아무 일도 하지 않음) 반납 후에는 장면을 사용할 수 없습니다.
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        recordStorage.release();
+        vertexStorage.release();
+    }
+
+    // int 배열 저장소: 힙/매핑이면 IntBuffer만, 오프힙이면 풀에서 빌린 direct 버퍼(memory)와 그 int 뷰(ints)
+    private static final class IntStorage {
+        final ByteBuffer memory;
+        final IntBuffer ints;
+
+        private IntStorage(ByteBuffer memory, IntBuffer ints) {
+            this.memory = memory;
+            this.ints = ints;
+        }
+
+        static IntStorage allocate(int ints, boolean offHeap) {
+            if (!offHeap) {
+                return new IntStorage(null, IntBuffer.allocate(ints));
+            }
+            ByteBuffer memory = DirectBufferPool.acquire(4L * ints);
+            return new IntStorage(memory, memory.asIntBuffer());
+        }
+
+        // 용량을 minInts 이상으로 늘린 새 저장소 (기존 내용을 복사하고 기존 버퍼는 반납)
+        IntStorage grow(int minInts) {
+            IntStorage grown = allocate(Math.max(minInts, 2 * ints.capacity()), memory != null);
+            grown.ints.put(0, ints, 0, ints.capacity());
+            release();
+            return grown;
+        }
+
+        void release() {
+            if (memory != null) {
+                DirectBufferPool.release(memory);
+            }
+        }
+    }
+
+    /**
+     * Shape 객체를 하나씩 받아 고정소수점 레코드로 변환하여 쌓는 빌더.
+     * 변환이 끝난 Shape는 참조를 유지하지 않으므로 바로 가비지 컬렉션 대상이 됩니다.
+     */
+    public static class Builder {
+        private IntStorage recordStorage;
+        private IntStorage vertexStorage;
+        private final int[] record = new int[RECORD_INTS]; // 도형 하나의 레코드를 모으는 임시 배열
+        private int shapeCount;
+        private int vertexCount;
+
+        public Builder(int expectedShapes, int expectedVertices) {
+            this(expectedShapes, expectedVertices, false);
+        }
+
+        /**
+         * @param offHeap true이면 장면을 DirectBufferPool의 오프힙 버퍼에 기록 (완성된 장면은 close로 반납)
+         */
+        public Builder(int expectedShapes, int expectedVertices, boolean offHeap) {
+            recordStorage = IntStorage.allocate(
+                    (int) Math.min(Math.max(1L, expectedShapes) * RECORD_INTS, MAX_INITIAL_INTS), offHeap);
+            vertexStorage = IntStorage.allocate(
+                    (int) Math.min(Math.max(2L, 2L * expectedVertices), MAX_INITIAL_INTS), offHeap);
+        }
+
+        /**
+         * 도형 shapes개, 도형당 최대 maxEdges개 변인 장면의 예상 정점 수 (도형당 평균 (3 + maxEdges) / 2개).
+         * int 곱셈이 넘치지 않도록 long으로 계산하고 빌더의 최대 초기 용량으로 제한합니다.
+         */
+        public static int expectedVertices(int shapes, int maxEdges) {
+            return (int) Math.min((long) shapes * (3L + maxEdges) / 2, MAX_INITIAL_INTS / 2);
+        }
+
+        public int add(Shape shape, int rgb) {
+            if ((shapeCount + 1) * RECORD_INTS > recordStorage.ints.capacity()) {
+                recordStorage = recordStorage.grow((shapeCount + 1) * RECORD_INTS);
+            }
+            int start = vertexCount;
+            List<Point> shapeVertices = shape.getVertices();
+            for (Point vertex : shapeVertices) {
+                addVertex(toFixed(vertex.getX()), toFixed(vertex.getY()));
+            }
+
+            Point center = shape.getCenter();
+            int type;
+            int radius;
+            int rotation = 0;
+            if (shape instanceof Circle) {
+                type = TYPE_CIRCLE;
+                radius = toFixed(shape.getRadius());
+            } else {
+                type = shape instanceof RegularPolygon ? TYPE_REGULAR_POLYGON
+                        : shape instanceof ConcavePolygon ? TYPE_CONCAVE_POLYGON : TYPE_IRREGULAR_POLYGON;
+                if (shape instanceof RegularPolygon) {
+                    rotation = Float.floatToIntBits((float) ((RegularPolygon) shape).getRotationAngle());
+                }
+                // 경계원은 반올림된 중심과 정점 사이 거리가 늘어난 만큼(최대 sqrt(2) 단위)을 포함하도록 올림 + 2 단위 여유
+                radius = (int) Math.ceil(shape.getRadius() * FIXED_SCALE) + 2;
+            }
+
+            return putRecord(type, start, toFixed(center.getX()), toFixed(center.getY()), radius, rotation, rgb);
+        }
+
+        /**
+         * 고정소수점 좌표로 원 레코드를 추가합니다. (클라이언트가 보낸 장면처럼 Shape 객체가 없는 경우)
+         */
+        public int addCircle(int centerX, int centerY, int radius, int rgb) {
+            if ((shapeCount + 1) * RECORD_INTS > recordStorage.ints.capacity()) {
+                recordStorage = recordStorage.grow((shapeCount + 1) * RECORD_INTS);
+            }
+            return putRecord(TYPE_CIRCLE, vertexCount, centerX, centerY, radius, 0, rgb);
+        }
+
+        /**
+         * 고정소수점 정점 좌표로 다각형 레코드를 추가합니다. (클라이언트가 보낸 장면처럼 Shape 객체가 없는 경우)
+         * 경계원 반지름은 중심에서 가장 먼 정점까지의 거리를 올림하여 사용하므로, 주어진 중심이 정점의 중심과 달라도 경계원이 다각형을 포함합니다.
+         *
+         * @param type TYPE_REGULAR_POLYGON, TYPE_IRREGULAR_POLYGON(볼록) 또는 TYPE_CONCAVE_POLYGON
+         * @param xy 정점 좌표 {x0, y0, x1, y1, ...} (앞쪽 vertexCount개 정점 사용)
+         * @param rotationAngle 정다각형 회전각 (JSON 변환용)
+         */
+        public int addPolygon(int type, int centerX, int centerY, int[] xy, int vertexCount, float rotationAngle, int rgb) {
+            if ((shapeCount + 1) * RECORD_INTS > recordStorage.ints.capacity()) {
+                recordStorage = recordStorage.grow((shapeCount + 1) * RECORD_INTS);
+            }
+            int start = this.vertexCount;
+            long maxDistanceSquared = 0;
+            for (int k = 0; k < vertexCount; k++) {
+                addVertex(xy[2 * k], xy[2 * k + 1]);
+                long dx = (long) xy[2 * k] - centerX;
+                long dy = (long) xy[2 * k + 1] - centerY;
+                maxDistanceSquared = Math.max(maxDistanceSquared, dx * dx + dy * dy);
+            }
+            int radius = (int) Math.ceil(Math.sqrt((double) maxDistanceSquared)) + 1;
+            return putRecord(type, start, centerX, centerY, radius,
+                    type == TYPE_REGULAR_POLYGON ? Float.floatToIntBits(rotationAngle) : 0, rgb);
+        }
+
+        private int putRecord(int type, int start, int centerX, int centerY, int radius, int rotation, int rgb) {
+            record[TYPE] = type;
+            record[VERTEX_START] = start;
+            record[VERTEX_COUNT] = vertexCount - start;
+            record[CENTER_X] = centerX;
+            record[CENTER_Y] = centerY;
+            record[RADIUS] = radius;
+            record[ROTATION] = rotation;
+            record[COLOR] = rgb;
+            record[GROUP] = -1;
+            recordStorage.ints.put(shapeCount * RECORD_INTS, record);
+            return shapeCount++;
+        }
+
+        public int size() {
+            return shapeCount;
+        }
+
+        /**
+         * 다른 장면의 도형 레코드와 정점을 그대로 복사하여 추가합니다. (색상과 그룹 번호 포함)
+         *
+         * @return 이 빌더에서의 도형 인덱스
+         */
+        public int add(CompactScene source, int shape) {
+            if ((shapeCount + 1) * RECORD_INTS > recordStorage.ints.capacity()) {
+                recordStorage = recordStorage.grow((shapeCount + 1) * RECORD_INTS);
+            }
+            int start = vertexCount;
+            for (int k = 0; k < source.getVertexCount(shape); k++) {
+                addVertex(source.getVertexX(shape, k), source.getVertexY(shape, k));
+            }
+            source.records.get(shape * RECORD_INTS, record);
+            record[VERTEX_START] = start;
+            recordStorage.ints.put(shapeCount * RECORD_INTS, record);
+            return shapeCount++;
+        }
+
+        private void addVertex(int x, int y) {
+            if (2 * vertexCount + 2 > vertexStorage.ints.capacity()) {
+                vertexStorage = vertexStorage.grow(2 * vertexCount + 2);
+            }
+            vertexStorage.ints.put(2 * vertexCount, x);
+            vertexStorage.ints.put(2 * vertexCount + 1, y);
+            vertexCount++;
+        }
+
+        // 완성된 장면 (버퍼는 복사하지 않고 장면으로 넘기므로, 이후 빌더는 사용할 수 없음)
+        public CompactScene build() {
+            return new CompactScene(recordStorage, vertexStorage, shapeCount, vertexCount);
+        }
+
+        // 장면을 만들지 않고 오프힙 버퍼를 바로 반납합니다. (생성이 중단된 경우, 두 번 불러도 한 번만 반납, 이후 빌더는 사용할 수 없음)
+        public void release() {
+            if (recordStorage == null) {
+                return;
+            }
+            recordStorage.release();
+            vertexStorage.release();
+            recordStorage = null;
+            vertexStorage = null;
+        }
+    }
+}
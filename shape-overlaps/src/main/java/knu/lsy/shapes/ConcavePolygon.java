@@ -0,0 +1,241 @@
+package knu.lsy.shapes;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 오목한 부분이 있는 단순 다각형 (볼록 껍질로 바꾸지 않고 정점 목록을 그대로 사용).
+ * 처음 겹침을 판정할 때 한 번 볼록 조각으로 나누고(ConvexPieces), 조각마다 SAT용 압축 표현(정점과 분리 축)을 만들어 둡니다.
+ * 분해 비용이 정점 수의 제곱에 비례하므로 정점은 MAX_VERTICES개 이하여야 합니다.
+ * 겹침 판정은 조각 경계 상자 계층에서 상대 도형 근처의 조각만 골라 검사하므로, 정점이 많아도 비용은 가까운 조각 수에 비례합니다.
+ *
+ * 판정 규칙은 다른 도형과 같습니다.
+ * - 원: 다각형의 정점이 원 안에 있거나 외곽선 변이 원과 만나면 겹침 (Circle.overlaps와 같은 규칙, 조각 사이의 대각선은 검사하지 않음)
+ * - 다각형: 어느 한 조각이라도 상대 다각형(오목 다각형이면 그 조각)과 SAT로 겹치면 겹침
+ */
+public class ConcavePolygon extends Shape {
+    // 최대 정점 수 (볼록 분해 비용 제한)
+    public static final int MAX_VERTICES = ConvexPieces.MAX_VERTICES;
+    // 무작위 생성 시 정점까지의 거리 범위 (radius 대비 비율)
+    private static final double MIN_RADIUS_RATIO = 0.35;
+
+    private final List<Point> vertices;
+    private final Point center;
+    private final double radius;
+    private volatile Decomposition decomposition; // 처음 겹침을 판정할 때 만듦 (여러 스레드가 동시에 만들어도 결과는 같음)
+
+    /**
+     * @param vertices 외곽선 정점 목록 (시계/반시계 방향 모두 가능, 변끼리 교차하지 않는 단순 다각형이어야 함)
+     */
+    public ConcavePolygon(List<Point> vertices) {
+        super();
+        if (vertices == null || vertices.size() < 3) {
+            throw new IllegalArgumentException("Concave polygon must have at least 3 vertices");
+        }
+        if (vertices.size() > MAX_VERTICES) {
+            throw new IllegalArgumentException("Concave polygon must have at most " + MAX_VERTICES + " vertices");
+        }
+        this.vertices = Collections.unmodifiableList(new ArrayList<>(vertices));
+
+        double sumX = 0;
+        double sumY = 0;
+        for (Point vertex : vertices) {
+            sumX += vertex.getX();
+            sumY += vertex.getY();
+        }
+        this.center = new Point(sumX / vertices.size(), sumY / vertices.size());
+        double maxDistanceSq = 0;
+        for (Point vertex : vertices) {
+            double dx = vertex.getX() - center.getX();
+            double dy = vertex.getY() - center.getY();
+            maxDistanceSq = Math.max(maxDistanceSq, dx * dx + dy * dy);
+        }
+        this.radius = Math.sqrt(maxDistanceSq);
+    }
+
+    // 볼록 조각과 조각별 SAT 압축 표현 (처음 호출할 때 분해)
+    private Decomposition decomposition() {
+        Decomposition result = decomposition;
+        if (result == null) {
+            ConvexPieces pieces = ConvexPieces.decompose(new PointVertices(vertices), ConvexPieces.NO_DEADLINE_CHECK);
+            PackedPolygon[] packedPieces = new PackedPolygon[pieces.size()];
+            for (int p = 0; p < pieces.size(); p++) {
+                List<Point> pieceVertices = new ArrayList<>();
+                for (int v : pieces.piece(p)) {
+                    pieceVertices.add(vertices.get(v));
+                }
+                packedPieces[p] = PackedPolygon.of(pieceVertices);
+            }
+            result = new Decomposition(pieces, packedPieces);
+            decomposition = result;
+        }
+        return result;
+    }
+
+    /**
+     * 중심 주위로 정점을 각도 순서대로 하나씩 놓아 만든 무작위 오목 다각형.
+     * 정점 i의 각도는 i번째 구간(2π/numVertices) 안에서, 거리는 radius의 35% ~ 100% 범위에서 고르므로
+     * 중심에서 모든 정점이 보이는(star-shaped) 단순 다각형이 됩니다.
+     */
+    public static ConcavePolygon random(Point center, double radius, int numVertices, Random random) {
+        if (numVertices < 3) {
+            throw new IllegalArgumentException("Concave polygon must have at least 3 vertices");
+        }
+        if (center == null) {
+            throw new IllegalArgumentException("Center point for generation cannot be null");
+        }
+        if (radius <= 0) {
+            throw new IllegalArgumentException("Radius for generation must be positive");
+        }
+        List<Point> points = new ArrayList<>(numVertices);
+        for (int i = 0; i < numVertices; i++) {
+            double angle = (i + 0.9 * random.nextDouble()) * 2 * Math.PI / numVertices;
+            double r = radius * (MIN_RADIUS_RATIO + random.nextDouble() * (1 - MIN_RADIUS_RATIO));
+            points.add(new Point(center.getX() + r * Math.cos(angle), center.getY() + r * Math.sin(angle)));
+        }
+        return new ConcavePolygon(points);
+    }
+
+    // 정점의 평균
+    @Override
+    public Point getCenter() {
+        return center;
+    }
+
+    // 중심에서 가장 먼 정점까지의 거리
+    @Override
+    public double getRadius() {
+        return radius;
+    }
+
+    @Override
+    public boolean overlaps(Shape other) {
+        Decomposition own = decomposition();
+        ConvexPieces pieces = own.pieces;
+        PackedPolygon[] packedPieces = own.packedPieces;
+        if (other instanceof Circle) {
+            Circle circle = (Circle) other;
+            Point circleCenter = circle.getCenter();
+            double circleRadius = circle.getRadius();
+            return pieces.anyPiece(circleCenter.getX() - circleRadius, circleCenter.getY() - circleRadius,
+                    circleCenter.getX() + circleRadius, circleCenter.getY() + circleRadius,
+                    p -> pieceOutlineTouchesCircle(pieces, p, circle, circleCenter, circleRadius));
+        } else if (other instanceof ConcavePolygon) {
+            ConcavePolygon polygon = (ConcavePolygon) other;
+            Decomposition theirs = polygon.decomposition();
+            ConvexPieces otherPieces = theirs.pieces;
+            PackedPolygon[] otherPackedPieces = theirs.packedPieces;
+            Point otherCenter = polygon.getCenter();
+            double otherRadius = polygon.getRadius();
+            return pieces.anyPiece(otherCenter.getX() - otherRadius, otherCenter.getY() - otherRadius,
+                    otherCenter.getX() + otherRadius, otherCenter.getY() + otherRadius,
+                    p -> otherPieces.anyPiece(pieces.minX(p), pieces.minY(p), pieces.maxX(p), pieces.maxY(p),
+                            q -> PackedPolygon.overlaps(packedPieces[p], otherPackedPieces[q])));
+        } else if (other instanceof RegularPolygon || other instanceof IrregularPolygon) {
+            // 볼록 다각형은 경계원을 감싸는 상자와 겹치는 조각만 SAT로 검사
+            PackedPolygon packed = PackedPolygon.of(other);
+            Point otherCenter = other.getCenter();
+            double otherRadius = other.getRadius();
+            return pieces.anyPiece(otherCenter.getX() - otherRadius, otherCenter.getY() - otherRadius,
+                    otherCenter.getX() + otherRadius, otherCenter.getY() + otherRadius,
+                    p -> PackedPolygon.overlaps(packedPieces[p], packed));
+        } else {
+            return false;
+        }
+    }
+
+    // 조각 p의 외곽선 변 중 시작 정점이 원 안에 있거나 원과 만나는 변이 있는지 (모든 정점은 정확히 한 외곽선 변의 시작 정점)
+    private boolean pieceOutlineTouchesCircle(ConvexPieces pieces, int p, Circle circle, Point circleCenter,
+                                              double circleRadius) {
+        int[] piece = pieces.piece(p);
+        boolean[] outline = pieces.outlineEdges(p);
+        for (int k = 0; k < piece.length; k++) {
+            if (!outline[k]) {
+                continue;
+            }
+            Point p1 = vertices.get(piece[k]);
+            Point p2 = vertices.get(piece[(k + 1) % piece.length]);
+            if (circleCenter.distanceTo(p1) <= circleRadius
+                    || circle.isLineSegmentIntersectingCircle(circleCenter, circleRadius, p1, p2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 볼록 조각 수
+    public int getPieceCount() {
+        return decomposition().pieces.size();
+    }
+
+    @Override
+    public JSONObject toJSON() {
+        JSONObject json = new JSONObject();
+        json.put("type", getShapeType());
+        json.put("id", getId());
+        json.put("center", center.toJSON());
+        json.put("radius", radius);
+        json.put("color", getColor());
+        JSONArray verticesArray = new JSONArray();
+        for (Point vertex : vertices) {
+            verticesArray.put(vertex.toJSON());
+        }
+        json.put("vertices", verticesArray);
+        return json;
+    }
+
+    @Override
+    public String getShapeType() {
+        return "concavePolygon";
+    }
+
+    @Override
+    public List<Point> getVertices() {
+        return new ArrayList<>(vertices);
+    }
+
+    private static final class Decomposition {
+        final ConvexPieces pieces;
+        final PackedPolygon[] packedPieces;
+
+        Decomposition(ConvexPieces pieces, PackedPolygon[] packedPieces) {
+            this.pieces = pieces;
+            this.packedPieces = packedPieces;
+        }
+    }
+
+    // double 정점의 방향 판정 (외적의 부호)
+    private static final class PointVertices implements ConvexPieces.Vertices {
+        private final List<Point> points;
+
+        PointVertices(List<Point> points) {
+            this.points = points;
+        }
+
+        @Override
+        public int size() {
+            return points.size();
+        }
+
+        @Override
+        public double x(int i) {
+            return points.get(i).getX();
+        }
+
+        @Override
+        public double y(int i) {
+            return points.get(i).getY();
+        }
+
+        @Override
+        public int orientation(int a, int b, int c) {
+            double cross = (x(b) - x(a)) * (y(c) - y(a)) - (y(b) - y(a)) * (x(c) - x(a));
+            return cross > 0 ? 1 : cross < 0 ? -1 : 0;
+        }
+    }
+}
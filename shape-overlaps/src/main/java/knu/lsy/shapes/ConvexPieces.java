@@ -0,0 +1,405 @@
+package knu.lsy.shapes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 단순 다각형(오목 다각형 포함)을 볼록 조각으로 나눈 결과와 조각 경계 상자의 계층. (ConcavePolygon과 CompactScene이 공유)
+ * - 분해: 귀 자르기(ear clipping)로 삼각형으로 나눈 뒤, 합쳐도 볼록한 이웃 조각은 사이의 대각선을 지워 합칩니다.
+ *   (Hertel-Mehlhorn 방식, 조각 수는 최소 볼록 분할의 4배 이내)
+ * - 조각의 정점은 원래 다각형의 정점 인덱스(반시계 방향)이며, 조각의 변마다 원래 다각형의 외곽선 변인지 기록합니다.
+ *   (대각선은 다각형 내부이므로 원-다각형 규칙처럼 외곽선만 보는 판정에서 제외)
+ * - 계층: 조각 경계 상자를 긴 축 방향 중앙값으로 둘씩 나눈 이진 트리이며, 질의 상자와 겹치는 조각만 방문합니다.
+ *
+ * 방향 판정은 Vertices 구현이 제공하므로 double 정점과 고정소수점 정점(정확한 long 연산)에 같은 알고리즘을 씁니다.
+ * 자기 교차처럼 귀를 찾을 수 없는 입력에서도 끝나도록, 귀가 없으면 볼록 정점(없으면 임의의 정점)을 잘라냅니다.
+ * 귀 판정이 남은 정점을 모두 확인하므로 분해 비용은 정점 수의 제곱에 비례합니다. 그래서 정점 수를 MAX_VERTICES 이하로 제한하고,
+ * 도형마다 처음 겹침을 판정할 때 한 번만 계산하며, 귀를 하나 자를 때마다 호출자의 마감 시간 검사를 실행합니다.
+ */
+final class ConvexPieces {
+    // 분해할 수 있는 최대 정점 수 (이 크기에서 분해 한 번이 수십 밀리초 정도)
+    static final int MAX_VERTICES = 1024;
+    // 마감 시간 검사가 필요 없을 때
+    static final Runnable NO_DEADLINE_CHECK = () -> {
+    };
+
+    // 분해할 다각형의 정점 접근과 방향 판정
+    interface Vertices {
+        int size();
+
+        double x(int i);
+
+        double y(int i);
+
+        // 세 정점 a, b, c의 방향 (반시계 방향이면 양수, 시계 방향이면 음수, 일직선이면 0)
+        int orientation(int a, int b, int c);
+    }
+
+    // 질의 상자와 겹치는 조각을 받는 콜백 (true를 반환하면 탐색 중단)
+    interface PieceVisitor {
+        boolean visit(int piece);
+    }
+
+    private final int[][] pieces;
+    private final boolean[][] outlineEdges; // 조각 p의 변 k(pieces[p][k] -> pieces[p][k + 1])가 외곽선 변인지
+    private final double[] pieceBoxes;      // 조각 p의 경계 상자 {minX, minY, maxX, maxY} = pieceBoxes[4p .. 4p + 3]
+    // 계층 노드 k의 경계 상자는 nodeBoxes[4k .. 4k + 3], 자식은 nodeFirst[k]와 nodeSecond[k]
+    // (잎이면 nodeFirst = -1 - 조각 번호, nodeSecond = -1)
+    private final double[] nodeBoxes;
+    private final int[] nodeFirst;
+    private final int[] nodeSecond;
+    private int nodeCount = 0;
+
+    private ConvexPieces(List<int[]> pieces, boolean[][] outlineEdges, Vertices vertices) {
+        int count = pieces.size();
+        this.pieces = pieces.toArray(new int[0][]);
+        this.outlineEdges = outlineEdges;
+        this.pieceBoxes = new double[4 * count];
+        for (int p = 0; p < count; p++) {
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (int v : this.pieces[p]) {
+                minX = Math.min(minX, vertices.x(v));
+                minY = Math.min(minY, vertices.y(v));
+                maxX = Math.max(maxX, vertices.x(v));
+                maxY = Math.max(maxY, vertices.y(v));
+            }
+            pieceBoxes[4 * p] = minX;
+            pieceBoxes[4 * p + 1] = minY;
+            pieceBoxes[4 * p + 2] = maxX;
+            pieceBoxes[4 * p + 3] = maxY;
+        }
+        this.nodeBoxes = new double[4 * Math.max(1, 2 * count - 1)];
+        this.nodeFirst = new int[Math.max(1, 2 * count - 1)];
+        this.nodeSecond = new int[Math.max(1, 2 * count - 1)];
+        int[] order = new int[count];
+        for (int p = 0; p < count; p++) {
+            order[p] = p;
+        }
+        if (count > 0) {
+            buildNode(order, 0, count);
+        }
+    }
+
+    /**
+     * 다각형을 볼록 조각으로 나눕니다. 연속한 중복 정점은 건너뛰고, 시계 방향 다각형은 반시계 방향으로 뒤집어 처리합니다.
+     *
+     * @param deadlineCheck 귀를 하나 자를 때마다 실행하는 마감 시간 검사 (시간이 지났으면 예외를 던져 분해를 중단)
+     * @throws IllegalArgumentException 정점이 MAX_VERTICES개보다 많은 경우
+     */
+    static ConvexPieces decompose(Vertices vertices, Runnable deadlineCheck) {
+        if (vertices.size() > MAX_VERTICES) {
+            throw new IllegalArgumentException("오목 다각형의 정점은 " + MAX_VERTICES + "개 이하여야 합니다.");
+        }
+        int[] ring = ring(vertices);
+        int m = ring.length;
+        int[] ringPosition = new int[vertices.size()];
+        Arrays.fill(ringPosition, -1);
+        for (int k = 0; k < m; k++) {
+            ringPosition[ring[k]] = k;
+        }
+
+        List<int[]> triangles = new ArrayList<>();
+        List<int[]> diagonals = new ArrayList<>();
+        if (m <= 3) {
+            triangles.add(ring);
+        } else {
+            clipEars(vertices, ring, triangles, diagonals, deadlineCheck);
+        }
+        List<int[]> pieces = mergeConvex(vertices, triangles, diagonals);
+
+        boolean[][] outlineEdges = new boolean[pieces.size()][];
+        for (int p = 0; p < pieces.size(); p++) {
+            int[] piece = pieces.get(p);
+            outlineEdges[p] = new boolean[piece.length];
+            for (int k = 0; k < piece.length; k++) {
+                int from = ringPosition[piece[k]];
+                int to = ringPosition[piece[(k + 1) % piece.length]];
+                outlineEdges[p][k] = piece.length > 1 && to == (from + 1) % m;
+            }
+        }
+        return new ConvexPieces(pieces, outlineEdges, vertices);
+    }
+
+    // 연속 중복 정점을 뺀 정점 인덱스 순환 목록 (반시계 방향)
+    private static int[] ring(Vertices vertices) {
+        int n = vertices.size();
+        int[] ring = new int[n];
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            if (m > 0 && samePosition(vertices, ring[m - 1], i)) {
+                continue;
+            }
+            ring[m++] = i;
+        }
+        while (m > 1 && samePosition(vertices, ring[m - 1], ring[0])) {
+            m--;
+        }
+        ring = Arrays.copyOf(ring, m);
+
+        // 부호 있는 넓이(첫 정점 기준)가 음수이면 시계 방향
+        double area = 0;
+        double originX = m > 0 ? vertices.x(ring[0]) : 0;
+        double originY = m > 0 ? vertices.y(ring[0]) : 0;
+        for (int k = 1; k + 1 < m; k++) {
+            area += (vertices.x(ring[k]) - originX) * (vertices.y(ring[k + 1]) - originY)
+                    - (vertices.x(ring[k + 1]) - originX) * (vertices.y(ring[k]) - originY);
+        }
+        if (area < 0) {
+            for (int a = 0, b = m - 1; a < b; a++, b--) {
+                int t = ring[a];
+                ring[a] = ring[b];
+                ring[b] = t;
+            }
+        }
+        return ring;
+    }
+
+    private static boolean samePosition(Vertices vertices, int a, int b) {
+        return vertices.x(a) == vertices.x(b) && vertices.y(a) == vertices.y(b);
+    }
+
+    /**
+     * 귀 자르기: 남은 다각형에서 볼록하고 다른 정점을 포함하지 않는 정점(귀)을 잘라 삼각형으로 만듭니다.
+     * 잘라낸 삼각형과 남은 다각형 사이의 변은 대각선으로 기록합니다.
+     */
+    private static void clipEars(Vertices vertices, int[] ring, List<int[]> triangles, List<int[]> diagonals,
+                                 Runnable deadlineCheck) {
+        int m = ring.length;
+        int[] prev = new int[m];
+        int[] next = new int[m];
+        for (int k = 0; k < m; k++) {
+            prev[k] = (k + m - 1) % m;
+            next[k] = (k + 1) % m;
+        }
+        int remaining = m;
+        int current = 0;
+        while (remaining > 3) {
+            deadlineCheck.run();
+            int ear = -1;
+            int convex = -1;
+            int k = current;
+            for (int step = 0; step < remaining; step++, k = next[k]) {
+                int a = ring[prev[k]];
+                int b = ring[k];
+                int c = ring[next[k]];
+                if (vertices.orientation(a, b, c) <= 0) {
+                    continue;
+                }
+                if (convex < 0) {
+                    convex = k;
+                }
+                if (isEar(vertices, ring, next, prev[k], k, next[k])) {
+                    ear = k;
+                    break;
+                }
+            }
+            if (ear < 0) {
+                ear = convex >= 0 ? convex : current; // 귀가 없는 입력(자기 교차 등)에서도 진행
+            }
+            int a = ring[prev[ear]];
+            int c = ring[next[ear]];
+            triangles.add(new int[]{a, ring[ear], c});
+            diagonals.add(new int[]{a, c});
+            next[prev[ear]] = next[ear];
+            prev[next[ear]] = prev[ear];
+            current = next[ear];
+            remaining--;
+        }
+        triangles.add(new int[]{ring[prev[current]], ring[current], ring[next[current]]});
+    }
+
+    // 삼각형 (a, b, c) 안이나 변 위에 남은 다른 정점이 없는지 (a, b, c와 같은 위치의 정점은 제외)
+    private static boolean isEar(Vertices vertices, int[] ring, int[] next, int a, int b, int c) {
+        int va = ring[a], vb = ring[b], vc = ring[c];
+        for (int k = next[c]; k != a; k = next[k]) {
+            int p = ring[k];
+            if (samePosition(vertices, p, va) || samePosition(vertices, p, vb) || samePosition(vertices, p, vc)) {
+                continue;
+            }
+            if (vertices.orientation(va, vb, p) >= 0 && vertices.orientation(vb, vc, p) >= 0
+                    && vertices.orientation(vc, va, p) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 대각선을 하나씩 보며, 대각선 양쪽 조각을 합쳐도 대각선 양 끝 정점이 볼록(또는 일직선)이면 합칩니다.
+     * 다른 정점의 각은 바뀌지 않으므로 양 끝 정점만 확인하면 됩니다.
+     */
+    private static List<int[]> mergeConvex(Vertices vertices, List<int[]> triangles, List<int[]> diagonals) {
+        List<int[]> pieces = new ArrayList<>(triangles);
+        Map<Long, Integer> owners = new HashMap<>(); // 방향 있는 변 (from, to) -> 그 변을 가진 조각
+        for (int p = 0; p < pieces.size(); p++) {
+            putOwner(owners, pieces.get(p), p);
+        }
+        for (int[] diagonal : diagonals) {
+            Integer first = owners.get(edgeKey(diagonal[0], diagonal[1]));
+            Integer second = owners.get(edgeKey(diagonal[1], diagonal[0]));
+            if (first == null || second == null || first.equals(second)) {
+                continue;
+            }
+            int[] merged = merge(vertices, pieces.get(first), pieces.get(second), diagonal[0], diagonal[1]);
+            if (merged == null) {
+                continue;
+            }
+            owners.remove(edgeKey(diagonal[0], diagonal[1]));
+            owners.remove(edgeKey(diagonal[1], diagonal[0]));
+            pieces.set(first, merged);
+            pieces.set(second, null);
+            putOwner(owners, merged, first);
+        }
+        List<int[]> result = new ArrayList<>();
+        for (int[] piece : pieces) {
+            if (piece != null) {
+                result.add(piece);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 변 u -> v를 가진 조각 p와 변 v -> u를 가진 조각 q를 합친 정점 목록 (볼록이 아니게 되면 null).
+     * 합친 목록은 p를 v부터 u까지 돈 뒤, q에서 u 다음부터 v 앞까지 이어 붙인 것입니다.
+     */
+    private static int[] merge(Vertices vertices, int[] p, int[] q, int u, int v) {
+        int pu = indexOf(p, u);
+        int pv = indexOf(p, v);
+        int qu = indexOf(q, u);
+        int qv = indexOf(q, v);
+        // u: p에서 앞 정점 -> u -> q에서 다음 정점, v: q에서 앞 정점 -> v -> p에서 다음 정점
+        if (vertices.orientation(p[(pu + p.length - 1) % p.length], u, q[(qu + 1) % q.length]) < 0
+                || vertices.orientation(q[(qv + q.length - 1) % q.length], v, p[(pv + 1) % p.length]) < 0) {
+            return null;
+        }
+        int[] merged = new int[p.length + q.length - 2];
+        int count = 0;
+        for (int k = pv; ; k = (k + 1) % p.length) {
+            merged[count++] = p[k];
+            if (k == pu) {
+                break;
+            }
+        }
+        for (int k = (qu + 1) % q.length; k != qv; k = (k + 1) % q.length) {
+            merged[count++] = q[k];
+        }
+        return merged;
+    }
+
+    private static int indexOf(int[] piece, int vertex) {
+        for (int k = 0; k < piece.length; k++) {
+            if (piece[k] == vertex) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private static void putOwner(Map<Long, Integer> owners, int[] piece, int owner) {
+        for (int k = 0; k < piece.length; k++) {
+            owners.put(edgeKey(piece[k], piece[(k + 1) % piece.length]), owner);
+        }
+    }
+
+    private static long edgeKey(int from, int to) {
+        return (long) from << 32 | (to & 0xFFFFFFFFL);
+    }
+
+    // order[from, to) 조각으로 노드를 만들고 노드 번호를 반환 (긴 축 방향 중심 좌표의 중앙값으로 둘로 나눔)
+    private int buildNode(int[] order, int from, int to) {
+        int node = nodeCount++;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int k = from; k < to; k++) {
+            int p = order[k];
+            minX = Math.min(minX, pieceBoxes[4 * p]);
+            minY = Math.min(minY, pieceBoxes[4 * p + 1]);
+            maxX = Math.max(maxX, pieceBoxes[4 * p + 2]);
+            maxY = Math.max(maxY, pieceBoxes[4 * p + 3]);
+        }
+        nodeBoxes[4 * node] = minX;
+        nodeBoxes[4 * node + 1] = minY;
+        nodeBoxes[4 * node + 2] = maxX;
+        nodeBoxes[4 * node + 3] = maxY;
+        if (to - from <= 1) {
+            nodeFirst[node] = -1 - order[from];
+            nodeSecond[node] = -1;
+            return node;
+        }
+        int axis = maxX - minX >= maxY - minY ? 0 : 1;
+        Integer[] sorted = new Integer[to - from];
+        for (int k = from; k < to; k++) {
+            sorted[k - from] = order[k];
+        }
+        Arrays.sort(sorted, (a, b) -> Double.compare(pieceBoxes[4 * a + axis] + pieceBoxes[4 * a + 2 + axis],
+                pieceBoxes[4 * b + axis] + pieceBoxes[4 * b + 2 + axis]));
+        for (int k = from; k < to; k++) {
+            order[k] = sorted[k - from];
+        }
+        int middle = (from + to) >>> 1;
+        nodeFirst[node] = buildNode(order, from, middle);
+        nodeSecond[node] = buildNode(order, middle, to);
+        return node;
+    }
+
+    /**
+     * 경계 상자가 질의 상자 [minX, maxX] x [minY, maxY]와 겹치는(맞닿음 포함) 조각을 방문합니다.
+     *
+     * @return visitor가 true를 반환하여 탐색을 멈췄으면 true
+     */
+    boolean anyPiece(double minX, double minY, double maxX, double maxY, PieceVisitor visitor) {
+        return pieces.length > 0 && visit(0, minX, minY, maxX, maxY, visitor);
+    }
+
+    private boolean visit(int node, double minX, double minY, double maxX, double maxY, PieceVisitor visitor) {
+        if (nodeBoxes[4 * node] > maxX || nodeBoxes[4 * node + 2] < minX
+                || nodeBoxes[4 * node + 1] > maxY || nodeBoxes[4 * node + 3] < minY) {
+            return false;
+        }
+        if (nodeSecond[node] < 0) {
+            return visitor.visit(-1 - nodeFirst[node]);
+        }
+        return visit(nodeFirst[node], minX, minY, maxX, maxY, visitor)
+                || visit(nodeSecond[node], minX, minY, maxX, maxY, visitor);
+    }
+
+    int size() {
+        return pieces.length;
+    }
+
+    // 조각의 정점 인덱스 (반시계 방향, 수정하지 말 것)
+    int[] piece(int p) {
+        return pieces[p];
+    }
+
+    // 조각의 변별 외곽선 여부 (수정하지 말 것)
+    boolean[] outlineEdges(int p) {
+        return outlineEdges[p];
+    }
+
+    double minX(int p) {
+        return pieceBoxes[4 * p];
+    }
+
+    double minY(int p) {
+        return pieceBoxes[4 * p + 1];
+    }
+
+    double maxX(int p) {
+        return pieceBoxes[4 * p + 2];
+    }
+
+    double maxY(int p) {
+        return pieceBoxes[4 * p + 3];
+    }
+
+    // 전체 다각형의 경계 상자 (계층의 뿌리 노드)
+    double[] bounds() {
+        return Arrays.copyOf(nodeBoxes, 4);
+    }
+}
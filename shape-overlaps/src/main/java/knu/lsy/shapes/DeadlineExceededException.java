@@ -0,0 +1,12 @@
+package knu.lsy.shapes;
+
+/**
+ * 요청별 처리 마감 시간(deadline)이 지나 도형 생성 또는 그룹화 루프를 중단할 때 발생하는 예외.
+ */
+public class DeadlineExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,36 @@
+package knu.lsy.shapes;
+
+/**
+ * 전체 응답 모드에서 도형 형태를 얼마나 자세히 보낼지 나타내는 값. (Detail, Scale, MergeGroups 파라미터)
+ * - full: 모든 정점을 그대로 출력 (기본값)
+ * - coarse: 화면 배율(scale, 장면 좌표 1당 픽셀 수)에서의 경계원 크기에 따라 도형을 중심+반지름이나 정점 수를 제한한 다각형으로 출력하고,
+ *   mergeGroups이면 겹침 그룹 하나를 구성 도형 대신 합친 볼록 껍질 하나로 출력 (SceneLod)
+ */
+public final class DetailLevel {
+    public static final String FULL = "full";
+    public static final String COARSE = "coarse";
+
+    public static final DetailLevel FULL_DETAIL = new DetailLevel(false, 1, false);
+
+    private final boolean coarse;
+    private final double scale;
+    private final boolean mergeGroups;
+
+    public DetailLevel(boolean coarse, double scale, boolean mergeGroups) {
+        this.coarse = coarse;
+        this.scale = scale;
+        this.mergeGroups = mergeGroups;
+    }
+
+    public boolean isCoarse() {
+        return coarse;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    public boolean isMergeGroups() {
+        return mergeGroups;
+    }
+}
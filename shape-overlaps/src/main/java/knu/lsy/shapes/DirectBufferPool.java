@@ -0,0 +1,98 @@
+package knu.lsy.shapes;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 오프힙(direct ByteBuffer) 장면 저장소를 재사용하는 풀.
+ * Java 17에서는 direct 버퍼의 메모리를 즉시 해제할 공개 API가 없고 GC가 버퍼 객체를 수거해야 해제되므로,
+ * 요청이 끝나면 버퍼를 풀에 반납하여 다음 요청이 바로 재사용하도록 합니다. (해제 시점이 GC에 의존하지 않음)
+ * 버퍼는 2의 거듭제곱 크기 단위로 관리하며, 풀에 보관하는 총량은 shapes.offheap.pool-bytes(기본 512MB)로 제한합니다.
+ * 한도를 넘는 반납 버퍼는 보관하지 않고 GC에 맡깁니다.
+ */
+public final class DirectBufferPool {
+    private static final long MAX_POOLED_BYTES =
+            Long.getLong("shapes.offheap.pool-bytes", 512L * 1024 * 1024);
+    // 이보다 작은 요청도 이 크기로 할당 (작은 버퍼가 너무 많은 크기 구간을 만들지 않도록)
+    private static final int MIN_BUFFER_BYTES = 4096;
+
+    private static final ConcurrentHashMap<Integer, ArrayDeque<ByteBuffer>> FREE = new ConcurrentHashMap<>();
+    private static final AtomicLong pooledBytes = new AtomicLong();
+    private static final AtomicLong inUseBytes = new AtomicLong();
+    private static final AtomicLong allocatedBytes = new AtomicLong();
+
+    private DirectBufferPool() {
+    }
+
+    /**
+     * bytes 이상 크기의 direct 버퍼를 빌려옵니다. (네이티브 바이트 순서, position 0, limit = bytes)
+     * 사용이 끝나면 반드시 release로 반납해야 합니다.
+     */
+    public static ByteBuffer acquire(long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("오프힙 버퍼 하나의 크기는 2GB 미만이어야 합니다: " + bytes);
+        }
+        int capacity = capacityFor((int) bytes);
+        ByteBuffer buffer = null;
+        ArrayDeque<ByteBuffer> queue = FREE.get(capacity);
+        if (queue != null) {
+            synchronized (queue) {
+                buffer = queue.pollFirst();
+            }
+        }
+        if (buffer != null) {
+            pooledBytes.addAndGet(-capacity);
+        } else {
+            buffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+            allocatedBytes.addAndGet(capacity);
+        }
+        inUseBytes.addAndGet(capacity);
+        buffer.clear().limit((int) bytes);
+        return buffer;
+    }
+
+    // 빌려온 버퍼를 반납합니다. 풀 한도를 넘으면 보관하지 않습니다.
+    public static void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        inUseBytes.addAndGet(-capacity);
+        if (pooledBytes.addAndGet(capacity) > MAX_POOLED_BYTES) {
+            pooledBytes.addAndGet(-capacity);
+            return;
+        }
+        ArrayDeque<ByteBuffer> queue = FREE.computeIfAbsent(capacity, k -> new ArrayDeque<>());
+        synchronized (queue) {
+            queue.addFirst(buffer);
+        }
+    }
+
+    // 2의 거듭제곱 크기 구간으로 올림
+    private static int capacityFor(int bytes) {
+        int size = Math.max(MIN_BUFFER_BYTES, bytes);
+        int highest = Integer.highestOneBit(size);
+        if (highest == size) {
+            return size;
+        }
+        if (highest == 1 << 30) {
+            return Integer.MAX_VALUE - 8; // 2^31은 int 범위를 넘으므로 최대 크기로 할당
+        }
+        return highest << 1;
+    }
+
+    // 현재 요청들이 사용 중인 오프힙 바이트
+    public static long getInUseBytes() {
+        return inUseBytes.get();
+    }
+
+    // 풀에 보관 중인(재사용 대기) 오프힙 바이트
+    public static long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    // 지금까지 새로 할당한 오프힙 바이트 누계
+    public static long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+}
@@ -0,0 +1,68 @@
+package knu.lsy.shapes;
+
+import org.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 겹침 그룹 크기를 하나씩 받아 요약 통계(그룹 수, 크기 분포, 최대 그룹, 겹침 밀도)를 누적하는 집계기.
+ * 그룹 크기 배열을 모두 보관하지 않으므로, 타일 단위로 그룹이 확정되는 경우에도 메모리가 그룹 수와 무관합니다.
+ */
+class GroupStatistics {
+    private int groupCount = 0;
+    private int largestGroup = 0;
+    private long overlappingShapes = 0;
+    // 그룹 크기 분포: 2, 3-4, 5-8, 9-16 ... (2의 거듭제곱 구간)
+    private final Map<String, Integer> histogram = new LinkedHashMap<>();
+
+    // 집합 하나의 크기를 추가합니다. (크기 1 이하는 그룹으로 세지 않음)
+    void add(int size) {
+        if (size > 1) {
+            groupCount++;
+            overlappingShapes += size;
+            largestGroup = Math.max(largestGroup, size);
+            int upper = Integer.highestOneBit(size - 1) << 1;
+            String bucket = upper == 2 ? "2" : ((upper >> 1) + 1) + "-" + upper;
+            histogram.merge(bucket, 1, Integer::sum);
+        }
+    }
+
+    // 다른 프로세스(샤드 워커)의 집계 결과를 합칩니다. (toPartialJSON 형식)
+    void merge(JSONObject partial) {
+        groupCount += partial.getInt("groupCount");
+        overlappingShapes += partial.getLong("overlappingShapes");
+        largestGroup = Math.max(largestGroup, partial.getInt("largestGroup"));
+        JSONObject buckets = partial.getJSONObject("groupSizeHistogram");
+        for (String bucket : buckets.keySet()) {
+            histogram.merge(bucket, buckets.getInt(bucket), Integer::sum);
+        }
+    }
+
+    // 합칠 수 있는 형태의 중간 집계 (도형 수와 종류별 개수 제외)
+    JSONObject toPartialJSON() {
+        JSONObject partial = new JSONObject();
+        partial.put("groupCount", groupCount);
+        partial.put("overlappingShapes", overlappingShapes);
+        partial.put("largestGroup", largestGroup);
+        partial.put("groupSizeHistogram", new JSONObject(histogram));
+        return partial;
+    }
+
+    /**
+     * @param n 전체 도형 수
+     * @param typeCounts 종류별 도형 수
+     */
+    JSONObject toJSON(long n, Map<String, Integer> typeCounts) {
+        JSONObject summary = new JSONObject();
+        summary.put("totalCount", n);
+        summary.put("typeCounts", new JSONObject(typeCounts));
+        summary.put("groupCount", groupCount);
+        summary.put("groupSizeHistogram", new JSONObject(histogram));
+        summary.put("largestGroup", n > 0 ? Math.max(1, largestGroup) : 0);
+        summary.put("overlappingShapes", overlappingShapes);
+        // 겹침 밀도: 다른 도형과 하나 이상 겹치는(2개 이상 그룹에 속한) 도형의 비율
+        summary.put("overlapDensity", n == 0 ? 0.0 : (double) overlappingShapes / n);
+        return summary;
+    }
+}
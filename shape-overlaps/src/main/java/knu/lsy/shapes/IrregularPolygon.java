@@ -8,13 +8,21 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.lang.Math; // Math 클래스 임포트 명시
 import java.util.NoSuchElementException; // 정점이 없을 경우 예외 처리를 위해 임포트
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class IrregularPolygon extends Shape {
     // IrregularPolygon은 자체적으로 정점 목록을 관리합니다.
     private List<Point> vertices;
+    private PackedPolygon packed; // SAT 검사용 정점/분리 축 배열 (지연 생성)
 
     // 생성 시 center와 radius는 정점 생성에만 사용됩니다.
     public IrregularPolygon(Point centerForGeneration, double radiusForGeneration, int numVertices) {
+        this(centerForGeneration, radiusForGeneration, numVertices, ThreadLocalRandom.current());
+    }
+
+    // 정점 생성에 사용할 난수 생성기를 지정하는 생성자 (시드를 고정하면 같은 모양이 재현됨)
+    public IrregularPolygon(Point centerForGeneration, double radiusForGeneration, int numVertices, Random random) {
         // Shape 클래스의 인자 없는 생성자 호출 (ID와 색상 초기화)
         super();
 
@@ -31,20 +39,21 @@ public class IrregularPolygon extends Shape {
 
 
         // 주어진 정보로 정점 생성
-        this.vertices = generateIrregularVertices(centerForGeneration, radiusForGeneration, numVertices);
+        this.vertices = generateIrregularVertices(centerForGeneration, radiusForGeneration, numVertices, random);
 
         // 생성된 정점으로 실제 다각형을 나타내므로, 필요하다면 여기서 정점 목록의 유효성을 추가 검사할 수 있습니다.
         // (예: 정점이 너무 가깝거나 일직선 상에 있는 경우 등)
     }
 
     // 불규칙한 정점 목록을 생성하는 메서드
-    private List<Point> generateIrregularVertices(Point centerForGeneration, double radiusForGeneration, int numVertices) {
+    private List<Point> generateIrregularVertices(Point centerForGeneration, double radiusForGeneration, int numVertices,
+                                                  Random random) {
         List<Point> points = new ArrayList<>();
 
         // 1. 무작위 각도로 점들 생성
         List<Double> angles = new ArrayList<>();
         for (int i = 0; i < numVertices; i++) {
-            angles.add(Math.random() * 2 * Math.PI);
+            angles.add(random.nextDouble() * 2 * Math.PI);
         }
         Collections.sort(angles); // 각도 순으로 정렬
 
@@ -52,7 +61,7 @@ public class IrregularPolygon extends Shape {
         for (int i = 0; i < numVertices; i++) {
             double angle = angles.get(i);
             // radiusForGeneration의 50% ~ 100% 범위 내에서 무작위 반경 적용
-            double r = radiusForGeneration * (0.5 + Math.random() * 0.5);
+            double r = radiusForGeneration * (0.5 + random.nextDouble() * 0.5);
             double x = centerForGeneration.getX() + r * Math.cos(angle);
             double y = centerForGeneration.getY() + r * Math.sin(angle);
             points.add(new Point(x, y));
@@ -170,10 +179,10 @@ public class IrregularPolygon extends Shape {
     public boolean overlaps(Shape other) {
         // 겹침 감지 로직 구현 시작
 
-        if (other instanceof Circle) {
-            // 1. 다른 도형이 원인 경우 (다각형-원 겹침 검사)
-            // 원 클래스의 overlaps 메서드에 위임하여 처리합니다.
-            // Circle.overlaps(this)를 호출하면, Circle 클래스가 원-다각형 겹침을 판별합니다.
+        if (other instanceof Circle || other instanceof ConcavePolygon) {
+            // 1. 다른 도형이 원 또는 오목 다각형인 경우 (다각형-원, 다각형-오목 다각형 겹침 검사)
+            // 상대 도형의 overlaps 메서드에 위임하여 처리합니다.
+            // Circle.overlaps(this)는 원-다각형 겹침을, ConcavePolygon.overlaps(this)는 가까운 볼록 조각과의 SAT를 판별합니다.
             return other.overlaps(this);
 
         } else if (other instanceof RegularPolygon || other instanceof IrregularPolygon) {
@@ -181,28 +190,9 @@ public class IrregularPolygon extends Shape {
             // SAT(Separating Axis Theorem) 알고리즘 사용
             // RegularPolygon에서 사용한 SAT 헬퍼 메서드를 재사용합니다.
 
-            List<Point> vertices1 = this.getVertices();
-            List<Point> vertices2 = other.getVertices();
-
-            if (vertices1.isEmpty() || vertices2.isEmpty()) {
-                return false; // 둘 중 하나라도 정점이 없으면 겹치지 않음
-            }
-
-            // 이 다각형과 다른 다각형의 분리 축들을 모두 가져옵니다.
-            List<Point> axes1 = getSeparatingAxes(vertices1);
-            List<Point> axes2 = getSeparatingAxes(vertices2);
-
-            // 모든 축에 대해 투영 결과를 확인합니다.
-            // 어느 한 축에서라도 투영 결과가 겹치지 않으면 두 도형은 겹치지 않습니다.
-            if (!checkOverlapOnAxes(vertices1, vertices2, axes1)) {
-                return false; // 첫 번째 다각형의 축들에서 분리 축을 찾음
-            }
-            if (!checkOverlapOnAxes(vertices1, vertices2, axes2)) {
-                return false; // 두 번째 다각형의 축들에서 분리 축을 찾음
-            }
-
-            // 모든 축에서 투영 결과가 겹치면 두 도형은 겹칩니다.
-            return true;
+            // 정점과 분리 축을 배열로 압축한 표현(PackedPolygon)으로 투영 커널이 검사합니다.
+            // (둘 중 하나라도 정점이 없으면 겹치지 않음)
+            return PackedPolygon.overlaps(this.getPacked(), PackedPolygon.of(other));
 
         } else {
             // 지원하지 않는 다른 도형 타입과의 겹침
@@ -211,120 +201,20 @@ public class IrregularPolygon extends Shape {
         }
     }
 
-    // --- SAT 알고리즘 헬퍼 메서드 (RegularPolygon에서 복사 또는 재사용) ---
-
-    // 두 다각형의 정점 목록과 축 목록을 받아 모든 축에 대해 겹침을 확인하는 헬퍼 메서드
-    private boolean checkOverlapOnAxes(List<Point> vertices1, List<Point> vertices2, List<Point> axes) {
-        for (Point axis : axes) {
-            // 각 축에 대해 두 다각형을 투영합니다.
-            Projection p1 = project(vertices1, axis);
-            Projection p2 = project(vertices2, axis);
-
-            // 투영된 구간이 겹치지 않으면 분리 축이 존재하고, 두 도형은 겹치지 않습니다.
-            if (!p1.overlaps(p2)) {
-                return false;
-            }
-        }
-        // 모든 축에서 투영 구간이 겹치면 분리 축이 존재하지 않고, 두 도형은 겹칩니다.
-        return true;
-    }
-
-    // 다각형의 정점 목록을 받아 분리 축 (각 변의 법선 벡터) 목록을 계산하는 헬퍼 메서드
-    private List<Point> getSeparatingAxes(List<Point> vertices) {
-        List<Point> axes = new ArrayList<>();
-        int numVertices = vertices.size();
-
-        for (int i = 0; i < numVertices; i++) {
-            Point p1 = vertices.get(i);
-            Point p2 = vertices.get((i + 1) % numVertices); // 다음 정점 (마지막은 첫 번째와 연결)
-
-            // 변 벡터 (p2 - p1)
-            double edgeX = p2.getX() - p1.getX();
-            double edgeY = p2.getY() - p1.getY();
-
-            // 변 벡터의 법선 벡터 ((-edgeY, edgeX))
-            double normalX = -edgeY;
-            double normalY = edgeX;
-
-            // 법선 벡터를 단위 벡터로 정규화합니다.
-            double length = Math.sqrt(normalX * normalX + normalY * normalY);
-            // 아주 작은 값보다 큰 경우에만 정규화하고 추가 (부동 소수점 오차 방지)
-            if (length > 1e-9) { // 0에 가까운 길이 필터링
-                Point normal = new Point(normalX / length, normalY / length);
-                // 중복되는 축을 방지하기 위한 간단한 체크 (방향 무관한 중복)
-                boolean exists = false;
-                for (Point existingAxis : axes) {
-                    // 방향이 같거나 반대인 경우 중복으로 간주
-                    if ((Math.abs(existingAxis.getX() - normal.getX()) < 1e-9 && Math.abs(existingAxis.getY() - normal.getY()) < 1e-9) ||
-                            (Math.abs(existingAxis.getX() + normal.getX()) < 1e-9 && Math.abs(existingAxis.getY() + normal.getY()) < 1e-9)) {
-                        exists = true;
-                        break;
-                    }
-                }
-                if (!exists) {
-                    axes.add(normal);
-                }
-            }
-        }
-        // 모든 축이 중복 제거된 최종 축 목록 반환
-        return axes;
-    }
-
-    // 다각형의 정점 목록과 축 벡터를 받아 해당 축에 투영된 구간을 계산하는 헬퍼 메서드
-    private Projection project(List<Point> vertices, Point axis) {
-        if (vertices.isEmpty()) {
-            return new Projection(Double.MAX_VALUE, Double.MIN_VALUE); // 빈 구간
+    // SAT 검사용 압축 표현 (처음 사용할 때 생성하여 캐시)
+    PackedPolygon getPacked() {
+        if (packed == null) {
+            packed = PackedPolygon.of(vertices);
         }
-
-        // 첫 번째 정점을 투영하여 초기 최소/최대값 설정
-        double projection = dotProduct(vertices.get(0), axis);
-        double min = projection;
-        double max = projection;
-
-        // 나머지 정점들을 투영하여 최소/최대값 업데이트
-        for (int i = 1; i < vertices.size(); i++) {
-            projection = dotProduct(vertices.get(i), axis);
-            min = Math.min(min, projection);
-            max = Math.max(max, projection);
-        }
-
-        return new Projection(min, max);
+        return packed;
     }
 
-    // 두 점(벡터)의 내적을 계산하는 헬퍼 메서드
-    private double dotProduct(Point p1, Point p2) {
-        return p1.getX() * p2.getX() + p1.getY() * p2.getY();
-    }
-
-    // 투영된 구간을 나타내는 내부 클래스
-    private static class Projection {
-        double min;
-        double max;
-
-        Projection(double min, double max) {
-            this.min = min;
-            this.max = max;
-        }
-
-        // 두 투영 구간이 겹치는지 확인
-        boolean overlaps(Projection other) {
-            // 한 구간의 최대값이 다른 구간의 최소값보다 작거나,
-            // 다른 구간의 최대값이 이 구간의 최소값보다 작으면 겹치지 않음
-            // 그 외의 경우는 겹침
-            // 부동 소수점 오차를 고려하여 아주 작은 값(epsilon)을 더하거나 빼서 비교할 수 있습니다.
-            // 여기서는 단순 비교로 구현합니다.
-            return !(other.max < this.min || this.max < other.min);
-        }
-    }
-    // --- SAT 알고리즘 헬퍼 메서드 끝 ---
-
-
     // JSON 정보를 반환하는 메서드 구현
     @Override
     public JSONObject toJSON() {
         JSONObject json = new JSONObject();
         json.put("type", getShapeType()); // getShapeType() 메서드 사용
-        json.put("id", id); // Shape 클래스에서 상속받은 id 사용
+        json.put("id", getId()); // Shape 클래스에서 상속받은 id 사용
         // 실제 계산된 중심점과 대표 반지름 사용
         try {
             json.put("center", getCenter().toJSON());
@@ -333,10 +223,10 @@ public class IrregularPolygon extends Shape {
             // 정점이 없어 중심/반지름 계산이 불가능한 경우
             json.put("center", JSONObject.NULL); // 또는 적절한 기본값
             json.put("radius", 0.0); // 또는 적절한 기본값
-            System.err.println("Warning: Could not calculate center/radius for IrregularPolygon with ID " + id + ": " + e.getMessage());
+            System.err.println("Warning: Could not calculate center/radius for IrregularPolygon with ID " + getId() + ": " + e.getMessage());
         }
 
-        json.put("color", color); // Shape 클래스에서 상속받은 color 사용
+        json.put("color", getColor()); // Shape 클래스에서 상속받은 color 사용
 
         JSONArray verticesArray = new JSONArray();
         if (this.vertices != null) {
@@ -0,0 +1,38 @@
+package knu.lsy.shapes;
+
+/**
+ * 도형을 캔버스에 어떻게 배치할지 나타내는 값. (Layout, TargetOverlapRatio 파라미터)
+ * - random: 도형마다 중심을 독립적으로 뽑음 (기본값, 겹침은 밀도에 따라 우연히 생김)
+ * - disjoint: 이미 놓인 어떤 도형과도 겹치지 않는 위치만 받아들임 (겹침 그룹 0개)
+ * - target: 겹치는 도형(다른 도형과 하나 이상 겹치는 도형)의 비율이 targetOverlapRatio에 가까워지도록 배치
+ * disjoint와 target은 LayoutSampler의 기각 표본 추출로 배치합니다.
+ */
+public final class Layout {
+    public static final String RANDOM = "random";
+    public static final String DISJOINT = "disjoint";
+    public static final String TARGET = "target";
+
+    public static final Layout RANDOM_LAYOUT = new Layout(RANDOM, 0);
+    public static final Layout DISJOINT_LAYOUT = new Layout(DISJOINT, 0);
+
+    private final String mode;
+    private final double targetOverlapRatio;
+
+    public Layout(String mode, double targetOverlapRatio) {
+        this.mode = mode;
+        this.targetOverlapRatio = targetOverlapRatio;
+    }
+
+    public boolean isRandom() {
+        return RANDOM.equals(mode);
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    // 목표 겹침 도형 비율 (0 ~ 1, disjoint는 0)
+    public double getTargetOverlapRatio() {
+        return targetOverlapRatio;
+    }
+}
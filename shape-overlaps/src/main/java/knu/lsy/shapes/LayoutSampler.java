@@ -0,0 +1,394 @@
+package knu.lsy.shapes;
+
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Layout=disjoint / TargetOverlapRatio 배치에서 도형을 하나씩 놓는 기각 표본 추출기.
+ * 도형 종류와 크기를 먼저 정한 뒤 후보 위치를 뽑고, 이미 놓인 도형 중 격자의 인접 셀(3x3)에서 경계원이 닿는 도형만
+ * 정밀 검사(overlaps)하여 받아들일지 정합니다. 겹치지 않는 도형도 틈이 SEPARATION_MARGIN보다 좁으면 겹친 것으로 보므로,
+ * Precision=fixed로 좌표를 반올림한 뒤에도 disjoint 배치의 도형끼리는 겹치지 않습니다. 놓인 도형은 바로 격자에 추가되므로 후보 하나의 검사 비용은 주변 도형 수에만 비례합니다.
+ *
+ * 겹치지 않게 놓을 때는 먼저 캔버스 전체에서 균일하게 몇 번 뽑아 보고(캔버스가 비어 있을 때는 대부분 여기서 끝남),
+ * 실패하면 Poisson 디스크 방식(Bridson)으로 활성 도형 주변의 고리 영역에서 후보를 뽑습니다. 활성 도형 주변에서 ANNULUS_ATTEMPTS번
+ * 모두 실패하면 그 도형을 활성 목록에서 빼므로, 캔버스가 거의 찼을 때도 전체 후보 수는 도형 수에 비례합니다.
+ * 활성 목록이 비고 마지막 균일 시도도 실패하면 캔버스가 가득 찬 것으로 보고 더 놓지 않습니다. (next가 null 반환)
+ * 활성 목록에서 뺄지는 그때 놓으려던 도형 크기로 정하므로, 더 작은 도형이 들어갈 틈이 남아 있어도 포화로 판정될 수 있습니다.
+ *
+ * target 모드는 지금까지의 겹침 도형 비율이 목표보다 낮으면 이미 놓인 도형 근처에 1 ~ MAX_OVERLAP_HITS개와 겹치게 놓고,
+ * 아니면 겹치지 않게 놓습니다.
+ */
+public class LayoutSampler {
+    // 캔버스 전체에서 균일하게 뽑아 볼 후보 수 (이후 활성 도형 주변에서 뽑음)
+    private static final int UNIFORM_ATTEMPTS = 8;
+    // 활성 도형 하나 주변에서 뽑아 볼 후보 수 (Bridson 알고리즘의 k)
+    private static final int ANNULUS_ATTEMPTS = 16;
+    // 활성 도형 주변 고리 영역: 중심 거리 = 경계원 반지름 합 x [ANNULUS_MIN, ANNULUS_MIN + ANNULUS_WIDTH)
+    // (경계원이 겹치는 거리도 포함해야 다각형끼리 경계원보다 가깝게 놓일 수 있음)
+    private static final double ANNULUS_MIN = 0.5;
+    private static final double ANNULUS_WIDTH = 0.6;
+    // 활성 목록이 빈 뒤 포화로 판정하기 전에 마지막으로 균일하게 뽑아 볼 후보 수
+    private static final int FINAL_UNIFORM_ATTEMPTS = 64;
+    // 겹치게 놓을 때 시도할 후보 수와 상대 도형과의 최대 중심 거리 (경계원 반지름 합에 곱함)
+    private static final int OVERLAP_ATTEMPTS = 32;
+    private static final double OVERLAP_REACH = 0.7;
+    // 겹치게 놓을 때 한 후보가 겹쳐도 되는 최대 도형 수 (도형이 한곳에 쌓여 주변 도형 수, 즉 후보 검사 비용이 계속 커지지 않도록)
+    private static final int MAX_OVERLAP_HITS = 2;
+    // 격자 셀 수 상한 (도형 하나당 셀 4개, UniformGrid와 같음)
+    private static final int MAX_CELLS_PER_ITEM = 4;
+    // 경계원 비교의 반올림 여유 (ShapeGenerator.BOUNDS_REACH_FACTOR와 같음)
+    private static final double REACH_FACTOR = 1 + 1e-9;
+    // 겹치지 않는 것으로 볼 최소 틈 (고정소수점 반올림 단위 1/FIXED_SCALE의 4배, 정다각형 회전각의 float 반올림도 포함)
+    private static final double SEPARATION_MARGIN = 4.0 / CompactScene.FIXED_SCALE;
+
+    private final Layout layout;
+    private final Random random;
+    private final int radiusMax;
+    private final int maxEdges;
+    private final int capacity;
+    private boolean concavePolygons = false; // 일반다각형을 오목 다각형으로 생성
+    // 도형 중심이 놓일 영역 [minX, minX + spanX) x [minY, minY + spanY)
+    private final double minX;
+    private final double minY;
+    private final double spanX;
+    private final double spanY;
+
+    // 놓인 도형 격자: 셀 c의 도형은 cellHeads[c]에서 시작해 nextInCell을 따라가는 연결 목록 (-1이면 끝)
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellHeads;
+    private final int[] nextInCell;
+
+    // 놓인 도형의 생성 중심과 생성 반지름 (생성 원은 도형 전체를 포함)
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] radii;
+    private final Shape[] shapes;
+    private final boolean[] overlapping;
+    private final int[] active;
+    private int activeCount = 0;
+    private int placed = 0;
+    private int overlappingCount = 0;
+    private boolean saturated = false;
+
+    // 지금 놓으려는 도형 (종류, 생성 반지름, 변 수, 회전, 일반다각형 정점용 시드)
+    private double probability;
+    private double radius;
+    private int sides;
+    private double rotation;
+    private long vertexSeed;
+
+    // 마지막 후보 검사 결과: 후보 도형(경계원이 닿는 도형이 없으면 만들지 않음)과 겹친 도형 인덱스
+    private Shape candidate;
+    private int[] hits = new int[16];
+    private int hitCount;
+
+    private long candidates = 0;
+    private long exactTests = 0;
+
+    /**
+     * @param random 도형 크기, 종류, 위치에 사용할 난수 생성기 (시드를 고정하면 같은 배치가 재현됨)
+     * @param howMany 놓을 최대 도형 수
+     * @throws IllegalArgumentException 도형 중심이 놓일 영역이 없는 경우 (Width, Height가 2 * RadiusMax 이하)
+     */
+    public LayoutSampler(Layout layout, Random random, int width, int height, int radiusMax, int howMany, int maxEdges) {
+        if (width <= 2 * radiusMax || height <= 2 * radiusMax) {
+            throw new IllegalArgumentException("캔버스 크기는 최대 반지름의 2배보다 커야 합니다.");
+        }
+        this.layout = layout;
+        this.random = random;
+        this.radiusMax = radiusMax;
+        this.maxEdges = maxEdges;
+        this.capacity = howMany;
+        // createRandomShape와 같은 영역 규칙 (영역 내에 완전히 포함되도록 radiusMax 고려)
+        this.minX = radiusMax;
+        this.minY = radiusMax;
+        this.spanX = width - 2 * radiusMax;
+        this.spanY = height - 2 * radiusMax;
+
+        // 셀 크기: findOverlaps가 보는 최대 거리(두 최대 반지름의 합 * REACH_FACTOR + SEPARATION_MARGIN) 이상이어야
+        // 이웃 3x3 셀만 봐도 놓치는 도형이 없음, 셀 수가 너무 많아지지 않도록 필요하면 더 크게
+        double size = 2 * Math.max(radiusMax, 10) * REACH_FACTOR + SEPARATION_MARGIN;
+        long cellLimit = (long) MAX_CELLS_PER_ITEM * howMany + 16;
+        while ((long) (Math.floor(spanX / size) + 1) * (long) (Math.floor(spanY / size) + 1) > cellLimit) {
+            size *= 2;
+        }
+        this.cellSize = size;
+        this.columns = (int) Math.floor(spanX / size) + 1;
+        this.rows = (int) Math.floor(spanY / size) + 1;
+        this.cellHeads = new int[columns * rows];
+        Arrays.fill(cellHeads, -1);
+        this.nextInCell = new int[howMany];
+
+        this.xs = new double[howMany];
+        this.ys = new double[howMany];
+        this.radii = new double[howMany];
+        this.shapes = new Shape[howMany];
+        this.overlapping = new boolean[howMany];
+        this.active = new int[howMany];
+    }
+
+    // 일반다각형을 오목 다각형(ConcavePolygon)으로 생성할지 설정 (첫 next 호출 전에 설정)
+    public void setConcavePolygons(boolean concavePolygons) {
+        this.concavePolygons = concavePolygons;
+    }
+
+    /**
+     * 다음 도형을 배치 규칙에 맞는 위치에 놓고 반환합니다.
+     *
+     * @return 놓은 도형 (howMany개를 모두 놓았거나 캔버스가 가득 차서 더 놓을 수 없으면 null)
+     */
+    public Shape next() {
+        if (saturated || placed == capacity) {
+            return null;
+        }
+        drawShape();
+        Shape shape = null;
+        if (wantsOverlap()) {
+            shape = placeOverlapping();
+        }
+        if (shape == null) {
+            shape = placeDisjoint();
+        }
+        if (shape == null) {
+            saturated = true;
+        }
+        return shape;
+    }
+
+    // 도형 종류와 크기를 정함 (createRandomShapeIn과 같은 분포: 원 20%, 정다각형 25%, 일반다각형 55%)
+    private void drawShape() {
+        probability = random.nextDouble();
+        radius = 10 + random.nextDouble() * (radiusMax - 10);
+        sides = 3 + random.nextInt(maxEdges - 2);
+        rotation = random.nextDouble() * 2 * Math.PI;
+        vertexSeed = random.nextLong();
+    }
+
+    // 정한 종류와 크기의 도형을 중심 (x, y)에 만듦 (같은 도형의 후보끼리는 일반다각형 정점 모양도 같음)
+    private Shape createShape(double x, double y) {
+        Point center = new Point(x, y);
+        if (probability < 0.20) {
+            return new Circle(center, radius);
+        } else if (probability < 0.45) {
+            return new RegularPolygon(center, radius, sides, rotation);
+        } else if (concavePolygons) {
+            return ConcavePolygon.random(center, radius, sides, new Random(vertexSeed));
+        }
+        return new IrregularPolygon(center, radius, sides, new Random(vertexSeed));
+    }
+
+    // 이번 도형을 다른 도형과 겹치게 놓아야 하는지 (놓은 뒤의 겹침 도형 비율이 목표에 못 미치면)
+    private boolean wantsOverlap() {
+        return placed > 0 && overlappingCount < layout.getTargetOverlapRatio() * (placed + 1);
+    }
+
+    // 이미 놓인 도형과 하나도 겹치지 않는 위치에 놓음 (실패하면 null)
+    private Shape placeDisjoint() {
+        for (int attempt = 0; attempt < UNIFORM_ATTEMPTS; attempt++) {
+            Shape shape = tryUniform();
+            if (shape != null) {
+                return shape;
+            }
+        }
+        while (activeCount > 0) {
+            int slot = random.nextInt(activeCount);
+            int around = active[slot];
+            for (int attempt = 0; attempt < ANNULUS_ATTEMPTS; attempt++) {
+                double angle = random.nextDouble() * 2 * Math.PI;
+                double distance = (radii[around] + radius) * (ANNULUS_MIN + random.nextDouble() * ANNULUS_WIDTH);
+                double x = xs[around] + distance * Math.cos(angle);
+                double y = ys[around] + distance * Math.sin(angle);
+                if (isInside(x, y) && findOverlaps(x, y, 0) == 0) {
+                    return accept(x, y);
+                }
+            }
+            active[slot] = active[--activeCount];
+        }
+        for (int attempt = 0; attempt < FINAL_UNIFORM_ATTEMPTS; attempt++) {
+            Shape shape = tryUniform();
+            if (shape != null) {
+                return shape;
+            }
+        }
+        return null;
+    }
+
+    private Shape tryUniform() {
+        double x = minX + random.nextDouble() * spanX;
+        double y = minY + random.nextDouble() * spanY;
+        return findOverlaps(x, y, 0) == 0 ? accept(x, y) : null;
+    }
+
+    // 이미 놓인 도형 근처에서 하나 이상과 겹치는 위치에 놓음 (실패하면 null)
+    private Shape placeOverlapping() {
+        for (int attempt = 0; attempt < OVERLAP_ATTEMPTS; attempt++) {
+            int partner = random.nextInt(placed);
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double distance = (radii[partner] + radius) * OVERLAP_REACH * random.nextDouble();
+            double x = xs[partner] + distance * Math.cos(angle);
+            double y = ys[partner] + distance * Math.sin(angle);
+            if (isInside(x, y)) {
+                int overlaps = findOverlaps(x, y, MAX_OVERLAP_HITS);
+                if (overlaps > 0 && overlaps <= MAX_OVERLAP_HITS) {
+                    return accept(x, y);
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isInside(double x, double y) {
+        return x >= minX && x < minX + spanX && y >= minY && y < minY + spanY;
+    }
+
+    /**
+     * 중심 (x, y)의 후보가 겹치는 놓인 도형을 찾아 hits에 기록합니다. 인접 셀에서 생성 원이 닿는 도형만 정밀 검사하며,
+     * 후보 도형은 처음 정밀 검사가 필요할 때 만듭니다.
+     *
+     * @param maxHits 겹친 도형이 이보다 많아지면 바로 멈춤
+     * @return 겹친 도형 수 (maxHits + 1 이하)
+     */
+    private int findOverlaps(double x, double y, int maxHits) {
+        candidates++;
+        candidate = null;
+        hitCount = 0;
+        int cellX = cellX(x);
+        int cellY = cellY(y);
+        for (int gy = Math.max(cellY - 1, 0); gy <= Math.min(cellY + 1, rows - 1); gy++) {
+            for (int gx = Math.max(cellX - 1, 0); gx <= Math.min(cellX + 1, columns - 1); gx++) {
+                for (int j = cellHeads[gy * columns + gx]; j >= 0; j = nextInCell[j]) {
+                    double dx = xs[j] - x;
+                    double dy = ys[j] - y;
+                    double reach = (radii[j] + radius) * REACH_FACTOR + SEPARATION_MARGIN;
+                    if (dx * dx + dy * dy > reach * reach) {
+                        continue;
+                    }
+                    if (candidate == null) {
+                        candidate = createShape(x, y);
+                    }
+                    exactTests++;
+                    if (candidate.overlaps(shapes[j]) || !isSeparated(candidate, shapes[j])) {
+                        if (hitCount == hits.length) {
+                            hits = Arrays.copyOf(hits, 2 * hitCount);
+                        }
+                        hits[hitCount++] = j;
+                        if (hitCount > maxHits) {
+                            return hitCount;
+                        }
+                    }
+                }
+            }
+        }
+        return hitCount;
+    }
+
+    /**
+     * 겹치지 않는 두 도형 사이에 SEPARATION_MARGIN 이상의 틈이 있는지 판정합니다. 원이 있으면 원의 반지름을 틈만큼 키워 정밀 검사하고,
+     * 다각형끼리는 두 다각형의 변 법선 중 투영 구간이 틈 이상 떨어진 축이 있는지 봅니다.
+     * (변 법선만 보고 오목 다각형도 정점 전체의 투영 구간을 쓰므로, 틈이 있어도 false일 수 있는 보수적 판정)
+     */
+    static boolean isSeparated(Shape a, Shape b) {
+        if (a instanceof Circle) {
+            return !new Circle(a.getCenter(), a.getRadius() + SEPARATION_MARGIN).overlaps(b);
+        }
+        if (b instanceof Circle) {
+            return !new Circle(b.getCenter(), b.getRadius() + SEPARATION_MARGIN).overlaps(a);
+        }
+        List<Point> verticesA = a.getVertices();
+        List<Point> verticesB = b.getVertices();
+        return hasSeparatingAxis(verticesA, verticesA, verticesB) || hasSeparatingAxis(verticesB, verticesA, verticesB);
+    }
+
+    // edges 다각형의 변 법선 중 두 다각형의 투영 구간 사이가 SEPARATION_MARGIN 이상인 축이 있는지
+    private static boolean hasSeparatingAxis(List<Point> edges, List<Point> verticesA, List<Point> verticesB) {
+        int n = edges.size();
+        for (int i = 0; i < n; i++) {
+            Point from = edges.get(i);
+            Point to = edges.get((i + 1) % n);
+            double axisX = from.getY() - to.getY();
+            double axisY = to.getX() - from.getX();
+            double length = Math.hypot(axisX, axisY);
+            if (length == 0) {
+                continue;
+            }
+            double minA = Double.POSITIVE_INFINITY, maxA = Double.NEGATIVE_INFINITY;
+            for (Point vertex : verticesA) {
+                double projection = (vertex.getX() * axisX + vertex.getY() * axisY) / length;
+                minA = Math.min(minA, projection);
+                maxA = Math.max(maxA, projection);
+            }
+            double minB = Double.POSITIVE_INFINITY, maxB = Double.NEGATIVE_INFINITY;
+            for (Point vertex : verticesB) {
+                double projection = (vertex.getX() * axisX + vertex.getY() * axisY) / length;
+                minB = Math.min(minB, projection);
+                maxB = Math.max(maxB, projection);
+            }
+            if (minB - maxA >= SEPARATION_MARGIN || minA - maxB >= SEPARATION_MARGIN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 마지막으로 검사한 후보를 놓고 격자, 활성 목록, 겹침 표시를 갱신
+    private Shape accept(double x, double y) {
+        Shape shape = candidate != null ? candidate : createShape(x, y);
+        int index = placed++;
+        xs[index] = x;
+        ys[index] = y;
+        radii[index] = radius;
+        shapes[index] = shape;
+        int cell = cellY(y) * columns + cellX(x);
+        nextInCell[index] = cellHeads[cell];
+        cellHeads[cell] = index;
+        active[activeCount++] = index;
+        if (hitCount > 0) {
+            markOverlapping(index);
+            for (int h = 0; h < hitCount; h++) {
+                markOverlapping(hits[h]);
+            }
+        }
+        return shape;
+    }
+
+    private void markOverlapping(int index) {
+        if (!overlapping[index]) {
+            overlapping[index] = true;
+            overlappingCount++;
+        }
+    }
+
+    private int cellX(double x) {
+        return Math.min(Math.max((int) Math.floor((x - minX) / cellSize), 0), columns - 1);
+    }
+
+    private int cellY(double y) {
+        return Math.min(Math.max((int) Math.floor((y - minY) / cellSize), 0), rows - 1);
+    }
+
+    /**
+     * 배치 결과 보고서.
+     * requested/placed(요청한/놓은 도형 수), saturated(캔버스가 가득 차서 요청보다 적게 놓았는지),
+     * overlapRatio(놓은 도형 중 다른 도형과 겹치는 도형의 비율), candidatesPerShape(도형당 뽑은 후보 위치 수),
+     * exactTestsPerShape(도형당 정밀 검사 수)
+     */
+    public JSONObject toJSON() {
+        JSONObject json = new JSONObject()
+                .put("mode", layout.getMode())
+                .put("requested", capacity)
+                .put("placed", placed)
+                .put("saturated", saturated)
+                .put("overlapRatio", placed > 0 ? (double) overlappingCount / placed : 0)
+                .put("candidatesPerShape", placed > 0 ? (double) candidates / placed : 0)
+                .put("exactTestsPerShape", placed > 0 ? (double) exactTests / placed : 0);
+        if (Layout.TARGET.equals(layout.getMode())) {
+            json.put("targetOverlapRatio", layout.getTargetOverlapRatio());
+        }
+        return json;
+    }
+}
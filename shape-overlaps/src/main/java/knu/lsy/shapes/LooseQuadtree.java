@@ -0,0 +1,185 @@
+package knu.lsy.shapes;
+
+import java.util.Arrays;
+
+/**
+ * 경계원 크기에 맞는 깊이에 도형을 넣는 느슨한 사분 트리(loose quadtree) 광역 단계 공간 인덱스.
+ * 깊이 d 노드의 변 길이는 루트 변 길이 / 2^d이고, 도형은 지름이 노드 변 길이 이하인 가장 깊은 깊이에서 중심이 속한 노드에 들어갑니다.
+ * 따라서 작은 도형은 작은 노드에 모이고, 가장 큰 도형에 맞춘 셀을 모두가 함께 쓰는 균일 격자(UniformGrid)와 달리
+ * 반지름 편차가 커도 작은 도형끼리의 후보 쌍이 늘어나지 않습니다.
+ *
+ * 한 번에 일괄 구성(bulk build)하며, 깊이마다 노드를 조밀한 2^d x 2^d 배열로 두고 모든 깊이의 노드 목록을
+ * UniformGrid와 같은 CSR(시작 위치 배열 + 인덱스 배열) 형태로 한 배열에 담습니다.
+ * 노드 수가 과도하게 커지지 않도록 가장 깊은 깊이는 노드 수가 도형 수의 4배를 넘지 않는 깊이로 제한하며,
+ * 그보다 작은 도형은 가장 깊은 깊이에 들어갑니다.
+ *
+ * 후보 쌍: 도형 i는 루트에서 자기 깊이까지 내려가면서 각 깊이에서 자기 경계원과 그 깊이의 가장 큰 경계원 반지름만큼
+ * 넓힌 영역에 걸친 노드(축마다 최대 3개)의 도형을 방문합니다. 같은 깊이에서는 j > i인 쌍만 방문하므로
+ * 경계원이 닿는 모든 쌍이 정확히 한 번씩 방문됩니다.
+ */
+public class LooseQuadtree {
+    // 노드 수 상한 (도형 하나당 노드 4개, UniformGrid와 같은 기준)
+    private static final int MAX_NODES_PER_ITEM = 4;
+    // 좌표를 int 셀 번호로 다루기 위한 최대 깊이
+    private static final int MAX_DEPTH = 15;
+
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] radii;
+    private final double minX;
+    private final double minY;
+    private final double rootSize;
+    private final int depthCount;          // 사용하는 깊이 수 (0 ~ depthCount-1)
+    private final int[] levelStart;        // 깊이 d의 노드 번호는 levelStart[d]부터 시작
+    private final double[] levelMaxRadius; // 깊이별 가장 큰 경계원 반지름 (도형이 없으면 -1)
+    private final int[] nodeStart;         // 노드 k에 속한 인덱스는 items[nodeStart[k] .. nodeStart[k+1])
+    private final int[] items;             // 깊이, 노드 순서로 정렬한 도형 인덱스
+    private final byte[] depthOf;          // 도형별 깊이
+
+    /**
+     * 경계원 배열로 트리를 일괄 구성합니다.
+     *
+     * @param xs 경계원 중심의 x 좌표
+     * @param ys 경계원 중심의 y 좌표
+     * @param radii 경계원의 반지름
+     * @param count 사용할 원소 개수 (배열 앞쪽 count개)
+     * @param order 노드 안의 원소 순서 (0 ~ count-1의 순열, null이면 인덱스 오름차순)
+     */
+    public LooseQuadtree(double[] xs, double[] ys, double[] radii, int count, int[] order) {
+        this.xs = xs;
+        this.ys = ys;
+        this.radii = radii;
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        if (count == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.rootSize = rootSize(maxX - minX, maxY - minY);
+        this.depthCount = depthLimit(count) + 1;
+
+        this.levelStart = new int[depthCount + 1];
+        for (int d = 0; d < depthCount; d++) {
+            levelStart[d + 1] = levelStart[d] + (1 << (2 * d));
+        }
+        this.levelMaxRadius = new double[depthCount];
+        Arrays.fill(levelMaxRadius, -1);
+
+        // 계수 정렬 방식으로 CSR 구성: 1) 노드별 개수 2) 누적합 3) 배치
+        int nodeCount = levelStart[depthCount];
+        this.nodeStart = new int[nodeCount + 1];
+        this.depthOf = new byte[count];
+        int[] nodeOf = new int[count];
+        for (int i = 0; i < count; i++) {
+            int d = depthFor(radii[i], rootSize, depthCount - 1);
+            depthOf[i] = (byte) d;
+            levelMaxRadius[d] = Math.max(levelMaxRadius[d], radii[i]);
+            nodeOf[i] = levelStart[d] + cell(ys[i] - minY, d) * (1 << d) + cell(xs[i] - minX, d);
+            nodeStart[nodeOf[i] + 1]++;
+        }
+        for (int k = 0; k < nodeCount; k++) {
+            nodeStart[k + 1] += nodeStart[k];
+        }
+        this.items = new int[count];
+        int[] fill = new int[nodeCount];
+        for (int k = 0; k < count; k++) {
+            int i = order == null ? k : order[k];
+            int node = nodeOf[i];
+            items[nodeStart[node] + fill[node]++] = i;
+        }
+    }
+
+    // 루트 노드의 변 길이 (중심 분포 범위를 덮는 정사각형)
+    static double rootSize(double spanX, double spanY) {
+        return Math.max(Math.max(spanX, spanY), 1e-9) * (1 + 1e-9);
+    }
+
+    // 노드 수 상한을 넘지 않는 가장 깊은 깊이
+    static int depthLimit(int count) {
+        long limit = (long) MAX_NODES_PER_ITEM * count + 16;
+        int depth = 0;
+        long nodes = 1;
+        while (depth < MAX_DEPTH && nodes + (1L << (2 * (depth + 1))) <= limit) {
+            depth++;
+            nodes += 1L << (2 * depth);
+        }
+        return depth;
+    }
+
+    // 지름이 노드 변 길이 이하인 가장 깊은 깊이 (maxDepth 이하)
+    static int depthFor(double radius, double rootSize, int maxDepth) {
+        if (radius <= 0) {
+            return maxDepth;
+        }
+        int depth = (int) Math.floor(Math.log(rootSize / (2 * radius)) / Math.log(2));
+        return Math.max(0, Math.min(maxDepth, depth));
+    }
+
+    // 루트 원점 기준 좌표의 깊이 d 셀 번호
+    private int cell(double offset, int d) {
+        int side = 1 << d;
+        int c = (int) Math.floor(offset / rootSize * side);
+        return c < 0 ? 0 : (c >= side ? side - 1 : c);
+    }
+
+    public int getDepthCount() {
+        return depthCount;
+    }
+
+    // 깊이 d에 들어간 도형 수
+    public int getLevelSize(int d) {
+        return nodeStart[levelStart[d + 1]] - nodeStart[levelStart[d]];
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    // 모든 후보 쌍을 방문합니다.
+    public void forEachCandidatePair(UniformGrid.PairVisitor visitor) {
+        for (int position = 0; position < items.length; position++) {
+            forEachCandidatePairAt(position, visitor);
+        }
+    }
+
+    /**
+     * 깊이와 노드 순서로 정렬된 position번째 도형 i가 찾는 후보 쌍을 방문합니다.
+     * 루트에서 i의 깊이까지, 각 깊이에서 경계원이 닿을 수 있는 노드의 도형이 후보이며,
+     * position = 0 ~ size()-1에 대해 호출하면 모든 쌍을 한 번씩 방문합니다. (position을 나누어 여러 스레드에서 호출 가능)
+     */
+    public void forEachCandidatePairAt(int position, UniformGrid.PairVisitor visitor) {
+        int i = items[position];
+        int depth = depthOf[i];
+        double x = xs[i] - minX;
+        double y = ys[i] - minY;
+        for (int d = 0; d <= depth; d++) {
+            if (levelMaxRadius[d] < 0) {
+                continue;
+            }
+            double reach = radii[i] + levelMaxRadius[d];
+            int fromX = cell(x - reach, d);
+            int toX = cell(x + reach, d);
+            int fromY = cell(y - reach, d);
+            int toY = cell(y + reach, d);
+            int side = 1 << d;
+            for (int cy = fromY; cy <= toY; cy++) {
+                int rowStart = levelStart[d] + cy * side;
+                for (int b = nodeStart[rowStart + fromX]; b < nodeStart[rowStart + toX + 1]; b++) {
+                    int j = items[b];
+                    if (d < depth) {
+                        visitor.visit(Math.min(i, j), Math.max(i, j));
+                    } else if (j > i) {
+                        visitor.visit(i, j);
+                    }
+                }
+            }
+        }
+    }
+}
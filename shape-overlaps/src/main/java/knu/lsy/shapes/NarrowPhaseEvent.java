@@ -0,0 +1,97 @@
+package knu.lsy.shapes;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 그룹화 한 번에서 도형 종류 쌍(예: circle/irregularPolygon)별 정밀 검사 횟수와 누적 시간을 나타내는 JFR 이벤트.
+ * 검사마다 시간을 재야 하므로 기본으로 꺼져 있으며, Profile 세션처럼 명시적으로 켠 경우에만 기록됩니다.
+ * 켜져 있으면 BroadPhase가 PairTest를 Recorder로 감싸 종류 쌍별로 집계한 뒤 그룹화가 끝날 때 종류 쌍마다 하나씩 기록합니다.
+ */
+@Name(NarrowPhaseEvent.NAME)
+@Label("Narrow Phase")
+@Category({"Shape Overlaps"})
+@Description("도형 종류 쌍별 정밀 겹침 검사 집계")
+@Enabled(false)
+final class NarrowPhaseEvent extends Event {
+    static final String NAME = "knu.lsy.NarrowPhase";
+
+    @Label("Pair Type")
+    String pairType;
+
+    @Label("Tests")
+    long tests;
+
+    @Label("Overlaps")
+    long overlaps;
+
+    @Label("Test Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long testNanos;
+
+    // 이 이벤트가 켜진 JFR 세션이 기록 중인지
+    static boolean isRecording() {
+        return new NarrowPhaseEvent().isEnabled();
+    }
+
+    /**
+     * 정밀 검사를 종류 쌍별로 세고 시간을 재는 PairTest 래퍼. 여러 스레드에서 함께 사용할 수 있습니다.
+     */
+    static final class Recorder implements BroadPhase.PairTest {
+        private final BroadPhase.PairTest test;
+        private final Map<String, LongAdder[]> totals = new ConcurrentHashMap<>(); // {검사 수, 겹침 수, 나노초}
+
+        Recorder(BroadPhase.PairTest test) {
+            this.test = test;
+        }
+
+        @Override
+        public boolean boundsTouch(int i, int j) {
+            return test.boundsTouch(i, j);
+        }
+
+        @Override
+        public boolean overlaps(int i, int j) {
+            long start = System.nanoTime();
+            boolean overlaps = test.overlaps(i, j);
+            long elapsed = System.nanoTime() - start;
+            String a = test.shapeType(i);
+            String b = test.shapeType(j);
+            String pairType = a.compareTo(b) <= 0 ? a + "/" + b : b + "/" + a;
+            LongAdder[] total = totals.computeIfAbsent(pairType,
+                    k -> new LongAdder[]{new LongAdder(), new LongAdder(), new LongAdder()});
+            total[0].increment();
+            if (overlaps) {
+                total[1].increment();
+            }
+            total[2].add(elapsed);
+            return overlaps;
+        }
+
+        @Override
+        public String shapeType(int i) {
+            return test.shapeType(i);
+        }
+
+        // 종류 쌍마다 이벤트 하나를 기록합니다.
+        void commit() {
+            for (Map.Entry<String, LongAdder[]> entry : totals.entrySet()) {
+                NarrowPhaseEvent event = new NarrowPhaseEvent();
+                event.pairType = entry.getKey();
+                event.tests = entry.getValue()[0].sum();
+                event.overlaps = entry.getValue()[1].sum();
+                event.testNanos = entry.getValue()[2].sum();
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package knu.lsy.shapes;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ShapeStreams.groupingOverlaps 컬렉터의 결과. (JSON 없이 쓰는 일반 Java 객체)
+ * 도형은 스트림에서 만난 순서의 인덱스(0 ~ size() - 1)로 가리킵니다. 그룹은 2개 이상인 것만 첫 도형이 나타나는 순서대로
+ * 0부터 번호를 매기고, 그룹 색상은 ShapeGenerator.groupIndexes 규칙(크기 1인 집합도 번호를 차지)을 따르므로 generateShapes와 같습니다.
+ */
+public final class OverlapGroups {
+    private final int[] groupOf;
+    private final int[] memberStarts; // 그룹 g의 도형 인덱스는 members[memberStarts[g] .. memberStarts[g + 1])
+    private final int[] members;
+    private final int[] colorIndexes; // 그룹별 groupColor 번호
+    private final Map<String, Integer> typeCounts;
+
+    OverlapGroups(int[] groupOf, int[] colorIndexes, Map<String, Integer> typeCounts) {
+        int groupCount = colorIndexes.length;
+        this.groupOf = groupOf;
+        this.colorIndexes = colorIndexes;
+        this.memberStarts = new int[groupCount + 1];
+        for (int group : groupOf) {
+            if (group >= 0) {
+                memberStarts[group + 1]++;
+            }
+        }
+        for (int g = 0; g < groupCount; g++) {
+            memberStarts[g + 1] += memberStarts[g];
+        }
+        this.members = new int[memberStarts[groupCount]];
+        int[] next = Arrays.copyOf(memberStarts, groupCount);
+        for (int i = 0; i < groupOf.length; i++) {
+            if (groupOf[i] >= 0) {
+                members[next[groupOf[i]]++] = i;
+            }
+        }
+        this.typeCounts = Collections.unmodifiableMap(new TreeMap<>(typeCounts));
+    }
+
+    // 전체 도형 수
+    public int size() {
+        return groupOf.length;
+    }
+
+    // 2개 이상인 겹침 그룹 수
+    public int getGroupCount() {
+        return memberStarts.length - 1;
+    }
+
+    // 도형이 속한 그룹 번호 (겹치는 도형이 없으면 -1)
+    public int getGroup(int shape) {
+        return groupOf[shape];
+    }
+
+    public int getGroupSize(int group) {
+        return memberStarts[group + 1] - memberStarts[group];
+    }
+
+    // 그룹에 속한 도형 인덱스 (오름차순, 복사본)
+    public int[] getMembers(int group) {
+        return Arrays.copyOfRange(members, memberStarts[group], memberStarts[group + 1]);
+    }
+
+    // 그룹 색상 (generateShapes에서 같은 그룹에 지정되는 색)
+    public String getColor(int group) {
+        return ShapeGenerator.groupColor(colorIndexes[group]);
+    }
+
+    // 가장 큰 그룹의 크기 (그룹이 없으면 0)
+    public int getLargestGroupSize() {
+        int largest = 0;
+        for (int g = 0; g < getGroupCount(); g++) {
+            largest = Math.max(largest, getGroupSize(g));
+        }
+        return largest;
+    }
+
+    // 그룹에 속한 도형 수
+    public int getOverlappingShapeCount() {
+        return members.length;
+    }
+
+    // 도형 종류별 개수 (circle, regularPolygon, irregularPolygon, concavePolygon)
+    public Map<String, Integer> getTypeCounts() {
+        return typeCounts;
+    }
+}
@@ -0,0 +1,110 @@
+package knu.lsy.shapes;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SAT(분리 축 정리) 검사에 쓰는 다각형의 압축 표현.
+ * 정점 좌표와 변의 단위 법선(분리 축)을 Point 객체 대신 double 배열에 연속으로 저장하여
+ * ProjectionKernel이 한 번에 여러 축을 처리할 수 있게 합니다.
+ * 축 배열은 AXIS_PADDING의 배수 길이로 맞추고 남는 칸은 첫 번째 축을 반복해서 채웁니다.
+ * (같은 축을 다시 검사해도 결과가 바뀌지 않으므로, 벡터 커널이 나머지 처리 없이 전체 벡터 단위로 읽을 수 있음)
+ */
+final class PackedPolygon {
+    // 가장 넓은 double 벡터(512비트)의 레인 수
+    static final int AXIS_PADDING = 8;
+
+    final double[] xs;
+    final double[] ys;
+    final int vertexCount;
+    final double[] axisX;
+    final double[] axisY;
+    final int axisCount;
+
+    PackedPolygon(double[] xs, double[] ys, double[] axisX, double[] axisY, int axisCount) {
+        this.xs = xs;
+        this.ys = ys;
+        this.vertexCount = xs.length;
+        this.axisX = axisX;
+        this.axisY = axisY;
+        this.axisCount = axisCount;
+    }
+
+    // 도형의 압축 표현 (다각형은 각 도형에 캐시된 값을 사용)
+    static PackedPolygon of(Shape shape) {
+        if (shape instanceof RegularPolygon) {
+            return ((RegularPolygon) shape).getPacked();
+        }
+        if (shape instanceof IrregularPolygon) {
+            return ((IrregularPolygon) shape).getPacked();
+        }
+        return of(shape.getVertices());
+    }
+
+    /**
+     * 정점 목록으로 압축 표현을 만듭니다.
+     * 분리 축은 각 변의 법선을 단위 벡터로 정규화한 것이며, 길이가 0에 가까운 변과
+     * 방향이 같거나 반대인 중복 축은 제외합니다.
+     */
+    static PackedPolygon of(List<Point> vertices) {
+        int n = vertices.size();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = vertices.get(i).getX();
+            ys[i] = vertices.get(i).getY();
+        }
+
+        double[] axisX = new double[n];
+        double[] axisY = new double[n];
+        int axisCount = 0;
+        for (int i = 0; i < n; i++) {
+            double normalX = -(ys[(i + 1) % n] - ys[i]);
+            double normalY = xs[(i + 1) % n] - xs[i];
+            double length = Math.sqrt(normalX * normalX + normalY * normalY);
+            if (length <= 1e-9) {
+                continue;
+            }
+            normalX /= length;
+            normalY /= length;
+            if (!containsAxis(axisX, axisY, axisCount, normalX, normalY)) {
+                axisX[axisCount] = normalX;
+                axisY[axisCount] = normalY;
+                axisCount++;
+            }
+        }
+
+        // 축 배열을 실제 축 수 기준 AXIS_PADDING 배수로 줄이거나 늘리고, 남는 칸은 첫 번째 축으로 채움
+        int padded = Math.max(AXIS_PADDING, (axisCount + AXIS_PADDING - 1) / AXIS_PADDING * AXIS_PADDING);
+        axisX = Arrays.copyOf(axisX, padded);
+        axisY = Arrays.copyOf(axisY, padded);
+        for (int i = axisCount; i < padded && axisCount > 0; i++) {
+            axisX[i] = axisX[0];
+            axisY[i] = axisY[0];
+        }
+        return new PackedPolygon(xs, ys, axisX, axisY, axisCount);
+    }
+
+    // 방향이 같거나 반대인 축이 이미 있는지 확인
+    private static boolean containsAxis(double[] axisX, double[] axisY, int count, double x, double y) {
+        for (int i = 0; i < count; i++) {
+            if ((Math.abs(axisX[i] - x) < 1e-9 && Math.abs(axisY[i] - y) < 1e-9) ||
+                    (Math.abs(axisX[i] + x) < 1e-9 && Math.abs(axisY[i] + y) < 1e-9)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 두 다각형의 SAT 겹침 판정: 두 다각형의 모든 분리 축에서 투영 구간이 겹치면 true.
+     * 실제 투영 계산은 ProjectionKernels에서 선택된 커널(스칼라 또는 Vector API)이 수행합니다.
+     */
+    static boolean overlaps(PackedPolygon a, PackedPolygon b) {
+        if (a.vertexCount == 0 || b.vertexCount == 0) {
+            return false;
+        }
+        ProjectionKernel kernel = ProjectionKernels.get();
+        return kernel.overlapsOnAxes(a, a, b) && kernel.overlapsOnAxes(b, a, b);
+    }
+}
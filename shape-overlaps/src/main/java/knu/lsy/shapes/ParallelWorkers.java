@@ -0,0 +1,161 @@
+package knu.lsy.shapes;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * 광역 단계 그룹화와 장면 렌더링이 작업을 나누어 실행할 때 쓰는 공유 스레드 풀.
+ * 공용 ForkJoinPool(parallel 스트림) 대신 CPU 코어 수만큼의 스레드만 두고, 호출 스레드도 작업을 처리합니다.
+ * 보조 스레드는 ThreadBudget에서 빌린 만큼만 쓰므로, 서버는 요청 수락 게이트를 예산으로 설정하여
+ * 요청 스레드와 보조 스레드를 합친 수가 게이트 허용 개수를 넘지 않게 할 수 있습니다.
+ * (예산을 빌리지 못하면 호출 스레드 혼자 모든 작업을 처리하며, 작업 분할은 같으므로 결과도 같음)
+ * 보조 스레드가 쓴 CPU 시간은 호출 스레드별로 누적되므로(getHelperCpuNanos), 요청의 CPU 시간에 보조 스레드 몫을 더할 수 있습니다.
+ */
+public final class ParallelWorkers {
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    private static final ExecutorService EXECUTOR = newExecutor();
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    // 스레드별로 run에서 빌린 보조 스레드가 사용한 CPU 시간 누적값 (나노초)
+    private static final ThreadLocal<long[]> HELPER_CPU_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * 보조 스레드 예산.
+     */
+    public interface ThreadBudget {
+        // 보조 스레드를 최대 max개까지 기다리지 않고 빌립니다. (빌린 개수 반환, 0일 수 있음)
+        int borrow(int max);
+
+        // 빌린 보조 스레드를 반납합니다.
+        void giveBack(int count);
+    }
+
+    // 기본 예산: 스레드 풀 크기 (라이브러리로 사용할 때)
+    private static final ThreadBudget POOL_BUDGET = new ThreadBudget() {
+        private final Semaphore permits = new Semaphore(POOL_SIZE);
+
+        @Override
+        public int borrow(int max) {
+            int borrowed = 0;
+            while (borrowed < max && permits.tryAcquire()) {
+                borrowed++;
+            }
+            return borrowed;
+        }
+
+        @Override
+        public void giveBack(int count) {
+            permits.release(count);
+        }
+    };
+
+    private static volatile ThreadBudget budget = POOL_BUDGET;
+
+    private ParallelWorkers() {
+    }
+
+    private static ExecutorService newExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(POOL_SIZE, task -> {
+            Thread thread = new Thread(task, "shapes-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 보조 스레드 예산을 설정합니다. (null이면 스레드 풀 크기를 기본 예산으로 사용)
+     */
+    public static void setThreadBudget(ThreadBudget threadBudget) {
+        budget = threadBudget != null ? threadBudget : POOL_BUDGET;
+    }
+
+    /**
+     * 현재 스레드가 run에서 빌린 보조 스레드들이 지금까지 사용한 CPU 시간의 누적값(나노초)을 반환합니다.
+     * 요청 전후 값의 차이를 요청 스레드의 CPU 시간에 더하면 요청이 사용한 전체 CPU 시간이 됩니다.
+     * (보조 스레드가 다시 run을 호출했다면 그 보조 스레드들의 몫도 포함)
+     */
+    public static long getHelperCpuNanos() {
+        return HELPER_CPU_NANOS.get()[0];
+    }
+
+    /**
+     * 작업 0 ~ parts - 1을 호출 스레드와 빌린 보조 스레드가 나누어 실행하고, 모두 끝날 때까지 기다립니다.
+     * 작업 하나가 예외를 던지면 남은 작업은 시작하지 않으며, 실행 중인 작업이 끝나기를 기다린 뒤
+     * (보조 스레드를 반납한 뒤) 첫 예외를 다시 던집니다.
+     */
+    public static void run(int parts, IntConsumer task) {
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            try {
+                for (int part = next.getAndIncrement(); part < parts; part = next.getAndIncrement()) {
+                    task.accept(part);
+                }
+            } catch (RuntimeException | Error e) {
+                next.set(parts);
+                throw e;
+            }
+        };
+        AtomicLong helperCpuNanos = new AtomicLong();
+        Runnable helper = () -> {
+            long startCpuNanos = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+            long startNestedNanos = getHelperCpuNanos();
+            try {
+                worker.run();
+            } finally {
+                helperCpuNanos.addAndGet(THREAD_MX_BEAN.getCurrentThreadCpuTime() - startCpuNanos
+                        + getHelperCpuNanos() - startNestedNanos);
+            }
+        };
+        ThreadBudget threadBudget = budget;
+        int helpers = parts > 1 ? threadBudget.borrow(Math.min(parts - 1, POOL_SIZE)) : 0;
+        List<Future<?>> futures = new ArrayList<>(helpers);
+        Throwable failure = null;
+        try {
+            for (int i = 0; i < helpers; i++) {
+                futures.add(EXECUTOR.submit(helper));
+            }
+            worker.run();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        } finally {
+            // 보조 스레드가 모두 끝난 뒤에 반납해야 예산이 실제 실행 중인 스레드 수와 맞음
+            boolean interrupted = false;
+            for (Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        if (failure == null) {
+                            failure = e.getCause();
+                        }
+                        break;
+                    }
+                }
+            }
+            threadBudget.giveBack(helpers);
+            HELPER_CPU_NANOS.get()[0] += helperCpuNanos.get();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+    }
+}
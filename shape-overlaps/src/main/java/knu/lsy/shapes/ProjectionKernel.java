@@ -0,0 +1,18 @@
+package knu.lsy.shapes;
+
+/**
+ * SAT의 투영 단계(축마다 정점 내적 후 최소/최대 계산)를 수행하는 커널.
+ * 구현은 스칼라 루프(ScalarProjectionKernel)와 jdk.incubator.vector 기반(VectorProjectionKernel) 두 가지이며,
+ * ProjectionKernels가 실행 환경과 설정에 따라 하나를 선택합니다.
+ */
+interface ProjectionKernel {
+    /**
+     * axesOf 다각형의 모든 분리 축에 a와 b를 투영하여, 모든 축에서 투영 구간이 겹치는지 확인합니다.
+     *
+     * @return 분리 축이 하나도 없으면 true, 하나라도 있으면 false
+     */
+    boolean overlapsOnAxes(PackedPolygon axesOf, PackedPolygon a, PackedPolygon b);
+
+    // 커널 이름 (서버 정보 및 로그 표시용)
+    String getName();
+}
@@ -0,0 +1,85 @@
+package knu.lsy.shapes;
+
+/**
+ * SAT 투영 커널 선택기.
+ * 시스템 프로퍼티 shapes.projection.kernel(auto|vector|scalar, 기본값 auto)로 초기 모드를 정하고,
+ * 실행 중에는 setMode로 바꿀 수 있습니다.
+ * - auto: 벡터 커널이 빌드에 포함되어 있고(-PvectorKernel) jdk.incubator.vector 모듈이 로드되어 있으면(--add-modules jdk.incubator.vector)
+ *   벡터 커널, 아니면 스칼라 커널
+ * - vector: 벡터 커널 (모듈이 없으면 IllegalStateException)
+ * - scalar: 스칼라 커널
+ */
+public final class ProjectionKernels {
+    public static final String MODE_AUTO = "auto";
+    public static final String MODE_VECTOR = "vector";
+    public static final String MODE_SCALAR = "scalar";
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    // 벡터 커널은 선택 소스 세트(vectorKernel)에 있으므로 이름으로 로드
+    private static final String VECTOR_KERNEL_CLASS = "knu.lsy.shapes.VectorProjectionKernel";
+    private static final ProjectionKernel SCALAR = new ScalarProjectionKernel();
+    // 벡터 커널은 모듈과 클래스가 있을 때만 로드 (없으면 null)
+    private static final ProjectionKernel VECTOR = loadVectorKernel();
+
+    private static volatile ProjectionKernel active = SCALAR;
+
+    static {
+        try {
+            setMode(System.getProperty("shapes.projection.kernel", MODE_AUTO));
+        } catch (RuntimeException e) {
+            // 잘못된 설정값이나 사용할 수 없는 커널이면 auto 규칙을 따름
+            setMode(MODE_AUTO);
+        }
+    }
+
+    private ProjectionKernels() {
+    }
+
+    private static ProjectionKernel loadVectorKernel() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            return (ProjectionKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    static ProjectionKernel get() {
+        return active;
+    }
+
+    /**
+     * 사용할 커널을 바꿉니다. 진행 중인 겹침 검사는 다음 도형 쌍부터 새 커널을 사용합니다.
+     *
+     * @param mode auto, vector, scalar 중 하나
+     */
+    public static void setMode(String mode) {
+        switch (mode) {
+            case MODE_AUTO:
+                active = VECTOR != null ? VECTOR : SCALAR;
+                break;
+            case MODE_VECTOR:
+                if (VECTOR == null) {
+                    throw new IllegalStateException(VECTOR_MODULE + " 모듈이 로드되지 않았거나 벡터 커널이 빌드에 포함되지 않아(-PvectorKernel) 벡터 커널을 사용할 수 없습니다.");
+                }
+                active = VECTOR;
+                break;
+            case MODE_SCALAR:
+                active = SCALAR;
+                break;
+            default:
+                throw new IllegalArgumentException("지원하지 않는 투영 커널입니다: " + mode);
+        }
+    }
+
+    public static boolean isVectorAvailable() {
+        return VECTOR != null;
+    }
+
+    // 현재 사용 중인 커널 이름
+    public static String getActiveName() {
+        return active.getName();
+    }
+}
@@ -0,0 +1,37 @@
+package knu.lsy.shapes;
+
+/**
+ * 축 하나씩 정점을 투영하는 스칼라 커널. Vector API를 사용할 수 없는 환경의 기본 구현입니다.
+ */
+final class ScalarProjectionKernel implements ProjectionKernel {
+    @Override
+    public boolean overlapsOnAxes(PackedPolygon axesOf, PackedPolygon a, PackedPolygon b) {
+        for (int i = 0; i < axesOf.axisCount; i++) {
+            double axisX = axesOf.axisX[i];
+            double axisY = axesOf.axisY[i];
+
+            double minA = Double.POSITIVE_INFINITY, maxA = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < a.vertexCount; k++) {
+                double projection = a.xs[k] * axisX + a.ys[k] * axisY;
+                minA = Math.min(minA, projection);
+                maxA = Math.max(maxA, projection);
+            }
+            double minB = Double.POSITIVE_INFINITY, maxB = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < b.vertexCount; k++) {
+                double projection = b.xs[k] * axisX + b.ys[k] * axisY;
+                minB = Math.min(minB, projection);
+                maxB = Math.max(maxB, projection);
+            }
+
+            if (maxB < minA || maxA < minB) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+}
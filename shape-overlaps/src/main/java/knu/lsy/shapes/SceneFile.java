@@ -0,0 +1,219 @@
+package knu.lsy.shapes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * CompactScene을 버전이 있는 바이너리 파일로 저장하고, 파일을 메모리 매핑하여 다시 여는 클래스.
+ * 여러 서버가 공유 볼륨의 같은 파일을 읽을 수 있도록 바이트 순서는 항상 리틀 엔디언으로 고정합니다.
+ *
+ * 파일 구성 (int 단위, 리틀 엔디언)
+ * - 헤더 HEADER_INTS개: MAGIC, VERSION, FIXED_SCALE, RECORD_INTS, 도형 수, 정점 수, 예약(0) 2개
+ * - 도형 레코드: 도형 수 * RECORD_INTS (CompactScene 레코드와 같은 구성, 색상과 그룹 포함)
+ * - 정점: 정점 수 * 2 (x, y)
+ * 파싱 없이 매핑한 버퍼를 그대로 CompactScene의 버퍼로 사용하므로 객체를 만들거나 복사하지 않지만,
+ * 열 때 모든 레코드와 정점을 한 번 검증하므로 여는 비용은 파일 크기에 비례합니다.
+ * (서버는 장면 파일 버전별로 연 장면을 캐시하여 요청마다 다시 검증하지 않습니다. SceneRenderCache)
+ * 같은 형식을 바이트 배열로 주고받을 수도 있습니다. (toBytes, fromBytes)
+ */
+public final class SceneFile {
+    public static final int MAGIC = 0x53485053; // "SHPS"
+    public static final int VERSION = 1;
+    private static final int HEADER_INTS = 8;
+    private static final int HEADER_BYTES = HEADER_INTS * 4;
+
+    private SceneFile() {
+    }
+
+    /**
+     * 장면을 파일로 저장합니다. 같은 디렉터리의 임시 파일에 모두 쓴 뒤 원자적으로 이름을 바꾸므로,
+     * 다른 요청이나 서버가 이전 파일을 매핑해 읽는 중이어도 반쯤 쓰인 파일을 보지 않습니다.
+     *
+     * @return 저장한 파일 크기 (바이트)
+     */
+    public static long write(CompactScene scene, Path file) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeTo(scene, channel);
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(file);
+    }
+
+    /**
+     * 장면을 파일과 같은 형식의 바이트 배열로 변환합니다. (프로세스 간 전송용, 예: 샤드 워커의 경계 도형)
+     */
+    public static byte[] toBytes(CompactScene scene) {
+        long size = HEADER_BYTES + 4L * scene.size() * CompactScene.RECORD_INTS + 8L * scene.getTotalVertexCount();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("2GB 이상의 장면은 바이트 배열로 변환할 수 없습니다.");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) size);
+        try {
+            writeTo(scene, Channels.newChannel(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // 메모리 스트림은 IOException을 던지지 않음
+        }
+        return bytes.toByteArray();
+    }
+
+    // 헤더, 도형 레코드, 정점 순서로 기록
+    private static void writeTo(CompactScene scene, WritableByteChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(CompactScene.FIXED_SCALE).putInt(CompactScene.RECORD_INTS)
+                .putInt(scene.size()).putInt(scene.getTotalVertexCount()).putInt(0).putInt(0).flip();
+        writeFully(channel, header);
+        writeInts(channel, scene.getRecordBuffer(), scene.size() * CompactScene.RECORD_INTS);
+        writeInts(channel, scene.getVertexBuffer(), scene.getTotalVertexCount() * 2);
+    }
+
+    // IntBuffer의 앞부분 count개를 리틀 엔디언으로 기록 (64KB 단위로 나누어 씀)
+    private static void writeInts(WritableByteChannel channel, IntBuffer source, int count) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        IntBuffer chunkInts = chunk.asIntBuffer();
+        for (int offset = 0; offset < count; offset += chunkInts.capacity()) {
+            int length = Math.min(chunkInts.capacity(), count - offset);
+            chunkInts.clear();
+            chunkInts.put(0, source, offset, length);
+            chunk.clear().limit(length * 4);
+            writeFully(channel, chunk);
+        }
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * 장면 파일을 읽기 전용으로 메모리 매핑하여 엽니다.
+     * 반환된 장면의 색상과 그룹은 저장 시점의 값이며 수정할 수 없습니다. (매핑은 GC가 버퍼를 수거할 때 해제됨)
+     *
+     * @throws IOException 파일을 읽을 수 없거나, 장면 파일 형식/버전이 맞지 않거나, 크기가 헤더와 다른 경우
+     * @throws IllegalArgumentException 레코드의 종류, 정점 범위, 좌표, 반지름, 그룹 번호가 올바르지 않거나
+     *                                  오목 다각형의 정점이 ConcavePolygon.MAX_VERTICES개보다 많은 경우
+     */
+    public static CompactScene map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("장면 파일이 손상되었습니다. (헤더 없음)");
+            }
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("2GB 이상의 장면 파일은 매핑할 수 없습니다.");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            return open(mapped);
+        }
+    }
+
+    /**
+     * toBytes로 만든 바이트 배열을 장면으로 엽니다. (배열을 복사하지 않고 그대로 사용하는 힙 장면)
+     *
+     * @throws IOException 장면 형식/버전이 맞지 않거나 크기가 헤더와 다른 경우
+     * @throws IllegalArgumentException 레코드의 종류, 정점 범위, 좌표, 반지름, 그룹 번호가 올바르지 않거나
+     *                                  오목 다각형의 정점이 ConcavePolygon.MAX_VERTICES개보다 많은 경우
+     */
+    public static CompactScene fromBytes(byte[] bytes) throws IOException {
+        if (bytes.length < HEADER_BYTES) {
+            throw new IOException("장면 데이터가 손상되었습니다. (헤더 없음)");
+        }
+        return open(ByteBuffer.wrap(bytes));
+    }
+
+    // 헤더를 검증하고 레코드/정점 영역을 리틀 엔디언 int 뷰로 잘라 장면을 만듭니다.
+    private static CompactScene open(ByteBuffer data) throws IOException {
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        long fileSize = data.capacity();
+        int magic = data.getInt(0);
+        int version = data.getInt(4);
+        if (magic != MAGIC) {
+            throw new IOException("장면 파일 형식이 아닙니다.");
+        }
+        if (version != VERSION || data.getInt(8) != CompactScene.FIXED_SCALE
+                || data.getInt(12) != CompactScene.RECORD_INTS) {
+            throw new IOException("지원하지 않는 장면 파일 버전입니다: " + version);
+        }
+        int shapeCount = data.getInt(16);
+        int vertexCount = data.getInt(20);
+        long recordBytes = 4L * shapeCount * CompactScene.RECORD_INTS;
+        long vertexBytes = 8L * vertexCount;
+        if (shapeCount < 0 || vertexCount < 0 || fileSize != HEADER_BYTES + recordBytes + vertexBytes) {
+            throw new IOException("장면 파일이 손상되었습니다. (크기 불일치)");
+        }
+
+        IntBuffer records = data.slice(HEADER_BYTES, (int) recordBytes)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        IntBuffer vertices = data.slice(HEADER_BYTES + (int) recordBytes, (int) vertexBytes)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        validate(records, vertices, shapeCount, vertexCount);
+        return CompactScene.wrap(records, vertices, shapeCount, vertexCount);
+    }
+
+    /**
+     * 외부에서 받은 장면 파일의 레코드와 정점이 CompactScene의 전제를 지키는지 확인합니다.
+     * (잘못된 값으로 버퍼 밖을 읽거나, 정수 판정이 long 범위를 넘거나, 그룹 번호 크기의 배열을 만들지 않도록)
+     * - 종류: TYPE_CIRCLE ~ TYPE_CONCAVE_POLYGON
+     * - 정점 범위: 원은 정점 0개, 다각형은 3개 이상(오목 다각형은 ConcavePolygon.MAX_VERTICES개 이하)이며 정점 영역 안
+     * - 좌표: 중심과 모든 정점이 0 ~ MAX_CANVAS_SIZE (SceneJsonReader와 같은 범위)
+     * - 반지름: 원은 0 ~ MAX_CANVAS_SIZE, 다각형은 캔버스 대각선 길이를 넘지 않도록 0 ~ 2 * MAX_CANVAS_SIZE
+     * - 그룹 번호: -1 ~ 도형 수 - 1
+     */
+    private static void validate(IntBuffer records, IntBuffer vertices, int shapeCount, int vertexCount) {
+        int maxCoordinate = CompactScene.MAX_CANVAS_SIZE * CompactScene.FIXED_SCALE;
+        for (int k = 0; k < 2 * vertexCount; k++) {
+            int value = vertices.get(k);
+            if (value < 0 || value > maxCoordinate) {
+                throw new IllegalArgumentException("장면 파일이 손상되었습니다. (정점 " + k / 2 + "의 좌표가 범위를 벗어남)");
+            }
+        }
+        for (int i = 0; i < shapeCount; i++) {
+            int record = i * CompactScene.RECORD_INTS;
+            int type = records.get(record + CompactScene.TYPE);
+            int start = records.get(record + CompactScene.VERTEX_START);
+            int count = records.get(record + CompactScene.VERTEX_COUNT);
+            int centerX = records.get(record + CompactScene.CENTER_X);
+            int centerY = records.get(record + CompactScene.CENTER_Y);
+            int radius = records.get(record + CompactScene.RADIUS);
+            int group = records.get(record + CompactScene.GROUP);
+            if (type < CompactScene.TYPE_CIRCLE || type > CompactScene.TYPE_CONCAVE_POLYGON) {
+                throw new IllegalArgumentException("장면 파일이 손상되었습니다. (도형 " + i + "의 종류: " + type + ")");
+            }
+            boolean circle = type == CompactScene.TYPE_CIRCLE;
+            if (start < 0 || count < 0 || (long) start + count > vertexCount || (circle ? count != 0 : count < 3)) {
+                throw new IllegalArgumentException("장면 파일이 손상되었습니다. (도형 " + i + "의 정점 범위)");
+            }
+            if (type == CompactScene.TYPE_CONCAVE_POLYGON && count > ConcavePolygon.MAX_VERTICES) {
+                // 오목 다각형은 처음 겹침을 판정할 때 정점 수의 제곱에 비례하는 볼록 분해를 하므로 SceneJsonReader와 같은 정점 수 제한
+                throw new IllegalArgumentException("장면 파일의 오목 다각형 정점은 " + ConcavePolygon.MAX_VERTICES
+                        + "개 이하여야 합니다. (도형 " + i + ")");
+            }
+            if (centerX < 0 || centerX > maxCoordinate || centerY < 0 || centerY > maxCoordinate) {
+                throw new IllegalArgumentException("장면 파일이 손상되었습니다. (도형 " + i + "의 중심이 범위를 벗어남)");
+            }
+            if (radius < 0 || radius > (circle ? maxCoordinate : 2 * maxCoordinate)) {
+                throw new IllegalArgumentException("장면 파일이 손상되었습니다. (도형 " + i + "의 반지름이 범위를 벗어남)");
+            }
+            if (group < -1 || group >= shapeCount) {
+                throw new IllegalArgumentException("장면 파일이 손상되었습니다. (도형 " + i + "의 그룹 번호: " + group + ")");
+            }
+        }
+    }
+}
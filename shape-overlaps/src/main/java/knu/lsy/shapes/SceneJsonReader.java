@@ -0,0 +1,325 @@
+package knu.lsy.shapes;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * 클라이언트가 보낸 장면 JSON을 스트리밍 방식으로 읽어 바로 고정소수점 압축 장면(CompactScene)에 기록하는 파서.
+ * JSON 트리(org.json)나 Shape 객체를 만들지 않으므로, 본문 크기와 관계없이 파서 버퍼와 압축 장면, ID 표만 메모리에 남습니다.
+ *
+ * 형식: generateShapes 응답과 같은 {"shapes": [도형, ...], ...} 또는 도형 배열 [도형, ...].
+ * 도형은 Shape.toJSON 형식이며 다음 필드를 사용합니다. (다른 필드는 무시)
+ * - type: circle, regularPolygon, irregularPolygon, concavePolygon
+ * - id (선택), color (선택, "#RRGGBB")
+ * - circle: center {x, y}, radius
+ * - 다각형: vertices [{x, y}, ...] (3개 이상, concavePolygon은 ConcavePolygon.MAX_VERTICES개 이하),
+ *   center (선택, 없으면 정점 평균), rotationAngle (선택)
+ *   regularPolygon/irregularPolygon은 고정소수점 좌표에서 정확한 방향 판정으로 볼록성을 확인하며,
+ *   볼록하지 않으면 (반올림으로 거의 일직선인 정점이 안쪽으로 밀린 경우 포함) 오목 다각형으로 저장합니다.
+ * 좌표는 0 ~ CompactScene.MAX_CANVAS_SIZE 범위여야 합니다.
+ */
+public final class SceneJsonReader {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    // 마감 시간을 확인할 도형 간격
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    private final CompactScene.Builder builder;
+    private final ShapeIdTable ids = new ShapeIdTable();
+    private final ShapeGenerator generator;
+    private int[] vertexBuffer = new int[64]; // 다각형 하나의 정점 좌표 (재사용)
+
+    // 도형 하나를 읽는 동안 모으는 필드
+    private String type;
+    private String id;
+    private int color;
+    private double centerX;
+    private double centerY;
+    private boolean hasCenter;
+    private double radius;
+    private double rotationAngle;
+    private int vertexCount;
+    // readPoint가 읽은 좌표
+    private double pointX;
+    private double pointY;
+
+    /**
+     * @param generator 마감 시간 확인용
+     * @param offHeap true이면 압축 장면을 오프힙에 기록
+     */
+    public SceneJsonReader(ShapeGenerator generator, boolean offHeap) {
+        this.generator = generator;
+        this.builder = new CompactScene.Builder(1024, 8 * 1024, offHeap);
+    }
+
+    /**
+     * 본문을 끝까지 읽어 압축 장면을 만듭니다. 반환된 장면은 호출자가 close해야 합니다.
+     *
+     * @throws IllegalArgumentException 형식이 올바르지 않은 경우
+     */
+    public CompactScene read(InputStream in) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                boolean found = false;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if (field.equals("shapes") && value == JsonToken.START_ARRAY) {
+                        readShapes(parser);
+                        found = true;
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (!found) {
+                    throw new IllegalArgumentException("shapes 배열이 없습니다.");
+                }
+            } else if (token == JsonToken.START_ARRAY) {
+                readShapes(parser);
+            } else {
+                throw new IllegalArgumentException("본문은 {\"shapes\": [...]} 또는 도형 배열이어야 합니다.");
+            }
+        } catch (RuntimeException | IOException e) {
+            builder.release(); // 중단되면 오프힙 버퍼를 바로 반납
+            throw e;
+        }
+        return builder.build();
+    }
+
+    // 읽은 도형의 ID 표 (read 이후 사용)
+    public ShapeIdTable getIds() {
+        return ids;
+    }
+
+    private void readShapes(JsonParser parser) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException(position(parser) + "도형은 JSON 객체여야 합니다.");
+            }
+            if (builder.size() % DEADLINE_CHECK_INTERVAL == 0) {
+                generator.checkDeadline("parse");
+            }
+            readShape(parser);
+        }
+    }
+
+    private void readShape(JsonParser parser) throws IOException {
+        type = null;
+        id = null;
+        color = 0x808080;
+        hasCenter = false;
+        radius = -1;
+        rotationAngle = 0;
+        vertexCount = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "type":
+                    type = parser.getText();
+                    break;
+                case "id":
+                    id = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                    break;
+                case "color":
+                    color = parseColor(parser);
+                    break;
+                case "center":
+                    if (value == JsonToken.START_OBJECT) {
+                        readPoint(parser);
+                        centerX = pointX;
+                        centerY = pointY;
+                        hasCenter = true;
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case "radius":
+                    radius = number(parser, value);
+                    break;
+                case "rotationAngle":
+                    rotationAngle = number(parser, value);
+                    break;
+                case "vertices":
+                    readVertices(parser, value);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if ("circle".equals(type)) {
+            if (!hasCenter || radius < 0 || radius > CompactScene.MAX_CANVAS_SIZE) {
+                throw new IllegalArgumentException(position(parser) + "원에는 center와 0 이상의 radius가 필요합니다.");
+            }
+            builder.addCircle(fixed(parser, centerX), fixed(parser, centerY), CompactScene.toFixed(radius), color);
+        } else if ("regularPolygon".equals(type) || "irregularPolygon".equals(type) || "concavePolygon".equals(type)) {
+            if (vertexCount < 3) {
+                throw new IllegalArgumentException(position(parser) + "다각형에는 3개 이상의 vertices가 필요합니다.");
+            }
+            // 볼록 다각형 판정(SAT)은 볼록성을 전제로 하므로, 볼록하지 않으면 오목 다각형으로 저장
+            boolean concave = "concavePolygon".equals(type) || !isConvex(vertexBuffer, vertexCount);
+            if (concave && vertexCount > ConcavePolygon.MAX_VERTICES) {
+                throw new IllegalArgumentException(position(parser) + ("concavePolygon".equals(type) ? "concavePolygon" : "볼록하지 않은 다각형")
+                        + "의 vertices는 " + ConcavePolygon.MAX_VERTICES + "개 이하여야 합니다.");
+            }
+            int cx;
+            int cy;
+            if (hasCenter) {
+                cx = fixed(parser, centerX);
+                cy = fixed(parser, centerY);
+            } else {
+                long sumX = 0;
+                long sumY = 0;
+                for (int k = 0; k < vertexCount; k++) {
+                    sumX += vertexBuffer[2 * k];
+                    sumY += vertexBuffer[2 * k + 1];
+                }
+                cx = (int) (sumX / vertexCount);
+                cy = (int) (sumY / vertexCount);
+            }
+            int polygonType = concave ? CompactScene.TYPE_CONCAVE_POLYGON
+                    : "regularPolygon".equals(type) ? CompactScene.TYPE_REGULAR_POLYGON : CompactScene.TYPE_IRREGULAR_POLYGON;
+            builder.addPolygon(polygonType, cx, cy, vertexBuffer, vertexCount, (float) rotationAngle, color);
+        } else {
+            throw new IllegalArgumentException(position(parser) + "지원하지 않는 도형 type입니다: " + type);
+        }
+        ids.add(id);
+    }
+
+    /**
+     * 고정소수점 정점 (x, y 교대)이 볼록 다각형인지 정수 외적으로 정확히 판정합니다.
+     * - 이웃한 두 변의 외적 부호가 모두 같거나 0 (일직선, 겹친 정점은 허용)
+     * - 변 방향의 x, y 부호가 한 바퀴 동안 각각 두 번 이하로 바뀜 (별 모양처럼 두 바퀴 이상 도는 다각형 제외)
+     * 좌표는 0 ~ 2^29이므로 좌표 차이의 곱은 long 범위를 넘지 않습니다.
+     */
+    static boolean isConvex(int[] xy, int count) {
+        int turn = 0;
+        int xFlips = 0;
+        int yFlips = 0;
+        int lastDx = 0;
+        int lastDy = 0;
+        long prevDx = 0;
+        long prevDy = 0;
+        boolean hasPrev = false;
+        // 첫 변을 끝에서 다시 보기 위해 count + 1개의 변을 순회
+        for (int k = 0; k <= count; k++) {
+            int from = k % count;
+            int to = (k + 1) % count;
+            long dx = (long) xy[2 * to] - xy[2 * from];
+            long dy = (long) xy[2 * to + 1] - xy[2 * from + 1];
+            if (dx == 0 && dy == 0) {
+                continue; // 겹친 정점
+            }
+            if (hasPrev) {
+                int sign = Long.signum(prevDx * dy - prevDy * dx);
+                if (sign != 0) {
+                    if (turn != 0 && sign != turn) {
+                        return false;
+                    }
+                    turn = sign;
+                }
+            }
+            if (k < count) {
+                int sx = Long.signum(dx);
+                int sy = Long.signum(dy);
+                if (sx != 0) {
+                    if (lastDx != 0 && sx != lastDx) {
+                        xFlips++;
+                    }
+                    lastDx = sx;
+                }
+                if (sy != 0) {
+                    if (lastDy != 0 && sy != lastDy) {
+                        yFlips++;
+                    }
+                    lastDy = sy;
+                }
+            }
+            prevDx = dx;
+            prevDy = dy;
+            hasPrev = true;
+        }
+        return xFlips <= 2 && yFlips <= 2;
+    }
+
+    private void readVertices(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException(position(parser) + "정점은 {x, y} 객체여야 합니다.");
+            }
+            readPoint(parser);
+            if (2 * vertexCount + 2 > vertexBuffer.length) {
+                vertexBuffer = Arrays.copyOf(vertexBuffer, vertexBuffer.length * 2);
+            }
+            vertexBuffer[2 * vertexCount] = fixed(parser, pointX);
+            vertexBuffer[2 * vertexCount + 1] = fixed(parser, pointY);
+            vertexCount++;
+        }
+    }
+
+    private void readPoint(JsonParser parser) throws IOException {
+        boolean hasX = false;
+        boolean hasY = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals("x")) {
+                pointX = number(parser, value);
+                hasX = true;
+            } else if (field.equals("y")) {
+                pointY = number(parser, value);
+                hasY = true;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (!hasX || !hasY) {
+            throw new IllegalArgumentException(position(parser) + "좌표에는 x와 y가 필요합니다.");
+        }
+    }
+
+    private static double number(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.VALUE_NUMBER_INT && value != JsonToken.VALUE_NUMBER_FLOAT) {
+            throw new IllegalArgumentException(position(parser) + parser.getCurrentName() + "는 숫자여야 합니다.");
+        }
+        return parser.getDoubleValue();
+    }
+
+    // 캔버스 범위를 확인하고 고정소수점으로 변환
+    private static int fixed(JsonParser parser, double value) {
+        if (!(value >= 0 && value <= CompactScene.MAX_CANVAS_SIZE)) {
+            throw new IllegalArgumentException(position(parser) + "좌표는 0 ~ " + CompactScene.MAX_CANVAS_SIZE
+                    + " 범위여야 합니다: " + value);
+        }
+        return CompactScene.toFixed(value);
+    }
+
+    private static int parseColor(JsonParser parser) throws IOException {
+        String text = parser.getText();
+        if (text != null && text.length() == 7 && text.charAt(0) == '#') {
+            try {
+                return Integer.parseInt(text.substring(1), 16);
+            } catch (NumberFormatException e) {
+                // 아래에서 예외 처리
+            }
+        }
+        throw new IllegalArgumentException(position(parser) + "color는 #RRGGBB 형식이어야 합니다.");
+    }
+
+    // 오류 메시지 앞에 붙일 본문 위치
+    private static String position(JsonParser parser) {
+        return "(" + parser.getCurrentLocation().getLineNr() + "행 " + parser.getCurrentLocation().getColumnNr() + "열) ";
+    }
+}
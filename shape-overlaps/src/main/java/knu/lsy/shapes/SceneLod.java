@@ -0,0 +1,523 @@
+package knu.lsy.shapes;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * 그룹 번호가 기록된 압축 장면에서 한 번 계산해 두는 단순화 형태(LOD, level of detail). (Detail=coarse)
+ * - 다각형별 단순화 정점: 정점 수가 LEVEL_VERTICES[level]보다 많은 다각형을, 이웃 두 정점과 이루는 삼각형 넓이가 가장 작은 정점부터
+ *   제거하는 방식(Visvalingam-Whyatt)으로 LEVEL_VERTICES[level]개까지 줄인 정점
+ * - 겹침 그룹별 합친 껍질: 구성 도형의 정점(원은 외접 팔각형)을 모두 덮는 볼록 껍질을, 변 하나를 양옆 변의 연장선이 만나는 점으로
+ *   바꾸는 방식(바깥쪽 단순화)으로 HULL_VERTICES개까지 줄인 다각형. 정점을 빼는 단순화와 달리 원래 껍질을 항상 덮습니다.
+ *
+ * 출력할 때는 화면 배율에서의 경계원 반지름(픽셀)으로 형태를 고르고 픽셀보다 작게 보이는 도형은 생략하므로, 응답 크기와 직렬화 시간이 도형의 원래 정점 수가 아니라 줌에 따라 정해집니다.
+ * 정점은 CSR(시작 위치 배열 + 좌표 배열) 형태로 보관하며, 만든 뒤에는 읽기 전용이므로 여러 요청에서 함께 사용할 수 있습니다.
+ */
+public class SceneLod {
+    // 단순화 단계별 최대 정점 수
+    static final int[] LEVEL_VERTICES = {6, 12};
+    // 경계원 반지름이 이보다 작게 보이는 도형(과 합친 껍질)은 출력하지 않음 (픽셀)
+    static final double MIN_VISIBLE_PIXELS = 0.5;
+    // 단계를 고르는 경계원 반지름 기준 (픽셀): CIRCLE_PIXELS 미만은 중심+반지름, LEVEL_PIXELS[level] 미만은 그 단계, 그 이상은 원래 정점
+    static final double CIRCLE_PIXELS = 4;
+    static final double[] LEVEL_PIXELS = {16, 64};
+    // 합친 껍질의 최대 정점 수
+    static final int HULL_VERTICES = 16;
+    // 원을 껍질에 넣을 때 사용하는 외접 정다각형의 꼭짓점 수
+    private static final int CIRCLE_HULL_POINTS = 8;
+
+    private final CompactScene scene;
+    private final int[][] levelStart; // 단계별로 도형 i의 단순화 좌표는 levelXY[level][2*levelStart[level][i] ..] (개수가 0이면 원래 정점 사용)
+    private final int[][] levelXY;
+    private final int groupCount;
+    private final int[] groupSizes;
+    private final int[] hullStart;    // 그룹 g의 껍질 좌표는 hullXY[2*hullStart[g] .. 2*hullStart[g+1])
+    private final int[] hullXY;
+    private final int[] hullCenter;   // {x, y} 쌍 (고정소수점)
+    private final int[] hullRadius;
+
+    public SceneLod(CompactScene scene) {
+        this.scene = scene;
+        int n = scene.size();
+        ShapesPhaseEvent lodEvent = ShapesPhaseEvent.begin("lod", n);
+        int[] xs = new int[0];
+        int[] ys = new int[0];
+
+        // 도형마다 정점 제거 순서를 한 번 계산하고, 단계별로 남는 정점만 모음
+        int levels = LEVEL_VERTICES.length;
+        this.levelStart = new int[levels][n + 1];
+        this.levelXY = new int[levels][];
+        int[][] levelBuffer = new int[levels][64];
+        int[] levelUsed = new int[levels];
+        for (int i = 0; i < n; i++) {
+            for (int level = 0; level < levels; level++) {
+                levelStart[level][i] = levelUsed[level];
+            }
+            int count = scene.getType(i) == CompactScene.TYPE_CIRCLE ? 0 : scene.getVertexCount(i);
+            if (count <= LEVEL_VERTICES[0]) {
+                continue;
+            }
+            if (xs.length < count) {
+                xs = new int[count];
+                ys = new int[count];
+            }
+            for (int k = 0; k < count; k++) {
+                xs[k] = scene.getVertexX(i, k);
+                ys[k] = scene.getVertexY(i, k);
+            }
+            int[] removedAt = removalOrder(xs, ys, count, LEVEL_VERTICES[0]);
+            for (int level = 0; level < levels; level++) {
+                int limit = LEVEL_VERTICES[level];
+                if (count <= limit) {
+                    continue;
+                }
+                int used = levelUsed[level];
+                if (levelBuffer[level].length < 2 * (used + limit)) {
+                    levelBuffer[level] = Arrays.copyOf(levelBuffer[level],
+                            Math.max(levelBuffer[level].length * 2, 2 * (used + limit)));
+                }
+                for (int k = 0; k < count; k++) {
+                    if (removedAt[k] >= count - limit) { // limit개가 남을 때까지 제거되지 않은 정점
+                        levelBuffer[level][2 * used] = xs[k];
+                        levelBuffer[level][2 * used + 1] = ys[k];
+                        used++;
+                    }
+                }
+                levelUsed[level] = used;
+            }
+        }
+        for (int level = 0; level < levels; level++) {
+            levelStart[level][n] = levelUsed[level];
+            levelXY[level] = Arrays.copyOf(levelBuffer[level], 2 * levelUsed[level]);
+        }
+
+        // 그룹별 구성 도형의 점을 모아 볼록 껍질 계산
+        int groupCount = 0;
+        for (int i = 0; i < n; i++) {
+            groupCount = Math.max(groupCount, scene.getGroup(i) + 1);
+        }
+        this.groupCount = groupCount;
+        this.groupSizes = new int[groupCount];
+        int[] pointStart = new int[groupCount + 1];
+        for (int i = 0; i < n; i++) {
+            int group = scene.getGroup(i);
+            if (group >= 0) {
+                groupSizes[group]++;
+                pointStart[group + 1] += scene.getType(i) == CompactScene.TYPE_CIRCLE
+                        ? CIRCLE_HULL_POINTS : scene.getVertexCount(i);
+            }
+        }
+        for (int g = 0; g < groupCount; g++) {
+            pointStart[g + 1] += pointStart[g];
+        }
+        long[] points = new long[pointStart[groupCount]]; // x(상위 32비트), y(하위 32비트)로 묶은 점
+        int[] fill = new int[groupCount];
+        double circleScale = 1 / Math.cos(Math.PI / CIRCLE_HULL_POINTS); // 외접 정다각형 (반올림해도 원을 덮도록 반지름 + 1)
+        for (int i = 0; i < n; i++) {
+            int group = scene.getGroup(i);
+            if (group < 0) {
+                continue;
+            }
+            int base = pointStart[group];
+            if (scene.getType(i) == CompactScene.TYPE_CIRCLE) {
+                double r = (scene.getRadius(i) + 1) * circleScale;
+                for (int k = 0; k < CIRCLE_HULL_POINTS; k++) {
+                    double angle = 2 * Math.PI * k / CIRCLE_HULL_POINTS;
+                    int x = (int) Math.round(scene.getCenterX(i) + r * Math.cos(angle));
+                    int y = (int) Math.round(scene.getCenterY(i) + r * Math.sin(angle));
+                    points[base + fill[group]++] = pack(x, y);
+                }
+            } else {
+                for (int k = 0; k < scene.getVertexCount(i); k++) {
+                    points[base + fill[group]++] = pack(scene.getVertexX(i, k), scene.getVertexY(i, k));
+                }
+            }
+        }
+
+        this.hullStart = new int[groupCount + 1];
+        this.hullCenter = new int[2 * groupCount];
+        this.hullRadius = new int[groupCount];
+        int[] hullXY = new int[64];
+        int used = 0;
+        for (int g = 0; g < groupCount; g++) {
+            hullStart[g] = used;
+            if (groupSizes[g] == 0) {
+                continue; // 크기 1인 집합의 번호
+            }
+            // 아래 사슬과 위 사슬을 이어 붙이는 동안 점 수의 2배까지 사용
+            xs = ensure(xs, 2 * (pointStart[g + 1] - pointStart[g]));
+            ys = ensure(ys, 2 * (pointStart[g + 1] - pointStart[g]));
+            int hullCount = enclose(xs, ys, convexHull(points, pointStart[g], pointStart[g + 1], xs, ys), HULL_VERTICES);
+            if (hullXY.length < 2 * (used + hullCount)) {
+                hullXY = Arrays.copyOf(hullXY, Math.max(hullXY.length * 2, 2 * (used + hullCount)));
+            }
+            long sumX = 0;
+            long sumY = 0;
+            for (int k = 0; k < hullCount; k++) {
+                hullXY[2 * used] = xs[k];
+                hullXY[2 * used + 1] = ys[k];
+                sumX += xs[k];
+                sumY += ys[k];
+                used++;
+            }
+            int cx = (int) (sumX / hullCount);
+            int cy = (int) (sumY / hullCount);
+            long maxSquared = 0;
+            for (int k = 0; k < hullCount; k++) {
+                long dx = xs[k] - cx;
+                long dy = ys[k] - cy;
+                maxSquared = Math.max(maxSquared, dx * dx + dy * dy);
+            }
+            hullCenter[2 * g] = cx;
+            hullCenter[2 * g + 1] = cy;
+            hullRadius[g] = (int) Math.ceil(Math.sqrt((double) maxSquared));
+        }
+        hullStart[groupCount] = used;
+        this.hullXY = Arrays.copyOf(hullXY, 2 * used);
+        lodEvent.commit();
+    }
+
+    public CompactScene getScene() {
+        return scene;
+    }
+
+    public int getGroupCount() {
+        return groupCount;
+    }
+
+    // 그룹 g의 구성 도형 수 (크기 1인 집합의 번호이면 0)
+    public int getGroupSize(int group) {
+        return groupSizes[group];
+    }
+
+    // 단순화 형태가 차지하는 메모리 (바이트)
+    public long getStorageBytes() {
+        long bytes = 4L * (hullStart.length + hullXY.length + hullCenter.length + hullRadius.length + groupSizes.length);
+        for (int level = 0; level < LEVEL_VERTICES.length; level++) {
+            bytes += 4L * (levelStart[level].length + levelXY[level].length);
+        }
+        return bytes;
+    }
+
+    /**
+     * 도형 하나를 배율 scale에서 보이는 크기에 맞는 형태의 JSON으로 변환합니다. (CompactScene.toJSON과 같은 형식)
+     * 좌표는 화면에서 0.1픽셀보다 작은 자릿수를 버리고, 원래 형태가 아니면 "detail"을 붙입니다.
+     * - detail=circle: type을 circle로 바꾸고 중심과 경계원 반지름만 (원래 종류는 sourceType)
+     * - detail=simplified: 단순화한 vertices (정다각형의 sides, rotationAngle은 생략)
+     */
+    public JSONObject toJSON(int shape, double scale) {
+        Rounding rounding = new Rounding(scale);
+        int type = scene.getType(shape);
+        double radiusPixels = CompactScene.toDouble(scene.getRadius(shape)) * scale;
+        String color = String.format("#%06x", scene.getColor(shape));
+        if (type != CompactScene.TYPE_CIRCLE && radiusPixels < CIRCLE_PIXELS) {
+            return circleJSON(scene.getId(shape), scene.getCenterX(shape), scene.getCenterY(shape), scene.getRadius(shape),
+                    color, rounding).put("sourceType", scene.getShapeType(shape));
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("type", scene.getShapeType(shape));
+        json.put("id", scene.getId(shape));
+        json.put("center", rounding.point(scene.getCenterX(shape), scene.getCenterY(shape)));
+        json.put("radius", rounding.round(scene.getRadius(shape)));
+        json.put("color", color);
+        if (type == CompactScene.TYPE_CIRCLE) {
+            return json;
+        }
+        for (int level = 0; level < LEVEL_VERTICES.length; level++) {
+            int from = levelStart[level][shape];
+            int to = levelStart[level][shape + 1];
+            if (radiusPixels < LEVEL_PIXELS[level] && to > from) {
+                json.put("vertices", rounding.vertices(levelXY[level], from, to));
+                json.put("detail", "simplified");
+                return json;
+            }
+        }
+        if (type == CompactScene.TYPE_REGULAR_POLYGON) {
+            json.put("sides", scene.getVertexCount(shape));
+            json.put("rotationAngle", (double) scene.getRotationAngle(shape));
+        }
+        JSONArray verticesArray = new JSONArray();
+        for (int k = 0; k < scene.getVertexCount(shape); k++) {
+            verticesArray.put(rounding.point(scene.getVertexX(shape, k), scene.getVertexY(shape, k)));
+        }
+        json.put("vertices", verticesArray);
+        return json;
+    }
+
+    /**
+     * 겹침 그룹 하나를 합친 볼록 껍질 도형의 JSON으로 변환합니다. (MergeGroups=true)
+     * type은 irregularPolygon(작게 보이면 circle), id는 "group_<번호>"이며 groupHull, size(구성 도형 수)를 함께 출력합니다.
+     */
+    public JSONObject hullJSON(int group, double scale) {
+        Rounding rounding = new Rounding(scale);
+        String id = "group_" + group;
+        String color = ShapeGenerator.groupColor(group);
+        JSONObject json;
+        if (CompactScene.toDouble(hullRadius[group]) * scale < CIRCLE_PIXELS) {
+            json = circleJSON(id, hullCenter[2 * group], hullCenter[2 * group + 1], hullRadius[group], color, rounding);
+        } else {
+            json = new JSONObject();
+            json.put("type", "irregularPolygon");
+            json.put("id", id);
+            json.put("center", rounding.point(hullCenter[2 * group], hullCenter[2 * group + 1]));
+            json.put("radius", rounding.round(hullRadius[group]));
+            json.put("color", color);
+            json.put("vertices", rounding.vertices(hullXY, hullStart[group], hullStart[group + 1]));
+            json.put("detail", "hull");
+        }
+        json.put("groupHull", true);
+        json.put("size", groupSizes[group]);
+        return json;
+    }
+
+    // 배율 scale에서 도형이 출력할 만큼 크게 보이는지 (경계원 반지름 MIN_VISIBLE_PIXELS 이상)
+    public boolean isVisible(int shape, double scale) {
+        return CompactScene.toDouble(scene.getRadius(shape)) * scale >= MIN_VISIBLE_PIXELS;
+    }
+
+    public boolean isHullVisible(int group, double scale) {
+        return CompactScene.toDouble(hullRadius[group]) * scale >= MIN_VISIBLE_PIXELS;
+    }
+
+    // 합친 껍질의 경계원이 보이는 영역(사각형)과 겹치는지 확인
+    public boolean hullIntersectsViewport(int group, double[] viewport) {
+        double x = CompactScene.toDouble(hullCenter[2 * group]);
+        double y = CompactScene.toDouble(hullCenter[2 * group + 1]);
+        double r = CompactScene.toDouble(hullRadius[group]);
+        double nearestX = Math.max(viewport[0], Math.min(x, viewport[0] + viewport[2]));
+        double nearestY = Math.max(viewport[1], Math.min(y, viewport[1] + viewport[3]));
+        double dx = x - nearestX;
+        double dy = y - nearestY;
+        return dx * dx + dy * dy <= r * r;
+    }
+
+    private static JSONObject circleJSON(String id, int centerX, int centerY, int radius, String color,
+                                         Rounding rounding) {
+        JSONObject json = new JSONObject();
+        json.put("type", "circle");
+        json.put("id", id);
+        json.put("center", rounding.point(centerX, centerY));
+        json.put("radius", rounding.round(radius));
+        json.put("color", color);
+        json.put("detail", "circle");
+        return json;
+    }
+
+    /**
+     * 배율에 맞춰 좌표 자릿수를 줄이는 규칙. 화면에서 0.1픽셀에 해당하는 장면 좌표 이하의 10의 거듭제곱 단위로 반올림하므로,
+     * 줌을 줄일수록 숫자가 짧아집니다. (예: 배율 0.01이면 10 단위, 배율 1이면 0.1 단위)
+     */
+    private static final class Rounding {
+        private final double step;    // 반올림 단위 (1 이상일 때 사용)
+        private final double inverse; // 1 / 반올림 단위 (단위가 1보다 작을 때 사용, 10의 거듭제곱인 정수)
+
+        Rounding(double scale) {
+            int exponent = (int) Math.floor(Math.log10(0.1 / scale));
+            this.step = exponent >= 0 ? Math.pow(10, exponent) : 1;
+            this.inverse = exponent < 0 ? Math.pow(10, Math.min(-exponent, 8)) : 1;
+        }
+
+        double round(int fixed) {
+            double value = CompactScene.toDouble(fixed);
+            // 10^k로 나누면 가장 가까운 double이 되어 짧은 십진수로 출력됨
+            return inverse > 1 ? Math.round(value * inverse) / inverse : Math.round(value / step) * step;
+        }
+
+        JSONObject point(int x, int y) {
+            return new Point(round(x), round(y)).toJSON();
+        }
+
+        JSONArray vertices(int[] xy, int from, int to) {
+            JSONArray array = new JSONArray();
+            for (int k = from; k < to; k++) {
+                array.put(point(xy[2 * k], xy[2 * k + 1]));
+            }
+            return array;
+        }
+    }
+
+    /**
+     * 다각형 정점(순서대로 count개)에서 이웃 두 정점과 이루는 삼각형 넓이가 가장 작은 정점을 minVertices개가 남을 때까지 하나씩 제거하고,
+     * 정점별로 몇 번째에 제거되었는지(남은 정점은 count)를 반환합니다. removedAt[k] >= count - m인 정점이 m개로 줄였을 때 남는 정점이므로,
+     * 한 번 계산하여 여러 단계의 단순화에 사용합니다. (볼록 다각형이면 단순화한 다각형은 원래 다각형 안에 들어감)
+     * 정점을 제거하면 두 이웃의 넓이만 바뀌므로 그 둘만 다시 계산합니다.
+     */
+    static int[] removalOrder(int[] xs, int[] ys, int count, int minVertices) {
+        int[] prev = new int[count];
+        int[] next = new int[count];
+        long[] areas = new long[count];
+        int[] removedAt = new int[count];
+        for (int k = 0; k < count; k++) {
+            prev[k] = (k + count - 1) % count;
+            next[k] = (k + 1) % count;
+            removedAt[k] = count;
+        }
+        for (int k = 0; k < count; k++) {
+            areas[k] = Math.abs(cross(xs, ys, prev[k], k, next[k]));
+        }
+        for (int step = 0; step < count - minVertices; step++) {
+            int smallest = -1;
+            long smallestArea = Long.MAX_VALUE;
+            for (int k = 0; k < count; k++) {
+                if (removedAt[k] == count && areas[k] < smallestArea) {
+                    smallestArea = areas[k];
+                    smallest = k;
+                }
+            }
+            removedAt[smallest] = step;
+            int before = prev[smallest];
+            int after = next[smallest];
+            next[before] = after;
+            prev[after] = before;
+            areas[before] = Math.abs(cross(xs, ys, prev[before], before, after));
+            areas[after] = Math.abs(cross(xs, ys, before, after, next[after]));
+        }
+        return removedAt;
+    }
+
+    /**
+     * 볼록 다각형(반시계 방향 정점 count개, xs와 ys)을 원래 다각형을 덮는 maxVertices개 이하의 볼록 다각형으로 줄여
+     * xs, ys 앞쪽에 순서대로 기록하고 개수를 반환합니다.
+     * 변 (b, c) 하나를 앞 변 (a, b)와 뒤 변 (c, d)의 연장선이 바깥에서 만나는 점 p로 바꾸면 정점이 하나 줄고 삼각형 (b, p, c)만큼 넓어지므로,
+     * 늘어나는 넓이가 가장 작은 변부터 바꿉니다. p는 정수 좌표로 반올림하되 두 연장선의 바깥쪽(또는 선 위)에 있는 점만 사용하므로
+     * b와 c는 항상 새 다각형 안에 남습니다. (바꿀 수 있는 변이 없으면 maxVertices개보다 많이 남을 수 있음)
+     * 변을 바꾸면 그 변과 양옆 두 변씩의 비용만 바뀌므로 그것만 다시 계산합니다.
+     */
+    static int enclose(int[] xs, int[] ys, int count, int maxVertices) {
+        if (count <= maxVertices || count < 5) {
+            return count;
+        }
+        int[] prev = new int[count];
+        int[] next = new int[count];
+        boolean[] removed = new boolean[count];
+        double[] costs = new double[count]; // 변 (k, next[k])를 바꿀 때 늘어나는 넓이 (바꿀 수 없으면 무한대)
+        int[] points = new int[2 * count];  // 변 (k, next[k])를 바꿀 점 (반올림한 p)
+        for (int k = 0; k < count; k++) {
+            prev[k] = (k + count - 1) % count;
+            next[k] = (k + 1) % count;
+        }
+        for (int k = 0; k < count; k++) {
+            costs[k] = collapseCost(xs, ys, prev[k], k, next[k], next[next[k]], points, k);
+        }
+        int remaining = count;
+        while (remaining > maxVertices) {
+            int cheapest = -1;
+            for (int k = 0; k < count; k++) {
+                if (!removed[k] && costs[k] < Double.POSITIVE_INFINITY && (cheapest < 0 || costs[k] < costs[cheapest])) {
+                    cheapest = k;
+                }
+            }
+            if (cheapest < 0) {
+                break;
+            }
+            // b(cheapest) 자리에 p를 두고 c를 제거
+            int b = cheapest;
+            int c = next[b];
+            xs[b] = points[2 * b];
+            ys[b] = points[2 * b + 1];
+            removed[c] = true;
+            next[b] = next[c];
+            prev[next[c]] = b;
+            remaining--;
+            int a = prev[b];
+            for (int k : new int[]{prev[a], a, b, next[b]}) {
+                costs[k] = collapseCost(xs, ys, prev[k], k, next[k], next[next[k]], points, k);
+            }
+        }
+        // 남은 정점을 원래 순서대로 앞쪽에 모음
+        int used = 0;
+        for (int k = 0; k < count; k++) {
+            if (!removed[k]) {
+                xs[used] = xs[k];
+                ys[used] = ys[k];
+                used++;
+            }
+        }
+        return used;
+    }
+
+    // 변 (b, c)를 (a, b)와 (c, d) 연장선의 교점으로 바꿀 때 늘어나는 넓이 (교점을 points[2 * slot ..]에 기록, 바꿀 수 없으면 무한대)
+    private static double collapseCost(int[] xs, int[] ys, int a, int b, int c, int d, int[] points, int slot) {
+        double rx = xs[b] - xs[a];
+        double ry = ys[b] - ys[a];
+        double qx = xs[c] - xs[d];
+        double qy = ys[c] - ys[d];
+        double denominator = rx * qy - ry * qx;
+        if (denominator == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        // a + t (b - a) = d + s (c - d), 두 연장선이 변 (b, c) 바깥에서 만나려면 t > 1, s > 1
+        double t = ((xs[d] - xs[a]) * qy - (ys[d] - ys[a]) * qx) / denominator;
+        double s = ((xs[d] - xs[a]) * ry - (ys[d] - ys[a]) * rx) / denominator;
+        if (!(t > 1 && s > 1)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double px = xs[a] + t * rx;
+        double py = ys[a] + t * ry;
+        if (!(Math.abs(px) < Integer.MAX_VALUE - 1 && Math.abs(py) < Integer.MAX_VALUE - 1)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        // 내림/올림 조합 중 두 연장선의 바깥쪽에 있는 점 (b와 c가 새 변 (a, p), (p, d)의 안쪽에 남음)
+        double bestArea = Double.POSITIVE_INFINITY;
+        for (int corner = 0; corner < 4; corner++) {
+            int x = (int) ((corner & 1) == 0 ? Math.floor(px) : Math.ceil(px));
+            int y = (int) ((corner & 2) == 0 ? Math.floor(py) : Math.ceil(py));
+            if (crossTo(xs, ys, a, b, x, y) > 0 || crossTo(xs, ys, c, d, x, y) > 0) {
+                continue;
+            }
+            double area = Math.abs((double) (x - xs[b]) * (ys[c] - ys[b]) - (double) (y - ys[b]) * (xs[c] - xs[b])) / 2;
+            if (area < bestArea) {
+                bestArea = area;
+                points[2 * slot] = x;
+                points[2 * slot + 1] = y;
+            }
+        }
+        return bestArea;
+    }
+
+    /**
+     * points[from .. to)의 볼록 껍질을 구하여(Andrew monotone chain) 꼭짓점을 반시계 방향(화면 좌표에서는 시계 방향) 순서로
+     * xs, ys에 기록하고 개수를 반환합니다. points는 정렬됩니다.
+     */
+    static int convexHull(long[] points, int from, int to, int[] xs, int[] ys) {
+        Arrays.sort(points, from, to); // x, y 순서 (pack 참고)
+        int count = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            int lowerSize = count;
+            for (int a = 0; a < to - from; a++) {
+                long point = points[pass == 0 ? from + a : to - 1 - a];
+                int x = (int) (point >> 32);
+                int y = (int) point ^ Integer.MIN_VALUE;
+                while (count >= lowerSize + 2 && crossTo(xs, ys, count - 2, count - 1, x, y) <= 0) {
+                    count--;
+                }
+                xs[count] = x;
+                ys[count] = y;
+                count++;
+            }
+            count--; // 마지막 점은 다음 사슬의 시작점
+        }
+        return Math.max(count, 1);
+    }
+
+    // 묶은 값의 순서가 (x, y) 순서와 같도록 y는 부호 비트를 뒤집어 하위 32비트에 넣음 (원의 외접 팔각형은 음수 좌표일 수 있음)
+    private static long pack(int x, int y) {
+        return ((long) x << 32) | ((y ^ Integer.MIN_VALUE) & 0xffffffffL);
+    }
+
+    private static int[] ensure(int[] array, int length) {
+        return array.length >= length ? array : new int[Math.max(length, array.length * 2)];
+    }
+
+    // (b - a) x (c - b)
+    private static long cross(int[] xs, int[] ys, int a, int b, int c) {
+        return crossTo(xs, ys, a, b, xs[c], ys[c]);
+    }
+
+    private static long crossTo(int[] xs, int[] ys, int a, int b, int x, int y) {
+        return (long) (xs[b] - xs[a]) * (y - ys[b]) - (long) (ys[b] - ys[a]) * (x - xs[b]);
+    }
+}
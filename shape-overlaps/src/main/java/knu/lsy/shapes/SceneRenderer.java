@@ -0,0 +1,287 @@
+package knu.lsy.shapes;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.event.IIOWriteProgressListener;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * 고정소수점 장면(CompactScene)을 PNG용 이미지로 그리는 래스터 렌더러.
+ * 도형은 장면에 기록된 색(그룹에 속한 도형은 assignGroupColors와 같은 그룹 색)으로 채우고, 클라이언트(script.js)와 같이
+ * 흰 배경 위에 도형 순서대로 채운 뒤 #2c3e50 외곽선을 그립니다.
+ *
+ * 출력 이미지는 TILE_SIZE 픽셀 타일로 나누어 공유 스레드 풀(ParallelWorkers)에서 나누어 그리며, 각 타일은 경계원 중심으로 만든 균일 격자(UniformGrid)에서
+ * 타일 영역을 가장 큰 경계원 반지름만큼 넓힌 범위의 셀만 골라 그 영역에 닿는 도형만 그립니다.
+ * 한 번 만든 렌더러는 읽기 전용이므로 여러 요청(예: 지도 형식 z/x/y 타일)에서 함께 사용할 수 있습니다.
+ */
+public class SceneRenderer {
+    // 병렬로 나누어 그리는 타일 한 변의 픽셀 수 (지도 형식 타일 크기와 같음)
+    public static final int TILE_SIZE = 256;
+    // 한 번에 그릴 수 있는 이미지 한 변의 최대 픽셀 수
+    public static final int MAX_IMAGE_SIZE = 8192;
+    // 한 번에 그릴 수 있는 이미지의 최대 픽셀 수 (4096 x 4096, 이미지 64 MB와 같은 크기의 PNG 인코딩 버퍼를 넘지 않도록)
+    public static final long MAX_IMAGE_PIXELS = 16L * 1024 * 1024;
+    // 지도 형식 타일의 최대 줌 (장면 좌표 최대 범위 MAX_CANVAS_SIZE에서 타일 한 변이 장면 좌표 2 정도)
+    public static final int MAX_ZOOM = 20;
+
+    private static final Color BACKGROUND = Color.WHITE;
+    private static final Color STROKE_COLOR = new Color(0x2c3e50);
+    // 외곽선 두께 (장면 좌표 기준, script.js의 lineWidth)
+    private static final float STROKE_WIDTH = 2f;
+    // 화면에서 경계원 반지름이 이보다 작은 도형은 외곽선이 채움을 가리므로 외곽선을 생략 (픽셀)
+    private static final double MIN_STROKE_RADIUS_PIXELS = 3;
+
+    private final CompactScene scene;
+    private final UniformGrid grid;
+    private final double maxRadius;
+    private final double extentX;
+    private final double extentY;
+
+    public SceneRenderer(CompactScene scene) {
+        this.scene = scene;
+        int n = scene.size();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        double[] radii = new double[n];
+        double maxRadius = 0, extentX = 0, extentY = 0;
+        for (int i = 0; i < n; i++) {
+            xs[i] = CompactScene.toDouble(scene.getCenterX(i));
+            ys[i] = CompactScene.toDouble(scene.getCenterY(i));
+            radii[i] = CompactScene.toDouble(scene.getRadius(i));
+            maxRadius = Math.max(maxRadius, radii[i]);
+            extentX = Math.max(extentX, xs[i] + radii[i]);
+            extentY = Math.max(extentY, ys[i] + radii[i]);
+        }
+        this.grid = new UniformGrid(xs, ys, radii, n);
+        this.maxRadius = maxRadius;
+        this.extentX = extentX;
+        this.extentY = extentY;
+    }
+
+    public CompactScene getScene() {
+        return scene;
+    }
+
+    // 모든 도형을 덮는 영역의 오른쪽 끝 (원점에서 시작)
+    public double getExtentX() {
+        return extentX;
+    }
+
+    public double getExtentY() {
+        return extentY;
+    }
+
+    // imageWidth x imageHeight 이미지를 나누는 타일 수
+    public static int tileCount(int imageWidth, int imageHeight) {
+        return ((imageWidth + TILE_SIZE - 1) / TILE_SIZE) * ((imageHeight + TILE_SIZE - 1) / TILE_SIZE);
+    }
+
+    /**
+     * 장면의 (viewX, viewY)에서 시작하는 viewWidth x viewHeight 영역을 imageWidth x imageHeight 이미지로 그립니다.
+     * 가로와 세로의 배율은 각각 imageWidth / viewWidth, imageHeight / viewHeight입니다.
+     *
+     * @param generator 타일마다 마감 시간을 확인할 생성기 (null이면 확인하지 않음)
+     * @throws IllegalArgumentException 이미지 한 변이 MAX_IMAGE_SIZE를 넘거나 픽셀 수가 MAX_IMAGE_PIXELS를 넘는 경우
+     */
+    public BufferedImage render(double viewX, double viewY, double viewWidth, double viewHeight,
+                                int imageWidth, int imageHeight, ShapeGenerator generator) {
+        if (imageWidth <= 0 || imageHeight <= 0 || imageWidth > MAX_IMAGE_SIZE || imageHeight > MAX_IMAGE_SIZE) {
+            throw new IllegalArgumentException("이미지 크기는 1 ~ " + MAX_IMAGE_SIZE + " 픽셀이어야 합니다.");
+        }
+        if ((long) imageWidth * imageHeight > MAX_IMAGE_PIXELS) {
+            throw new IllegalArgumentException("이미지 픽셀 수는 " + MAX_IMAGE_PIXELS + " 이하여야 합니다.");
+        }
+        ShapesPhaseEvent renderEvent = ShapesPhaseEvent.begin("render", scene.size());
+        BufferedImage image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB);
+        double scaleX = imageWidth / viewWidth;
+        double scaleY = imageHeight / viewHeight;
+        int columns = (imageWidth + TILE_SIZE - 1) / TILE_SIZE;
+        int tiles = tileCount(imageWidth, imageHeight);
+        // 타일은 서로 겹치지 않는 픽셀 영역에만 그리므로 같은 이미지를 공유
+        ParallelWorkers.run(tiles, t -> {
+            if (generator != null) {
+                generator.checkDeadline("render");
+            }
+            int px = (t % columns) * TILE_SIZE;
+            int py = (t / columns) * TILE_SIZE;
+            BufferedImage tile = image.getSubimage(px, py,
+                    Math.min(TILE_SIZE, imageWidth - px), Math.min(TILE_SIZE, imageHeight - py));
+            renderTile(tile, viewX + px / scaleX, viewY + py / scaleY, scaleX, scaleY);
+        });
+        renderEvent.detail = "tiles=" + tiles;
+        renderEvent.commit();
+        return image;
+    }
+
+    /**
+     * 지도 형식 타일 z/x/y를 TILE_SIZE x TILE_SIZE 이미지로 그립니다.
+     * 줌 0은 원점에서 시작하여 모든 도형을 덮는 정사각형 하나이고, 줌이 1 늘 때마다 타일 한 변이 절반이 됩니다. (x는 오른쪽, y는 아래쪽)
+     *
+     * @throws IllegalArgumentException z가 0 ~ MAX_ZOOM이 아니거나 x, y가 0 ~ 2^z - 1이 아닌 경우
+     */
+    public BufferedImage renderMapTile(int z, int x, int y, ShapeGenerator generator) {
+        if (z < 0 || z > MAX_ZOOM) {
+            throw new IllegalArgumentException("z는 0 ~ " + MAX_ZOOM + " 범위여야 합니다.");
+        }
+        int side = 1 << z;
+        if (x < 0 || x >= side || y < 0 || y >= side) {
+            throw new IllegalArgumentException("x와 y는 0 ~ " + (side - 1) + " 범위여야 합니다.");
+        }
+        double tileSpan = Math.max(1, Math.max(extentX, extentY)) / side;
+        return render(x * tileSpan, y * tileSpan, tileSpan, tileSpan, TILE_SIZE, TILE_SIZE, generator);
+    }
+
+    // 타일 이미지 왼쪽 위가 장면 좌표 (originX, originY)가 되도록 그 영역에 닿는 도형을 그림
+    private void renderTile(BufferedImage tile, double originX, double originY, double scaleX, double scaleY) {
+        double toX = originX + tile.getWidth() / scaleX;
+        double toY = originY + tile.getHeight() / scaleY;
+        int[] candidates = visibleShapes(originX, originY, toX, toY);
+
+        Graphics2D g = tile.createGraphics();
+        try {
+            g.setColor(BACKGROUND);
+            g.fillRect(0, 0, tile.getWidth(), tile.getHeight());
+            if (candidates.length == 0) {
+                return;
+            }
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            g.scale(scaleX, scaleY);
+            g.translate(-originX, -originY);
+            g.setStroke(new BasicStroke(STROKE_WIDTH));
+            double pixelsPerUnit = Math.min(scaleX, scaleY);
+
+            // 도형 모양 객체는 타일 안에서 재사용
+            Ellipse2D.Double circle = new Ellipse2D.Double();
+            Path2D.Double polygon = new Path2D.Double();
+            Color fill = null;
+            for (int i : candidates) {
+                java.awt.Shape outline;
+                if (scene.getType(i) == CompactScene.TYPE_CIRCLE) {
+                    double r = CompactScene.toDouble(scene.getRadius(i));
+                    circle.setFrame(CompactScene.toDouble(scene.getCenterX(i)) - r,
+                            CompactScene.toDouble(scene.getCenterY(i)) - r, 2 * r, 2 * r);
+                    outline = circle;
+                } else {
+                    polygon.reset();
+                    polygon.moveTo(CompactScene.toDouble(scene.getVertexX(i, 0)),
+                            CompactScene.toDouble(scene.getVertexY(i, 0)));
+                    for (int k = 1; k < scene.getVertexCount(i); k++) {
+                        polygon.lineTo(CompactScene.toDouble(scene.getVertexX(i, k)),
+                                CompactScene.toDouble(scene.getVertexY(i, k)));
+                    }
+                    polygon.closePath();
+                    outline = polygon;
+                }
+                if (fill == null || fill.getRGB() != (0xff000000 | scene.getColor(i))) {
+                    fill = new Color(scene.getColor(i)); // 같은 그룹 도형이 이어지면 색 객체 재사용
+                }
+                g.setColor(fill);
+                g.fill(outline);
+                if (CompactScene.toDouble(scene.getRadius(i)) * pixelsPerUnit >= MIN_STROKE_RADIUS_PIXELS) {
+                    g.setColor(STROKE_COLOR);
+                    g.draw(outline);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    // 경계원(외곽선 두께 포함)이 영역에 닿는 도형 인덱스 (그리는 순서인 오름차순)
+    private int[] visibleShapes(double fromX, double fromY, double toX, double toY) {
+        double reach = maxRadius + STROKE_WIDTH;
+        int[][] found = {new int[64]};
+        int[] count = {0};
+        grid.forEachInRange(fromX - reach, fromY - reach, toX + reach, toY + reach, i -> {
+            double x = CompactScene.toDouble(scene.getCenterX(i));
+            double y = CompactScene.toDouble(scene.getCenterY(i));
+            double r = CompactScene.toDouble(scene.getRadius(i)) + STROKE_WIDTH;
+            if (x + r < fromX || x - r > toX || y + r < fromY || y - r > toY) {
+                return;
+            }
+            if (count[0] == found[0].length) {
+                found[0] = Arrays.copyOf(found[0], found[0].length * 2);
+            }
+            found[0][count[0]++] = i;
+        });
+        int[] shapes = Arrays.copyOf(found[0], count[0]);
+        Arrays.sort(shapes);
+        return shapes;
+    }
+
+    /**
+     * 이미지를 PNG 바이트로 인코딩합니다. 인코더의 진행률 알림마다 마감 시간을 확인하여, 지나면 인코딩을 중단하고
+     * DeadlineExceededException을 던집니다.
+     *
+     * @param generator 마감 시간을 확인할 생성기 (null이면 확인하지 않음)
+     */
+    public static byte[] encodePng(BufferedImage image, ShapeGenerator generator) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        DeadlineExceededException[] expired = {null};
+        if (generator != null) {
+            writer.addIIOWriteProgressListener(new IIOWriteProgressListener() {
+                @Override
+                public void imageProgress(ImageWriter source, float percentageDone) {
+                    if (expired[0] == null) {
+                        try {
+                            generator.checkDeadline("encode");
+                        } catch (DeadlineExceededException e) {
+                            expired[0] = e;
+                            source.abort();
+                        }
+                    }
+                }
+
+                @Override
+                public void imageStarted(ImageWriter source, int imageIndex) {
+                }
+
+                @Override
+                public void imageComplete(ImageWriter source) {
+                }
+
+                @Override
+                public void thumbnailStarted(ImageWriter source, int imageIndex, int thumbnailIndex) {
+                }
+
+                @Override
+                public void thumbnailProgress(ImageWriter source, float percentageDone) {
+                }
+
+                @Override
+                public void thumbnailComplete(ImageWriter source) {
+                }
+
+                @Override
+                public void writeAborted(ImageWriter source) {
+                }
+            });
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(new IIOImage(image, null, null));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer.dispose();
+        }
+        if (expired[0] != null) {
+            throw expired[0];
+        }
+        return out.toByteArray();
+    }
+}
@@ -3,16 +3,22 @@ package knu.lsy.shapes;
 import org.json.JSONObject;
 import java.util.List;
 import java.util.UUID; // 고유 ID 생성을 위해 UUID 사용
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public abstract class Shape {
     // 모든 도형이 공통적으로 가질 수 있는 속성
-    protected String id;
-    protected String color;
+    // ID와 색상은 처음 사용될 때 생성합니다. (요약 통계처럼 ID/색상이 필요 없는 경우 UUID 생성과 문자열 포맷 비용을 아낌)
+    // 여러 스레드가 동시에 처음 접근해도 CAS로 먼저 기록된 값 하나만 사용하므로 모든 스레드가 같은 ID/색상을 봅니다.
+    protected volatile String id;
+    protected volatile String color;
+
+    private static final AtomicReferenceFieldUpdater<Shape, String> ID_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(Shape.class, String.class, "id");
+    private static final AtomicReferenceFieldUpdater<Shape, String> COLOR_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(Shape.class, String.class, "color");
 
     // 도형 생성 시 기본적인 공통 속성 초기화
     public Shape() {
-        this.id = generateId();
-        this.color = generateRandomColor();
     }
 
     // 고유 ID 생성 메서드
@@ -34,11 +40,22 @@ public abstract class Shape {
     }
 
     public String getColor() {
-        return color;
+        String current = color;
+        if (current == null) {
+            // 다른 스레드가 먼저 기록했거나 setColor로 지정했으면 그 값을 사용
+            COLOR_UPDATER.compareAndSet(this, null, generateRandomColor());
+            current = color;
+        }
+        return current;
     }
 
     public String getId() {
-        return id;
+        String current = id;
+        if (current == null) {
+            ID_UPDATER.compareAndSet(this, null, generateId());
+            current = id;
+        }
+        return current;
     }
 
     // 도형의 중심점을 반환하는 추상 메서드
@@ -67,6 +84,6 @@ public abstract class Shape {
     @Override
     public String toString() {
         // 기본적인 toString 구현. 하위 클래스에서 오버라이드하여 상세 정보 추가 가능.
-        return String.format("%s(ID: %s, Color: %s)", getShapeType(), id, color);
+        return String.format("%s(ID: %s, Color: %s)", getShapeType(), getId(), getColor());
     }
 }
@@ -3,10 +3,22 @@ package knu.lsy.shapes;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import java.util.*;
+import java.util.function.IntPredicate;
 import java.lang.Math; // Math 클래스 사용을 위해 임포트
 
 public class ShapeGenerator {
     private Random random;
+    // 압축 장면의 기본 색상용 난수 (도형 배치 난수와 분리하여, 시드 고정 시 double 경로와 같은 도형 배치를 유지)
+    private final Random colorRandom;
+    private long deadlineNanos = 0; // 요청별 처리 마감 시각 (System.nanoTime 기준, 0이면 제한 없음)
+    private boolean offHeapStorage = false; // 고정소수점 장면과 Union-Find를 오프힙에 둘지 여부
+    private String broadPhase = BroadPhase.AUTO; // 겹침 그룹화의 광역 단계 전략
+    private Approximation approximation = Approximation.EXACT_MODE; // 겹침 판정 근사 방식
+    private volatile ApproximatePairTest approximateTest; // 마지막 근사 그룹화의 판정 (보고서용)
+    private int forcedThreads = 0; // 광역 단계 스레드 수 고정 (0이면 계획대로, 차등 검사용)
+    private Layout layout = Layout.RANDOM_LAYOUT; // 도형 배치 방식
+    private volatile LayoutSampler layoutSampler; // 마지막 배치 생성의 샘플러 (보고서용)
+    private boolean concavePolygons = false; // 일반다각형을 볼록 껍질 대신 오목 다각형(ConcavePolygon)으로 생성
 
     // 겹침 그룹에 할당할 색상 배열 (클래스 상수)
     private static final String[] COLORS = {
@@ -16,8 +28,110 @@ public class ShapeGenerator {
             // 필요에 따라 더 많은 색상 추가 가능
     };
 
+    // 스트리밍 시 한 번에 전송할 도형 수와 광역 단계를 나눌 목표 타일 수
+    private static final int STREAM_BATCH_SIZE = 200;
+    private static final int STREAM_TARGET_TILES = 64;
+
+    // double 경로의 경계원 비교에서 반지름 합에 곱하는 여유: 정점에 원주가 맞닿은 원처럼 정밀 검사는 겹친다고 판정하는 쌍을
+    // 제곱 비교의 반올림 오차(상대 1e-14 수준)로 거르지 않도록 합니다. (DifferentialCheck의 touching 장면에서 발견)
+    private static final double BOUNDS_REACH_FACTOR = 1 + 1e-9;
+    // 기본 색상 난수의 시드를 도형 배치 시드와 다르게 만드는 값
+    private static final long COLOR_SEED_MIX = 0x9E3779B97F4A7C15L;
+
     public ShapeGenerator() {
         this.random = new Random();
+        this.colorRandom = new Random();
+    }
+
+    // 시드를 고정한 생성기: 같은 시드와 파라미터로 항상 같은 도형 배치와 기본 색상을 만듭니다. (워밍업, 재현 가능한 테스트용)
+    public ShapeGenerator(long seed) {
+        this.random = new Random(seed);
+        this.colorRandom = new Random(seed ^ COLOR_SEED_MIX);
+    }
+
+    /**
+     * 이 생성기가 수행하는 도형 생성 및 그룹화 작업의 마감 시간을 설정합니다.
+     * 마감 시간이 지나면 진행 중인 루프를 중단하고 DeadlineExceededException을 던집니다.
+     *
+     * @param timeoutMillis 지금부터 허용할 처리 시간 (밀리초, 0 이하이면 제한 없음)
+     */
+    public void setTimeout(long timeoutMillis) {
+        this.deadlineNanos = timeoutMillis > 0 ? System.nanoTime() + timeoutMillis * 1_000_000L : 0;
+    }
+
+    /**
+     * 고정소수점 경로(generateShapesFixed, summarizeShapesFixed)의 장면과 Union-Find 배열을
+     * 오프힙(DirectBufferPool)에 둘지 설정합니다. 오프힙 버퍼는 요청 처리가 끝나는 즉시 풀에 반납됩니다.
+     */
+    public void setOffHeapStorage(boolean offHeapStorage) {
+        this.offHeapStorage = offHeapStorage;
+    }
+
+    /**
+     * 겹침 그룹화에 사용할 광역 단계 전략을 설정합니다. (auto, brute, grid, sweep - BroadPhase 참고)
+     * 스트리밍(streamShapes)은 타일 단위 진행 상황을 보내야 하므로 항상 격자를 사용합니다.
+     */
+    public void setBroadPhase(String broadPhase) {
+        this.broadPhase = broadPhase;
+    }
+
+    /**
+     * 겹침 그룹화에서 정밀 검사 대신 사용할 근사 방식을 설정합니다. (exact, circle, kdop - Approximation 참고)
+     * 근사 그룹화 후에는 getApproximationReport로 추정 과병합률을 확인할 수 있습니다.
+     */
+    public void setApproximation(Approximation approximation) {
+        this.approximation = approximation;
+    }
+
+    // 마지막 근사 그룹화의 보고서 (근사를 사용하지 않았으면 null)
+    public JSONObject getApproximationReport() {
+        ApproximatePairTest test = approximateTest;
+        return test != null ? test.toJSON() : null;
+    }
+
+    /**
+     * 도형 배치 방식을 설정합니다. (random, disjoint, target - Layout 참고)
+     * random이 아니면 generateShapes, summarizeShapes, generateCompactScene 계열이 LayoutSampler로 도형을 놓으며,
+     * 캔버스가 가득 차면 요청보다 적은 도형을 만듭니다. 배치 결과는 getLayoutReport로 확인할 수 있습니다.
+     * 스트리밍(streamShapes)은 항상 random 배치입니다.
+     */
+    public void setLayout(Layout layout) {
+        this.layout = layout;
+    }
+
+    /**
+     * 일반다각형(55%)을 볼록 껍질(IrregularPolygon) 대신 오목 다각형(ConcavePolygon)으로 생성할지 설정합니다.
+     * 스트리밍(streamShapes)은 항상 볼록 다각형입니다.
+     */
+    public void setConcavePolygons(boolean concavePolygons) {
+        this.concavePolygons = concavePolygons;
+    }
+
+    // 마지막 배치 생성의 보고서 (random 배치였으면 null)
+    public JSONObject getLayoutReport() {
+        LayoutSampler sampler = layoutSampler;
+        return sampler != null ? sampler.toJSON() : null;
+    }
+
+    // 광역 단계 스레드 수를 작업량 추정과 관계없이 고정합니다. (0이면 계획대로, 차등 검사에서 스레드 분할 경로를 검사할 때 사용)
+    void setForcedThreads(int forcedThreads) {
+        this.forcedThreads = forcedThreads;
+    }
+
+    boolean isOffHeapStorage() {
+        return offHeapStorage;
+    }
+
+    // 그룹 번호에 해당하는 그룹 색상 (COLORS를 순환)
+    public static String groupColor(long groupIndex) {
+        return COLORS[(int) (groupIndex % COLORS.length)];
+    }
+
+    // 마감 시간이 지났는지 확인하고, 지났으면 현재 단계 이름과 함께 예외를 던집니다.
+    void checkDeadline(String phase) {
+        if (deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0) {
+            throw new DeadlineExceededException("처리 시간 제한을 초과하여 작업을 중단했습니다. (단계: " + phase + ")");
+        }
     }
 
     /**
@@ -35,37 +149,17 @@ public class ShapeGenerator {
         List<Shape> shapes = new ArrayList<>();
 
         // 도형 생성 (원: 20%, 정다각형: 25%, 일반다각형: 55% - 예시 비율)
+        ShapesPhaseEvent generateEvent = ShapesPhaseEvent.begin("generate", howMany);
+        LayoutSampler sampler = newLayoutSampler(width, height, radiusMax, howMany, maxEdges);
         for (int i = 0; i < howMany; i++) {
-            double probability = random.nextDouble();
-
-            // 무작위 중심점 생성 (영역 내에 완전히 포함되도록 radiusMax 고려)
-            // 이 center는 도형 생성자의 인자로 전달되어 각 도형 클래스에서 자신의 중심이나 정점 생성 기준으로 사용됩니다.
-            double centerX = radiusMax + random.nextDouble() * (width - 2 * radiusMax);
-            double centerY = radiusMax + random.nextDouble() * (height - 2 * radiusMax);
-            Point centerForGeneration = new Point(centerX, centerY);
-
-            // 무작위 반경 (도형 크기 결정에 사용될 값)
-            // 이 radius는 도형 생성자의 인자로 전달되어 각 도형 클래스에서 자신의 반지름이나 크기 기준으로 사용됩니다. 최소 반지름 10으로 설정
-            double radiusForGeneration = 10 + random.nextDouble() * (radiusMax - 10);
-
-            Shape shape;
-            // 확률에 따라 도형 종류 결정 및 생성
-            if (probability < 0.20) {
-                // Circle 생성자: Point center, double radius
-                shape = new Circle(centerForGeneration, radiusForGeneration);
-            } else if (probability < 0.45) {
-                // RegularPolygon 생성자: Point center, double radius, int sides, double rotationAngle
-                int sides = 3 + random.nextInt(maxEdges - 2); // 3변 이상 maxEdges변 이하
-                double rotation = random.nextDouble() * 2 * Math.PI; // 0 ~ 2pi 라디안 회전
-                shape = new RegularPolygon(centerForGeneration, radiusForGeneration, sides, rotation);
-            } else {
-                // IrregularPolygon 생성자: Point centerForGeneration, double radiusForGeneration, int numVertices
-                int numVertices = 3 + random.nextInt(maxEdges - 2); // 3개 이상 maxEdges개 이하 정점
-                shape = new IrregularPolygon(centerForGeneration, radiusForGeneration, numVertices);
+            checkDeadline("generate");
+            Shape shape = nextShape(sampler, width, height, radiusMax, maxEdges);
+            if (shape == null) {
+                break;
             }
-
             shapes.add(shape);
         }
+        generateEvent.commit();
 
         // 연쇄적 그룹화 처리 (Union-Find 활용)
         List<Set<String>> overlapGroups = findConnectedComponents(shapes);
@@ -76,9 +170,12 @@ public class ShapeGenerator {
         JSONArray shapesArray = new JSONArray();
 
         // 생성된 모든 도형 정보를 JSON 배열에 추가
+        ShapesPhaseEvent serializeEvent = ShapesPhaseEvent.begin("serialize", shapes.size());
         for (Shape shape : shapes) {
+            checkDeadline("serialize");
             shapesArray.put(shape.toJSON()); // 각 도형의 toJSON() 호출
         }
+        serializeEvent.commit();
 
         response.put("shapes", shapesArray); // 도형 목록
         response.put("totalCount", shapes.size()); // 총 도형 개수
@@ -88,94 +185,671 @@ public class ShapeGenerator {
     }
 
     /**
-     * Union-Find 자료구조를 사용하여 주어진 도형 목록에서 겹치는 도형들로 연결된 구성 요소(그룹)를 찾습니다.
+     * generateShapes와 같은 작업을 단계별로 리스너에 전달하면서 수행합니다.
+     * 1) 도형을 생성하는 대로 STREAM_BATCH_SIZE개씩 전달하고,
+     * 2) 균일 격자 광역 단계를 타일(격자 셀 묶음) 단위로 진행하면서 각 타일에서 갱신된 잠정 그룹을 전달한 뒤,
+     * 3) 최종 그룹과 색상을 전달합니다.
+     * 첫 도형 묶음은 전체 도형 수와 관계없이 바로 전달되므로, 클라이언트의 첫 화면 표시 시간이 HowMany에 비례해 늘어나지 않습니다.
      *
-     * @param shapes 겹침 여부를 확인할 도형 목록
-     * @return 각 겹침 그룹에 속한 도형 ID들의 집합(Set) 목록
+     * @param listener 진행 상황을 전달받을 리스너
      */
-    private List<Set<String>> findConnectedComponents(List<Shape> shapes) {
-        // Union-Find 자료구조를 위한 맵 초기화
-        Map<String, String> parent = new HashMap<>(); // 각 원소의 부모를 저장
-        Map<String, Integer> rank = new HashMap<>(); // 트리의 높이 또는 크기를 나타내는 랭크 (Union 최적화용)
+    public void streamShapes(int width, int height, int radiusMax, int howMany, int maxEdges,
+                             ShapeStreamListener listener) throws Exception {
+        List<Shape> shapes = new ArrayList<>(howMany);
 
-        // 각 도형의 ID를 독립적인 Union-Find 집합으로 초기화
-        for (Shape shape : shapes) {
-            parent.put(shape.getId(), shape.getId()); // 처음에는 자기 자신을 대표(루트) 원소로 설정
-            rank.put(shape.getId(), 0); // 초기 랭크는 0
+        // 1. 도형 생성 및 묶음 단위 전송
+        List<Shape> batch = new ArrayList<>(STREAM_BATCH_SIZE);
+        for (int i = 0; i < howMany; i++) {
+            checkDeadline("generate");
+            Shape shape = createRandomShape(width, height, radiusMax, maxEdges);
+            shapes.add(shape);
+            batch.add(shape);
+            if (batch.size() == STREAM_BATCH_SIZE) {
+                listener.onShapes(batch);
+                batch = new ArrayList<>(STREAM_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            listener.onShapes(batch);
         }
 
-        // 모든 도형 쌍에 대해 겹침 검사를 수행하고 겹치면 두 도형이 속한 집합을 합칩니다 (Union 연산)
-        for (int i = 0; i < shapes.size(); i++) {
-            for (int j = i + 1; j < shapes.size(); j++) {
-                // shapes.get(i).overlaps(shapes.get(j))를 호출하여 겹침 여부 확인
-                if (shapes.get(i).overlaps(shapes.get(j))) {
-                    // 겹치면 두 도형의 ID가 속한 집합을 Union 합니다.
-                    union(parent, rank, shapes.get(i).getId(), shapes.get(j).getId());
+        // 2. 경계원(중심, 반지름)으로 격자를 만들고 타일 단위로 겹침 검사
+        int n = shapes.size();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        double[] radii = new double[n];
+        for (int i = 0; i < n; i++) {
+            Point center = shapes.get(i).getCenter();
+            xs[i] = center.getX();
+            ys[i] = center.getY();
+            radii[i] = shapes.get(i).getRadius();
+        }
+        UniformGrid grid = new UniformGrid(xs, ys, radii, n, circlesFirst(n, i -> shapes.get(i) instanceof Circle));
+        UnionFind unionFind = new UnionFind(n);
+        // 2개 이상인 그룹의 구성원 목록 (작은 목록을 큰 목록에 합치므로 전체 O(n log n))
+        Map<Integer, List<Integer>> members = new HashMap<>();
+
+        int tileCells = Math.max(1, (int) Math.ceil(Math.sqrt(
+                (double) grid.getColumns() * grid.getRows() / STREAM_TARGET_TILES)));
+        int tilesX = (grid.getColumns() + tileCells - 1) / tileCells;
+        int tilesY = (grid.getRows() + tileCells - 1) / tileCells;
+        int tileCount = tilesX * tilesY;
+
+        for (int tile = 0; tile < tileCount; tile++) {
+            checkDeadline("group");
+            int fromX = (tile % tilesX) * tileCells;
+            int fromY = (tile / tilesX) * tileCells;
+            List<Integer> touched = new ArrayList<>();
+
+            for (int cy = fromY; cy < Math.min(grid.getRows(), fromY + tileCells); cy++) {
+                for (int cx = fromX; cx < Math.min(grid.getColumns(), fromX + tileCells); cx++) {
+                    grid.forEachCandidatePair(cx, cy, (i, j) -> {
+                        // 경계원이 떨어져 있으면 두 도형은 겹칠 수 없음
+                        double dx = xs[i] - xs[j];
+                        double dy = ys[i] - ys[j];
+                        double reach = (radii[i] + radii[j]) * BOUNDS_REACH_FACTOR;
+                        if (dx * dx + dy * dy > reach * reach) {
+                            return;
+                        }
+                        // 이미 같은 그룹이면 겹침 검사 결과와 관계없이 그룹이 바뀌지 않음
+                        if (unionFind.connected(i, j)) {
+                            return;
+                        }
+                        if (shapes.get(i).overlaps(shapes.get(j))) {
+                            int rootI = unionFind.find(i);
+                            int rootJ = unionFind.find(j);
+                            if (unionFind.union(i, j)) {
+                                mergeMembers(members, rootI, rootJ, unionFind.find(i));
+                                touched.add(i);
+                            }
+                        }
+                    });
+                }
+            }
+
+            // 이 타일에서 도형이 추가된 잠정 그룹 전송 (대표 원소 기준으로 중복 제거)
+            JSONArray provisional = new JSONArray();
+            Set<Integer> emittedRoots = new HashSet<>();
+            for (int index : touched) {
+                int root = unionFind.find(index);
+                if (emittedRoots.add(root)) {
+                    JSONArray shapeIds = new JSONArray();
+                    for (int member : members.get(root)) {
+                        shapeIds.put(shapes.get(member).getId());
+                    }
+                    provisional.put(new JSONObject()
+                            .put("groupId", shapes.get(root).getId())
+                            .put("shapeIds", shapeIds));
                 }
             }
+            listener.onProvisionalGroups(tile, tileCount, provisional);
         }
 
-        // Union 연산이 완료된 후, 각 도형이 속한 최종 루트(대표 원소)를 기준으로 그룹화합니다.
-        Map<String, Set<String>> groupMap = new HashMap<>();
-        for (Shape shape : shapes) {
-            String root = find(parent, shape.getId()); // 해당 도형이 속한 집합의 대표 원소 찾기
-            // computeIfAbsent: 해당 키(root)가 맵에 없으면 새로운 HashSet을 만들고, 있으면 기존 Set을 가져와 도형 ID를 추가
-            groupMap.computeIfAbsent(root, k -> new HashSet<>()).add(shape.getId());
+        // 3. 최종 그룹 구성 및 색상 지정 (generateShapes와 같은 규칙)
+        Map<Integer, Set<String>> groupMap = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            groupMap.computeIfAbsent(unionFind.find(i), k -> new HashSet<>()).add(shapes.get(i).getId());
         }
+        List<Set<String>> overlapGroups = new ArrayList<>(groupMap.values());
+        assignGroupColors(shapes, overlapGroups);
+        listener.onFinalGroups(n, convertGroupsToJSON(overlapGroups));
+    }
 
-        // 그룹 맵의 값(도형 ID 집합 목록)을 List 형태로 반환
-        return new ArrayList<>(groupMap.values());
+    // 두 그룹(rootA, rootB)이 newRoot로 합쳐졌을 때 구성원 목록을 합칩니다. (작은 목록을 큰 목록에 추가)
+    private void mergeMembers(Map<Integer, List<Integer>> members, int rootA, int rootB, int newRoot) {
+        List<Integer> a = members.remove(rootA);
+        List<Integer> b = members.remove(rootB);
+        if (a == null) {
+            a = new ArrayList<>(List.of(rootA));
+        }
+        if (b == null) {
+            b = new ArrayList<>(List.of(rootB));
+        }
+        List<Integer> larger = a.size() >= b.size() ? a : b;
+        larger.addAll(larger == a ? b : a);
+        members.put(newRoot, larger);
     }
 
     /**
-     * Union-Find의 Find 연산 (경로 압축 최적화 적용): 특정 원소가 속한 집합의 대표 원소를 찾습니다.
-     * 재귀적으로 부모를 따라가면서 루트를 찾고, 그 과정에서 만나는 모든 노드의 부모를 루트로 직접 연결하여 경로를 압축합니다.
+     * 도형을 생성하고 겹침 그룹을 계산하되, 도형별 JSON이나 그룹 색상은 만들지 않고 집계 통계만 반환합니다.
+     * 도형 ID(UUID)와 색상도 생성하지 않으며, 그룹화는 setBroadPhase로 지정한 광역 단계(기본값 auto)를 사용합니다.
+     * 응답 크기는 도형 수와 관계없이 수백 바이트 수준입니다.
      *
-     * @param parent 부모 정보를 담고 있는 맵
-     * @param x 대표 원소를 찾을 원소의 ID
-     * @return 원소 x가 속한 집합의 대표 원소 ID
+     * @return 총 도형 수, 종류별 개수, 그룹 수, 그룹 크기 분포, 최대 그룹 크기, 겹침 밀도를 담은 JSONObject
      */
-    private String find(Map<String, String> parent, String x) {
-        // 기저 조건: 현재 원소 x가 자신의 부모와 같다면, x는 루트입니다.
-        if (!parent.get(x).equals(x)) {
-            // 현재 원소가 루트가 아니라면, 부모의 Find를 재귀적으로 호출하고
-            // 그 결과(찾아낸 루트)를 현재 원소의 새로운 부모로 설정하여 경로를 압축합니다.
-            parent.put(x, find(parent, parent.get(x)));
+    public JSONObject summarizeShapes(int width, int height, int radiusMax, int howMany, int maxEdges) {
+        List<Shape> shapes = new ArrayList<>(howMany);
+        Map<String, Integer> typeCounts = new TreeMap<>();
+        ShapesPhaseEvent generateEvent = ShapesPhaseEvent.begin("generate", howMany);
+        LayoutSampler sampler = newLayoutSampler(width, height, radiusMax, howMany, maxEdges);
+        for (int i = 0; i < howMany; i++) {
+            checkDeadline("generate");
+            Shape shape = nextShape(sampler, width, height, radiusMax, maxEdges);
+            if (shape == null) {
+                break;
+            }
+            shapes.add(shape);
+            typeCounts.merge(shape.getShapeType(), 1, Integer::sum);
         }
-        // 압축된 경로를 통해 최종적으로 찾아낸 루트를 반환합니다.
-        return parent.get(x);
+        generateEvent.commit();
+
+        UnionFind unionFind = groupShapes(shapes);
+        return summarizeGroups(groupSizes(unionFind), shapes.size(), typeCounts);
+    }
+
+    // 대표 원소별 그룹 크기 (대표 원소가 아닌 인덱스는 0)
+    private static int[] groupSizes(UnionFind unionFind) {
+        int[] sizes = new int[unionFind.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[unionFind.find(i)]++;
+        }
+        return sizes;
     }
 
     /**
-     * Union-Find의 Union 연산 (랭크 기반 합치기 적용): 두 원소가 속한 집합을 합칩니다.
-     * 두 트리를 합칠 때, 랭크가 낮은 트리를 랭크가 높은 트리의 자식으로 만들어 트리의 깊이 증가를 최소화합니다.
-     * 랭크가 같으면 둘 중 하나의 랭크를 증가시킵니다.
+     * 그룹 크기 목록으로 요약 통계 JSON을 만듭니다. (double/고정소수점/저장된 장면 공용)
      *
-     * @param parent 부모 정보를 담고 있는 맵
-     * @param rank 트리의 랭크 정보를 담고 있는 맵
-     * @param x 합칠 첫 번째 원소의 ID
-     * @param y 합칠 두 번째 원소의 ID
-     */
-    private void union(Map<String, String> parent, Map<String, Integer> rank,
-                       String x, String y) {
-        // 각 원소가 속한 집합의 대표 원소(루트)를 찾습니다.
-        String rootX = find(parent, x);
-        String rootY = find(parent, y); // 오타 수정 완료
-
-        // 두 원소가 이미 같은 집합에 속해 있지 않다면 (대표 원소가 다르면)
-        if (!rootX.equals(rootY)) {
-            // 랭크가 낮은 트리를 랭크가 높은 트리에 붙입니다. (랭크 기반 합치기)
-            if (rank.get(rootX) < rank.get(rootY)) {
-                parent.put(rootX, rootY); // rootX 집합을 rootY 집합 아래로 합침
-            } else if (rank.get(rootX) > rank.get(rootY)) {
-                parent.put(rootY, rootX); // rootY 집합을 rootX 집합 아래로 합침
-            } else {
-                // 랭크가 같으면 둘 중 하나 (여기서는 rootY)를 다른 하나 (rootX)의 자식으로 만들고
-                // 부모가 된 트리의 랭크를 1 증가시킵니다.
-                parent.put(rootY, rootX);
-                rank.put(rootX, rank.get(rootX) + 1);
+     * @param sizes 그룹별 크기 (크기 1 이하인 항목은 그룹으로 세지 않음)
+     * @param n 전체 도형 수
+     */
+    private JSONObject summarizeGroups(int[] sizes, int n, Map<String, Integer> typeCounts) {
+        GroupStatistics statistics = new GroupStatistics();
+        for (int size : sizes) {
+            statistics.add(size);
+        }
+        return statistics.toJSON(n, typeCounts);
+    }
+
+    /**
+     * generateShapes와 같은 응답을 고정소수점 압축 장면(CompactScene)으로 계산합니다. (Precision=fixed)
+     * 도형 ID는 UUID 대신 생성 순서 기반("shape_0", "shape_1", ...)으로 부여합니다.
+     */
+    public JSONObject generateShapesFixed(int width, int height, int radiusMax, int howMany, int maxEdges) {
+        return generateShapesFixed(width, height, radiusMax, howMany, maxEdges, DetailLevel.FULL_DETAIL);
+    }
+
+    // generateShapesFixed와 같되, detail이 coarse이면 생성한 장면의 단순화 형태를 만들어 그 형태로 출력
+    public JSONObject generateShapesFixed(int width, int height, int radiusMax, int howMany, int maxEdges,
+                                          DetailLevel detail) {
+        try (CompactScene scene = generateGroupedScene(width, height, radiusMax, howMany, maxEdges)) {
+            return convertCompactSceneToJSON(scene, null, detail.isCoarse() ? new SceneLod(scene) : null, detail);
+        }
+    }
+
+    /**
+     * 고정소수점 장면을 생성하고 그룹화한 뒤, 그룹 번호와 그룹 색상을 장면에 기록하여 반환합니다.
+     * (SaveScene처럼 장면 자체를 보관할 때 사용, 반환된 장면은 호출자가 close해야 함)
+     */
+    public CompactScene generateGroupedScene(int width, int height, int radiusMax, int howMany, int maxEdges) {
+        CompactScene scene = generateCompactScene(width, height, radiusMax, howMany, maxEdges, null);
+        try (UnionFind unionFind = groupCompactScene(scene)) {
+            assignCompactGroups(scene, unionFind);
+        } catch (RuntimeException e) {
+            scene.close();
+            throw e;
+        }
+        return scene;
+    }
+
+    /**
+     * Union-Find 결과를 장면의 그룹 번호와 색상으로 기록합니다. (assignGroupColors와 같은 규칙)
+     * 그룹 번호는 대표 원소가 처음 나타나는 도형 순서대로 매기며(크기 1인 집합 포함), 2개 이상 그룹에만 기록합니다.
+     */
+    private void assignCompactGroups(CompactScene scene, UnionFind unionFind) {
+        int[] groups = groupIndexes(unionFind);
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] >= 0) {
+                scene.setGroup(i, groups[i]);
+                scene.setColor(i, Integer.parseInt(COLORS[groups[i] % COLORS.length].substring(1), 16));
+            }
+        }
+    }
+
+    /**
+     * 도형별 그룹 번호를 계산합니다. 번호는 대표 원소가 처음 나타나는 도형 순서대로 매기며(크기 1인 집합 포함),
+     * 2개 이상인 그룹에 속한 도형만 번호를 갖고 나머지는 -1입니다. 그룹 색상은 groupColor(번호)입니다.
+     */
+    public int[] groupIndexes(UnionFind unionFind) {
+        int n = unionFind.size();
+        int[] sizes = groupSizes(unionFind);
+        int[] rootIndexes = new int[n];
+        Arrays.fill(rootIndexes, -1);
+        int[] groups = new int[n];
+        int nextIndex = 0;
+        for (int i = 0; i < n; i++) {
+            int root = unionFind.find(i);
+            if (rootIndexes[root] < 0) {
+                rootIndexes[root] = nextIndex++;
+            }
+            groups[i] = sizes[root] > 1 ? rootIndexes[root] : -1;
+        }
+        return groups;
+    }
+
+    // 그룹화한 압축 장면의 요약 통계 (장면에 그룹 번호를 기록하지 않으므로 읽기 전용 장면에도 사용 가능)
+    public JSONObject summarizeGroupedScene(CompactScene scene, UnionFind unionFind) {
+        Map<String, Integer> typeCounts = new TreeMap<>();
+        for (int i = 0; i < scene.size(); i++) {
+            typeCounts.merge(scene.getShapeType(i), 1, Integer::sum);
+        }
+        return summarizeGroups(groupSizes(unionFind), scene.size(), typeCounts);
+    }
+
+    /**
+     * 그룹 번호가 기록된 압축 장면을 generateShapes와 같은 형식의 JSON으로 변환합니다.
+     * viewport가 주어지면 경계원이 그 영역과 겹치는 도형만 포함하고, 그룹도 보이는 도형이 있는 것만
+     * (보이는 도형 ID만, size는 전체 그룹 크기) 포함합니다.
+     *
+     * @param viewport 보이는 영역 {x, y, width, height} (null이면 전체)
+     */
+    public JSONObject convertCompactSceneToJSON(CompactScene scene, double[] viewport) {
+        return convertCompactSceneToJSON(scene, viewport, null, DetailLevel.FULL_DETAIL);
+    }
+
+    /**
+     * convertCompactSceneToJSON과 같되, detail이 coarse이면 도형을 단순화 형태(lod)로 출력합니다.
+     * 경계원이 픽셀보다 작게 보이는 도형은 생략하며(culledCount), overlapGroups에는 출력한 도형 ID만 넣습니다.
+     * mergeGroups이면 그룹에 속한 도형 대신 그룹별 합친 껍질을 shapes에 넣고, overlapGroups의 shapeIds에는 껍질 ID만 넣습니다.
+     *
+     * @param lod 장면의 단순화 형태 (detail이 full이면 사용하지 않으므로 null 가능)
+     */
+    public JSONObject convertCompactSceneToJSON(CompactScene scene, double[] viewport, SceneLod lod, DetailLevel detail) {
+        int n = scene.size();
+        boolean merge = detail.isCoarse() && detail.isMergeGroups();
+        int[] groupSizes = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (scene.getGroup(i) >= 0) {
+                groupSizes[scene.getGroup(i)]++;
+            }
+        }
+
+        JSONArray shapesArray = new JSONArray();
+        Map<Integer, JSONArray> visibleGroups = new TreeMap<>();
+        int visibleCount = 0;
+        int culledCount = 0; // coarse에서 너무 작게 보여 생략한 도형과 껍질 수
+        ShapesPhaseEvent serializeEvent = ShapesPhaseEvent.begin("serialize", n);
+        for (int i = 0; i < n; i++) {
+            checkDeadline("serialize");
+            if (merge && scene.getGroup(i) >= 0) {
+                continue; // 아래에서 그룹 껍질로 출력
+            }
+            if (viewport != null && !intersectsViewport(scene, i, viewport)) {
+                continue;
+            }
+            if (detail.isCoarse() && !lod.isVisible(i, detail.getScale())) {
+                culledCount++;
+                continue;
+            }
+            shapesArray.put(detail.isCoarse() ? lod.toJSON(i, detail.getScale()) : scene.toJSON(i));
+            visibleCount++;
+            if (scene.getGroup(i) >= 0) {
+                visibleGroups.computeIfAbsent(scene.getGroup(i), k -> new JSONArray()).put(scene.getId(i));
+            }
+        }
+        if (merge) {
+            for (int g = 0; g < lod.getGroupCount(); g++) {
+                checkDeadline("serialize");
+                if (lod.getGroupSize(g) == 0 || (viewport != null && !lod.hullIntersectsViewport(g, viewport))) {
+                    continue;
+                }
+                if (!lod.isHullVisible(g, detail.getScale())) {
+                    culledCount++;
+                    continue;
+                }
+                JSONObject hull = lod.hullJSON(g, detail.getScale());
+                shapesArray.put(hull);
+                visibleCount++;
+                visibleGroups.put(g, new JSONArray().put(hull.getString("id")));
+            }
+        }
+        serializeEvent.commit();
+
+        JSONArray groupsArray = new JSONArray();
+        for (Map.Entry<Integer, JSONArray> entry : visibleGroups.entrySet()) {
+            JSONObject groupJson = new JSONObject();
+            groupJson.put("shapeIds", entry.getValue());
+            groupJson.put("color", COLORS[entry.getKey() % COLORS.length]);
+            groupJson.put("size", groupSizes[entry.getKey()]);
+            groupsArray.put(groupJson);
+        }
+
+        JSONObject response = new JSONObject();
+        response.put("shapes", shapesArray);
+        response.put("totalCount", n);
+        if (viewport != null) {
+            response.put("visibleCount", visibleCount);
+        }
+        response.put("overlapGroups", groupsArray);
+        if (detail.isCoarse()) {
+            response.put("detail", new JSONObject()
+                    .put("level", DetailLevel.COARSE)
+                    .put("scale", detail.getScale())
+                    .put("mergeGroups", detail.isMergeGroups())
+                    .put("emittedShapes", shapesArray.length())
+                    .put("culledCount", culledCount));
+        }
+        return response;
+    }
+
+    // 도형의 경계원이 보이는 영역(사각형)과 겹치는지 확인
+    static boolean intersectsViewport(CompactScene scene, int shape, double[] viewport) {
+        double x = CompactScene.toDouble(scene.getCenterX(shape));
+        double y = CompactScene.toDouble(scene.getCenterY(shape));
+        double r = CompactScene.toDouble(scene.getRadius(shape));
+        double nearestX = Math.max(viewport[0], Math.min(x, viewport[0] + viewport[2]));
+        double nearestY = Math.max(viewport[1], Math.min(y, viewport[1] + viewport[3]));
+        double dx = x - nearestX;
+        double dy = y - nearestY;
+        return dx * dx + dy * dy <= r * r;
+    }
+
+    /**
+     * 그룹 번호가 기록된 압축 장면(예: 저장된 장면)의 요약 통계를 다시 그룹화하지 않고 계산합니다.
+     */
+    public JSONObject summarizeCompactScene(CompactScene scene) {
+        int n = scene.size();
+        Map<String, Integer> typeCounts = new TreeMap<>();
+        int[] sizes = new int[n];
+        for (int i = 0; i < n; i++) {
+            typeCounts.merge(scene.getShapeType(i), 1, Integer::sum);
+            if (scene.getGroup(i) >= 0) {
+                sizes[scene.getGroup(i)]++;
+            }
+        }
+        return summarizeGroups(sizes, n, typeCounts);
+    }
+
+    // summarizeShapes의 고정소수점 버전 (Precision=fixed)
+    public JSONObject summarizeShapesFixed(int width, int height, int radiusMax, int howMany, int maxEdges) {
+        Map<String, Integer> typeCounts = new TreeMap<>();
+        try (CompactScene scene = generateCompactScene(width, height, radiusMax, howMany, maxEdges, typeCounts);
+             UnionFind unionFind = groupCompactScene(scene)) {
+            return summarizeGroups(groupSizes(unionFind), scene.size(), typeCounts);
+        }
+    }
+
+    /**
+     * 무작위 도형을 생성하여 바로 고정소수점 압축 장면에 기록합니다.
+     * 생성한 Shape 객체는 변환 직후 버려지므로, 동시에 메모리에 남는 것은 압축 장면뿐입니다.
+     * setOffHeapStorage(true)이면 장면을 오프힙에 만들며, 호출자가 close해야 합니다.
+     *
+     * @param typeCounts 종류별 도형 수를 집계할 맵 (필요 없으면 null)
+     */
+    public CompactScene generateCompactScene(int width, int height, int radiusMax, int howMany, int maxEdges,
+                                             Map<String, Integer> typeCounts) {
+        if (width > CompactScene.MAX_CANVAS_SIZE || height > CompactScene.MAX_CANVAS_SIZE) {
+            throw new IllegalArgumentException("고정소수점 모드의 캔버스 크기는 "
+                    + CompactScene.MAX_CANVAS_SIZE + " 이하여야 합니다.");
+        }
+        CompactScene.Builder builder = new CompactScene.Builder(howMany,
+                CompactScene.Builder.expectedVertices(howMany, maxEdges), offHeapStorage);
+        ShapesPhaseEvent generateEvent = ShapesPhaseEvent.begin("generate", howMany);
+        try {
+            LayoutSampler sampler = newLayoutSampler(width, height, radiusMax, howMany, maxEdges);
+            for (int i = 0; i < howMany; i++) {
+                checkDeadline("generate");
+                Shape shape = nextShape(sampler, width, height, radiusMax, maxEdges);
+                if (shape == null) {
+                    break;
+                }
+                builder.add(shape, nextBaseColor());
+                if (typeCounts != null) {
+                    typeCounts.merge(shape.getShapeType(), 1, Integer::sum);
+                }
+            }
+        } catch (RuntimeException e) {
+            builder.release(); // 마감 시간 초과 등으로 중단되면 오프힙 버퍼를 바로 반납
+            throw e;
+        }
+        generateEvent.commit();
+        return builder.build();
+    }
+
+    /**
+     * 압축 장면의 겹침 그룹을 계산합니다. 광역 단계 선택은 groupShapes와 같고,
+     * 경계원 비교와 정밀 검사는 모두 정수 연산으로 수행합니다.
+     * 오프힙 장면이면 Union-Find도 오프힙에 만들며, 호출자가 close해야 합니다.
+     *
+     * @return 도형 인덱스 기준 Union-Find
+     */
+    public UnionFind groupCompactScene(CompactScene scene) {
+        int n = scene.size();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        double[] radii = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = CompactScene.toDouble(scene.getCenterX(i));
+            ys[i] = CompactScene.toDouble(scene.getCenterY(i));
+            radii[i] = CompactScene.toDouble(scene.getRadius(i));
+        }
+
+        Runnable decomposeDeadlineCheck = () -> checkDeadline("decompose");
+        BroadPhase.PairTest test = new BroadPhase.PairTest() {
+            @Override
+            public boolean boundsTouch(int i, int j) {
+                long dx = (long) scene.getCenterX(i) - scene.getCenterX(j);
+                long dy = (long) scene.getCenterY(i) - scene.getCenterY(j);
+                long reach = (long) scene.getRadius(i) + scene.getRadius(j);
+                return dx * dx + dy * dy <= reach * reach;
+            }
+
+            @Override
+            public boolean overlaps(int i, int j) {
+                return scene.overlaps(i, j, decomposeDeadlineCheck);
+            }
+
+            @Override
+            public String shapeType(int i) {
+                return scene.getShapeType(i);
+            }
+        };
+        if (!approximation.isExact()) {
+            ApproximatePairTest approximate = new ApproximatePairTest(approximation, test, n);
+            for (int i = 0; i < n; i++) {
+                if (scene.getType(i) == CompactScene.TYPE_CIRCLE) {
+                    approximate.addCircle(i, xs[i], ys[i], radii[i]);
+                } else {
+                    for (int k = 0; k < scene.getVertexCount(i); k++) {
+                        approximate.addVertex(i, CompactScene.toDouble(scene.getVertexX(i, k)),
+                                CompactScene.toDouble(scene.getVertexY(i, k)));
+                    }
+                }
+            }
+            approximateTest = approximate;
+            test = approximate;
+        }
+        return groupWithBroadPhase(xs, ys, radii, n,
+                circlesFirst(n, i -> scene.getType(i) == CompactScene.TYPE_CIRCLE), test, scene.isOffHeap());
+    }
+
+    /**
+     * 광역 단계로 후보 쌍을 추린 뒤, 경계원이 닿는 쌍만 실제 겹침 검사를 하여 그룹을 계산합니다.
+     * 이미 같은 그룹인 쌍은 정밀 검사를 건너뛰고, 원을 먼저 방문하여 값싼 원-원 검사로 그룹을 일찍 합칩니다.
+     *
+     * @param shapes 겹침 여부를 확인할 도형 목록
+     * @return 도형 인덱스 기준 Union-Find (같은 집합 = 같은 겹침 그룹)
+     */
+    UnionFind groupShapes(List<Shape> shapes) {
+        int n = shapes.size();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        double[] radii = new double[n];
+        for (int i = 0; i < n; i++) {
+            Point center = shapes.get(i).getCenter();
+            xs[i] = center.getX();
+            ys[i] = center.getY();
+            radii[i] = shapes.get(i).getRadius();
+        }
+
+        BroadPhase.PairTest test = new BroadPhase.PairTest() {
+            @Override
+            public boolean boundsTouch(int i, int j) {
+                double dx = xs[i] - xs[j];
+                double dy = ys[i] - ys[j];
+                double reach = (radii[i] + radii[j]) * BOUNDS_REACH_FACTOR;
+                return dx * dx + dy * dy <= reach * reach;
+            }
+
+            @Override
+            public boolean overlaps(int i, int j) {
+                return shapes.get(i).overlaps(shapes.get(j));
+            }
+
+            @Override
+            public String shapeType(int i) {
+                return shapes.get(i).getShapeType();
+            }
+        };
+        if (!approximation.isExact()) {
+            ApproximatePairTest approximate = new ApproximatePairTest(approximation, test, n);
+            for (int i = 0; i < n; i++) {
+                if (shapes.get(i) instanceof Circle) {
+                    approximate.addCircle(i, xs[i], ys[i], radii[i]);
+                } else {
+                    for (Point vertex : shapes.get(i).getVertices()) {
+                        approximate.addVertex(i, vertex.getX(), vertex.getY());
+                    }
+                }
+            }
+            approximateTest = approximate;
+            test = approximate;
+        }
+        return groupWithBroadPhase(xs, ys, radii, n, circlesFirst(n, i -> shapes.get(i) instanceof Circle), test, false);
+    }
+
+    // 설정된 광역 단계 전략(auto이면 데이터로 선택)과 스레드 수로 그룹을 계산합니다.
+    private UnionFind groupWithBroadPhase(double[] xs, double[] ys, double[] radii, int n, int[] order,
+                                          BroadPhase.PairTest test, boolean offHeap) {
+        BroadPhase.Plan plan = BroadPhase.plan(broadPhase, xs, ys, radii, n, Runtime.getRuntime().availableProcessors());
+        if (forcedThreads > 0) {
+            plan = plan.withThreads(forcedThreads);
+        }
+        return BroadPhase.group(plan, xs, ys, radii, n, order, test, this, offHeap);
+    }
+
+    /**
+     * 영역 안에 무작위 도형 하나를 생성합니다. (원: 20%, 정다각형: 25%, 일반다각형: 55%)
+     *
+     * @param width 생성 영역의 너비
+     * @param height 생성 영역의 높이
+     * @param radiusMax 도형의 최대 반지름
+     * @param maxEdges 다각형의 최대 변(정점) 수
+     * @return 생성된 도형
+     */
+    private Shape createRandomShape(int width, int height, int radiusMax, int maxEdges) {
+        // 영역 내에 완전히 포함되도록 radiusMax 고려
+        return createRandomShapeIn(radiusMax, radiusMax, width - 2 * radiusMax, height - 2 * radiusMax,
+                radiusMax, maxEdges);
+    }
+
+    // random이 아닌 배치이면 이번 생성에 사용할 샘플러를 만듭니다. (random이면 null)
+    private LayoutSampler newLayoutSampler(int width, int height, int radiusMax, int howMany, int maxEdges) {
+        if (layout.isRandom()) {
+            return null;
+        }
+        LayoutSampler sampler = new LayoutSampler(layout, random, width, height, radiusMax, howMany, maxEdges);
+        sampler.setConcavePolygons(concavePolygons);
+        layoutSampler = sampler;
+        return sampler;
+    }
+
+    // 다음 도형 (샘플러가 있으면 샘플러가 놓은 도형, 캔버스가 가득 차서 더 놓을 수 없으면 null)
+    private Shape nextShape(LayoutSampler sampler, int width, int height, int radiusMax, int maxEdges) {
+        return sampler != null ? sampler.next() : createRandomShape(width, height, radiusMax, maxEdges);
+    }
+
+    /**
+     * 중심이 [minX, minX + spanX) x [minY, minY + spanY) 안에 오는 무작위 도형 하나를 생성합니다.
+     * (타일 단위 생성용, createRandomShape와 같은 순서로 난수를 사용)
+     */
+    Shape createRandomShapeIn(double minX, double minY, double spanX, double spanY, int radiusMax, int maxEdges) {
+        return createRandomShapeIn(random, minX, minY, spanX, spanY, radiusMax, maxEdges, concavePolygons);
+    }
+
+    // 압축 장면에 기록할 도형의 기본 색상 (0xRRGGBB, 시드를 고정하면 재현됨)
+    int nextBaseColor() {
+        return colorRandom.nextInt(0x1000000);
+    }
+
+    // createRandomShapeIn과 같되, 주어진 난수 생성기를 사용 (도형별 난수 생성기를 쓰는 ShapeStreams용)
+    static Shape createRandomShapeIn(Random random, double minX, double minY, double spanX, double spanY,
+                                     int radiusMax, int maxEdges) {
+        return createRandomShapeIn(random, minX, minY, spanX, spanY, radiusMax, maxEdges, false);
+    }
+
+    // concave이면 일반다각형을 오목 다각형으로 생성 (난수 사용 순서는 같음)
+    static Shape createRandomShapeIn(Random random, double minX, double minY, double spanX, double spanY,
+                                     int radiusMax, int maxEdges, boolean concave) {
+        double probability = random.nextDouble();
+
+        // 무작위 중심점 생성
+        // 이 center는 도형 생성자의 인자로 전달되어 각 도형 클래스에서 자신의 중심이나 정점 생성 기준으로 사용됩니다.
+        double centerX = minX + random.nextDouble() * spanX;
+        double centerY = minY + random.nextDouble() * spanY;
+        Point centerForGeneration = new Point(centerX, centerY);
+
+        // 무작위 반경 (도형 크기 결정에 사용될 값)
+        // 이 radius는 도형 생성자의 인자로 전달되어 각 도형 클래스에서 자신의 반지름이나 크기 기준으로 사용됩니다. 최소 반지름 10으로 설정
+        double radiusForGeneration = 10 + random.nextDouble() * (radiusMax - 10);
+
+        Shape shape;
+        // 확률에 따라 도형 종류 결정 및 생성
+        if (probability < 0.20) {
+            // Circle 생성자: Point center, double radius
+            shape = new Circle(centerForGeneration, radiusForGeneration);
+        } else if (probability < 0.45) {
+            // RegularPolygon 생성자: Point center, double radius, int sides, double rotationAngle
+            int sides = 3 + random.nextInt(maxEdges - 2); // 3변 이상 maxEdges변 이하
+            double rotation = random.nextDouble() * 2 * Math.PI; // 0 ~ 2pi 라디안 회전
+            shape = new RegularPolygon(centerForGeneration, radiusForGeneration, sides, rotation);
+        } else {
+            // IrregularPolygon 생성자: Point centerForGeneration, double radiusForGeneration, int numVertices
+            int numVertices = 3 + random.nextInt(maxEdges - 2); // 3개 이상 maxEdges개 이하 정점
+            shape = concave ? ConcavePolygon.random(centerForGeneration, radiusForGeneration, numVertices, random)
+                    : new IrregularPolygon(centerForGeneration, radiusForGeneration, numVertices, random);
+        }
+
+        return shape;
+    }
+
+    /**
+     * Union-Find 자료구조를 사용하여 주어진 도형 목록에서 겹치는 도형들로 연결된 구성 요소(그룹)를 찾습니다.
+     * 광역 단계는 setBroadPhase로 지정한 전략(기본값 auto)을 사용합니다.
+     *
+     * @param shapes 겹침 여부를 확인할 도형 목록
+     * @return 각 겹침 그룹에 속한 도형 ID들의 집합(Set) 목록
+     */
+    private List<Set<String>> findConnectedComponents(List<Shape> shapes) {
+        int n = shapes.size();
+        UnionFind unionFind = groupShapes(shapes);
+
+        // 각 도형이 속한 최종 루트(대표 원소)를 기준으로 그룹화합니다.
+        Map<Integer, Set<String>> groupMap = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            groupMap.computeIfAbsent(unionFind.find(i), k -> new HashSet<>()).add(shapes.get(i).getId());
+        }
+        return new ArrayList<>(groupMap.values());
+    }
+
+    /**
+     * 원을 앞에 두고 나머지 도형을 뒤에 둔 도형 인덱스 순서를 만듭니다. (각 부분 안에서는 인덱스 오름차순)
+     * 원-원 검사는 정밀 검사 중 가장 싸므로 먼저 수행하여 그룹을 일찍 합쳐 두면,
+     * 이후 같은 그룹에 속하게 된 다각형 쌍은 SAT 검사 없이 건너뛸 수 있습니다.
+     */
+    private static int[] circlesFirst(int n, IntPredicate isCircle) {
+        int[] order = new int[n];
+        int next = 0;
+        for (int i = 0; i < n; i++) {
+            if (isCircle.test(i)) {
+                order[next++] = i;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (!isCircle.test(i)) {
+                order[next++] = i;
             }
         }
+        return order;
     }
 
     /**
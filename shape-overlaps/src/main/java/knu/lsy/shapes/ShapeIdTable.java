@@ -0,0 +1,54 @@
+package knu.lsy.shapes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 도형 ID 문자열을 String 객체 없이 UTF-8 바이트 배열 하나와 시작 위치 배열에 이어 붙여 저장하는 표.
+ * 도형마다 String을 두면 ID당 약 60바이트 이상을 쓰지만, 이 표는 ID 길이 + 4바이트만 사용합니다.
+ * ID가 없는 도형은 "shape_<인덱스>"(CompactScene.getId와 같은 형식)로 대신합니다.
+ */
+public final class ShapeIdTable {
+    private byte[] bytes = new byte[1024];
+    private int[] starts = new int[257]; // 도형 i의 ID는 bytes[starts[i] .. starts[i+1]), 길이가 -1이면 ID 없음
+    private int count;
+    private int length;
+
+    // 도형 하나의 ID를 추가합니다. (null이면 ID 없음)
+    public void add(String id) {
+        if (count + 2 > starts.length) {
+            starts = Arrays.copyOf(starts, starts.length * 2);
+        }
+        if (id == null) {
+            starts[count] = -1 - length; // 시작 위치를 음수로 표시하여 ID 없음을 나타냄
+        } else {
+            byte[] encoded = id.getBytes(StandardCharsets.UTF_8);
+            if (length + encoded.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + encoded.length));
+            }
+            System.arraycopy(encoded, 0, bytes, length, encoded.length);
+            starts[count] = length;
+            length += encoded.length;
+        }
+        count++;
+        starts[count] = length;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public String get(int shape) {
+        int start = starts[shape];
+        if (start < 0) {
+            return "shape_" + shape;
+        }
+        int end = starts[shape + 1] < 0 ? -1 - starts[shape + 1] : starts[shape + 1];
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    // 사용 중인 메모리 (바이트)
+    public long getStorageBytes() {
+        return bytes.length + 4L * starts.length;
+    }
+}
@@ -0,0 +1,28 @@
+package knu.lsy.shapes;
+
+import org.json.JSONArray;
+
+import java.util.List;
+
+/**
+ * ShapeGenerator.streamShapes의 진행 상황을 단계별로 전달받는 리스너.
+ * 도형이 생성되는 대로, 그리고 광역 단계가 타일 단위로 진행될 때마다 호출되어
+ * 클라이언트가 전체 결과를 기다리지 않고 화면을 그릴 수 있게 합니다.
+ */
+public interface ShapeStreamListener {
+    // 새로 생성된 도형 묶음 (아직 그룹 색상이 지정되지 않은 상태)
+    void onShapes(List<Shape> shapes) throws Exception;
+
+    /**
+     * 타일 하나의 겹침 검사가 끝났을 때, 그 타일에서 도형이 추가된 잠정 그룹 목록.
+     * 잠정 그룹 ID는 이후 타일에서 다른 그룹과 합쳐지면 바뀔 수 있습니다.
+     *
+     * @param tile 완료된 타일 번호 (0부터)
+     * @param tileCount 전체 타일 수
+     * @param groups 잠정 그룹 목록 (각 그룹은 groupId, shapeIds를 가진 JSONObject)
+     */
+    void onProvisionalGroups(int tile, int tileCount, JSONArray groups) throws Exception;
+
+    // 모든 타일 처리 후 합쳐진 최종 그룹 (generateShapes 응답의 overlapGroups와 같은 형식)
+    void onFinalGroups(int totalCount, JSONArray overlapGroups) throws Exception;
+}
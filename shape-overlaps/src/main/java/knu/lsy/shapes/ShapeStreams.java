@@ -0,0 +1,218 @@
+package knu.lsy.shapes;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * JSON이나 서블릿 계층 없이 도형 생성과 겹침 그룹화를 쓰기 위한 라이브러리 API. (오프라인 배치 작업 등에 포함하여 사용)
+ * - shapes: 시드로 정해지는 도형을 필요할 때 하나씩 만드는 지연 스트림. 도형마다 (시드, 인덱스)에서 유도한 난수 생성기를 쓰므로
+ *   병렬 스트림으로 나누어 만들어도 순차 스트림과 같은 도형이 같은 순서로 나옵니다.
+ * - groupingOverlaps: 도형을 받는 대로 고정소수점 레코드(CompactScene.Builder)로 쌓고 Shape 객체는 버리는 컬렉터.
+ *   모두 받은 뒤 Precision=fixed와 같은 정수 판정으로 그룹을 계산하여 OverlapGroups로 반환합니다.
+ *
+ * 예) ShapeStreams.shapes(42, 1000, 800, 50, 1_000_000, 8).parallel().collect(ShapeStreams.groupingOverlaps())
+ */
+public final class ShapeStreams {
+    // 병렬 스트림에서 더 나누지 않는 최소 도형 수
+    private static final int MIN_SPLIT_SIZE = 1024;
+
+    private ShapeStreams() {
+    }
+
+    /**
+     * 시드로 정해지는 도형 howMany개의 지연 스트림을 만듭니다. (원: 20%, 정다각형: 25%, 일반다각형: 55%)
+     * 도형 배치는 ShapeGenerator(seed)의 generateShapes와는 다르며(난수 생성기가 도형마다 따로임), 도형 ID와 기본 색상은
+     * 처음 사용될 때 무작위로 만들어집니다. 인덱스가 필요하면 스트림 순서(병렬이어도 유지됨)를 사용하세요.
+     *
+     * @throws IllegalArgumentException 파라미터가 도형을 만들 수 없는 값인 경우
+     */
+    public static Stream<Shape> shapes(long seed, int width, int height, int radiusMax, int howMany, int maxEdges) {
+        if (howMany < 0) {
+            throw new IllegalArgumentException("도형 개수는 0 이상이어야 합니다.");
+        }
+        if (radiusMax < 10 || maxEdges < 3) {
+            throw new IllegalArgumentException("최대 반지름은 10 이상, 최대 변 수는 3 이상이어야 합니다.");
+        }
+        if (width <= 2 * radiusMax || height <= 2 * radiusMax) {
+            throw new IllegalArgumentException("캔버스 크기는 최대 반지름의 2배보다 커야 합니다.");
+        }
+        return StreamSupport.stream(new ShapeSpliterator(seed, width, height, radiusMax, maxEdges, 0, howMany), false);
+    }
+
+    /**
+     * 스트림의 도형을 받는 대로 고정소수점 레코드로 쌓고, 끝나면 겹침 그룹을 계산하는 컬렉터.
+     * 광역 단계는 auto이고 마감 시간은 없습니다.
+     */
+    public static Collector<Shape, ?, OverlapGroups> groupingOverlaps() {
+        return groupingOverlaps(new ShapeGenerator());
+    }
+
+    /**
+     * groupingOverlaps와 같되, 그룹화에 grouper의 광역 단계(setBroadPhase)와 마감 시간(setTimeout) 설정을 사용합니다.
+     * 마감 시간이 지나면 DeadlineExceededException을 던집니다.
+     */
+    public static Collector<Shape, ?, OverlapGroups> groupingOverlaps(ShapeGenerator grouper) {
+        return Collector.of(
+                () -> new Accumulator(grouper),
+                Accumulator::add,
+                Accumulator::combine,
+                Accumulator::finish);
+    }
+
+    // 도형 인덱스별 난수 시드 (SplitMix64 혼합: 가까운 인덱스도 서로 무관한 시드가 되도록)
+    static long shapeSeed(long seed, long index) {
+        long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 도형 인덱스 범위 [from, to)를 맡는 분할 반복자. 나눌 때는 범위를 절반으로 나누므로 크기가 정확하고(SIZED, SUBSIZED),
+     * 각 도형은 인덱스만으로 만들어지므로 어떻게 나누어도 같은 인덱스에서 같은 도형이 나옵니다.
+     */
+    private static final class ShapeSpliterator implements Spliterator<Shape> {
+        private final long seed;
+        private final int width;
+        private final int height;
+        private final int radiusMax;
+        private final int maxEdges;
+        private int from;
+        private final int to;
+
+        ShapeSpliterator(long seed, int width, int height, int radiusMax, int maxEdges, int from, int to) {
+            this.seed = seed;
+            this.width = width;
+            this.height = height;
+            this.radiusMax = radiusMax;
+            this.maxEdges = maxEdges;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Shape> action) {
+            if (from >= to) {
+                return false;
+            }
+            action.accept(createShape(from++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Shape> action) {
+            int end = to;
+            for (int i = from; i < end; i++) {
+                action.accept(createShape(i));
+            }
+            from = end;
+        }
+
+        // createRandomShape와 같은 영역 규칙 (영역 내에 완전히 포함되도록 radiusMax 고려)
+        private Shape createShape(int index) {
+            return ShapeGenerator.createRandomShapeIn(new Random(shapeSeed(seed, index)), radiusMax, radiusMax,
+                    width - 2 * radiusMax, height - 2 * radiusMax, radiusMax, maxEdges);
+        }
+
+        @Override
+        public Spliterator<Shape> trySplit() {
+            int remaining = to - from;
+            if (remaining < 2 * MIN_SPLIT_SIZE) {
+                return null;
+            }
+            int middle = from + remaining / 2;
+            ShapeSpliterator prefix = new ShapeSpliterator(seed, width, height, radiusMax, maxEdges, from, middle);
+            from = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+    }
+
+    /**
+     * groupingOverlaps의 누적 컨테이너. 병렬 스트림에서는 분할마다 하나씩 만들어지고, 합칠 때는 스트림 순서대로
+     * 오른쪽 컨테이너의 레코드를 왼쪽 뒤에 이어 붙이므로 최종 인덱스가 스트림 순서와 같습니다.
+     */
+    private static final class Accumulator {
+        // 분할 하나의 초기 용량 (모자라면 빌더가 늘림)
+        private static final int INITIAL_SHAPES = 1024;
+        private static final int INITIAL_VERTICES = 8 * INITIAL_SHAPES;
+
+        private final ShapeGenerator grouper;
+        private final CompactScene.Builder builder = new CompactScene.Builder(INITIAL_SHAPES, INITIAL_VERTICES);
+        private final Map<String, Integer> typeCounts = new TreeMap<>();
+
+        Accumulator(ShapeGenerator grouper) {
+            this.grouper = grouper;
+        }
+
+        void add(Shape shape) {
+            // SceneJsonReader와 같은 규칙: 중심과 정점 좌표는 0 ~ MAX_CANVAS_SIZE, 원의 반지름은 MAX_CANVAS_SIZE 이하
+            // (이 범위를 전제로 정수 판정이 넘치지 않음)
+            checkCoordinate(shape.getCenter());
+            for (Point vertex : shape.getVertices()) {
+                checkCoordinate(vertex);
+            }
+            if (shape instanceof Circle && !(shape.getRadius() <= CompactScene.MAX_CANVAS_SIZE)) {
+                throw new IllegalArgumentException("원의 반지름은 " + CompactScene.MAX_CANVAS_SIZE + " 이하여야 합니다.");
+            }
+            // 기본 색상은 결과에 쓰지 않으므로 0으로 기록
+            builder.add(shape, 0);
+            typeCounts.merge(shape.getShapeType(), 1, Integer::sum);
+        }
+
+        private static void checkCoordinate(Point point) {
+            if (!(point.getX() >= 0 && point.getX() <= CompactScene.MAX_CANVAS_SIZE
+                    && point.getY() >= 0 && point.getY() <= CompactScene.MAX_CANVAS_SIZE)) {
+                throw new IllegalArgumentException("도형 좌표는 0 ~ " + CompactScene.MAX_CANVAS_SIZE + " 범위여야 합니다.");
+            }
+        }
+
+        Accumulator combine(Accumulator right) {
+            try (CompactScene scene = right.builder.build()) {
+                for (int i = 0; i < scene.size(); i++) {
+                    builder.add(scene, i);
+                }
+            }
+            right.typeCounts.forEach((type, count) -> typeCounts.merge(type, count, Integer::sum));
+            return this;
+        }
+
+        OverlapGroups finish() {
+            try (CompactScene scene = builder.build(); UnionFind unionFind = grouper.groupCompactScene(scene)) {
+                // groupIndexes 번호(색상 번호)를 2개 이상인 그룹만의 연속 번호로 바꿈
+                int[] groups = grouper.groupIndexes(unionFind);
+                int[] denseIndexes = new int[groups.length];
+                int[] colorIndexes = new int[groups.length];
+                Arrays.fill(denseIndexes, -1);
+                int groupCount = 0;
+                for (int i = 0; i < groups.length; i++) {
+                    int colorIndex = groups[i];
+                    if (colorIndex >= 0) {
+                        if (denseIndexes[colorIndex] < 0) {
+                            denseIndexes[colorIndex] = groupCount;
+                            colorIndexes[groupCount++] = colorIndex;
+                        }
+                        groups[i] = denseIndexes[colorIndex];
+                    }
+                }
+                return new OverlapGroups(groups, Arrays.copyOf(colorIndexes, groupCount), typeCounts);
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package knu.lsy.shapes;
+
+import org.json.JSONObject;
+
+/**
+ * ShapesOverlaps 요청 파라미터만으로 처리 시간과 메모리 사용량을 미리 추정하는 클래스.
+ * ShapeGenerator의 실제 비용 구조(도형 생성 O(n), 모든 쌍 겹침 검사 O(n²), 정점 수에 비례하는 SAT 비용,
+ * 도형마다 생성되는 Point 및 JSON 객체)를 단순화한 모델을 사용합니다.
+ * 추정값은 보수적인 근사치이며, 요청 수락 여부(Admission Control)를 결정하는 데에만 사용됩니다.
+ */
+public class ShapesCostEstimator {
+    // 도형 종류 비율 (ShapeGenerator의 생성 확률과 동일하게 유지)
+    private static final double CIRCLE_RATIO = 0.20;
+    private static final double POLYGON_RATIO = 1.0 - CIRCLE_RATIO;
+
+    // 단위 비용 (나노초) - 일반적인 서버 JVM에서 측정한 대략적인 값
+    private static final double GENERATE_NS_PER_SHAPE = 800;
+    private static final double GENERATE_NS_PER_VERTEX = 400;
+    private static final double CIRCLE_PAIR_NS = 30;
+    private static final double CIRCLE_POLYGON_NS_PER_VERTEX = 15;
+    private static final double SAT_NS_PER_VERTEX_SQ = 2;
+    private static final double SERIALIZE_NS_PER_VERTEX = 400;
+
+    // 균일 격자 광역 단계에서 후보 쌍 하나를 꺼내 경계원을 비교하는 비용
+    private static final double GRID_CANDIDATE_NS = 10;
+
+    // 단위 메모리 (바이트) - 도형 객체, 정점(Point + 리스트 참조), 도형/정점당 JSON 객체 및 문자열 출력
+    private static final long SHAPE_OBJECT_BYTES = 120;
+    private static final long POINT_BYTES = 32;
+    private static final long JSON_BYTES_PER_SHAPE = 480;
+    private static final long JSON_BYTES_PER_VERTEX = 308;
+    // 고정소수점 압축 장면 (CompactScene 레코드 36바이트 + 격자/Union-Find 작업 배열, 정점당 int 2개)
+    private static final long COMPACT_BYTES_PER_SHAPE = 36 + 40;
+    private static final long COMPACT_BYTES_PER_VERTEX = 8;
+
+    // 추정 결과를 담는 클래스
+    public static class Estimate {
+        private final long pairTests;
+        private final double estimatedMillis;
+        private final long estimatedBytes;
+
+        Estimate(long pairTests, double estimatedMillis, long estimatedBytes) {
+            this.pairTests = pairTests;
+            this.estimatedMillis = estimatedMillis;
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        public long getPairTests() {
+            return pairTests;
+        }
+
+        public double getEstimatedMillis() {
+            return estimatedMillis;
+        }
+
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        public JSONObject toJSON() {
+            JSONObject json = new JSONObject();
+            json.put("pairTests", pairTests);
+            json.put("estimatedMillis", Math.round(estimatedMillis));
+            json.put("estimatedBytes", estimatedBytes);
+            return json;
+        }
+    }
+
+    /**
+     * 주어진 파라미터로 generateShapes를 실행할 때의 비용을 추정합니다.
+     *
+     * @param width 생성 영역의 너비 (현재 모델에서는 모든 쌍을 검사하므로 비용에 영향을 주지 않음)
+     * @param height 생성 영역의 높이
+     * @param radiusMax 도형의 최대 반지름
+     * @param howMany 생성할 도형의 총 개수
+     * @param maxEdges 다각형의 최대 변(정점) 수
+     * @return 예상 겹침 검사 횟수, 처리 시간(ms), 메모리 사용량(byte)
+     */
+    public Estimate estimate(int width, int height, int radiusMax, int howMany, int maxEdges) {
+        return estimate(width, height, radiusMax, howMany, maxEdges, true);
+    }
+
+    /**
+     * generateShapes의 비용을 광역 단계 종류에 맞춰 추정합니다.
+     *
+     * @param bruteForce true이면 모든 쌍 검사(BroadPhase=brute), false이면 격자 광역 단계 기준
+     *                   (auto는 격자보다 비싸다고 추정한 전략을 고르지 않으므로 격자 모델로 추정)
+     */
+    public Estimate estimate(int width, int height, int radiusMax, int howMany, int maxEdges, boolean bruteForce) {
+        double n = howMany;
+        double verticesPerShape = POLYGON_RATIO * averageVertices(maxEdges);
+
+        long pairTests;
+        double groupingNs;
+        if (bruteForce) {
+            // 모든 쌍 겹침 검사
+            pairTests = (long) (n * (n - 1) / 2);
+            groupingNs = pairTests * narrowPhaseNs(maxEdges);
+        } else {
+            pairTests = gridCandidates(width, height, radiusMax, n);
+            groupingNs = gridGroupingNs(pairTests, radiusMax, maxEdges);
+        }
+
+        // JSON 직렬화 비용
+        double serializeNs = n * (1 + verticesPerShape) * SERIALIZE_NS_PER_VERTEX;
+
+        double estimatedMillis = (generateNs(n, verticesPerShape) + groupingNs + serializeNs) / 1_000_000.0;
+        long estimatedBytes = (long) (n * (SHAPE_OBJECT_BYTES + JSON_BYTES_PER_SHAPE
+                + verticesPerShape * (POINT_BYTES + JSON_BYTES_PER_VERTEX)));
+
+        return new Estimate(pairTests, estimatedMillis, estimatedBytes);
+    }
+
+    /**
+     * 요약 모드(Mode=summary)의 비용을 추정합니다.
+     * 균일 격자 광역 단계를 사용하므로 후보 쌍은 셀(지름 2 * radiusMax) 주변 3x3 영역에 들어오는 쌍으로 줄어들고,
+     * 도형별 JSON을 만들지 않으므로 메모리는 도형 객체와 정점만 계산합니다.
+     */
+    public Estimate estimateSummary(int width, int height, int radiusMax, int howMany, int maxEdges) {
+        double n = howMany;
+        double verticesPerShape = POLYGON_RATIO * averageVertices(maxEdges);
+
+        long candidates = gridCandidates(width, height, radiusMax, n);
+        double groupingNs = gridGroupingNs(candidates, radiusMax, maxEdges);
+
+        double estimatedMillis = (generateNs(n, verticesPerShape) + groupingNs) / 1_000_000.0;
+        long estimatedBytes = (long) (n * (SHAPE_OBJECT_BYTES + verticesPerShape * POINT_BYTES));
+
+        return new Estimate(candidates, estimatedMillis, estimatedBytes);
+    }
+
+    /**
+     * 고정소수점 모드(Precision=fixed)의 비용을 추정합니다.
+     * 처리 시간은 double 경로의 추정값을 그대로 사용하고(보수적), 도형 저장 메모리만 압축 장면 기준으로 바꿉니다.
+     *
+     * @param summary 요약 모드 여부
+     */
+    public Estimate estimateFixed(int width, int height, int radiusMax, int howMany, int maxEdges, boolean summary) {
+        return estimateFixed(width, height, radiusMax, howMany, maxEdges, summary, true);
+    }
+
+    // estimateFixed와 같되, 전체 응답 모드의 그룹화 비용을 광역 단계 종류에 맞춰 추정 (estimate(..., bruteForce) 참고)
+    public Estimate estimateFixed(int width, int height, int radiusMax, int howMany, int maxEdges, boolean summary,
+                                  boolean bruteForce) {
+        Estimate base = summary
+                ? estimateSummary(width, height, radiusMax, howMany, maxEdges)
+                : estimate(width, height, radiusMax, howMany, maxEdges, bruteForce);
+        double n = howMany;
+        double verticesPerShape = POLYGON_RATIO * averageVertices(maxEdges);
+        long estimatedBytes = (long) (n * (COMPACT_BYTES_PER_SHAPE + verticesPerShape * COMPACT_BYTES_PER_VERTEX));
+        if (!summary) {
+            estimatedBytes += (long) (n * (JSON_BYTES_PER_SHAPE + verticesPerShape * JSON_BYTES_PER_VERTEX));
+        }
+        return new Estimate(base.getPairTests(), base.getEstimatedMillis(), estimatedBytes);
+    }
+
+    /**
+     * 타일 엔진(ShapesOverlapsTiled)의 비용을 추정합니다.
+     * 처리 시간은 요약 모드와 같은 격자 광역 단계 모델을 쓰고, 메모리는 타일 하나의 압축 장면과
+     * 경계 도형(인접 타일 쪽 경계에서 2 * radiusMax 이내) 전체만 계산합니다.
+     *
+     * @param tileSize 타일 한 변의 크기
+     */
+    public Estimate estimateTiled(int width, int height, int radiusMax, int howMany, int maxEdges, int tileSize) {
+        Estimate base = estimateSummary(width, height, radiusMax, howMany, maxEdges);
+        double n = howMany;
+        double verticesPerShape = POLYGON_RATIO * averageVertices(maxEdges);
+        double shapeBytes = COMPACT_BYTES_PER_SHAPE + verticesPerShape * COMPACT_BYTES_PER_VERTEX;
+
+        double area = Math.max(1.0, (double) width * height);
+        double tileShapes = Math.min(n, n * (double) tileSize * tileSize / area);
+        double inner = Math.max(0.0, tileSize - 4.0 * radiusMax) / tileSize;
+        double boundaryShapes = n * (1 - inner * inner);
+        // 경계 도형은 레코드와 정점 외에 타일 그룹 정보(int 3개)와 Union-Find(5바이트)를 추가로 사용
+        long estimatedBytes = (long) (tileShapes * shapeBytes + boundaryShapes * (shapeBytes + 12 + 5));
+        return new Estimate(base.getPairTests(), base.getEstimatedMillis(), estimatedBytes);
+    }
+
+    /**
+     * 샤드 코디네이터(ShapesOverlapsSharded)의 비용을 추정합니다.
+     * 처리 시간은 타일 엔진과 같은 모델을 워커 수로 나누고, 메모리는 코디네이터가 모으는 경계 도형만 계산합니다.
+     *
+     * @param shardWidth 샤드 너비
+     * @param shardHeight 샤드 높이
+     * @param workers 워커 프로세스 수
+     */
+    public Estimate estimateSharded(int width, int height, int radiusMax, int howMany, int maxEdges,
+                                    int shardWidth, int shardHeight, int workers) {
+        Estimate base = estimateSummary(width, height, radiusMax, howMany, maxEdges);
+        double n = howMany;
+        double verticesPerShape = POLYGON_RATIO * averageVertices(maxEdges);
+        double shapeBytes = COMPACT_BYTES_PER_SHAPE + verticesPerShape * COMPACT_BYTES_PER_VERTEX;
+        double innerX = Math.max(0.0, shardWidth - 4.0 * radiusMax) / shardWidth;
+        double innerY = Math.max(0.0, shardHeight - 4.0 * radiusMax) / shardHeight;
+        double boundaryShapes = n * (1 - innerX * innerY);
+        // 경계 도형은 전송 시 Base64(4/3배)로 한 번, 병합용 장면으로 한 번 메모리에 올라감
+        long estimatedBytes = (long) (boundaryShapes * (shapeBytes * (1 + 4.0 / 3) + 12 + 5));
+        return new Estimate(base.getPairTests(), base.getEstimatedMillis() / Math.max(1, workers), estimatedBytes);
+    }
+
+    // 균일 격자 광역 단계의 후보 쌍 수: 3x3 이웃 셀 넓이가 전체 영역에서 차지하는 비율만큼의 쌍
+    private static long gridCandidates(int width, int height, int radiusMax, double n) {
+        double area = Math.max(1.0, (double) width * height);
+        double cell = 2.0 * radiusMax;
+        double neighborhood = Math.min(1.0, 9 * cell * cell / area);
+        return (long) (n * (n - 1) / 2 * neighborhood);
+    }
+
+    // 격자 후보 쌍의 그룹화 비용 (후보 중 경계원이 실제로 닿아 정밀 검사까지 가는 비율은 평균 반지름 기준)
+    private static double gridGroupingNs(long candidates, int radiusMax, int maxEdges) {
+        double cell = 2.0 * radiusMax;
+        double averageRadius = (10 + radiusMax) / 2.0;
+        double narrowFraction = Math.min(1.0, Math.PI * 4 * averageRadius * averageRadius / (9 * cell * cell));
+        return candidates * (GRID_CANDIDATE_NS + narrowFraction * narrowPhaseNs(maxEdges));
+    }
+
+    // 다각형의 평균 정점 수 (3 ~ maxEdges 균등 분포)
+    private static double averageVertices(int maxEdges) {
+        return (3 + maxEdges) / 2.0;
+    }
+
+    // 도형 생성 비용
+    private static double generateNs(double n, double verticesPerShape) {
+        return n * (GENERATE_NS_PER_SHAPE + verticesPerShape * GENERATE_NS_PER_VERTEX);
+    }
+
+    // 도형 쌍 하나의 정밀 겹침 검사 비용 (쌍의 종류별 비율로 가중 평균)
+    private static double narrowPhaseNs(int maxEdges) {
+        double avgVertices = averageVertices(maxEdges);
+        double circleCircle = CIRCLE_RATIO * CIRCLE_RATIO;
+        double circlePolygon = 2 * CIRCLE_RATIO * POLYGON_RATIO;
+        double polygonPolygon = POLYGON_RATIO * POLYGON_RATIO;
+        return circleCircle * CIRCLE_PAIR_NS
+                + circlePolygon * CIRCLE_POLYGON_NS_PER_VERTEX * 2 * avgVertices
+                + polygonPolygon * SAT_NS_PER_VERTEX_SQ * (2 * avgVertices) * (2 * avgVertices);
+    }
+}
@@ -0,0 +1,37 @@
+package knu.lsy.shapes;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 도형 처리 단계(generate, group, serialize, render, lod) 하나의 구간을 나타내는 JFR 이벤트.
+ * 기록 중인 JFR 세션이 없으면 begin/commit은 아무 일도 하지 않으므로 항상 감싸 두어도 비용이 거의 없습니다.
+ */
+@Name(ShapesPhaseEvent.NAME)
+@Label("Shapes Phase")
+@Category({"Shape Overlaps"})
+@Description("generateShapes 계열 처리 단계 하나의 구간")
+final class ShapesPhaseEvent extends Event {
+    static final String NAME = "knu.lsy.ShapesPhase";
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Shape Count")
+    int shapeCount;
+
+    @Label("Detail")
+    String detail; // group 단계의 광역 단계 전략과 스레드 수 등
+
+    // 단계를 시작합니다. 끝나면 commit()을 호출합니다.
+    static ShapesPhaseEvent begin(String phase, int shapeCount) {
+        ShapesPhaseEvent event = new ShapesPhaseEvent();
+        event.phase = phase;
+        event.shapeCount = shapeCount;
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,134 @@
+package knu.lsy.shapes;
+
+/**
+ * 캔버스를 같은 크기의 직사각형 타일(또는 샤드)로 나눈 격자와 타일별 도형 수 배분.
+ * 도형 중심이 놓일 수 있는 영역([RadiusMax, Width - RadiusMax) x [RadiusMax, Height - RadiusMax))을 타일로 자른 넓이에 비례하여
+ * 도형 수를 배분하며, 타일 번호(행 우선) 순서의 누적 넓이로 계산하므로 합계는 항상 정확히 howMany이고
+ * 타일 하나의 배분은 다른 타일을 계산하지 않고도 구할 수 있습니다. (코디네이터와 워커가 같은 배분을 독립적으로 계산)
+ */
+public final class TileGrid {
+    private final int width;
+    private final int height;
+    private final int radiusMax;
+    private final int howMany;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final int columns;
+    private final int rows;
+    private final double validWidth;
+    private final double validHeight;
+
+    /**
+     * @param tileWidth 타일 너비 (픽셀)
+     * @param tileHeight 타일 높이 (픽셀)
+     */
+    public TileGrid(int width, int height, int radiusMax, int howMany, int tileWidth, int tileHeight) {
+        this.width = width;
+        this.height = height;
+        this.radiusMax = radiusMax;
+        this.howMany = howMany;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.columns = (width + tileWidth - 1) / tileWidth;
+        this.rows = (height + tileHeight - 1) / tileHeight;
+        this.validWidth = width - 2.0 * radiusMax;
+        this.validHeight = height - 2.0 * radiusMax;
+    }
+
+    // 열 수와 행 수로 나눈 격자 (타일 크기는 올림하므로 실제 열/행 수는 요청보다 적을 수 있음)
+    public static TileGrid ofDivisions(int width, int height, int radiusMax, int howMany, int columns, int rows) {
+        return new TileGrid(width, height, radiusMax, howMany,
+                (width + columns - 1) / columns, (height + rows - 1) / rows);
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getTileCount() {
+        return columns * rows;
+    }
+
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
+    public int getTileHeight() {
+        return tileHeight;
+    }
+
+    public int getMinX(int tile) {
+        return (tile % columns) * tileWidth;
+    }
+
+    public int getMinY(int tile) {
+        return (tile / columns) * tileHeight;
+    }
+
+    public int getMaxX(int tile) {
+        return Math.min(getMinX(tile) + tileWidth, width);
+    }
+
+    public int getMaxY(int tile) {
+        return Math.min(getMinY(tile) + tileHeight, height);
+    }
+
+    // 타일 안에서 도형 중심이 놓일 수 있는 영역의 시작 좌표와 크기
+    public double getCenterMinX(int tile) {
+        return Math.max(getMinX(tile), radiusMax);
+    }
+
+    public double getCenterMinY(int tile) {
+        return Math.max(getMinY(tile), radiusMax);
+    }
+
+    public double getCenterSpanX(int tile) {
+        return Math.max(0, Math.min(getMaxX(tile), width - radiusMax) - getCenterMinX(tile));
+    }
+
+    public double getCenterSpanY(int tile) {
+        return Math.max(0, Math.min(getMaxY(tile), height - radiusMax) - getCenterMinY(tile));
+    }
+
+    // 타일 경계가 인접 타일과 맞닿아 있는지 (캔버스 가장자리가 아닌지)
+    public boolean hasLeftNeighbor(int tile) {
+        return tile % columns > 0;
+    }
+
+    public boolean hasRightNeighbor(int tile) {
+        return tile % columns < columns - 1;
+    }
+
+    public boolean hasTopNeighbor(int tile) {
+        return tile / columns > 0;
+    }
+
+    public boolean hasBottomNeighbor(int tile) {
+        return tile / columns < rows - 1;
+    }
+
+    // 타일 첫 도형의 전역 도형 번호 (= 앞선 타일들에 배분된 도형 수)
+    public int getShapeBase(int tile) {
+        if (tile <= 0) {
+            return 0;
+        }
+        if (tile >= getTileCount()) {
+            return howMany;
+        }
+        int tx = tile % columns;
+        int ty = tile / columns;
+        // 앞선 행 전체와 같은 행의 앞선 열에서 중심이 놓일 수 있는 넓이
+        double rowsBefore = Math.max(0, Math.min((double) ty * tileHeight, height - radiusMax) - radiusMax);
+        double columnsBefore = Math.max(0, Math.min((double) tx * tileWidth, width - radiusMax) - radiusMax);
+        double areaBefore = rowsBefore * validWidth + getCenterSpanY(tile) * columnsBefore;
+        return (int) Math.min(howMany, Math.round(howMany * (areaBefore / (validWidth * validHeight))));
+    }
+
+    public int getShapeCount(int tile) {
+        return getShapeBase(tile + 1) - getShapeBase(tile);
+    }
+}
@@ -0,0 +1,533 @@
+package knu.lsy.shapes;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * 캔버스를 타일로 나누어 도형 생성과 그룹화를 타일 단위로 수행하는 타일(out-of-core) 엔진. (ShapesOverlapsTiled)
+ * 한 번에 메모리에 올라가는 것은 타일 하나의 압축 장면과 경계 도형뿐이므로, 캔버스가 커져도 메모리는 타일 크기에 비례합니다.
+ *
+ * 1. 타일마다 중심이 타일 안에 오는 도형을 생성하고(TileGrid의 넓이 비례 배분), 타일 안에서 그룹화합니다.
+ *    타일 안에서만 이루어진 그룹은 이 단계에서 바로 통계에 반영하고 장면을 버립니다.
+ * 2. 중심이 인접 타일과의 경계에서 (자기 경계원 반지름 + RadiusMax) 이내인 도형(경계 도형)만 따로 모읍니다.
+ *    다른 타일의 도형과 겹칠 수 있는 도형은 반드시 경계 도형이므로, 경계 도형끼리의 겹침만 보면 타일을 넘는 그룹을 모두 찾을 수 있습니다.
+ * 3. 경계 도형 전체에 대해 전역 Union-Find를 만들어, 서로 겹치는 경계 도형과 같은 타일 그룹에 속한 경계 도형을 합칩니다.
+ * 4. 보이는 영역(viewport)이 주어지면, 그 영역에 걸치는 타일만 장면 파일(SceneFile)로 디스크에 내려 두었다가
+ *    병합이 끝난 뒤 매핑하여 최종 그룹으로 JSON을 만듭니다.
+ *
+ * 같은 과정을 여러 프로세스로 나누어 실행할 수도 있습니다. 워커는 runShard로 샤드(타일) 하나를 처리하여 중간 통계와
+ * 경계 도형을 반환하고, 코디네이터는 mergeShards로 모든 샤드의 경계 도형을 병합합니다. (ShapesOverlapsSharded)
+ *
+ * 좌표는 고정소수점 압축 장면(Precision=fixed)과 같은 정수 판정을 사용합니다.
+ * 그룹 번호는 그룹에 속한 도형 중 가장 작은 전역 도형 번호이며, 그룹 색상은 이 번호로 정합니다.
+ */
+public class TiledSceneEngine {
+    // 타일 크기를 자동으로 정할 때 타일당 목표 도형 수
+    private static final int TARGET_TILE_SHAPES = 100_000;
+
+    private final ShapeGenerator generator;
+    private final Path spillRoot;
+
+    /**
+     * @param generator 도형 생성, 정밀 판정, 처리 시간 제한을 담당하는 생성기 (오프힙 설정도 따름)
+     * @param spillRoot 타일 장면 파일을 내려 둘 임시 디렉터리의 상위 디렉터리 (viewport를 쓰지 않으면 null 가능)
+     */
+    public TiledSceneEngine(ShapeGenerator generator, Path spillRoot) {
+        this.generator = generator;
+        this.spillRoot = spillRoot;
+    }
+
+    /**
+     * 타일 크기를 지정하지 않았을 때 사용할 크기: 타일당 약 TARGET_TILE_SHAPES개, 경계 띠가 타일 대부분을 차지하지 않도록 4 * RadiusMax 이상
+     */
+    public static int defaultTileSize(int width, int height, int radiusMax, int howMany) {
+        double area = (double) width * height;
+        double size = Math.sqrt(area * TARGET_TILE_SHAPES / Math.max(1, howMany));
+        return (int) Math.min(Math.max(width, height), Math.max(4.0 * radiusMax, Math.ceil(size)));
+    }
+
+    /**
+     * 타일 단위로 도형을 생성하고 그룹화하여 요약 통계를 반환합니다.
+     *
+     * @param tileSize 타일 한 변의 크기 (픽셀)
+     * @param viewport 도형별 JSON을 포함할 영역 {x, y, width, height} (null이면 요약 통계만)
+     * @return 요약 통계, 타일 처리 통계(tiles), viewport가 있으면 shapes/visibleCount/overlapGroups
+     */
+    public JSONObject run(int width, int height, int radiusMax, int howMany, int maxEdges, int tileSize,
+                          double[] viewport) {
+        checkCanvas(width, height);
+        TileGrid grid = new TileGrid(width, height, radiusMax, howMany, tileSize, tileSize);
+
+        Map<String, Integer> typeCounts = new TreeMap<>();
+        GroupStatistics statistics = new GroupStatistics();
+        BoundarySet boundary = new BoundarySet(generator.isOffHeapStorage());
+        List<SpilledTile> spilled = new ArrayList<>();
+        Path spillDirectory = null;
+        long spilledBytes = 0;
+        int maxTileShapes = 0;
+
+        try {
+            for (int tile = 0; tile < grid.getTileCount(); tile++) {
+                maxTileShapes = Math.max(maxTileShapes, grid.getShapeCount(tile));
+                try (TileResult result = processTile(grid, tile, radiusMax, maxEdges, typeCounts, statistics, boundary)) {
+                    if (viewport != null && tileNearViewport(grid, tile, radiusMax, viewport)) {
+                        if (spillDirectory == null) {
+                            Files.createDirectories(spillRoot);
+                            spillDirectory = Files.createTempDirectory(spillRoot, "tiles-");
+                        }
+                        Path file = spillDirectory.resolve("tile-" + tile + ".scene");
+                        spilledBytes += SceneFile.write(result.scene, file);
+                        spilled.add(new SpilledTile(file, grid.getShapeBase(tile), result.componentBoundary,
+                                result.componentSize, result.componentFirst));
+                    }
+                }
+            }
+
+            try (MergedBoundary merged = mergeBoundary(boundary, statistics)) {
+                JSONObject tiles = new JSONObject();
+                tiles.put("tileSize", tileSize);
+                tiles.put("columns", grid.getColumns());
+                tiles.put("rows", grid.getRows());
+                tiles.put("maxTileShapes", maxTileShapes);
+                tiles.put("boundaryShapes", merged.boundaryCount);
+                // 타일 경계를 넘어 하나로 합쳐진 타일 그룹 수
+                tiles.put("crossTileMerges", merged.componentCount - merged.mergedCount);
+                tiles.put("spilledTiles", spilled.size());
+                tiles.put("spilledBytes", spilledBytes);
+
+                JSONObject response = statistics.toJSON(howMany, typeCounts);
+                response.put("tiles", tiles);
+                if (viewport != null) {
+                    appendViewport(response, spilled, viewport, merged);
+                }
+                return response;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("타일 장면 파일을 기록하지 못했습니다.", e);
+        } finally {
+            boundary.close();
+            deleteSpillDirectory(spillDirectory);
+        }
+    }
+
+    /**
+     * 샤드 격자(columns x rows)의 샤드 하나를 처리합니다. (ShapesShard 워커)
+     * 샤드 안에서 끝난 그룹은 중간 통계(groups)로, 다른 샤드와 이어질 수 있는 경계 도형은 장면 바이트(boundaryScene, Base64)와
+     * 경계 도형이 속한 샤드 그룹의 크기/첫 전역 도형 번호(componentSizes, componentFirsts)로 반환합니다.
+     * 경계 도형의 그룹 번호(GROUP)는 componentSizes/componentFirsts의 인덱스입니다.
+     */
+    public JSONObject runShard(int width, int height, int radiusMax, int howMany, int maxEdges,
+                               int columns, int rows, int shard) {
+        checkCanvas(width, height);
+        TileGrid grid = TileGrid.ofDivisions(width, height, radiusMax, howMany, columns, rows);
+        if (shard < 0 || shard >= grid.getTileCount()) {
+            throw new IllegalArgumentException("샤드 번호는 0 ~ " + (grid.getTileCount() - 1) + " 범위여야 합니다.");
+        }
+
+        Map<String, Integer> typeCounts = new TreeMap<>();
+        GroupStatistics statistics = new GroupStatistics();
+        try (BoundarySet boundary = new BoundarySet(generator.isOffHeapStorage())) {
+            processTile(grid, shard, radiusMax, maxEdges, typeCounts, statistics, boundary).close();
+
+            CompactScene boundaryScene = boundary.build();
+            JSONArray componentSizes = new JSONArray();
+            JSONArray componentFirsts = new JSONArray();
+            int[] componentIndex = new int[boundaryScene.size()];
+            for (int b = 0; b < boundaryScene.size(); b++) {
+                if (boundary.link[b] == b) {
+                    componentIndex[b] = componentSizes.length();
+                    componentSizes.put(boundary.componentSize[b]);
+                    componentFirsts.put(boundary.componentFirst[b]);
+                }
+                boundaryScene.setGroup(b, componentIndex[boundary.link[b]]);
+            }
+
+            JSONObject result = new JSONObject();
+            result.put("shard", shard);
+            result.put("shapeCount", grid.getShapeCount(shard));
+            result.put("typeCounts", new JSONObject(typeCounts));
+            result.put("groups", statistics.toPartialJSON());
+            result.put("boundaryScene", Base64.getEncoder().encodeToString(SceneFile.toBytes(boundaryScene)));
+            result.put("componentSizes", componentSizes);
+            result.put("componentFirsts", componentFirsts);
+            return result;
+        }
+    }
+
+    /**
+     * 모든 샤드의 runShard 결과를 합쳐 최종 요약 통계를 계산합니다. (ShapesOverlapsSharded 코디네이터)
+     *
+     * @param shardResults 샤드별 runShard 결과 (순서 무관)
+     * @return 요약 통계와 병합 통계(boundaryShapes, crossShardMerges)
+     * @throws IOException 경계 도형 데이터가 손상된 경우
+     */
+    public JSONObject mergeShards(int howMany, List<JSONObject> shardResults) throws IOException {
+        Map<String, Integer> typeCounts = new TreeMap<>();
+        GroupStatistics statistics = new GroupStatistics();
+        try (BoundarySet boundary = new BoundarySet(generator.isOffHeapStorage())) {
+            for (JSONObject result : shardResults) {
+                generator.checkDeadline("merge");
+                JSONObject counts = result.getJSONObject("typeCounts");
+                for (String type : counts.keySet()) {
+                    typeCounts.merge(type, counts.getInt(type), Integer::sum);
+                }
+                statistics.merge(result.getJSONObject("groups"));
+
+                CompactScene shardBoundary = SceneFile.fromBytes(Base64.getDecoder().decode(result.getString("boundaryScene")));
+                JSONArray componentSizes = result.getJSONArray("componentSizes");
+                JSONArray componentFirsts = result.getJSONArray("componentFirsts");
+                int[] representative = new int[componentSizes.length()];
+                Arrays.fill(representative, -1);
+                for (int i = 0; i < shardBoundary.size(); i++) {
+                    int component = shardBoundary.getGroup(i);
+                    int index = boundary.add(shardBoundary, i, representative[component],
+                            componentSizes.getInt(component), componentFirsts.getInt(component));
+                    if (representative[component] < 0) {
+                        representative[component] = index;
+                    }
+                }
+            }
+
+            try (MergedBoundary merged = mergeBoundary(boundary, statistics)) {
+                JSONObject mergeInfo = new JSONObject();
+                mergeInfo.put("boundaryShapes", merged.boundaryCount);
+                // 샤드 경계를 넘어 하나로 합쳐진 샤드 그룹 수
+                mergeInfo.put("crossShardMerges", merged.componentCount - merged.mergedCount);
+                JSONObject response = statistics.toJSON(howMany, typeCounts);
+                response.put("merge", mergeInfo);
+                return response;
+            }
+        }
+    }
+
+    private static void checkCanvas(int width, int height) {
+        if (width > CompactScene.MAX_CANVAS_SIZE || height > CompactScene.MAX_CANVAS_SIZE) {
+            throw new IllegalArgumentException("고정소수점 모드의 캔버스 크기는 "
+                    + CompactScene.MAX_CANVAS_SIZE + " 이하여야 합니다.");
+        }
+    }
+
+    /**
+     * 타일 하나를 생성하고 그룹화합니다. 경계 도형은 boundary에 추가하고, 경계 도형이 없는 타일 그룹은 statistics에 바로 반영합니다.
+     * 반환된 결과의 장면에는 타일 그룹 번호(크기 1 포함)가 GROUP에 기록되어 있으며, 호출자가 close해야 합니다.
+     */
+    private TileResult processTile(TileGrid grid, int tile, int radiusMax, int maxEdges,
+                                   Map<String, Integer> typeCounts, GroupStatistics statistics, BoundarySet boundary) {
+        int count = grid.getShapeCount(tile);
+        int base = grid.getShapeBase(tile);
+        double x0 = grid.getCenterMinX(tile);
+        double y0 = grid.getCenterMinY(tile);
+        double spanX = grid.getCenterSpanX(tile);
+        double spanY = grid.getCenterSpanY(tile);
+
+        CompactScene.Builder builder = new CompactScene.Builder(count,
+                CompactScene.Builder.expectedVertices(count, maxEdges), generator.isOffHeapStorage());
+        try {
+            for (int i = 0; i < count; i++) {
+                generator.checkDeadline("generate");
+                Shape shape = generator.createRandomShapeIn(x0, y0, spanX, spanY, radiusMax, maxEdges);
+                builder.add(shape, generator.nextBaseColor());
+                typeCounts.merge(shape.getShapeType(), 1, Integer::sum);
+            }
+        } catch (RuntimeException e) {
+            builder.release(); // 마감 시간 초과 등으로 중단되면 오프힙 버퍼를 바로 반납
+            throw e;
+        }
+
+        CompactScene scene = builder.build();
+        try (UnionFind unionFind = generator.groupCompactScene(scene)) {
+            // 타일 그룹 번호(크기 1 포함)를 처음 나타나는 순서로 매겨 장면의 GROUP에 기록
+            int[] componentOf = new int[count];
+            Arrays.fill(componentOf, -1);
+            int componentCount = 0;
+            for (int i = 0; i < count; i++) {
+                int root = unionFind.find(i);
+                if (componentOf[root] < 0) {
+                    componentOf[root] = componentCount++;
+                }
+                scene.setGroup(i, componentOf[root]);
+            }
+            int[] componentSize = new int[componentCount];
+            int[] componentFirst = new int[componentCount];
+            Arrays.fill(componentFirst, -1);
+            for (int i = 0; i < count; i++) {
+                int component = scene.getGroup(i);
+                componentSize[component]++;
+                if (componentFirst[component] < 0) {
+                    componentFirst[component] = base + i;
+                }
+            }
+
+            // 인접 타일 쪽 경계에 가까운 도형을 경계 집합에 추가 (같은 타일 그룹의 첫 경계 도형에 연결)
+            long halo = CompactScene.toFixed(radiusMax) + 2; // 경계원 반지름의 상한 (Builder의 여유 2단위 포함)
+            long left = grid.hasLeftNeighbor(tile) ? toFixed(grid.getMinX(tile)) : Long.MIN_VALUE / 4;
+            long right = grid.hasRightNeighbor(tile) ? toFixed(grid.getMaxX(tile)) : Long.MAX_VALUE / 4;
+            long top = grid.hasTopNeighbor(tile) ? toFixed(grid.getMinY(tile)) : Long.MIN_VALUE / 4;
+            long bottom = grid.hasBottomNeighbor(tile) ? toFixed(grid.getMaxY(tile)) : Long.MAX_VALUE / 4;
+            int[] componentBoundary = new int[componentCount];
+            Arrays.fill(componentBoundary, -1);
+            for (int i = 0; i < count; i++) {
+                long reach = scene.getRadius(i) + halo;
+                long cx = scene.getCenterX(i);
+                long cy = scene.getCenterY(i);
+                if (cx - left <= reach || right - cx <= reach || cy - top <= reach || bottom - cy <= reach) {
+                    int component = scene.getGroup(i);
+                    int index = boundary.add(scene, i, componentBoundary[component],
+                            componentSize[component], componentFirst[component]);
+                    if (componentBoundary[component] < 0) {
+                        componentBoundary[component] = index;
+                    }
+                }
+            }
+
+            // 경계 도형이 없는 타일 그룹은 여기서 확정
+            for (int component = 0; component < componentCount; component++) {
+                if (componentBoundary[component] < 0) {
+                    statistics.add(componentSize[component]);
+                }
+            }
+            return new TileResult(scene, componentBoundary, componentSize, componentFirst);
+        } catch (RuntimeException e) {
+            scene.close();
+            throw e;
+        }
+    }
+
+    private static long toFixed(int pixels) {
+        return (long) pixels * CompactScene.FIXED_SCALE;
+    }
+
+    /**
+     * 경계 도형을 병합합니다. 서로 겹치는 경계 도형과 같은 타일 그룹의 경계 도형을 합치고,
+     * 합쳐진 그룹의 크기를 statistics에 반영합니다. 경계 장면은 이 메서드가 만들어 결과와 함께 반납합니다.
+     */
+    private MergedBoundary mergeBoundary(BoundarySet boundary, GroupStatistics statistics) {
+        CompactScene boundaryScene = boundary.build();
+        UnionFind unionFind = generator.groupCompactScene(boundaryScene);
+        int boundaryCount = boundaryScene.size();
+        int componentCount = 0;
+        for (int b = 0; b < boundaryCount; b++) {
+            if (boundary.link[b] == b) {
+                componentCount++;
+            } else {
+                unionFind.union(b, boundary.link[b]);
+            }
+        }
+        long[] mergedSize = new long[boundaryCount];
+        int[] mergedFirst = new int[boundaryCount];
+        Arrays.fill(mergedFirst, Integer.MAX_VALUE);
+        for (int b = 0; b < boundaryCount; b++) {
+            if (boundary.link[b] == b) {
+                int root = unionFind.find(b);
+                mergedSize[root] += boundary.componentSize[b];
+                mergedFirst[root] = Math.min(mergedFirst[root], boundary.componentFirst[b]);
+            }
+        }
+        int mergedCount = 0;
+        for (int b = 0; b < boundaryCount; b++) {
+            if (mergedSize[b] > 0) {
+                mergedCount++;
+                statistics.add((int) mergedSize[b]);
+            }
+        }
+        return new MergedBoundary(unionFind, boundaryCount, componentCount, mergedCount, mergedSize, mergedFirst);
+    }
+
+    // 디스크에 내려 둔 타일을 매핑하여 보이는 영역의 도형과 최종 그룹을 JSON으로 추가
+    private void appendViewport(JSONObject response, List<SpilledTile> spilled, double[] viewport,
+                                MergedBoundary merged) throws IOException {
+        JSONArray shapesArray = new JSONArray();
+        Map<Integer, JSONArray> visibleGroups = new TreeMap<>();
+        Map<Integer, Long> groupSizes = new TreeMap<>();
+        int visibleCount = 0;
+        for (SpilledTile tile : spilled) {
+            try (CompactScene scene = SceneFile.map(tile.file)) {
+                for (int i = 0; i < scene.size(); i++) {
+                    generator.checkDeadline("serialize");
+                    if (!ShapeGenerator.intersectsViewport(scene, i, viewport)) {
+                        continue;
+                    }
+                    int component = scene.getGroup(i);
+                    int boundaryIndex = tile.componentBoundary[component];
+                    long size;
+                    int groupId;
+                    if (boundaryIndex >= 0) {
+                        int root = merged.unionFind.find(boundaryIndex);
+                        size = merged.mergedSize[root];
+                        groupId = merged.mergedFirst[root];
+                    } else {
+                        size = tile.componentSize[component];
+                        groupId = tile.componentFirst[component];
+                    }
+
+                    JSONObject shapeJson = scene.toJSON(i);
+                    String id = "shape_" + (tile.base + i);
+                    shapeJson.put("id", id);
+                    if (size > 1) {
+                        shapeJson.put("color", ShapeGenerator.groupColor(groupId));
+                        visibleGroups.computeIfAbsent(groupId, k -> new JSONArray()).put(id);
+                        groupSizes.put(groupId, size);
+                    }
+                    shapesArray.put(shapeJson);
+                    visibleCount++;
+                }
+            }
+        }
+
+        JSONArray groupsArray = new JSONArray();
+        for (Map.Entry<Integer, JSONArray> entry : visibleGroups.entrySet()) {
+            JSONObject groupJson = new JSONObject();
+            groupJson.put("shapeIds", entry.getValue());
+            groupJson.put("color", ShapeGenerator.groupColor(entry.getKey()));
+            groupJson.put("size", groupSizes.get(entry.getKey()));
+            groupsArray.put(groupJson);
+        }
+        response.put("shapes", shapesArray);
+        response.put("visibleCount", visibleCount);
+        response.put("overlapGroups", groupsArray);
+    }
+
+    // 타일(경계원이 넘어올 수 있는 RadiusMax 여유 포함)이 보이는 영역과 겹치는지 확인
+    private static boolean tileNearViewport(TileGrid grid, int tile, int radiusMax, double[] viewport) {
+        double margin = radiusMax + 1;
+        return grid.getMinX(tile) - margin <= viewport[0] + viewport[2]
+                && grid.getMaxX(tile) + margin >= viewport[0]
+                && grid.getMinY(tile) - margin <= viewport[1] + viewport[3]
+                && grid.getMaxY(tile) + margin >= viewport[1];
+    }
+
+    private static void deleteSpillDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            // 임시 파일 정리 실패는 응답에 영향을 주지 않음 (다음 정리 때 다시 시도할 수 있도록 남겨 둠)
+        }
+    }
+
+    /**
+     * 경계 도형 집합: 도형 레코드(압축 장면 빌더)와 경계 도형별 타일 그룹 정보.
+     * link는 같은 타일 그룹의 첫 경계 도형 인덱스(자기 자신이면 그 그룹의 대표)이며,
+     * 타일 그룹의 크기와 첫 전역 도형 번호는 대표 항목에만 의미가 있습니다.
+     */
+    private static final class BoundarySet implements AutoCloseable {
+        private final CompactScene.Builder builder;
+        private CompactScene built; // build 이후의 장면 (close에서 한 번만 반납)
+        int[] link = new int[1024];
+        int[] componentSize = new int[1024];
+        int[] componentFirst = new int[1024];
+
+        BoundarySet(boolean offHeap) {
+            builder = new CompactScene.Builder(1024, 8 * 1024, offHeap);
+        }
+
+        int add(CompactScene scene, int shape, int representative, int size, int first) {
+            int index = builder.add(scene, shape);
+            if (index == link.length) {
+                link = Arrays.copyOf(link, 2 * index);
+                componentSize = Arrays.copyOf(componentSize, 2 * index);
+                componentFirst = Arrays.copyOf(componentFirst, 2 * index);
+            }
+            link[index] = representative < 0 ? index : representative;
+            componentSize[index] = size;
+            componentFirst[index] = first;
+            return index;
+        }
+
+        // 모은 경계 도형 장면 (이후 add 불가)
+        CompactScene build() {
+            if (built == null) {
+                built = builder.build();
+            }
+            return built;
+        }
+
+        @Override
+        public void close() {
+            if (built != null) {
+                built.close();
+            } else {
+                builder.release();
+            }
+        }
+    }
+
+    // 병합이 끝난 경계 도형의 Union-Find와 대표 원소별 최종 그룹 크기/그룹 번호
+    private static final class MergedBoundary implements AutoCloseable {
+        final UnionFind unionFind;
+        final int boundaryCount;
+        final int componentCount; // 경계 도형이 있는 타일 그룹 수
+        final int mergedCount;    // 병합 후 그룹 수
+        final long[] mergedSize;
+        final int[] mergedFirst;
+
+        MergedBoundary(UnionFind unionFind, int boundaryCount, int componentCount, int mergedCount,
+                       long[] mergedSize, int[] mergedFirst) {
+            this.unionFind = unionFind;
+            this.boundaryCount = boundaryCount;
+            this.componentCount = componentCount;
+            this.mergedCount = mergedCount;
+            this.mergedSize = mergedSize;
+            this.mergedFirst = mergedFirst;
+        }
+
+        @Override
+        public void close() {
+            unionFind.close();
+        }
+    }
+
+    // 처리가 끝난 타일 하나의 장면과 타일 그룹 정보
+    private static final class TileResult implements AutoCloseable {
+        final CompactScene scene;
+        final int[] componentBoundary; // 타일 그룹의 첫 경계 도형 인덱스 (경계 도형이 없으면 -1)
+        final int[] componentSize;
+        final int[] componentFirst;
+
+        TileResult(CompactScene scene, int[] componentBoundary, int[] componentSize, int[] componentFirst) {
+            this.scene = scene;
+            this.componentBoundary = componentBoundary;
+            this.componentSize = componentSize;
+            this.componentFirst = componentFirst;
+        }
+
+        @Override
+        public void close() {
+            scene.close();
+        }
+    }
+
+    // 디스크에 내려 둔 타일 장면 파일과 그 타일의 그룹 정보
+    private static final class SpilledTile {
+        final Path file;
+        final int base; // 타일 첫 도형의 전역 도형 번호
+        final int[] componentBoundary;
+        final int[] componentSize;
+        final int[] componentFirst;
+
+        SpilledTile(Path file, int base, int[] componentBoundary, int[] componentSize, int[] componentFirst) {
+            this.file = file;
+            this.base = base;
+            this.componentBoundary = componentBoundary;
+            this.componentSize = componentSize;
+            this.componentFirst = componentFirst;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package knu.lsy.shapes;
+
+import java.util.function.IntConsumer;
+
+/**
+ * 도형 경계원의 중심을 균일한 격자 셀에 나누어 담는 광역 단계(broad phase) 공간 인덱스.
+ * 셀 크기를 가장 큰 경계원 지름 이상으로 잡으면, 겹칠 수 있는 두 도형의 중심은 항상 같은 셀이나 인접한 셀(3x3)에 있습니다.
+ * 셀 목록은 CSR(시작 위치 배열 + 인덱스 배열) 형태로 한 번에 구성하여 셀마다 리스트 객체를 만들지 않습니다.
+ */
+public class UniformGrid {
+    // 격자 셀 수가 도형 수에 비해 과도하게 커지지 않도록 하는 상한 (도형 하나당 셀 4개)
+    private static final int MAX_CELLS_PER_ITEM = 4;
+
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart; // 셀 c에 속한 인덱스는 items[cellStart[c] .. cellStart[c+1])
+    private final int[] items;
+
+    // 후보 쌍을 전달받는 콜백
+    public interface PairVisitor {
+        void visit(int i, int j);
+    }
+
+    /**
+     * 경계원 중심 좌표와 반지름 배열로 격자를 구성합니다.
+     *
+     * @param xs 경계원 중심의 x 좌표
+     * @param ys 경계원 중심의 y 좌표
+     * @param radii 경계원의 반지름
+     * @param count 사용할 원소 개수 (배열 앞쪽 count개)
+     */
+    public UniformGrid(double[] xs, double[] ys, double[] radii, int count) {
+        this(xs, ys, radii, count, null);
+    }
+
+    /**
+     * 셀 안의 원소 순서를 지정하여 격자를 구성합니다. 각 셀에는 order에 나온 순서대로 원소가 담기므로,
+     * forEachCandidatePair가 값싼 정밀 검사가 필요한 원소(예: 원)의 쌍을 먼저 방문하게 할 수 있습니다.
+     *
+     * @param order 0 ~ count-1의 순열 (null이면 인덱스 오름차순)
+     */
+    public UniformGrid(double[] xs, double[] ys, double[] radii, int count, int[] order) {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        double maxRadius = 0;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+            maxRadius = Math.max(maxRadius, radii[i]);
+        }
+        if (count == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+
+        // 셀 크기: 가장 큰 경계원의 지름 이상, 셀 수가 너무 많아지지 않도록 필요하면 더 크게
+        double spanX = maxX - minX;
+        double spanY = maxY - minY;
+        double size = Math.max(2 * maxRadius, 1e-9);
+        long cellLimit = (long) MAX_CELLS_PER_ITEM * count + 16;
+        while ((long) (Math.floor(spanX / size) + 1) * (long) (Math.floor(spanY / size) + 1) > cellLimit) {
+            size *= 2;
+        }
+
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = size;
+        this.columns = (int) Math.floor(spanX / size) + 1;
+        this.rows = (int) Math.floor(spanY / size) + 1;
+
+        // 계수 정렬 방식으로 CSR 구성: 1) 셀별 개수 2) 누적합 3) 배치
+        int cellCount = columns * rows;
+        this.cellStart = new int[cellCount + 1];
+        int[] cellOf = new int[count];
+        for (int i = 0; i < count; i++) {
+            cellOf[i] = cellIndex(cellX(xs[i]), cellY(ys[i]));
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < cellCount; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        this.items = new int[count];
+        int[] fill = new int[cellCount];
+        for (int k = 0; k < count; k++) {
+            int i = order == null ? k : order[k];
+            int c = cellOf[i];
+            items[cellStart[c] + fill[c]++] = i; // 셀 안에서는 order 순서
+        }
+    }
+
+    public int cellX(double x) {
+        return clamp((int) Math.floor((x - minX) / cellSize), columns);
+    }
+
+    public int cellY(double y) {
+        return clamp((int) Math.floor((y - minY) / cellSize), rows);
+    }
+
+    private static int clamp(int v, int limit) {
+        return v < 0 ? 0 : (v >= limit ? limit - 1 : v);
+    }
+
+    private int cellIndex(int cx, int cy) {
+        return cy * columns + cx;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * (cx, cy) 셀에 속한 원소 i와, 같은 셀 또는 인접 8개 셀에 속한 원소 j(j > i)로 이루어진 후보 쌍을 방문합니다.
+     * 모든 셀에 대해 호출하면 겹칠 수 있는 모든 쌍이 정확히 한 번씩 방문됩니다. (셀 안의 원소 순서와 관계없음)
+     */
+    public void forEachCandidatePair(int cx, int cy, PairVisitor visitor) {
+        int cell = cellIndex(cx, cy);
+        for (int a = cellStart[cell]; a < cellStart[cell + 1]; a++) {
+            int i = items[a];
+            for (int ny = Math.max(0, cy - 1); ny <= Math.min(rows - 1, cy + 1); ny++) {
+                for (int nx = Math.max(0, cx - 1); nx <= Math.min(columns - 1, cx + 1); nx++) {
+                    int neighbor = cellIndex(nx, ny);
+                    for (int b = cellStart[neighbor]; b < cellStart[neighbor + 1]; b++) {
+                        int j = items[b];
+                        if (j > i) {
+                            visitor.visit(i, j);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // 모든 셀의 후보 쌍을 방문합니다.
+    public void forEachCandidatePair(PairVisitor visitor) {
+        for (int cy = 0; cy < rows; cy++) {
+            for (int cx = 0; cx < columns; cx++) {
+                forEachCandidatePair(cx, cy, visitor);
+            }
+        }
+    }
+
+    // (cx, cy) 셀에 속한 원소 인덱스를 방문합니다.
+    public void forEachInCell(int cx, int cy, IntConsumer consumer) {
+        int cell = cellIndex(cx, cy);
+        for (int a = cellStart[cell]; a < cellStart[cell + 1]; a++) {
+            consumer.accept(items[a]);
+        }
+    }
+
+    /**
+     * 중심이 [fromX, toX] x [fromY, toY] 영역에 놓일 수 있는 셀의 원소 인덱스를 방문합니다.
+     * 셀 단위로 고르므로 영역 밖의 원소도 포함될 수 있으며, 경계원이 영역에 닿는 원소를 모두 찾으려면 영역을 가장 큰 반지름만큼 넓혀 호출합니다.
+     */
+    public void forEachInRange(double fromX, double fromY, double toX, double toY, IntConsumer consumer) {
+        int fromCx = cellX(fromX);
+        int toCx = cellX(toX);
+        for (int cy = cellY(fromY); cy <= cellY(toY); cy++) {
+            // 한 행의 연속한 셀은 items에서도 연속
+            for (int a = cellStart[cellIndex(fromCx, cy)]; a < cellStart[cellIndex(toCx, cy) + 1]; a++) {
+                consumer.accept(items[a]);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package knu.lsy.shapes;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * 도형 인덱스(0 ~ n-1)를 원소로 사용하는 배열 기반 Union-Find.
+ * 경로 절반화(path halving)와 랭크 기반 합치기를 적용하며, 문자열 ID 맵을 사용하는 방식보다 메모리와 해시 비용이 적습니다.
+ * 부모/랭크 배열은 힙 또는 오프힙(DirectBufferPool)에 둘 수 있으며, 오프힙이면 close로 버퍼를 풀에 반납합니다.
+ */
+public class UnionFind implements AutoCloseable {
+    private final IntBuffer parent;
+    private final ByteBuffer rank;
+    private final ByteBuffer offHeapParent; // 오프힙 사용 시 풀에서 빌려온 버퍼 (힙이면 null)
+    private int setCount;
+    private boolean closed; // 두 번 닫아도 버퍼를 한 번만 반납하도록
+
+    public UnionFind(int size) {
+        this(size, false);
+    }
+
+    /**
+     * @param size 원소 수
+     * @param offHeap true이면 부모/랭크 배열을 오프힙에 할당
+     */
+    public UnionFind(int size, boolean offHeap) {
+        if (offHeap) {
+            offHeapParent = DirectBufferPool.acquire(5L * size);
+            parent = offHeapParent.slice(0, 4 * size).order(offHeapParent.order()).asIntBuffer();
+            rank = offHeapParent.slice(4 * size, size);
+            for (int i = 0; i < size; i++) {
+                rank.put(i, (byte) 0);
+            }
+        } else {
+            offHeapParent = null;
+            parent = IntBuffer.allocate(size);
+            rank = ByteBuffer.allocate(size);
+        }
+        for (int i = 0; i < size; i++) {
+            parent.put(i, i); // 처음에는 자기 자신이 대표 원소
+        }
+        setCount = size;
+    }
+
+    // x가 속한 집합의 대표 원소를 찾습니다. (탐색 경로의 노드를 조부모로 연결하여 경로를 절반씩 압축)
+    public int find(int x) {
+        int p;
+        while ((p = parent.get(x)) != x) {
+            int grandparent = parent.get(p);
+            parent.put(x, grandparent);
+            x = grandparent;
+        }
+        return x;
+    }
+
+    /**
+     * 두 원소가 속한 집합을 합칩니다.
+     *
+     * @return 서로 다른 집합이 합쳐졌으면 true, 이미 같은 집합이었으면 false
+     */
+    public boolean union(int x, int y) {
+        int rootX = find(x);
+        int rootY = find(y);
+        if (rootX == rootY) {
+            return false;
+        }
+        byte rankX = rank.get(rootX);
+        byte rankY = rank.get(rootY);
+        if (rankX < rankY) {
+            parent.put(rootX, rootY);
+        } else if (rankX > rankY) {
+            parent.put(rootY, rootX);
+        } else {
+            parent.put(rootY, rootX);
+            rank.put(rootX, (byte) (rankX + 1));
+        }
+        setCount--;
+        return true;
+    }
+
+    public boolean connected(int x, int y) {
+        return find(x) == find(y);
+    }
+
+    public int size() {
+        return parent.capacity();
+    }
+
+    // 현재 서로소 집합의 개수
+    public int getSetCount() {
+        return setCount;
+    }
+
+    // 오프힙 버퍼를 풀에 반납합니다. (힙이거나 이미 닫았으면 아무 일도 하지 않음) 반납 후에는 사용할 수 없습니다.
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (offHeapParent != null) {
+            DirectBufferPool.release(offHeapParent);
+        }
+    }
+}
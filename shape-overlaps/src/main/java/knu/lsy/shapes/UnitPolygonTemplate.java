@@ -0,0 +1,67 @@
+package knu.lsy.shapes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 변의 수별 단위 정다각형 템플릿 (중심 원점, 반지름 1, 회전 0).
+ * 정다각형의 모양은 변의 수로만 결정되므로, 정점의 cos/sin 값과 중복을 제거한 단위 변 법선(분리 축)을
+ * 변의 수마다 한 번만 계산하여 모든 RegularPolygon이 공유합니다.
+ * 각 도형의 정점과 분리 축은 템플릿에 회전, 확대, 이동을 적용하여 만들므로 도형마다 삼각함수를 2번만 호출합니다.
+ */
+final class UnitPolygonTemplate {
+    // 캐시할 최대 변의 수 (MaxEdges가 매우 큰 요청이 캐시를 무한히 키우지 않도록 제한)
+    static final int MAX_CACHED_SIDES = 1024;
+
+    private static final ConcurrentHashMap<Integer, UnitPolygonTemplate> CACHE = new ConcurrentHashMap<>();
+
+    private final PackedPolygon unit;
+
+    private UnitPolygonTemplate(int sides) {
+        List<Point> points = new ArrayList<>(sides);
+        double angleStep = 2 * Math.PI / sides;
+        for (int i = 0; i < sides; i++) {
+            double angle = angleStep * i;
+            points.add(new Point(Math.cos(angle), Math.sin(angle)));
+        }
+        this.unit = PackedPolygon.of(points);
+    }
+
+    // 변의 수에 해당하는 템플릿 (MAX_CACHED_SIDES 이하는 캐시에서 공유)
+    static UnitPolygonTemplate of(int sides) {
+        if (sides > MAX_CACHED_SIDES) {
+            return new UnitPolygonTemplate(sides);
+        }
+        return CACHE.computeIfAbsent(sides, UnitPolygonTemplate::new);
+    }
+
+    /**
+     * 템플릿을 rotationAngle만큼 회전하고 radius배 확대한 뒤 (centerX, centerY)로 이동한 압축 표현을 만듭니다.
+     * 분리 축은 회전만 적용하면 되므로(단위 벡터 유지) 정규화와 중복 검사를 다시 하지 않습니다.
+     */
+    PackedPolygon place(double centerX, double centerY, double radius, double rotationAngle) {
+        double cos = Math.cos(rotationAngle);
+        double sin = Math.sin(rotationAngle);
+
+        int n = unit.vertexCount;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            double x = unit.xs[i];
+            double y = unit.ys[i];
+            xs[i] = centerX + radius * (x * cos - y * sin);
+            ys[i] = centerY + radius * (x * sin + y * cos);
+        }
+
+        // 패딩 칸은 첫 번째 축의 복사본이므로 회전 후에도 첫 번째 축과 같음
+        int padded = unit.axisX.length;
+        double[] axisX = new double[padded];
+        double[] axisY = new double[padded];
+        for (int i = 0; i < padded; i++) {
+            axisX[i] = unit.axisX[i] * cos - unit.axisY[i] * sin;
+            axisY[i] = unit.axisX[i] * sin + unit.axisY[i] * cos;
+        }
+        return new PackedPolygon(xs, ys, axisX, axisY, unit.axisCount);
+    }
+}
@@ -9,6 +9,7 @@ class ShapeVisualizer {
 
         // 이벤트 리스너 설정
         document.getElementById('generateBtn').addEventListener('click', () => this.generateShapes());
+        document.getElementById('streamBtn').addEventListener('click', () => this.streamShapes());
         document.getElementById('showJsonBtn').addEventListener('click', () => this.showJsonModal());
         window.addEventListener('resize', () => this.updateCanvasSize());
 
@@ -46,13 +47,13 @@ class ShapeVisualizer {
         }
     }
 
-    async generateShapes() {
+    createRequestParams() {
         const radius = document.getElementById('radius').value;
         const count = document.getElementById('count').value;
         const edges = document.getElementById('edges').value;
 
         // API 요청 URL 생성
-        const params = new URLSearchParams({
+        return new URLSearchParams({
             Action: 'ShapesOverlaps',
             Width: this.canvas.width,
             Height: this.canvas.height,
@@ -60,6 +61,10 @@ class ShapeVisualizer {
             HowMany: count,
             MaxEdges: edges
         });
+    }
+
+    async generateShapes() {
+        const params = this.createRequestParams();
 
         try {
             // 로딩 표시
@@ -97,6 +102,74 @@ class ShapeVisualizer {
         }
     }
 
+    // SSE 스트림으로 도형을 받아 도착하는 대로 그리고, 최종 그룹이 오면 색상을 적용하여 다시 그림
+    streamShapes() {
+        if (this.eventSource) {
+            this.eventSource.close();
+        }
+
+        const shapes = [];
+        const shapesById = new Map();
+        this.ctx.clearRect(0, 0, this.canvas.width, this.canvas.height);
+        this.ctx.fillStyle = '#ffffff';
+        this.ctx.fillRect(0, 0, this.canvas.width, this.canvas.height);
+
+        const source = new EventSource(`/api/stream?${this.createRequestParams().toString()}`);
+        this.eventSource = source;
+
+        // 도형 묶음: 도착하는 즉시 그리기
+        source.addEventListener('shapes', (e) => {
+            const data = JSON.parse(e.data);
+            for (const shape of data.shapes) {
+                shapes.push(shape);
+                shapesById.set(shape.id, shape);
+                this.drawShape(shape);
+            }
+        });
+
+        // 잠정 그룹: 같은 그룹의 도형을 임시 색(회색)으로 다시 그리기
+        source.addEventListener('groups', (e) => {
+            const data = JSON.parse(e.data);
+            for (const group of data.groups) {
+                for (const id of group.shapeIds) {
+                    const shape = shapesById.get(id);
+                    if (shape) {
+                        shape.color = '#bdc3c7';
+                        this.drawShape(shape);
+                    }
+                }
+            }
+        });
+
+        // 최종 그룹: 그룹 색상을 적용하여 전체를 다시 그리기
+        source.addEventListener('final', (e) => {
+            const data = JSON.parse(e.data);
+            for (const group of data.overlapGroups) {
+                for (const id of group.shapeIds) {
+                    const shape = shapesById.get(id);
+                    if (shape) {
+                        shape.color = group.color;
+                    }
+                }
+            }
+            this.currentShapes = { shapes, totalCount: data.totalCount, overlapGroups: data.overlapGroups };
+            this.currentResponseData = this.currentShapes;
+            this.drawShapes(this.currentShapes);
+            this.updateStats(this.currentShapes);
+            this.jsonDataElement.textContent = JSON.stringify(this.currentShapes, null, 2);
+            source.close();
+        });
+
+        source.addEventListener('error', (e) => {
+            if (e.data) {
+                this.showError('오류 발생: ' + JSON.parse(e.data).MESSAGE);
+            } else if (source.readyState !== EventSource.CLOSED) {
+                this.showError('서버와 통신 중 오류가 발생했습니다.');
+            }
+            source.close();
+        });
+    }
+
     showError(message) {
         this.ctx.fillStyle = '#ffffff';
         this.ctx.fillRect(0, 0, this.canvas.width, this.canvas.height);
@@ -131,7 +204,8 @@ class ShapeVisualizer {
 
         if (shape.type === 'circle') {
             this.drawCircle(shape);
-        } else if (shape.type === 'regularPolygon' || shape.type === 'irregularPolygon') {
+        } else if (shape.type === 'regularPolygon' || shape.type === 'irregularPolygon' ||
+                   shape.type === 'concavePolygon') {
             this.drawPolygon(shape);
         }
 
@@ -192,7 +266,8 @@ class ShapeVisualizer {
         const typeCount = {
             circle: 0,
             regularPolygon: 0,
-            irregularPolygon: 0
+            irregularPolygon: 0,
+            concavePolygon: 0
         };
 
         shapes.forEach(shape => {
@@ -219,6 +294,9 @@ class ShapeVisualizer {
             <div class="stat-item">
                 <strong>Irregular Polygons:</strong> ${typeCount.irregularPolygon} (${(typeCount.irregularPolygon/totalCount*100).toFixed(1)}%)
             </div>
+            <div class="stat-item">
+                <strong>Concave Polygons:</strong> ${typeCount.concavePolygon} (${(typeCount.concavePolygon/totalCount*100).toFixed(1)}%)
+            </div>
             <div class="stat-item">
                 <strong>Overlap Groups:</strong> ${overlapGroups.length}
             </div>
@@ -0,0 +1,56 @@
+package knu.lsy.shapes;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * jdk.incubator.vector를 사용하여 여러 분리 축을 한 번에 처리하는 커널.
+ * 벡터의 각 레인이 축 하나를 맡고, 정점 좌표를 모든 레인에 브로드캐스트하여 내적과 최소/최대를 레인별로 누적하므로
+ * 축 방향 수평 축소(reduction)가 필요 없습니다.
+ * 곱셈과 덧셈을 FMA로 합치지 않으므로 투영값은 스칼라 커널과 비트 단위로 같습니다.
+ *
+ * 이 클래스는 jdk.incubator.vector 모듈이 로드된 경우에만 ProjectionKernels가 이름으로 찾아 사용합니다.
+ * (모듈 없이 클래스를 로드하면 NoClassDefFoundError가 발생하므로 다른 클래스에서 직접 참조하지 마세요)
+ * 인큐베이터 모듈을 쓰는 컴파일은 항상 경고를 내므로 별도 소스 세트(vectorKernel)에 두며, -PvectorKernel 빌드에만 포함됩니다.
+ */
+final class VectorProjectionKernel implements ProjectionKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public boolean overlapsOnAxes(PackedPolygon axesOf, PackedPolygon a, PackedPolygon b) {
+        // 축 배열은 PackedPolygon.AXIS_PADDING(8레인) 배수로 채워져 있지만, 선호 벡터가 그보다 넓은 하드웨어(SVE 등)에서도
+        // 배열 밖을 읽지 않도록 배열 길이 기준 마스크로 읽음 (꺼진 레인은 0 축이라 투영이 모두 0이므로 분리로 판정되지 않음)
+        for (int i = 0; i < axesOf.axisCount; i += SPECIES.length()) {
+            VectorMask<Double> inRange = SPECIES.indexInRange(i, axesOf.axisX.length);
+            DoubleVector axisX = DoubleVector.fromArray(SPECIES, axesOf.axisX, i, inRange);
+            DoubleVector axisY = DoubleVector.fromArray(SPECIES, axesOf.axisY, i, inRange);
+
+            DoubleVector minA = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+            DoubleVector maxA = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+            for (int k = 0; k < a.vertexCount; k++) {
+                DoubleVector projection = axisX.mul(a.xs[k]).add(axisY.mul(a.ys[k]));
+                minA = minA.min(projection);
+                maxA = maxA.max(projection);
+            }
+            DoubleVector minB = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+            DoubleVector maxB = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+            for (int k = 0; k < b.vertexCount; k++) {
+                DoubleVector projection = axisX.mul(b.xs[k]).add(axisY.mul(b.ys[k]));
+                minB = minB.min(projection);
+                maxB = maxB.max(projection);
+            }
+
+            VectorMask<Double> separated = maxB.lt(minA).or(maxA.lt(minB)).and(inRange);
+            if (separated.anyTrue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "vector(" + SPECIES.length() + "x" + SPECIES.elementSize() + "bit)";
+    }
+}